@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates measurements of a cluster for the benchmarks. Instances are spread evenly over
+ * {@link #COMPONENTS} components and report every metric once per checkpoint, with uniformly distributed values
+ * between 0 and 100.
+ */
+public final class BenchmarkData {
+  public static final Instant START = Instant.parse("2018-01-08T01:35:36.934Z");
+  public static final Duration INTERVAL = Duration.ofMinutes(1);
+  public static final int COMPONENTS = 10;
+
+  private BenchmarkData() {
+  }
+
+  public static String component(int instance) {
+    return "Component" + instance % COMPONENTS;
+  }
+
+  public static String metric(int metric) {
+    return "Metric" + metric;
+  }
+
+  public static List<String> metrics(int metrics) {
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < metrics; i++) {
+      names.add(metric(i));
+    }
+    return names;
+  }
+
+  /**
+   * @return time of the n-th checkpoint
+   */
+  public static Instant checkpoint(int n) {
+    return START.plus(INTERVAL.multipliedBy(n));
+  }
+
+  /**
+   * @return one measurement per instance and metric at the given time
+   */
+  public static List<Measurement> measurements(int instances, int metrics, Instant instant, Random random) {
+    List<Measurement> result = new ArrayList<>(instances * metrics);
+    for (int i = 0; i < instances; i++) {
+      String component = component(i);
+      String instance = String.valueOf(i);
+      for (int m = 0; m < metrics; m++) {
+        result.add(new Measurement(component, instance, metric(m), instant, random.nextDouble() * 100));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return measurements of the first <code>history</code> checkpoints, one list per checkpoint
+   */
+  public static List<List<Measurement>> history(int instances, int metrics, int history, Random random) {
+    List<List<Measurement>> result = new ArrayList<>();
+    for (int n = 0; n < history; n++) {
+      result.add(measurements(instances, metrics, checkpoint(n), random));
+    }
+    return result;
+  }
+
+  /**
+   * @return configuration of the threshold detectors of all metrics
+   */
+  public static PolicyConfig thresholds(int metrics, double low, double high, int checkpoints) {
+    return thresholds(metrics(metrics), low, high, checkpoints);
+  }
+
+  /**
+   * @return configuration of the threshold detectors of the given metrics
+   */
+  public static PolicyConfig thresholds(Collection<String> metrics, double low, double high, int checkpoints) {
+    Map<String, Object> conf = new HashMap<>();
+    for (String metric : metrics) {
+      conf.put("AboveThresholdDetector.threshold_" + metric, high);
+      conf.put("AboveThresholdDetector.noCheckpoints_" + metric, (double) checkpoints);
+      conf.put("BelowThresholdDetector.threshold_" + metric, low);
+      conf.put("BelowThresholdDetector.noCheckpoints_" + metric, (double) checkpoints);
+    }
+    return new PolicyConfig("benchmark", conf);
+  }
+}
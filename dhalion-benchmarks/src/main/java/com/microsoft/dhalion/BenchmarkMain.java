@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with the JMH command line, writing the results to <code>jmh-result.json</code> unless a result
+ * format is given, so results can be collected and compared across releases.
+ */
+public final class BenchmarkMain {
+  private BenchmarkMain() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    List<String> arguments = new ArrayList<>(Arrays.asList(args));
+    if (!arguments.contains("-rf")) {
+      arguments.add("-rf");
+      arguments.add("json");
+    }
+    Main.main(arguments.toArray(new String[0]));
+  }
+}
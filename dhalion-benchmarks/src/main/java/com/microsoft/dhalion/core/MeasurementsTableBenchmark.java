@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.core;
+
+import com.microsoft.dhalion.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link MeasurementsTable} operations on a table holding <code>history</code> checkpoints of
+ * <code>metrics</code> measurements for each of <code>instances</code> instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeasurementsTableBenchmark {
+  @Param({"100", "1000"})
+  public int instances;
+
+  @Param({"2", "10"})
+  public int metrics;
+
+  @Param({"10", "30"})
+  public int history;
+
+  private final Random random = new Random(1);
+  private MeasurementsTable.Builder builder;
+  private MeasurementsTable table;
+  private int next;
+
+  @Setup
+  public void setup() {
+    builder = new MeasurementsTable.Builder();
+    for (List<Measurement> checkpoint : BenchmarkData.history(instances, metrics, history, random)) {
+      builder.addAll(checkpoint);
+    }
+    table = builder.get();
+    next = history;
+  }
+
+  /**
+   * Appends the measurements of the next checkpoint and expires the oldest one, keeping the table size constant.
+   */
+  @Benchmark
+  public MeasurementsTable appendAndExpire() {
+    Instant checkpoint = BenchmarkData.checkpoint(next);
+    builder.addAll(BenchmarkData.measurements(instances, metrics, checkpoint, random));
+    next++;
+    builder.expireBefore(BenchmarkData.checkpoint(next - history));
+    return builder.get();
+  }
+
+  @Benchmark
+  public MeasurementsTable expire() {
+    return table.expire(BenchmarkData.checkpoint(history / 2));
+  }
+
+  /**
+   * The filter chain used by the threshold detectors for a single instance.
+   */
+  @Benchmark
+  public MeasurementsTable filterInstance() {
+    return table.type(BenchmarkData.metric(0))
+                .component(BenchmarkData.component(1))
+                .instance("1")
+                .sort(false, MeasurementsTable.SortKey.TIME_STAMP)
+                .last(3);
+  }
+
+  @Benchmark
+  public MeasurementsTable filterWindow() {
+    return table.type(BenchmarkData.metric(0))
+                .between(BenchmarkData.checkpoint(history - 3), BenchmarkData.checkpoint(history - 1))
+                .valueBetween(90, Double.MAX_VALUE);
+  }
+
+  @Benchmark
+  public void aggregate(Blackhole blackhole) {
+    MeasurementsTable metric = table.type(BenchmarkData.metric(0));
+    blackhole.consume(metric.mean());
+    blackhole.consume(metric.max());
+    blackhole.consume(metric.median());
+  }
+
+  @Benchmark
+  public void uniqueInstances(Blackhole blackhole) {
+    for (String component : table.uniqueComponents()) {
+      blackhole.consume(table.component(component).uniqueInstances());
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.core;
+
+import com.microsoft.dhalion.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link OutcomeTable} operations, through {@link SymptomsTable}, on a table holding <code>history</code>
+ * checkpoints of one symptom per metric, each assigned to a tenth of the instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SymptomsTableBenchmark {
+  @Param({"100", "1000"})
+  public int instances;
+
+  @Param({"2", "10"})
+  public int metrics;
+
+  @Param({"10", "30"})
+  public int history;
+
+  private SymptomsTable.Builder builder;
+  private SymptomsTable table;
+  private int next;
+
+  @Setup
+  public void setup() {
+    builder = new SymptomsTable.Builder();
+    for (int n = 0; n < history; n++) {
+      builder.addAll(symptoms(n));
+    }
+    table = builder.get();
+    next = history;
+  }
+
+  private List<Symptom> symptoms(int checkpoint) {
+    List<Symptom> symptoms = new ArrayList<>();
+    for (int m = 0; m < metrics; m++) {
+      List<String> assignments = new ArrayList<>();
+      for (int i = checkpoint % 10; i < instances; i += 10) {
+        assignments.add(String.valueOf(i));
+      }
+      symptoms.add(new Symptom("Symptom_" + BenchmarkData.metric(m), BenchmarkData.checkpoint(checkpoint), assignments));
+    }
+    return symptoms;
+  }
+
+  @Benchmark
+  public SymptomsTable appendAndExpire() {
+    builder.addAll(symptoms(next));
+    next++;
+    builder.expireBefore(BenchmarkData.checkpoint(next - history));
+    return builder.get();
+  }
+
+  @Benchmark
+  public SymptomsTable filterType() {
+    return table.type("Symptom_" + BenchmarkData.metric(0)).between(BenchmarkData.checkpoint(history - 3),
+                                                                   BenchmarkData.checkpoint(history - 1));
+  }
+
+  @Benchmark
+  public SymptomsTable filterAssignment() {
+    return table.assignment(Collections.singletonList("1")).sort(true, OutcomeTable.SortKey.TIME_STAMP).last(1);
+  }
+}
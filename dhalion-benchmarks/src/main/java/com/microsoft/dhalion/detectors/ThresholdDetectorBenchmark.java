@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.BenchmarkData;
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.policy.BenchmarkContexts;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a detection by {@link AboveThresholdDetector} and {@link BelowThresholdDetector} of a single metric, with
+ * the measurement history held by the execution context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThresholdDetectorBenchmark {
+  @Param({"100", "1000"})
+  public int instances;
+
+  @Param({"2", "10"})
+  public int metrics;
+
+  @Param({"10", "30"})
+  public int history;
+
+  @Param({"1", "3"})
+  public int checkpoints;
+
+  private List<Measurement> latest;
+  private AboveThresholdDetector above;
+  private BelowThresholdDetector below;
+
+  @Setup
+  public void setup() {
+    List<List<Measurement>> data = BenchmarkData.history(instances, metrics, history, new Random(1));
+    latest = data.get(history - 1);
+    ExecutionContext context = BenchmarkContexts.withHistory(data, BenchmarkData.START, BenchmarkData.INTERVAL);
+
+    PolicyConfig conf = BenchmarkData.thresholds(metrics, 10, 90, checkpoints);
+    above = new AboveThresholdDetector(conf, BenchmarkData.metric(0));
+    above.initialize(context);
+    below = new BelowThresholdDetector(conf, BenchmarkData.metric(0));
+    below.initialize(context);
+  }
+
+  @Benchmark
+  public Collection<Symptom> aboveThreshold() {
+    return above.detect(latest);
+  }
+
+  @Benchmark
+  public Collection<Symptom> belowThreshold() {
+    return below.detect(latest);
+  }
+}
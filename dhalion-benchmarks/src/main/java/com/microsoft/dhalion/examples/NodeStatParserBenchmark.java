@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the regular expression based {@link NodeStat} with the byte level {@link NodeStatParser}. Each invocation
+ * extracts the memory and cpu measurements of all lines of a generated data file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeStatParserBenchmark {
+  private static final byte[] NODE_A = "NodeA".getBytes(StandardCharsets.US_ASCII);
+
+  @Param({"1000"})
+  public int lines;
+
+  private String[] text;
+  private ByteBuffer buffer;
+  private int[] lineEnds;
+
+  private final NodeStat nodeStat = new NodeStat();
+  private final NodeStatParser parser = new NodeStatParser();
+  private final Set<String> components = Collections.singleton("NodeA");
+
+  @Setup
+  public void setup() {
+    Random random = new Random(1);
+    Instant time = Instant.parse("2018-01-08T01:35:36.934Z");
+    StringBuilder file = new StringBuilder();
+    text = new String[lines];
+    lineEnds = new int[lines];
+    for (int i = 0; i < lines; i++) {
+      text[i] = String.format("Node%s[%d]:Mem=%dMB,Cpu=%d%%,Time=%s",
+                              i % 2 == 0 ? "A" : "B",
+                              i % 100,
+                              random.nextInt(1024),
+                              random.nextInt(100),
+                              time.plusSeconds(i / 100 * 60));
+      file.append(text[i]);
+      lineEnds[i] = file.length();
+    }
+    buffer = ByteBuffer.wrap(file.toString().getBytes(StandardCharsets.US_ASCII));
+  }
+
+  @Benchmark
+  public void regex(Blackhole blackhole) {
+    for (String line : text) {
+      nodeStat.getMeasurement(line, NodeStat.MEMORY_UTILIZATION, components).ifPresent(blackhole::consume);
+      nodeStat.getMeasurement(line, NodeStat.CPU_UTILIZATION, components).ifPresent(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void bytes(Blackhole blackhole) {
+    int start = 0;
+    for (int end : lineEnds) {
+      if (parser.parse(buffer, start, end) && parser.nodeEquals(NODE_A)) {
+        blackhole.consume(parser.id());
+        blackhole.consume(parser.memory());
+        blackhole.consume(parser.cpu());
+        blackhole.consume(parser.epochSecond());
+        blackhole.consume(parser.nanos());
+      }
+      start = end;
+    }
+  }
+
+  @Benchmark
+  public void bytesToMeasurements(Blackhole blackhole) {
+    int start = 0;
+    for (int end : lineEnds) {
+      if (parser.parse(buffer, start, end) && parser.nodeEquals(NODE_A)) {
+        String id = String.valueOf(parser.id());
+        Instant instant = parser.instant();
+        blackhole.consume(new com.microsoft.dhalion.core.Measurement(
+            "NodeA", id, NodeStat.MEMORY_UTILIZATION, instant, parser.memory()));
+        blackhole.consume(new com.microsoft.dhalion.core.Measurement(
+            "NodeA", id, NodeStat.CPU_UTILIZATION, instant, parser.cpu()));
+      }
+      start = end;
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.policy;
+
+import com.microsoft.dhalion.api.ISensor;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Creates {@link ExecutionContext}s holding a measurement history, for benchmarking the plugins of a policy in
+ * isolation.
+ */
+public final class BenchmarkContexts {
+  private BenchmarkContexts() {
+  }
+
+  /**
+   * Executes a policy cycle per checkpoint, at the given start time and interval, whose sensor returns the
+   * measurements of the checkpoint.
+   *
+   * @return the context of the policy after the last cycle
+   */
+  public static ExecutionContext withHistory(List<? extends Collection<Measurement>> checkpoints,
+                                             Instant start,
+                                             Duration interval) {
+    Iterator<? extends Collection<Measurement>> iterator = checkpoints.iterator();
+    ExecutionContext[] context = new ExecutionContext[1];
+    HealthPolicyImpl policy = new HealthPolicyImpl() {
+      @Override
+      public void initialize(ExecutionContext ctx) {
+        super.initialize(ctx);
+        context[0] = ctx;
+      }
+    };
+    policy.registerSensors(new ISensor() {
+      @Override
+      public Collection<Measurement> fetch() {
+        return iterator.next();
+      }
+    });
+    policy.setPolicyExecutionInterval(interval);
+
+    VirtualClock clock = new VirtualClock(start);
+    PoliciesExecutor executor = new PoliciesExecutor(Collections.singletonList(policy), clock);
+    for (int i = 0; i < checkpoints.size(); i++) {
+      executor.executeCycle();
+      clock.advance(interval);
+    }
+    return context[0];
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.policy;
+
+import com.microsoft.dhalion.BenchmarkData;
+import com.microsoft.dhalion.conf.Config;
+import com.microsoft.dhalion.conf.ConfigBuilder;
+import com.microsoft.dhalion.conf.Key;
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Action;
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.detectors.AboveThresholdDetector;
+import com.microsoft.dhalion.detectors.BelowThresholdDetector;
+import com.microsoft.dhalion.examples.AlertResolver;
+import com.microsoft.dhalion.examples.MetricName;
+import com.microsoft.dhalion.examples.SyntheticMetricsProvider;
+import com.microsoft.dhalion.examples.UncommonUtilizationDiagnoser;
+import com.microsoft.dhalion.sensors.BasicSensor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs policy cycles of an {@link com.microsoft.dhalion.examples.AlertPolicy} like policy against a
+ * {@link SyntheticMetricsProvider} cluster, and reports the latency percentiles of each policy stage, the heap usage
+ * and the allocation rate. The policy has a sensor, an above and a below threshold detector per metric, the uncommon
+ * utilization diagnoser and the alert resolver. Cycles run back to back on a virtual clock.
+ * <p>
+ * Usage: <code>CycleHarness [instances] [metrics] [cycles] [warmup cycles]</code>, by default 10000 instances, 50
+ * metrics, 20 cycles after 5 warmup cycles. Instances are spread over {@link BenchmarkData#COMPONENTS} components and
+ * 5% of them are hot.
+ */
+public final class CycleHarness {
+  private static final String[] STAGES = {"sensors", "detectors", "diagnosers", "resolvers", "cycle"};
+  private static final int SENSORS = 0;
+  private static final int DETECTORS = 1;
+  private static final int DIAGNOSERS = 2;
+  private static final int RESOLVERS = 3;
+  private static final int CYCLE = 4;
+
+  private final long[][] latencies;
+  private int cycle = -1;
+
+  private CycleHarness(int cycles) {
+    latencies = new long[STAGES.length][cycles];
+  }
+
+  public static void main(String[] args) {
+    int instances = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    int metrics = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+    int cycles = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+    int warmup = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+    // the measured stages should not be dominated by console logging
+    Logger root = Logger.getLogger("");
+    root.setLevel(Level.WARNING);
+    Arrays.stream(root.getHandlers()).forEach(handler -> handler.setLevel(Level.WARNING));
+
+    new CycleHarness(cycles).run(instances, metrics, cycles, warmup);
+  }
+
+  private void run(int instances, int metrics, int cycles, int warmup) {
+    List<String> metricNames = new ArrayList<>();
+    metricNames.add(MetricName.METRIC_CPU.text());
+    metricNames.add(MetricName.METRIC_MEMORY.text());
+    for (int i = metricNames.size(); i < metrics; i++) {
+      metricNames.add(BenchmarkData.metric(i));
+    }
+    metricNames = metricNames.subList(0, metrics);
+
+    StringJoiner components = new StringJoiner(",");
+    for (int i = 0; i < BenchmarkData.COMPONENTS; i++) {
+      components.add(BenchmarkData.component(i));
+    }
+    Config config = new ConfigBuilder("")
+        .put(Key.CONF_COMPONENT_NAMES, components.toString())
+        .put(SyntheticMetricsProvider.CONF_START, BenchmarkData.START.toString())
+        .put(SyntheticMetricsProvider.CONF_INSTANCES, Math.max(1, instances / BenchmarkData.COMPONENTS))
+        .put(SyntheticMetricsProvider.CONF_HOT_FRACTION, 0.05)
+        .build();
+    SyntheticMetricsProvider provider = new SyntheticMetricsProvider(config);
+    PolicyConfig policyConfig = BenchmarkData.thresholds(metricNames, 20, 80, 1);
+
+    TimedPolicy policy = new TimedPolicy();
+    for (String metric : metricNames) {
+      policy.registerSensors(new BasicSensor(config, metric, provider));
+      policy.registerDetectors(new AboveThresholdDetector(policyConfig, metric),
+                               new BelowThresholdDetector(policyConfig, metric));
+    }
+    policy.registerDiagnosers(new UncommonUtilizationDiagnoser(policyConfig, config));
+    policy.registerResolvers(new AlertResolver());
+    policy.setPolicyExecutionInterval(BenchmarkData.INTERVAL);
+
+    VirtualClock clock = new VirtualClock(BenchmarkData.START);
+    PoliciesExecutor executor = new PoliciesExecutor(Collections.singletonList(policy), clock);
+    System.out.printf("Running %d warmup and %d measured cycles of %d instances and %d metrics%n",
+                      warmup, cycles, instances, metrics);
+    for (int i = 0; i < warmup; i++) {
+      executor.executeCycle();
+      clock.advance(BenchmarkData.INTERVAL);
+    }
+
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    long allocatedBefore = allocatedBytes(threads);
+    long maxHeap = 0;
+    long start = System.nanoTime();
+    for (cycle = 0; cycle < cycles; cycle++) {
+      long cycleStart = System.nanoTime();
+      executor.executeCycle();
+      latencies[CYCLE][cycle] = System.nanoTime() - cycleStart;
+      clock.advance(BenchmarkData.INTERVAL);
+      maxHeap = Math.max(maxHeap, memory.getHeapMemoryUsage().getUsed());
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = allocatedBytes(threads) - allocatedBefore;
+
+    System.out.printf("%-12s %12s %12s %12s %12s%n", "stage (ms)", "p50", "p90", "p99", "max");
+    for (int stage = 0; stage < STAGES.length; stage++) {
+      long[] sorted = latencies[stage].clone();
+      Arrays.sort(sorted);
+      System.out.printf("%-12s %12.2f %12.2f %12.2f %12.2f%n", STAGES[stage],
+                        percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                        millis(sorted[sorted.length - 1]));
+    }
+
+    System.gc();
+    System.out.printf("heap: max used %d MB, retained after gc %d MB%n",
+                      maxHeap >> 20, memory.getHeapMemoryUsage().getUsed() >> 20);
+    if (allocated >= 0) {
+      System.out.printf("allocation: %d MB per cycle, %.1f MB/s%n",
+                        (allocated / cycles) >> 20, (allocated >> 20) / (elapsed / 1e9));
+    } else {
+      System.out.println("allocation: not supported by this jvm");
+    }
+  }
+
+  private static long allocatedBytes(ThreadMXBean threads) {
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return Long.MIN_VALUE;
+  }
+
+  private static double percentile(long[] sorted, double percentile) {
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return millis(sorted[Math.max(0, index)]);
+  }
+
+  private static double millis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  private <T> T time(int stage, Supplier<T> supplier) {
+    long start = System.nanoTime();
+    T result = supplier.get();
+    if (cycle >= 0) {
+      latencies[stage][cycle] = System.nanoTime() - start;
+    }
+    return result;
+  }
+
+  private class TimedPolicy extends HealthPolicyImpl {
+    @Override
+    public Collection<Measurement> executeSensors() {
+      return time(SENSORS, super::executeSensors);
+    }
+
+    @Override
+    public Collection<Symptom> executeDetectors(Collection<Measurement> measurements) {
+      return time(DETECTORS, () -> super.executeDetectors(measurements));
+    }
+
+    @Override
+    public Collection<Diagnosis> executeDiagnosers(Collection<Symptom> symptoms) {
+      return time(DIAGNOSERS, () -> super.executeDiagnosers(symptoms));
+    }
+
+    @Override
+    public Collection<Action> executeResolvers(Collection<Diagnosis> diagnosis) {
+      return time(RESOLVERS, () -> super.executeResolvers(diagnosis));
+    }
+  }
+}
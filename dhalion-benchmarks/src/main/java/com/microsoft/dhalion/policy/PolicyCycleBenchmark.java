@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.policy;
+
+import com.microsoft.dhalion.BenchmarkData;
+import com.microsoft.dhalion.api.ISensor;
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.detectors.AboveThresholdDetector;
+import com.microsoft.dhalion.detectors.BelowThresholdDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Measures a complete policy cycle: a sensor producing a checkpoint of measurements and an above and a below
+ * threshold detector per metric. The history is warmed up to the 30 minutes retained by {@link PoliciesExecutor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyCycleBenchmark {
+  private static final int RETAINED_CHECKPOINTS = 30;
+
+  @Param({"100", "1000"})
+  public int instances;
+
+  @Param({"2", "10"})
+  public int metrics;
+
+  private final Random random = new Random(1);
+  // keeps the configured level, loggers are only weakly referenced
+  private final Logger executorLog = Logger.getLogger(PoliciesExecutor.class.getName());
+  private VirtualClock clock;
+  private PoliciesExecutor executor;
+
+  @Setup
+  public void setup() {
+    executorLog.setLevel(Level.WARNING);
+
+    HealthPolicyImpl policy = new HealthPolicyImpl();
+    policy.registerSensors(new ISensor() {
+      @Override
+      public Collection<Measurement> fetch() {
+        return BenchmarkData.measurements(instances, metrics, clock.now(), random);
+      }
+    });
+    PolicyConfig conf = BenchmarkData.thresholds(metrics, 10, 90, 3);
+    for (String metric : BenchmarkData.metrics(metrics)) {
+      policy.registerDetectors(new AboveThresholdDetector(conf, metric), new BelowThresholdDetector(conf, metric));
+    }
+    policy.setPolicyExecutionInterval(BenchmarkData.INTERVAL);
+
+    clock = new VirtualClock(BenchmarkData.START);
+    executor = new PoliciesExecutor(Collections.singletonList(policy), clock);
+    for (int i = 0; i < RETAINED_CHECKPOINTS; i++) {
+      cycle();
+    }
+  }
+
+  @Benchmark
+  public int cycle() {
+    int executed = executor.executeCycle();
+    clock.advance(BenchmarkData.INTERVAL);
+    return executed;
+  }
+}
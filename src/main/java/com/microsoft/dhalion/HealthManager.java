@@ -11,7 +11,15 @@ import com.microsoft.dhalion.conf.Config;
 import com.microsoft.dhalion.conf.ConfigBuilder;
 import com.microsoft.dhalion.conf.Key;
 import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.metrics.JmxMetricsReporter;
+import com.microsoft.dhalion.metrics.MetricsRegistry;
 import com.microsoft.dhalion.policy.PoliciesExecutor;
+import com.microsoft.dhalion.policy.ReplayExecutor;
+import com.microsoft.dhalion.replay.MeasurementFileReader;
+import com.microsoft.dhalion.replay.ReplayMetricsProvider;
+import com.microsoft.dhalion.tracing.OtlpJsonFileExporter;
+import com.microsoft.dhalion.tracing.Tracer;
+import com.microsoft.dhalion.wal.OutcomeLog;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -20,7 +28,10 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +50,7 @@ public class HealthManager {
   private Config config;
   private List<IHealthPolicy> healthPolicies = new ArrayList<>();
   private final MetricsProvider metricsProvider;
+  private final MetricsRegistry metrics = new MetricsRegistry();
 
   enum CliArgs {
     CONFIG_DIR("config_dir");
@@ -115,6 +127,7 @@ public class HealthManager {
     });
 
     metricsProvider = injector.getInstance(mpClass);
+    metricsProvider.initialize();
 
     injector = injector.createChildInjector(new AbstractModule() {
       @Override
@@ -150,18 +163,83 @@ public class HealthManager {
     };
   }
 
-  private void start() throws InterruptedException, ExecutionException {
+  private void start() throws InterruptedException, ExecutionException, IOException {
+    if (config.mode() == Config.HealthManagerMode.offline) {
+      replay();
+      return;
+    }
+
     LOG.info("Starting Health Manager");
-    PoliciesExecutor policyExecutor = new PoliciesExecutor(healthPolicies);
+    JmxMetricsReporter jmxReporter = new JmxMetricsReporter(metrics);
+    jmxReporter.start();
+    Tracer tracer = createTracer();
+    PoliciesExecutor policyExecutor = new PoliciesExecutor(healthPolicies, metrics, tracer);
+    OutcomeLog outcomeLog = createOutcomeLog(policyExecutor);
     ScheduledFuture<?> future = policyExecutor.start();
     try {
       future.get();
     } finally {
       policyExecutor.destroy();
+      if (outcomeLog != null) {
+        outcomeLog.close();
+      }
+      tracer.close();
+      jmxReporter.close();
       metricsProvider.close();
     }
   }
 
+  private void replay() throws IOException {
+    Instant start = config.replayStart();
+    Instant end = config.replayEnd();
+    if ((start == null || end == null) && metricsProvider instanceof ReplayMetricsProvider) {
+      // default to the time range of the recorded measurements
+      MeasurementFileReader reader = ((ReplayMetricsProvider) metricsProvider).getReader();
+      start = start == null ? reader.firstInstant() : start;
+      end = end == null ? reader.lastInstant() : end;
+    }
+    if (start == null || end == null) {
+      throw new IllegalStateException(String.format("%s and %s are required in offline mode",
+                                                    Key.REPLAY_START.value(), Key.REPLAY_END.value()));
+    }
+
+    LOG.info("Starting Health Manager in offline mode");
+    Tracer tracer = createTracer();
+    try {
+      new ReplayExecutor(healthPolicies, start, end, metrics, tracer).run();
+    } finally {
+      healthPolicies.forEach(IHealthPolicy::close);
+      tracer.close();
+      metricsProvider.close();
+    }
+  }
+
+  private Tracer createTracer() {
+    double sampleRate = config.tracingSampleRate();
+    if (sampleRate <= 0) {
+      return Tracer.NOOP;
+    }
+    LOG.info(String.format("Tracing %.0f%% of the policy cycles to %s", sampleRate * 100, config.tracingFile()));
+    OtlpJsonFileExporter exporter
+        = new OtlpJsonFileExporter(config.tracingFile(), config.tracingMaxFileBytes(), config.tracingMaxFiles());
+    return new Tracer(exporter, sampleRate);
+  }
+
+  /**
+   * Recovers the outcomes persisted before a restart, if a log directory is configured
+   */
+  private OutcomeLog createOutcomeLog(PoliciesExecutor policyExecutor) throws IOException {
+    Path directory = config.walDir();
+    if (directory == null) {
+      return null;
+    }
+    LOG.info(String.format("Persisting the policy outcomes to %s", directory));
+    OutcomeLog outcomeLog
+        = new OutcomeLog(directory, config.walSegmentBytes(), config.walFsync(), config.walFsyncInterval());
+    policyExecutor.recover(outcomeLog);
+    return outcomeLog;
+  }
+
   private static Options constructCliOptions() {
     Options options = new Options();
 
@@ -1,6 +1,13 @@
 package com.microsoft.dhalion.conf;
 
+import com.microsoft.dhalion.wal.OutcomeLog;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -28,6 +35,81 @@ public class Config {
     return HealthManagerMode.valueOf((String) get(Key.HEALTHMGR_MODE));
   }
 
+  /**
+   * @return the virtual time at which an offline replay starts, null if not configured
+   */
+  public Instant replayStart() {
+    return getInstant(Key.REPLAY_START);
+  }
+
+  /**
+   * @return the virtual time at which an offline replay ends, null if not configured
+   */
+  public Instant replayEnd() {
+    return getInstant(Key.REPLAY_END);
+  }
+
+  /**
+   * @return probability with which a policy cycle is traced, 0 disables tracing
+   */
+  public double tracingSampleRate() {
+    return ((Number) get(Key.TRACING_SAMPLE_RATE)).doubleValue();
+  }
+
+  /**
+   * @return file to which traces are written, relative to the working directory unless absolute
+   */
+  public Path tracingFile() {
+    return Paths.get(get(Key.TRACING_FILE).toString());
+  }
+
+  public long tracingMaxFileBytes() {
+    return ((Number) get(Key.TRACING_MAX_FILE_BYTES)).longValue();
+  }
+
+  public int tracingMaxFiles() {
+    return ((Number) get(Key.TRACING_MAX_FILES)).intValue();
+  }
+
+  /**
+   * @return directory of the write-ahead log of the policy outcomes, null if the outcomes are not persisted
+   */
+  public Path walDir() {
+    Object value = get(Key.WAL_DIR);
+    return value == null ? null : Paths.get(value.toString());
+  }
+
+  public long walSegmentBytes() {
+    return ((Number) get(Key.WAL_SEGMENT_BYTES)).longValue();
+  }
+
+  public OutcomeLog.Fsync walFsync() {
+    return OutcomeLog.Fsync.valueOf(get(Key.WAL_FSYNC).toString());
+  }
+
+  public Duration walFsyncInterval() {
+    return Duration.ofMillis(((Number) get(Key.WAL_FSYNC_INTERVAL_MS)).longValue());
+  }
+
+  private Instant getInstant(Key key) {
+    return toInstant(get(key));
+  }
+
+  /**
+   * @return the instant configured for the given name, null if not configured
+   */
+  public Instant getInstant(String name) {
+    return toInstant(get(name));
+  }
+
+  private static Instant toInstant(Object value) {
+    if (value == null) {
+      return null;
+    }
+    // yaml parses unquoted timestamps to dates
+    return value instanceof Date ? ((Date) value).toInstant() : Instant.parse(value.toString());
+  }
+
   private Object get(Key key) {
     return get(key, key.getDefault());
   }
@@ -7,6 +7,16 @@ public enum Key {
   HEALTHMGR_CONF("healthmgr.config.filename", "healthmgr.yaml"),
   POLICY_CONF("healthmgr.policy.conf.filename", "policyconf.yaml"),
   HEALTHMGR_MODE("healthmgr.mode", "online"),
+  REPLAY_START("healthmgr.replay.start"),
+  REPLAY_END("healthmgr.replay.end"),
+  TRACING_SAMPLE_RATE("healthmgr.tracing.sample.rate", 0.0),
+  TRACING_FILE("healthmgr.tracing.file", "traces.jsonl"),
+  TRACING_MAX_FILE_BYTES("healthmgr.tracing.max.file.bytes", 10 * 1024 * 1024),
+  TRACING_MAX_FILES("healthmgr.tracing.max.files", 5),
+  WAL_DIR("healthmgr.wal.dir"),
+  WAL_SEGMENT_BYTES("healthmgr.wal.segment.bytes", 16 * 1024 * 1024),
+  WAL_FSYNC("healthmgr.wal.fsync", "INTERVAL"),
+  WAL_FSYNC_INTERVAL_MS("healthmgr.wal.fsync.interval.ms", 1000),
 
   // health policy config keys
   POLICIES("health.policies"),
@@ -18,23 +18,59 @@ import java.util.Collections;
  */
 public class Action extends Outcome {
   private final Collection<Diagnosis> diagnosis = new ArrayList<>();
+  private final Status status;
+
+  /**
+   * The execution status of an {@link Action}. Actions executed within the policy cycle are
+   * {@link Status#SUCCEEDED} when they are returned by the resolver. Actions executed asynchronously are
+   * {@link Status#SUBMITTED} first, and their completion status is recorded later with the same id.
+   */
+  public enum Status {
+    SUBMITTED, SUCCEEDED, FAILED, REJECTED
+  }
 
   public Action(String type, Instant instant, Collection<String> assignments) {
     this(type, instant, assignments, null);
   }
 
   public Action(String type, Instant instant, Collection<String> assignments, Collection<Diagnosis> diagnosis) {
+    this(type, instant, assignments, diagnosis, Status.SUCCEEDED);
+  }
+
+  public Action(String type,
+                Instant instant,
+                Collection<String> assignments,
+                Collection<Diagnosis> diagnosis,
+                Status status) {
     super(type, instant, assignments);
     if (diagnosis != null) {
       this.diagnosis.addAll(diagnosis);
     }
+    this.status = status;
   }
 
   Action(int id, String type, Instant instant, Collection<String> assignments, Collection<Diagnosis> diagnosis) {
+    this(id, type, instant, assignments, diagnosis, Status.SUCCEEDED);
+  }
+
+  Action(int id,
+         String type,
+         Instant instant,
+         Collection<String> assignments,
+         Collection<Diagnosis> diagnosis,
+         Status status) {
     super(id, type, instant, assignments);
     if (diagnosis != null) {
       this.diagnosis.addAll(diagnosis);
     }
+    this.status = status;
+  }
+
+  /**
+   * @return a copy of this {@link Action} with the same id, recording the given status at the given instant
+   */
+  public Action withStatus(Status status, Instant instant) {
+    return new Action(id(), type(), instant, assignments(), diagnosis, status);
   }
 
   /**
@@ -44,6 +80,10 @@ public class Action extends Outcome {
     return Collections.unmodifiableCollection(diagnosis);
   }
 
+  public Status status() {
+    return status;
+  }
+
   @Override
   public String toString() {
     return "Action{" +
@@ -51,6 +91,7 @@ public class Action extends Outcome {
         ", type=" + type() +
         ", instant=" + instant() +
         ", assignments=" + assignments() +
+        ", status=" + status +
         '}';
   }
 }
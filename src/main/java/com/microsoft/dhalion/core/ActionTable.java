@@ -6,11 +6,13 @@
  */
 package com.microsoft.dhalion.core;
 
+import tech.tablesaw.api.CategoryColumn;
 import tech.tablesaw.api.Table;
 
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.stream.Collectors;
 
 //TODO thread safety
 
@@ -19,12 +21,18 @@ import java.util.Collections;
  * {@link Action}s.
  */
 public class ActionTable extends OutcomeTable<Action> {
+  private static final String STATUS = "STATUS";
+  private final CategoryColumn status;
+
   private ActionTable() {
     super("Actions");
+    status = new CategoryColumn(STATUS);
+    table().addColumn(status);
   }
 
   private ActionTable(Table table) {
     super(table);
+    status = table.categoryColumn(STATUS);
   }
 
   /**
@@ -38,7 +46,13 @@ public class ActionTable extends OutcomeTable<Action> {
   }
 
   private void addAll(Collection<Action> actions) {
-    actions.forEach(this::add);
+    for (Action action : actions) {
+      add(action);
+      // one row per assignment, see OutcomeTable#add
+      for (int i = Math.max(1, action.assignments().size()); i > 0; i--) {
+        status.append(action.status().name());
+      }
+    }
   }
 
   /**
@@ -98,6 +112,27 @@ public class ActionTable extends OutcomeTable<Action> {
     return assignment(Collections.singletonList(assignment));
   }
 
+  /**
+   * Retains all {@link Action}s with given status. An asynchronously executed action has a row with the
+   * {@link Action.Status#SUBMITTED} status and, once it completes, a row with its completion status.
+   *
+   * @param statuses action statuses, not null
+   * @return {@link ActionTable} containing filtered {@link Action}s
+   */
+  public ActionTable status(Collection<Action.Status> statuses) {
+    return new ActionTable(applyCategoryFilter(statuses.stream().map(Enum::name).collect(Collectors.toList()),
+                                               STATUS));
+  }
+
+  /**
+   * @param status action status
+   * @return {@link ActionTable} containing filtered {@link Action}s
+   * @see #status(Collection)
+   */
+  public ActionTable status(Action.Status status) {
+    return status(Collections.singletonList(status));
+  }
+
   /**
    * Retains all {@link Action}s with timestamp in the given range.
    *
@@ -144,7 +179,8 @@ public class ActionTable extends OutcomeTable<Action> {
                       type.get(index),
                       Instant.ofEpochMilli(timeStamp.get(index)),
                       Collections.singletonList(assignment.get(index)),
-                      null);
+                      null,
+                      Action.Status.valueOf(status.get(index)));
   }
 
 
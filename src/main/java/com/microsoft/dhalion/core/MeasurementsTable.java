@@ -333,6 +333,72 @@ public class MeasurementsTable {
     return new MeasurementsTable(result);
   }
 
+  /**
+   * Provides the columns of this table as primitive arrays, e.g. for evaluations which need a single pass over a large
+   * table. The arrays are shared with the table and must not be modified.
+   *
+   * @return the columns of this table
+   */
+  public Columns columns() {
+    return new Columns();
+  }
+
+  /**
+   * A read-only columnar view of a {@link MeasurementsTable}. The component, instance and type columns hold dictionary
+   * codes, which are translated to names with {@link #component(int)}, {@link #instance(int)} and
+   * {@link #type(int)}. Only the first {@link #size()} elements of the arrays are valid.
+   */
+  public final class Columns {
+    private Columns() {
+    }
+
+    public int size() {
+      return measurements.rowCount();
+    }
+
+    public int[] components() {
+      return component.data().elements();
+    }
+
+    public int[] instances() {
+      return instance.data().elements();
+    }
+
+    public int[] types() {
+      return type.data().elements();
+    }
+
+    /**
+     * @return timestamps in epoch millis
+     */
+    public long[] timestamps() {
+      return timeStamps.data().elements();
+    }
+
+    public double[] values() {
+      return value.data().elements();
+    }
+
+    public String component(int code) {
+      return component.dictionaryMap().get(code);
+    }
+
+    public String instance(int code) {
+      return instance.dictionaryMap().get(code);
+    }
+
+    public String type(int code) {
+      return type.dictionaryMap().get(code);
+    }
+
+    /**
+     * @return the code of the given type, -1 if no measurement has the type
+     */
+    public int typeCode(String name) {
+      return type.dictionaryMap().contains(name) ? type.dictionaryMap().get(name) : -1;
+    }
+  }
+
   /**
    * @return all {@link Measurement}s in this collection
    */
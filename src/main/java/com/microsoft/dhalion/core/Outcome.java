@@ -45,6 +45,13 @@ public abstract class Outcome {
     }
   }
 
+  /**
+   * Makes sure that ids generated from now on are greater than the given id, e.g. of an outcome restored from a log
+   */
+  static void reserveId(int id) {
+    idGenerator.accumulateAndGet(id, Math::max);
+  }
+
   public int id() {
     return id;
   }
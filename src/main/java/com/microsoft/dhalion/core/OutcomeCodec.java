@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes the {@link Symptom}s, {@link Diagnosis} and {@link Action}s in a binary format, e.g. to persist them. An
+ * encoded outcome holds the values of its table row: id, type, instant, assignments and, for actions, the status. The
+ * measurements, symptoms and diagnoses an outcome refers to are not encoded. Decoded outcomes keep their id, and ids
+ * generated afterwards do not collide with it.
+ */
+public final class OutcomeCodec {
+  private static final byte SYMPTOM = 'S';
+  private static final byte DIAGNOSIS = 'D';
+  private static final byte ACTION = 'A';
+  private static final Action.Status[] STATUSES = Action.Status.values();
+
+  private OutcomeCodec() {
+  }
+
+  public static void write(DataOutput out, Outcome outcome) throws IOException {
+    if (outcome instanceof Symptom) {
+      out.writeByte(SYMPTOM);
+    } else if (outcome instanceof Diagnosis) {
+      out.writeByte(DIAGNOSIS);
+    } else if (outcome instanceof Action) {
+      out.writeByte(ACTION);
+    } else {
+      throw new IllegalArgumentException("Unknown outcome class " + outcome.getClass().getName());
+    }
+    out.writeInt(outcome.id());
+    out.writeUTF(outcome.type());
+    out.writeLong(outcome.instant().toEpochMilli());
+    out.writeInt(outcome.assignments().size());
+    for (String assignment : outcome.assignments()) {
+      out.writeUTF(assignment);
+    }
+    if (outcome instanceof Action) {
+      out.writeByte(((Action) outcome).status().ordinal());
+    }
+  }
+
+  /**
+   * @throws IOException if the input is not an encoded outcome
+   */
+  public static Outcome read(DataInput in) throws IOException {
+    byte kind = in.readByte();
+    int id = in.readInt();
+    String type = in.readUTF();
+    Instant instant = Instant.ofEpochMilli(in.readLong());
+    int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("Invalid number of assignments " + count);
+    }
+    List<String> assignments = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      assignments.add(in.readUTF());
+    }
+
+    Outcome outcome;
+    switch (kind) {
+      case SYMPTOM:
+        outcome = new Symptom(id, type, instant, assignments, null);
+        break;
+      case DIAGNOSIS:
+        outcome = new Diagnosis(id, type, instant, assignments, null);
+        break;
+      case ACTION:
+        int status = in.readUnsignedByte();
+        if (status >= STATUSES.length) {
+          throw new IOException("Invalid action status " + status);
+        }
+        outcome = new Action(id, type, instant, assignments, null, STATUSES[status]);
+        break;
+      default:
+        throw new IOException("Invalid outcome kind " + kind);
+    }
+    Outcome.reserveId(id);
+    return outcome;
+  }
+}
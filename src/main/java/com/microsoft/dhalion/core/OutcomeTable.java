@@ -14,11 +14,17 @@ import tech.tablesaw.api.Table;
 import tech.tablesaw.filtering.Filter;
 import tech.tablesaw.util.Selection;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static tech.tablesaw.api.QueryHelper.column;
@@ -77,6 +83,10 @@ public abstract class OutcomeTable<T extends Outcome> {
     });
   }
 
+  final Table table() {
+    return table;
+  }
+
   public Table expireBefore(Instant expiration) {
     Selection s = TableUtils.filterTime(table, TIME_STAMP, null, expiration);
     return table.dropRows(s.toIntArrayList());
@@ -102,7 +112,7 @@ public abstract class OutcomeTable<T extends Outcome> {
     return filterAssignment(Collections.singletonList(assignment));
   }
 
-  private Table applyCategoryFilter(Collection<String> names, String column) {
+  Table applyCategoryFilter(Collection<String> names, String column) {
     List<Filter> filters = names.stream().map(name -> column(column).isEqualTo(name)).collect(Collectors.toList());
     return table.selectWhere(or(filters));
   }
@@ -111,6 +121,58 @@ public abstract class OutcomeTable<T extends Outcome> {
     return table.selectWhere(TableUtils.filterTime(table, TIME_STAMP, oldest, newest));
   }
 
+  /**
+   * Joins the rows of this and the other table by assignment. The join builds a hash index of the other table's
+   * assignments and their sorted timestamps, and probes it with the rows of this table, so its cost is linear in the
+   * number of rows of both tables.
+   *
+   * @param window the maximum time between the joined rows, null to join rows of any time
+   * @return the distinct assignments of the joined rows, in the order of their first row in this table
+   */
+  Collection<String> joinAssignments(OutcomeTable<?> other, Duration window) {
+    Map<String, long[]> index = new HashMap<>();
+    Map<String, Integer> sizes = new HashMap<>();
+    for (int row = 0; row < other.size(); row++) {
+      String key = other.assignment.get(row);
+      int size = sizes.merge(key, 1, Integer::sum);
+      long[] times = index.get(key);
+      if (times == null || times.length < size) {
+        times = times == null ? new long[4] : Arrays.copyOf(times, times.length * 2);
+        index.put(key, times);
+      }
+      times[size - 1] = other.timeStamp.get(row);
+    }
+    if (window != null) {
+      index.forEach((key, times) -> Arrays.sort(times, 0, sizes.get(key)));
+    }
+
+    Set<String> result = new LinkedHashSet<>();
+    for (int row = 0; row < size(); row++) {
+      String key = assignment.get(row);
+      long[] times = index.get(key);
+      if (times == null || result.contains(key)) {
+        continue;
+      }
+      if (window == null || withinWindow(times, sizes.get(key), timeStamp.get(row), window.toMillis())) {
+        result.add(key);
+      }
+    }
+    result.remove(CategoryColumn.MISSING_VALUE);
+    return result;
+  }
+
+  /**
+   * @return true if a time of the first n sorted times is at most window millis away from the given time
+   */
+  private static boolean withinWindow(long[] times, int n, long time, long window) {
+    int position = Arrays.binarySearch(times, 0, n, time);
+    if (position >= 0) {
+      return true;
+    }
+    int next = -position - 1;
+    return (next < n && times[next] - time <= window) || (next > 0 && time - times[next - 1] <= window);
+  }
+
   /**
    * @return count of {@link Outcome} rows in this collection
    */
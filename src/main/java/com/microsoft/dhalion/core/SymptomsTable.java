@@ -8,6 +8,7 @@ package com.microsoft.dhalion.core;
 
 import tech.tablesaw.api.Table;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
@@ -109,6 +110,26 @@ public class SymptomsTable extends OutcomeTable<Symptom> {
     return new SymptomsTable(filterTime(oldest, newest));
   }
 
+  /**
+   * Correlates the {@link Symptom}s of this and the other table by assignment, e.g. to find the instances having both
+   * a high cpu and a high memory utilization symptom. The correlation is a hash join, so its cost grows linearly with
+   * the number of affected assignments.
+   *
+   * @param other  symptoms to correlate with
+   * @param window the maximum time between correlated symptoms, null to correlate symptoms of any time
+   * @return the distinct assignments having symptoms in both tables, in the order of their first symptom in this table
+   */
+  public Collection<String> correlate(SymptomsTable other, Duration window) {
+    return joinAssignments(other, window);
+  }
+
+  /**
+   * @see #correlate(SymptomsTable, Duration)
+   */
+  public Collection<String> correlate(SymptomsTable other) {
+    return correlate(other, null);
+  }
+
   /**
    * @param n the number of symptoms to return
    * @return the last n {@link Symptom}, if present
@@ -9,13 +9,13 @@ package com.microsoft.dhalion.detectors;
 
 import com.microsoft.dhalion.conf.PolicyConfig;
 import com.microsoft.dhalion.core.Measurement;
-import com.microsoft.dhalion.core.MeasurementsTable;
-import com.microsoft.dhalion.core.MeasurementsTable.SortKey;
 import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -38,6 +38,8 @@ public class AboveThresholdDetector extends Detector {
   private final double highThreshold;
   private String metricName;
   private double noCheckpoints;
+  private ThresholdEngine engine;
+  private ThresholdEngine.Rule rule;
 
   private static final Logger LOG = Logger.getLogger(AboveThresholdDetector.class.getSimpleName());
 
@@ -48,23 +50,32 @@ public class AboveThresholdDetector extends Detector {
     this.metricName = metricName;
   }
 
+  @Override
+  public void initialize(ExecutionContext context) {
+    super.initialize(context);
+    register();
+  }
+
+  private void register() {
+    // the rule is evaluated together with the rules of the other threshold detectors of the policy
+    engine = ThresholdEngine.of(context);
+    rule = engine.register(metricName, highThreshold, Double.MAX_VALUE, noCheckpoints);
+  }
+
   @Override
   public Collection<Symptom> detect(Collection<Measurement> measurements) {
     if (measurements.isEmpty()) {
       return Collections.emptyList();
     }
 
-    Collection<String> assignments = new ArrayList<>();
-    MeasurementsTable measurementsTable = context.measurements().type(metricName).sort(false, SortKey.TIME_STAMP);
-    for (String component : measurementsTable.uniqueComponents()) {
-      MeasurementsTable componentData = measurementsTable.component(component);
-      for (String instance : componentData.uniqueInstances()) {
-        MeasurementsTable instanceData = componentData.instance(instance).last((int) noCheckpoints);
-        if (instanceData.valueBetween(highThreshold, Double.MAX_VALUE).size() == noCheckpoints) {
-          LOG.fine(String.format("Instance %s has values above the limit (%s) for the last %s checkpoints",
-                                 instance, highThreshold, noCheckpoints));
-          assignments.add(instance);
-        }
+    if (rule == null) {
+      register();
+    }
+    List<String> assignments = engine.matches(rule, context.measurements(), context.checkpoint());
+    if (LOG.isLoggable(Level.FINE)) {
+      for (String instance : assignments) {
+        LOG.log(Level.FINE, "Instance {0} has values above the limit ({1}) for the last {2} checkpoints",
+                new Object[]{instance, highThreshold, noCheckpoints});
       }
     }
 
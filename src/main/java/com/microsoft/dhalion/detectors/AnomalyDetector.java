@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+
+import java.time.Duration;
+
+/**
+ * An {@link AnomalyDetector} compares each new value of a metric with a baseline of the instance's previous values,
+ * e.g. their moving average, and counts a breach if the value deviates from the baseline by more than
+ * <code>threshold</code> times the baseline's deviation. An instance is anomalous if its latest
+ * <code>noCheckpoints</code> values are breaches. It generates a <code>DetectorName_metricName</code> symptom.
+ * <p>
+ * The detectors are configured with the following keys, prefixed by the detector name, e.g.
+ * <code>EwmaDetector.threshold</code>. A key suffixed by <code>_metricName</code> overrides the value for the metric.
+ * <ul>
+ * <li><code>threshold</code>: number of deviations, 3 by default</li>
+ * <li><code>noCheckpoints</code>: number of consecutive breaches, 1 by default</li>
+ * <li><code>warmup</code>: number of values an instance needs before its values are evaluated, 10 by default</li>
+ * <li><code>min.deviation</code>: minimum absolute deviation of a breach, 0 by default</li>
+ * <li><code>alpha</code>: weight of a new value in moving averages, 0.1 by default</li>
+ * <li><code>window</code>: number of latest values kept per instance, 30 by default</li>
+ * <li><code>expiry.ms</code>: time after which the state of an instance without new values is dropped, 1 hour by
+ * default</li>
+ * </ul>
+ * The state of an instance has a constant size, so the memory and the cost of an update are bounded independent of
+ * the length of the history.
+ */
+public abstract class AnomalyDetector extends SlidingWindowDetector {
+  public static final String THRESHOLD_CONF = ".threshold";
+  public static final String NO_CHECKPOINTS_CONF = ".noCheckpoints";
+  public static final String WARMUP_CONF = ".warmup";
+  public static final String MIN_DEVIATION_CONF = ".min.deviation";
+  public static final String ALPHA_CONF = ".alpha";
+  public static final String WINDOW_CONF = ".window";
+  public static final String EXPIRY_CONF = ".expiry.ms";
+
+  protected final double threshold;
+  protected final int noCheckpoints;
+  protected final long warmup;
+  protected final double minDeviation;
+
+  protected AnomalyDetector(PolicyConfig policyConfig, String name, String metric, int defaultWindow) {
+    super(metric,
+          String.join("_", name, metric),
+          config(policyConfig, name, metric, WINDOW_CONF, defaultWindow).intValue(),
+          config(policyConfig, name, metric, ALPHA_CONF, 0.1).doubleValue(),
+          Duration.ofMillis(config(policyConfig, name, metric, EXPIRY_CONF, 3600000).longValue()));
+    this.threshold = config(policyConfig, name, metric, THRESHOLD_CONF, 3).doubleValue();
+    this.noCheckpoints = config(policyConfig, name, metric, NO_CHECKPOINTS_CONF, 1).intValue();
+    this.warmup = config(policyConfig, name, metric, WARMUP_CONF, 10).longValue();
+    this.minDeviation = config(policyConfig, name, metric, MIN_DEVIATION_CONF, 0).doubleValue();
+  }
+
+  /**
+   * @return the value of the metric specific key, or else the detector's key, or else the default value
+   */
+  static Number config(PolicyConfig policyConfig, String name, String metric, String key, Number defaultValue) {
+    Object value = policyConfig.getConfig(String.join("_", name + key, metric));
+    if (value == null) {
+      value = policyConfig.getConfig(name + key, defaultValue);
+    }
+    return (Number) value;
+  }
+
+  @Override
+  protected boolean isBreach(InstanceWindow window, Measurement measurement) {
+    if (window.total() < warmup) {
+      return false;
+    }
+    double baseline = baseline(window, measurement);
+    double deviation = deviation(window, measurement);
+    if (Double.isNaN(baseline) || Double.isNaN(deviation)) {
+      return false;
+    }
+    double distance = Math.abs(measurement.value() - baseline);
+    return distance > threshold * deviation && distance > minDeviation;
+  }
+
+  @Override
+  protected boolean isAnomalous(InstanceWindow window) {
+    return window.consecutiveBreaches() >= noCheckpoints;
+  }
+
+  /**
+   * @return the baseline of the instance's previous values for the new measurement, NaN if it is not known yet
+   */
+  protected abstract double baseline(InstanceWindow window, Measurement measurement);
+
+  /**
+   * @return the deviation of the instance's previous values from the baseline, NaN if it is not known yet
+   */
+  protected abstract double deviation(InstanceWindow window, Measurement measurement);
+}
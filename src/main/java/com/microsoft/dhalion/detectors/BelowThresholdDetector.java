@@ -9,13 +9,13 @@ package com.microsoft.dhalion.detectors;
 
 import com.microsoft.dhalion.conf.PolicyConfig;
 import com.microsoft.dhalion.core.Measurement;
-import com.microsoft.dhalion.core.MeasurementsTable;
-import com.microsoft.dhalion.core.MeasurementsTable.SortKey;
 import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -39,6 +39,8 @@ public class BelowThresholdDetector extends Detector {
   private final double lowThreshold;
   private String metricName;
   private double noCheckpoints;
+  private ThresholdEngine engine;
+  private ThresholdEngine.Rule rule;
 
   private static final Logger LOG = Logger.getLogger(BelowThresholdDetector.class.getSimpleName());
 
@@ -49,23 +51,33 @@ public class BelowThresholdDetector extends Detector {
     this.metricName = metricName;
   }
 
+  @Override
+  public void initialize(ExecutionContext context) {
+    super.initialize(context);
+    register();
+  }
+
+  private void register() {
+    // the rule is evaluated together with the rules of the other threshold detectors of the policy
+    engine = ThresholdEngine.of(context);
+    // zero and negative values are below the threshold too, unlike values below Double.MIN_VALUE, which is positive
+    rule = engine.register(metricName, Double.NEGATIVE_INFINITY, lowThreshold, noCheckpoints);
+  }
+
   @Override
   public Collection<Symptom> detect(Collection<Measurement> measurements) {
     if (measurements.isEmpty()) {
       return Collections.emptyList();
     }
 
-    MeasurementsTable measurementsTable = context.measurements().type(metricName).sort(false, SortKey.TIME_STAMP);
-    Collection<String> assignments = new ArrayList<>();
-    for (String component : measurementsTable.uniqueComponents()) {
-      MeasurementsTable componentData = measurementsTable.component(component);
-      for (String instance : componentData.uniqueInstances()) {
-        MeasurementsTable instanceData = componentData.instance(instance).last((int) noCheckpoints);
-        if (instanceData.valueBetween(Double.MIN_VALUE, lowThreshold).size() == noCheckpoints) {
-          LOG.fine(String.format("Instance %s has values below the limit %s for the last %s checkpoints",
-                                 instance, lowThreshold, noCheckpoints));
-          assignments.add(instance);
-        }
+    if (rule == null) {
+      register();
+    }
+    List<String> assignments = engine.matches(rule, context.measurements(), context.checkpoint());
+    if (LOG.isLoggable(Level.FINE)) {
+      for (String instance : assignments) {
+        LOG.log(Level.FINE, "Instance {0} has values below the limit ({1}) for the last {2} checkpoints",
+                new Object[]{instance, lowThreshold, noCheckpoints});
       }
     }
 
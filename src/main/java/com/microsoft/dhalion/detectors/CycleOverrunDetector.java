@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.sensors.SelfMonitoringSensor;
+
+import javax.inject.Inject;
+
+/**
+ * {@link CycleOverrunDetector} is a concrete implementation of {@link SelfMonitoringDetector}. It creates a
+ * {@link Symptom} for the policies whose cycles take longer than the configured threshold, 10 seconds by default.
+ */
+public class CycleOverrunDetector extends SelfMonitoringDetector {
+  public static final String CONFIG_KEY_PREFIX = CycleOverrunDetector.class.getSimpleName();
+
+  @Inject
+  public CycleOverrunDetector(PolicyConfig policyConfig) {
+    super(SelfMonitoringSensor.METRIC_CYCLE_TIME,
+          SymptomName.CYCLE_OVERRUN.text(),
+          ((Number) policyConfig.getConfig(CONFIG_KEY_PREFIX + THRESHOLD_CONFIG_KEY, 10000)).doubleValue());
+  }
+}
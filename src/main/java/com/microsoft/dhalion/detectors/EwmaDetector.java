@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+
+/**
+ * The {@link EwmaDetector} is an {@link AnomalyDetector} whose baseline is the exponentially weighted moving average
+ * of an instance's values, and whose deviation is the square root of the exponentially weighted moving variance. The
+ * state of an instance is a few numbers, independent of the configured window.
+ */
+public class EwmaDetector extends AnomalyDetector {
+  public static final String SYMPTOM_EWMA = EwmaDetector.class.getSimpleName();
+
+  public EwmaDetector(PolicyConfig policyConfig, String metricName) {
+    super(policyConfig, SYMPTOM_EWMA, metricName, 1);
+  }
+
+  @Override
+  protected double baseline(InstanceWindow window, Measurement measurement) {
+    return window.ewma();
+  }
+
+  @Override
+  protected double deviation(InstanceWindow window, Measurement measurement) {
+    return Math.sqrt(window.ewmv());
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+
+/**
+ * The {@link MadDetector} is an {@link AnomalyDetector} whose baseline is the median of an instance's values, and
+ * whose deviation is the median absolute deviation from the median, scaled to estimate the standard deviation of
+ * normally distributed values. Unlike the mean and the standard deviation, the median and the MAD are robust to the
+ * outliers being detected. Both are estimated in constant memory with {@link P2Quantile} sketches.
+ */
+public class MadDetector extends AnomalyDetector {
+  public static final String SYMPTOM_MAD = MadDetector.class.getSimpleName();
+  // the MAD of a normal distribution is 0.6745 times its standard deviation
+  private static final double NORMAL_SCALE = 1.4826;
+
+  public MadDetector(PolicyConfig policyConfig, String metricName) {
+    super(policyConfig, SYMPTOM_MAD, metricName, 1);
+  }
+
+  @Override
+  protected boolean isBreach(InstanceWindow window, Measurement measurement) {
+    boolean breach = super.isBreach(window, measurement);
+    Sketches sketches = sketches(window);
+    sketches.median.add(measurement.value());
+    sketches.deviation.add(Math.abs(measurement.value() - sketches.median.value()));
+    return breach;
+  }
+
+  @Override
+  protected double baseline(InstanceWindow window, Measurement measurement) {
+    return sketches(window).median.value();
+  }
+
+  @Override
+  protected double deviation(InstanceWindow window, Measurement measurement) {
+    return NORMAL_SCALE * sketches(window).deviation.value();
+  }
+
+  private static Sketches sketches(InstanceWindow window) {
+    Sketches sketches = (Sketches) window.attachment();
+    if (sketches == null) {
+      sketches = new Sketches();
+      window.attach(sketches);
+    }
+    return sketches;
+  }
+
+  private static final class Sketches {
+    private final P2Quantile median = new P2Quantile(0.5);
+    private final P2Quantile deviation = new P2Quantile(0.5);
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import java.util.Arrays;
+
+/**
+ * Estimates a quantile of a stream of values in constant memory, using the P-square algorithm of Jain and Chlamtac.
+ * The estimator keeps five markers, whose heights approximate the minimum, the quantile, the maximum and the
+ * quantiles halfway in between, and adjusts them with a piecewise parabolic interpolation as values arrive.
+ */
+final class P2Quantile {
+  private final double quantile;
+  private final double[] heights = new double[5];
+  private final int[] positions = {1, 2, 3, 4, 5};
+  private final double[] desired;
+  private final double[] increments;
+  private int count;
+
+  P2Quantile(double quantile) {
+    this.quantile = quantile;
+    this.desired = new double[]{1, 1 + 2 * quantile, 1 + 4 * quantile, 3 + 2 * quantile, 5};
+    this.increments = new double[]{0, quantile / 2, quantile, (1 + quantile) / 2, 1};
+  }
+
+  void add(double value) {
+    if (count < heights.length) {
+      heights[count++] = value;
+      if (count == heights.length) {
+        Arrays.sort(heights);
+      }
+      return;
+    }
+
+    int cell;
+    if (value < heights[0]) {
+      heights[0] = value;
+      cell = 0;
+    } else if (value >= heights[4]) {
+      heights[4] = value;
+      cell = 3;
+    } else {
+      cell = 0;
+      while (value >= heights[cell + 1]) {
+        cell++;
+      }
+    }
+    for (int i = cell + 1; i < positions.length; i++) {
+      positions[i]++;
+    }
+    for (int i = 0; i < desired.length; i++) {
+      desired[i] += increments[i];
+    }
+    count++;
+
+    for (int i = 1; i <= 3; i++) {
+      double offset = desired[i] - positions[i];
+      if ((offset >= 1 && positions[i + 1] - positions[i] > 1)
+          || (offset <= -1 && positions[i - 1] - positions[i] < -1)) {
+        int direction = offset > 0 ? 1 : -1;
+        double height = parabolic(i, direction);
+        if (heights[i - 1] >= height || height >= heights[i + 1]) {
+          height = heights[i] + direction * (heights[i + direction] - heights[i])
+              / (positions[i + direction] - positions[i]);
+        }
+        heights[i] = height;
+        positions[i] += direction;
+      }
+    }
+  }
+
+  private double parabolic(int i, int direction) {
+    double left = positions[i] - positions[i - 1];
+    double right = positions[i + 1] - positions[i];
+    return heights[i] + direction / (double) (positions[i + 1] - positions[i - 1])
+        * ((left + direction) * (heights[i + 1] - heights[i]) / right
+        + (right - direction) * (heights[i] - heights[i - 1]) / left);
+  }
+
+  /**
+   * @return the estimated quantile, NaN if no value was added
+   */
+  double value() {
+    if (count == 0) {
+      return Double.NaN;
+    }
+    if (count < heights.length) {
+      double[] sorted = Arrays.copyOf(heights, count);
+      Arrays.sort(sorted);
+      return sorted[(int) Math.min(count - 1, Math.round(quantile * (count - 1)))];
+    }
+    return heights[2];
+  }
+
+  int count() {
+    return count;
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.MeasurementsTable;
+import com.microsoft.dhalion.core.Symptom;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The PeerOutlier Detector compares the latest value of a metric of each instance with the latest values of the other
+ * instances of the same component, e.g. to find an instance lagging its siblings. An instance is an outlier if its
+ * value deviates from the component's median by more than <code>threshold</code> times the median absolute
+ * deviation (MAD) of the component's values, scaled to estimate the standard deviation. If more than half of the
+ * values are identical, e.g. idle instances reporting 0, the MAD is 0 and the scaled mean absolute deviation is used
+ * instead, so a small difference is not an outlier. It generates a {@link PeerOutlierDetector}_metricName symptom
+ * assigned to the outliers.
+ * <p>
+ * The detector is configured with the following keys, a key suffixed by <code>_metricName</code> overrides the value
+ * for the metric:
+ * <ul>
+ * <li><code>PeerOutlierDetector.threshold</code>: number of scaled MADs, 3 by default</li>
+ * <li><code>PeerOutlierDetector.min.deviation</code>: minimum absolute deviation of an outlier, 0 by default</li>
+ * <li><code>PeerOutlierDetector.min.peers</code>: minimum number of instances of a component, 3 by default</li>
+ * <li><code>PeerOutlierDetector.window.ms</code>: age of the oldest measurement considered, relative to the checkpoint.
+ * By default, only the measurements since the previous checkpoint are considered, so an instance which stopped
+ * reporting is not compared with its peers using a stale value.</li>
+ * </ul>
+ * The latest values are collected in a single pass over the measurement columns, and the medians are computed with a
+ * selection algorithm in linear time, so the cost is linear in the number of measurements and instances.
+ */
+public class PeerOutlierDetector extends Detector {
+  public static final String SYMPTOM_PEER_OUTLIER = PeerOutlierDetector.class.getSimpleName();
+  public static final String THRESHOLD_CONF = ".threshold";
+  public static final String MIN_DEVIATION_CONF = ".min.deviation";
+  public static final String MIN_PEERS_CONF = ".min.peers";
+  public static final String WINDOW_CONF = ".window.ms";
+  // the MAD of a normal distribution is 0.6745 times its standard deviation
+  private static final double NORMAL_SCALE = 1.4826;
+  // the mean absolute deviation of a normal distribution is 0.7979 times its standard deviation
+  private static final double MEAN_NORMAL_SCALE = 1.2533;
+
+  private static final Logger LOG = Logger.getLogger(PeerOutlierDetector.class.getName());
+
+  private final String metricName;
+  private final double threshold;
+  private final double minDeviation;
+  private final int minPeers;
+  private final Duration window;
+
+  public PeerOutlierDetector(PolicyConfig policyConfig, String metricName) {
+    this.metricName = metricName;
+    this.threshold = config(policyConfig, THRESHOLD_CONF, 3).doubleValue();
+    this.minDeviation = config(policyConfig, MIN_DEVIATION_CONF, 0).doubleValue();
+    this.minPeers = Math.max(2, config(policyConfig, MIN_PEERS_CONF, 3).intValue());
+    this.window = Duration.ofMillis(config(policyConfig, WINDOW_CONF, 0).longValue());
+  }
+
+  private Number config(PolicyConfig policyConfig, String key, Number defaultValue) {
+    return AnomalyDetector.config(policyConfig, SYMPTOM_PEER_OUTLIER, metricName, key, defaultValue);
+  }
+
+  @Override
+  public Collection<Symptom> detect(Collection<Measurement> measurements) {
+    if (measurements.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    MeasurementsTable.Columns columns = context.measurements().columns();
+    int type = columns.typeCode(metricName);
+    if (type < 0) {
+      return Collections.emptyList();
+    }
+
+    Instant since = window.isZero() ? context.previousCheckpoint() : context.checkpoint().minus(window);
+    long start = since == null ? Long.MIN_VALUE : since.toEpochMilli();
+
+    // the index maps the components to their instances' latest values
+    Map<Integer, Peers> components = new LinkedHashMap<>();
+    int[] types = columns.types();
+    int[] componentCodes = columns.components();
+    int[] instanceCodes = columns.instances();
+    long[] timestamps = columns.timestamps();
+    double[] values = columns.values();
+    for (int row = 0; row < columns.size(); row++) {
+      if (types[row] == type && timestamps[row] >= start) {
+        components.computeIfAbsent(componentCodes[row], c -> new Peers())
+                  .add(instanceCodes[row], timestamps[row], values[row]);
+      }
+    }
+
+    List<String> assignments = new ArrayList<>();
+    for (Map.Entry<Integer, Peers> component : components.entrySet()) {
+      Peers peers = component.getValue();
+      if (peers.size < minPeers) {
+        continue;
+      }
+
+      double[] scratch = Arrays.copyOf(peers.values, peers.size);
+      double median = median(scratch, peers.size);
+      double sum = 0;
+      for (int i = 0; i < peers.size; i++) {
+        scratch[i] = Math.abs(peers.values[i] - median);
+        sum += scratch[i];
+      }
+      double deviation = NORMAL_SCALE * median(scratch, peers.size);
+      if (deviation == 0) {
+        deviation = MEAN_NORMAL_SCALE * sum / peers.size;
+      }
+
+      for (int i = 0; i < peers.size; i++) {
+        double distance = Math.abs(peers.values[i] - median);
+        if (distance > threshold * deviation && distance > minDeviation) {
+          String instance = columns.instance(peers.instances[i]);
+          if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "Instance {0} of {1} has value {2}, the median of its peers is {3}",
+                    new Object[]{instance, columns.component(component.getKey()), peers.values[i], median});
+          }
+          assignments.add(instance);
+        }
+      }
+    }
+
+    if (assignments.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Symptom s = new Symptom(String.join("_", SYMPTOM_PEER_OUTLIER, metricName), context.checkpoint(), assignments);
+    return Collections.singletonList(s);
+  }
+
+  /**
+   * @return the median of the first n values, which are reordered
+   */
+  static double median(double[] values, int n) {
+    int middle = n / 2;
+    select(values, n, middle);
+    if (n % 2 == 1) {
+      return values[middle];
+    }
+    double lower = values[0];
+    for (int i = 1; i < middle; i++) {
+      lower = Math.max(lower, values[i]);
+    }
+    return (lower + values[middle]) / 2;
+  }
+
+  /**
+   * Reorders the first n values such that the k-th smallest value is at index k, smaller values before and larger
+   * values after it, using the quickselect algorithm with a median of three pivot.
+   */
+  static void select(double[] values, int n, int k) {
+    int left = 0;
+    int right = n - 1;
+    while (left < right) {
+      int mid = (left + right) >>> 1;
+      if (values[mid] < values[left]) {
+        swap(values, left, mid);
+      }
+      if (values[right] < values[left]) {
+        swap(values, left, right);
+      }
+      if (values[right] < values[mid]) {
+        swap(values, mid, right);
+      }
+      double pivot = values[mid];
+
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (values[i] < pivot) {
+          i++;
+        }
+        while (values[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          swap(values, i++, j--);
+        }
+      }
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private static void swap(double[] values, int i, int j) {
+    double value = values[i];
+    values[i] = values[j];
+    values[j] = value;
+  }
+
+  /**
+   * The latest values of the instances of a component
+   */
+  private static final class Peers {
+    private final Map<Integer, Integer> slots = new HashMap<>();
+    private int[] instances = new int[8];
+    private long[] times = new long[8];
+    private double[] values = new double[8];
+    private int size;
+
+    private void add(int instance, long time, double value) {
+      Integer slot = slots.get(instance);
+      if (slot == null) {
+        if (size == values.length) {
+          instances = Arrays.copyOf(instances, size * 2);
+          times = Arrays.copyOf(times, size * 2);
+          values = Arrays.copyOf(values, size * 2);
+        }
+        slots.put(instance, size);
+        instances[size] = instance;
+        times[size] = time;
+        values[size] = value;
+        size++;
+      } else if (time >= times[slot]) {
+        // the later row of measurements with the same time is the latest
+        times[slot] = time;
+        values[slot] = value;
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.rules.RulePlan;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link RuleDetector} evaluates the rules configured in the policy configuration, see {@link RulePlan}, and
+ * generates a symptom named after each matching rule, assigned to the matching instances. All rules are evaluated in
+ * one pass over the measurements, e.g.
+ * <pre>
+ * RuleDetector.rules:
+ *   HotNode: avg(Cpu) over 5m &gt; 90 and Mem &gt; 900
+ *   IdleNode: max(Cpu) over 1h &lt; 5
+ * </pre>
+ * Metrics and aggregates without a window use the measurements since the previous checkpoint.
+ */
+public class RuleDetector extends Detector {
+  public static final String RULES_CONF = "RuleDetector.rules";
+
+  private static final Logger LOG = Logger.getLogger(RuleDetector.class.getName());
+
+  private final RulePlan plan;
+
+  @Inject
+  public RuleDetector(PolicyConfig policyConfig) {
+    this(rules(policyConfig, RULES_CONF));
+  }
+
+  public RuleDetector(Map<String, String> rules) {
+    this.plan = RulePlan.compile(rules);
+    if (plan.usesSymptoms()) {
+      throw new IllegalArgumentException("Detector rules cannot refer to symptoms: " + plan);
+    }
+  }
+
+  /**
+   * @return the rules configured under the given key, mapping rule names to rules
+   */
+  @SuppressWarnings("unchecked")
+  public static Map<String, String> rules(PolicyConfig policyConfig, String key) {
+    Object rules = policyConfig.getConfig(key, Collections.emptyMap());
+    if (!(rules instanceof Map)) {
+      throw new IllegalArgumentException(key + " must map rule names to rules, not " + rules);
+    }
+    return (Map<String, String>) rules;
+  }
+
+  @Override
+  public Collection<Symptom> detect(Collection<Measurement> measurements) {
+    if (measurements.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Map<String, List<String>> matches =
+        plan.evaluate(context.measurements(), null, context.checkpoint(), context.previousCheckpoint());
+    List<Symptom> symptoms = new ArrayList<>();
+    matches.forEach((rule, instances) -> {
+      if (LOG.isLoggable(Level.FINE)) {
+        LOG.log(Level.FINE, "Instances {0} match rule {1}", new Object[]{instances, rule});
+      }
+      symptoms.add(new Symptom(rule, context.checkpoint(), instances));
+    });
+    return symptoms;
+  }
+
+  @Override
+  public String toString() {
+    return "RuleDetector{" + plan + "}";
+  }
+}
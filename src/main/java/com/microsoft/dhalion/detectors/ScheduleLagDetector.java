@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.sensors.SelfMonitoringSensor;
+
+import javax.inject.Inject;
+
+/**
+ * {@link ScheduleLagDetector} is a concrete implementation of {@link SelfMonitoringDetector}. It creates a
+ * {@link Symptom} for the policies which start later than the configured threshold after they are due, 5 seconds by
+ * default. Policies lag when the cycles of the other policies occupy the executor.
+ */
+public class ScheduleLagDetector extends SelfMonitoringDetector {
+  public static final String CONFIG_KEY_PREFIX = ScheduleLagDetector.class.getSimpleName();
+
+  @Inject
+  public ScheduleLagDetector(PolicyConfig policyConfig) {
+    super(SelfMonitoringSensor.METRIC_SCHEDULE_LAG,
+          SymptomName.SCHEDULE_LAG.text(),
+          ((Number) policyConfig.getConfig(CONFIG_KEY_PREFIX + THRESHOLD_CONFIG_KEY, 5000)).doubleValue());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+
+/**
+ * The {@link SeasonalDetector} is an {@link AnomalyDetector} for metrics with a periodic pattern, e.g. a daily load
+ * cycle. The period is divided into buckets, and each bucket keeps an exponentially weighted moving average and
+ * variance of the values measured at that time of the period. A value is compared with the baseline of its bucket,
+ * which needs <code>warmup</code> values of its own. It is configured with the keys of {@link AnomalyDetector} and
+ * <ul>
+ * <li><code>period.ms</code>: length of the period, 1 day by default</li>
+ * <li><code>buckets</code>: number of buckets per period, 24 by default</li>
+ * </ul>
+ */
+public class SeasonalDetector extends AnomalyDetector {
+  public static final String SYMPTOM_SEASONAL = SeasonalDetector.class.getSimpleName();
+  public static final String PERIOD_CONF = ".period.ms";
+  public static final String BUCKETS_CONF = ".buckets";
+
+  private final long period;
+  private final int buckets;
+  private final double alpha;
+
+  public SeasonalDetector(PolicyConfig policyConfig, String metricName) {
+    super(policyConfig, SYMPTOM_SEASONAL, metricName, 1);
+    this.period = config(policyConfig, SYMPTOM_SEASONAL, metricName, PERIOD_CONF, 86400000).longValue();
+    this.buckets = config(policyConfig, SYMPTOM_SEASONAL, metricName, BUCKETS_CONF, 24).intValue();
+    this.alpha = config(policyConfig, SYMPTOM_SEASONAL, metricName, ALPHA_CONF, 0.1).doubleValue();
+    if (period < buckets || buckets < 1) {
+      throw new IllegalArgumentException(String.format("Invalid period %d ms or buckets %d of %s",
+                                                       period, buckets, metricName));
+    }
+  }
+
+  @Override
+  protected boolean isBreach(InstanceWindow window, Measurement measurement) {
+    boolean breach = super.isBreach(window, measurement);
+    Baselines baselines = baselines(window);
+    int bucket = bucket(measurement);
+    double value = measurement.value();
+    if (baselines.counts[bucket] == 0) {
+      baselines.means[bucket] = value;
+    } else {
+      double delta = value - baselines.means[bucket];
+      baselines.means[bucket] += alpha * delta;
+      baselines.variances[bucket] = (1 - alpha) * (baselines.variances[bucket] + alpha * delta * delta);
+    }
+    baselines.counts[bucket]++;
+    return breach;
+  }
+
+  @Override
+  protected double baseline(InstanceWindow window, Measurement measurement) {
+    Baselines baselines = baselines(window);
+    int bucket = bucket(measurement);
+    return baselines.counts[bucket] < warmup ? Double.NaN : baselines.means[bucket];
+  }
+
+  @Override
+  protected double deviation(InstanceWindow window, Measurement measurement) {
+    return Math.sqrt(baselines(window).variances[bucket(measurement)]);
+  }
+
+  private int bucket(Measurement measurement) {
+    long offset = Math.floorMod(measurement.instant().toEpochMilli(), period);
+    return (int) Math.min(buckets - 1, offset / (period / buckets));
+  }
+
+  private Baselines baselines(InstanceWindow window) {
+    Baselines baselines = (Baselines) window.attachment();
+    if (baselines == null) {
+      baselines = new Baselines(buckets);
+      window.attach(baselines);
+    }
+    return baselines;
+  }
+
+  private static final class Baselines {
+    private final double[] means;
+    private final double[] variances;
+    private final long[] counts;
+
+    private Baselines(int buckets) {
+      means = new double[buckets];
+      variances = new double[buckets];
+      counts = new long[buckets];
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.logging.RateLimitedLogger;
+import com.microsoft.dhalion.sensors.SelfMonitoringSensor;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link SelfMonitoringDetector} evaluates a metric provided by the {@link SelfMonitoringSensor}. It creates a
+ * {@link Symptom} assigned to the policies whose current measurement of the metric exceeds the limit.
+ */
+public abstract class SelfMonitoringDetector extends Detector {
+  private static final Logger LOG = Logger.getLogger(SelfMonitoringDetector.class.getName());
+  // the symptom records every exceeded limit, the log reports it once a minute
+  private static final RateLimitedLogger EXCEEDED_LOG = new RateLimitedLogger(LOG, Duration.ofMinutes(1));
+  public static final String THRESHOLD_CONFIG_KEY = ".threshold.ms";
+
+  private final String metric;
+  private final String symptomType;
+  private final double limit;
+
+  protected SelfMonitoringDetector(String metric, String symptomType, double limit) {
+    this.metric = metric;
+    this.symptomType = symptomType;
+    this.limit = limit;
+  }
+
+  @Override
+  public Collection<Symptom> detect(Collection<Measurement> measurements) {
+    Set<String> assignments = new TreeSet<>();
+    for (Measurement measurement : measurements) {
+      if (SelfMonitoringSensor.COMPONENT.equals(measurement.component())
+          && metric.equals(measurement.type())
+          && measurement.value() > limit) {
+        assignments.add(measurement.instance());
+      }
+    }
+
+    if (assignments.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    EXCEEDED_LOG.log(Level.WARNING, symptomType, "{0} of {1} exceeds {2} ms", metric, assignments, limit);
+    return Collections.singletonList(new Symptom(symptomType, context.checkpoint(), assignments));
+  }
+
+  @Override
+  public String toString() {
+    return "SelfMonitoringDetector{" +
+        "metric='" + metric + '\'' +
+        ", symptomType='" + symptomType + '\'' +
+        ", limit=" + limit +
+        "} ";
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.Symptom;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link SlidingWindowDetector} keeps the state of each instance reporting a metric, e.g. the latest values, their
+ * sum and an exponentially weighted moving average, and updates it only from the measurements passed to
+ * {@link #detect(Collection)}. Unlike detectors which evaluate the measurements history of the
+ * {@link com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext} in every cycle, the cost of a cycle is
+ * proportional to the number of new measurements.
+ * <p>
+ * The new measurements of an instance are added in time order, whatever the order in which a sensor returns them.
+ * Measurements which are not newer than the latest value of their instance, e.g. because a sensor fetched an
+ * overlapping window, are ignored. The state of instances without new measurements during the expiry duration is
+ * dropped.
+ * <p>
+ * Implementations decide whether a new value breaches a limit, see {@link #isBreach(InstanceWindow, Measurement)}, and
+ * whether an updated instance is anomalous, see {@link #isAnomalous(InstanceWindow)}. The detector creates a
+ * {@link Symptom} assigned to the anomalous instances.
+ */
+public abstract class SlidingWindowDetector extends Detector {
+  private final String metric;
+  private final String symptomType;
+  private final int windowSize;
+  private final double alpha;
+  private final Duration expiry;
+
+  // in order of the latest update, the least recently updated first
+  private final Map<String, InstanceWindow> windows = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * @param metric      metric evaluated by this detector
+   * @param symptomType type of the created symptom
+   * @param windowSize  number of latest values kept per instance
+   * @param alpha       weight of a new value in the exponentially weighted moving average, in (0, 1]
+   * @param expiry      duration after which the state of an instance without new measurements is dropped
+   */
+  protected SlidingWindowDetector(String metric, String symptomType, int windowSize, double alpha, Duration expiry) {
+    if (windowSize < 1 || alpha <= 0 || alpha > 1) {
+      throw new IllegalArgumentException(
+          String.format("Invalid window size %d or weight %s of %s", windowSize, alpha, metric));
+    }
+    this.metric = metric;
+    this.symptomType = symptomType;
+    this.windowSize = windowSize;
+    this.alpha = alpha;
+    this.expiry = expiry;
+  }
+
+  @Override
+  public Collection<Symptom> detect(Collection<Measurement> measurements) {
+    List<Measurement> batch = new ArrayList<>();
+    for (Measurement measurement : measurements) {
+      if (metric.equals(measurement.type())) {
+        batch.add(measurement);
+      }
+    }
+    // sensors may return several values per instance newest first, which would hide all but the newest
+    batch.sort(Comparator.comparing(Measurement::instant));
+
+    List<InstanceWindow> updated = new ArrayList<>();
+    for (Measurement measurement : batch) {
+      String key = measurement.component() + "/" + measurement.instance();
+      InstanceWindow window = windows.get(key);
+      if (window == null) {
+        window = new InstanceWindow(measurement.component(), measurement.instance(), windowSize);
+        windows.put(key, window);
+      }
+      if (window.latestTime != null && !measurement.instant().isAfter(window.latestTime)) {
+        continue;
+      }
+
+      window.consecutiveBreaches = isBreach(window, measurement) ? window.consecutiveBreaches + 1 : 0;
+      window.add(measurement.instant(), measurement.value(), alpha);
+      if (!window.updated) {
+        window.updated = true;
+        updated.add(window);
+      }
+    }
+
+    expire();
+
+    List<String> assignments = new ArrayList<>();
+    for (InstanceWindow window : updated) {
+      window.updated = false;
+      if (isAnomalous(window)) {
+        assignments.add(window.instance);
+      }
+    }
+
+    if (assignments.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Collections.singletonList(new Symptom(symptomType, context.checkpoint(), assignments));
+  }
+
+  private void expire() {
+    if (context == null || context.checkpoint() == null) {
+      return;
+    }
+
+    Instant oldest = context.checkpoint().minus(expiry);
+    Iterator<InstanceWindow> iterator = windows.values().iterator();
+    while (iterator.hasNext()) {
+      InstanceWindow window = iterator.next();
+      if (!window.latestTime.isBefore(oldest)) {
+        // the remaining windows were updated more recently
+        break;
+      }
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Evaluated for each new measurement, before its value is added to the window. Implementations keeping additional
+   * state of the instance, see {@link InstanceWindow#attach(Object)}, update it here.
+   *
+   * @return true if the new value breaches the limit of this detector
+   */
+  protected boolean isBreach(InstanceWindow window, Measurement measurement) {
+    return false;
+  }
+
+  /**
+   * Evaluated once per cycle for each instance with new values, after the values are added to the window.
+   *
+   * @return true if the instance is anomalous
+   */
+  protected abstract boolean isAnomalous(InstanceWindow window);
+
+  /**
+   * @return number of instances with state
+   */
+  int instances() {
+    return windows.size();
+  }
+
+  /**
+   * The state of an instance: a ring buffer of the latest values, the sum and the sum of squares of the values in the
+   * buffer, the number of consecutive breaches and an exponentially weighted moving average and variance of all
+   * values. Detectors can attach additional state of constant size.
+   */
+  protected static final class InstanceWindow {
+    private final String component;
+    private final String instance;
+    private final double[] values;
+    private int next;
+    private int size;
+    private double sum;
+    private double sumOfSquares;
+    private double ewma;
+    private double ewmv;
+    private long total;
+    private int consecutiveBreaches;
+    private Instant latestTime;
+    private boolean updated;
+    private Object attachment;
+
+    private InstanceWindow(String component, String instance, int windowSize) {
+      this.component = component;
+      this.instance = instance;
+      this.values = new double[windowSize];
+    }
+
+    private void add(Instant time, double value, double alpha) {
+      if (size == values.length) {
+        double evicted = values[next];
+        sum -= evicted;
+        sumOfSquares -= evicted * evicted;
+      } else {
+        size++;
+      }
+      values[next] = value;
+      next = (next + 1) % values.length;
+      sum += value;
+      sumOfSquares += value * value;
+      if (total == 0) {
+        ewma = value;
+      } else {
+        double delta = value - ewma;
+        ewma += alpha * delta;
+        ewmv = (1 - alpha) * (ewmv + alpha * delta * delta);
+      }
+      total++;
+      latestTime = time;
+    }
+
+    public String component() {
+      return component;
+    }
+
+    public String instance() {
+      return instance;
+    }
+
+    /**
+     * @return number of values in the window
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * @return number of values seen since the state of the instance was created
+     */
+    public long total() {
+      return total;
+    }
+
+    /**
+     * @param age 0 for the latest value, 1 for the value before, etc.
+     * @return the value of the given age
+     */
+    public double value(int age) {
+      if (age < 0 || age >= size) {
+        throw new IndexOutOfBoundsException("Window of " + size + " values has no value of age " + age);
+      }
+      return values[Math.floorMod(next - 1 - age, values.length)];
+    }
+
+    public double sum() {
+      return sum;
+    }
+
+    public double mean() {
+      return size == 0 ? Double.NaN : sum / size;
+    }
+
+    /**
+     * @return the population variance of the values in the window
+     */
+    public double variance() {
+      if (size == 0) {
+        return Double.NaN;
+      }
+      double mean = mean();
+      return Math.max(0, sumOfSquares / size - mean * mean);
+    }
+
+    public double ewma() {
+      return ewma;
+    }
+
+    /**
+     * @return the exponentially weighted moving variance of all values
+     */
+    public double ewmv() {
+      return ewmv;
+    }
+
+    /**
+     * @return number of consecutive values, up to the latest, which breached the limit of the detector
+     */
+    public int consecutiveBreaches() {
+      return consecutiveBreaches;
+    }
+
+    public Instant latestTime() {
+      return latestTime;
+    }
+
+    public Object attachment() {
+      return attachment;
+    }
+
+    /**
+     * @param attachment additional state of the instance, kept as long as the window
+     */
+    public void attach(Object attachment) {
+      this.attachment = attachment;
+    }
+  }
+}
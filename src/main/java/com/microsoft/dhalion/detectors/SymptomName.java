@@ -4,7 +4,9 @@ public enum SymptomName {
   EXCESS_CPU(ExcessCpuDetector.class.getSimpleName()),
   EXCESS_MEMORY(ExcessMemoryDetector.class.getSimpleName()),
   SCARCE_CPU(ScarceCpuDetector.class.getSimpleName()),
-  SCARCE_MEMORY(ScarceMemoryDetector.class.getSimpleName());
+  SCARCE_MEMORY(ScarceMemoryDetector.class.getSimpleName()),
+  CYCLE_OVERRUN(CycleOverrunDetector.class.getSimpleName()),
+  SCHEDULE_LAG(ScheduleLagDetector.class.getSimpleName());
 
   private String text;
 
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.core.MeasurementsTable;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Evaluates the threshold rules of all the {@link AboveThresholdDetector}s and {@link BelowThresholdDetector}s of a
+ * policy in one pass over the policy's measurements. A rule matches an instance if the instance's latest
+ * <code>n</code> measurements of the rule's metric are all within the rule's bounds, both inclusive. Measurements are
+ * ordered by time, the later row of measurements with the same time being the latest.
+ * <p>
+ * The first detector invoked in a cycle evaluates the rules of all detectors, the others read the cached result. The
+ * cache is invalidated when the checkpoint or the measurements change, or a rule is added.
+ */
+class ThresholdEngine {
+  private static final Map<ExecutionContext, ThresholdEngine> ENGINES = new WeakHashMap<>();
+
+  private final List<Rule> rules = new ArrayList<>();
+  private MeasurementsTable evaluatedTable;
+  private int evaluatedSize;
+  private Instant evaluatedCheckpoint;
+  private List<List<String>> results;
+
+  /**
+   * A rule matches the instances whose latest <code>n</code> values of the metric are in <code>[low, high]</code>
+   */
+  static final class Rule {
+    private final int index;
+    private final String metric;
+    private final double low;
+    private final double high;
+    private final double n;
+
+    private Rule(int index, String metric, double low, double high, double n) {
+      this.index = index;
+      this.metric = metric;
+      this.low = low;
+      this.high = high;
+      this.n = n;
+    }
+  }
+
+  /**
+   * @return the engine shared by the detectors of the policy owning the context, a new engine if there is no context
+   */
+  static ThresholdEngine of(ExecutionContext context) {
+    if (context == null) {
+      // a detector used without a policy does not share its rules, which would otherwise never be released
+      return new ThresholdEngine();
+    }
+    synchronized (ENGINES) {
+      return ENGINES.computeIfAbsent(context, c -> new ThresholdEngine());
+    }
+  }
+
+  /**
+   * @param n number of latest measurements which need to be in bounds, a fraction never matches
+   */
+  synchronized Rule register(String metric, double low, double high, double n) {
+    Rule rule = new Rule(rules.size(), metric, low, high, n);
+    rules.add(rule);
+    evaluatedTable = null;
+    return rule;
+  }
+
+  /**
+   * @return the instances matching the rule, grouped by component in the order of their first measurement
+   */
+  synchronized List<String> matches(Rule rule, MeasurementsTable table, Instant checkpoint) {
+    if (table != evaluatedTable || table.size() != evaluatedSize || !checkpoint.equals(evaluatedCheckpoint)) {
+      results = evaluate(table);
+      evaluatedTable = table;
+      evaluatedSize = table.size();
+      evaluatedCheckpoint = checkpoint;
+    }
+    return results.get(rule.index);
+  }
+
+  private List<List<String>> evaluate(MeasurementsTable table) {
+    MeasurementsTable.Columns columns = table.columns();
+
+    // the series of the rules' metrics, indexed by type code
+    Series[] seriesByType = new Series[0];
+    List<Series> series = new ArrayList<>();
+    for (Rule rule : rules) {
+      int code = columns.typeCode(rule.metric);
+      if (code < 0) {
+        continue;
+      }
+      if (code >= seriesByType.length) {
+        seriesByType = Arrays.copyOf(seriesByType, code + 1);
+      }
+      if (seriesByType[code] == null) {
+        seriesByType[code] = new Series();
+        series.add(seriesByType[code]);
+      }
+      seriesByType[code].rules.add(rule);
+      seriesByType[code].depth = Math.max(seriesByType[code].depth, Math.max(0, (int) rule.n));
+    }
+
+    List<List<String>> matches = new ArrayList<>();
+    rules.forEach(rule -> matches.add(new ArrayList<>()));
+    if (series.isEmpty()) {
+      return matches;
+    }
+
+    // single pass retaining the latest values of each type, component and instance
+    int size = columns.size();
+    int[] types = columns.types();
+    int[] components = columns.components();
+    int[] instances = columns.instances();
+    long[] timestamps = columns.timestamps();
+    double[] values = columns.values();
+    for (int row = 0; row < size; row++) {
+      int type = types[row];
+      Series typeSeries = type < seriesByType.length ? seriesByType[type] : null;
+      if (typeSeries != null) {
+        typeSeries.add(components[row], instances[row], timestamps[row], values[row]);
+      }
+    }
+
+    for (Series typeSeries : series) {
+      int[] groups = typeSeries.groupsByComponent();
+      for (Rule rule : typeSeries.rules) {
+        List<String> ruleMatches = matches.get(rule.index);
+        for (int group : groups) {
+          if (typeSeries.allWithin(group, rule)) {
+            ruleMatches.add(columns.instance(typeSeries.groupInstances[group]));
+          }
+        }
+      }
+    }
+    for (int i = 0; i < matches.size(); i++) {
+      matches.set(i, Collections.unmodifiableList(matches.get(i)));
+    }
+    return matches;
+  }
+
+  /**
+   * The latest values of each instance of a metric. Instances are identified by their component and instance
+   * dictionary codes, which index the group of the instance, and the latest values of the groups are kept newest
+   * first in flat arrays of <code>depth</code> elements per group.
+   */
+  private static final class Series {
+    private final List<Rule> rules = new ArrayList<>();
+    private int depth;
+
+    // group of each component and instance code plus one, 0 if the instance has no group yet
+    private int[][] groupIndex = new int[0][];
+    // first appearance rank of each component code plus one
+    private int[] componentRanks = new int[0];
+    private int componentCount;
+
+    private int groupCount;
+    private int[] groupInstances = new int[16];
+    private int[] groupRanks = new int[16];
+    private int[] counts = new int[16];
+    private long[] times = new long[0];
+    private double[] values = new double[0];
+
+    private void add(int component, int instance, long time, double value) {
+      int group = group(component, instance);
+      int offset = group * depth;
+      int count = counts[group];
+      int position = count;
+      // later rows win ties, i.e. are newer than earlier rows of the same time
+      while (position > 0 && times[offset + position - 1] <= time) {
+        position--;
+      }
+      if (position == depth) {
+        return;
+      }
+      int last = Math.min(count, depth - 1);
+      System.arraycopy(times, offset + position, times, offset + position + 1, last - position);
+      System.arraycopy(values, offset + position, values, offset + position + 1, last - position);
+      times[offset + position] = time;
+      values[offset + position] = value;
+      counts[group] = Math.min(count + 1, depth);
+    }
+
+    private int group(int component, int instance) {
+      if (component >= groupIndex.length) {
+        groupIndex = Arrays.copyOf(groupIndex, Math.max(component + 1, groupIndex.length * 2));
+        componentRanks = Arrays.copyOf(componentRanks, groupIndex.length);
+      }
+      int[] instanceGroups = groupIndex[component];
+      if (instanceGroups == null) {
+        instanceGroups = groupIndex[component] = new int[instance + 16];
+        componentRanks[component] = ++componentCount;
+      } else if (instance >= instanceGroups.length) {
+        instanceGroups = groupIndex[component]
+            = Arrays.copyOf(instanceGroups, Math.max(instance + 1, instanceGroups.length * 2));
+      }
+      if (instanceGroups[instance] == 0) {
+        instanceGroups[instance] = newGroup(instance, componentRanks[component]) + 1;
+      }
+      return instanceGroups[instance] - 1;
+    }
+
+    private int newGroup(int instance, int componentRank) {
+      int group = groupCount++;
+      if (group == counts.length) {
+        groupInstances = Arrays.copyOf(groupInstances, group * 2);
+        groupRanks = Arrays.copyOf(groupRanks, group * 2);
+        counts = Arrays.copyOf(counts, group * 2);
+      }
+      if ((group + 1) * depth > times.length) {
+        times = Arrays.copyOf(times, Math.max(times.length * 2, (group + 1) * depth));
+        values = Arrays.copyOf(values, times.length);
+      }
+      groupInstances[group] = instance;
+      groupRanks[group] = componentRank;
+      return group;
+    }
+
+    /**
+     * @return the groups ordered by the first appearance of their component, then of their instance
+     */
+    private int[] groupsByComponent() {
+      long[] keys = new long[groupCount];
+      for (int group = 0; group < groupCount; group++) {
+        keys[group] = (long) groupRanks[group] << 32 | group;
+      }
+      Arrays.sort(keys);
+      int[] groups = new int[groupCount];
+      for (int i = 0; i < groupCount; i++) {
+        groups[i] = (int) keys[i];
+      }
+      return groups;
+    }
+
+    private boolean allWithin(int group, Rule rule) {
+      int n = (int) rule.n;
+      if (n != rule.n || counts[group] < n) {
+        return false;
+      }
+      int offset = group * depth;
+      for (int i = offset; i < offset + n; i++) {
+        if (values[i] < rule.low || values[i] > rule.high) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+
+/**
+ * The {@link ZScoreDetector} is an {@link AnomalyDetector} whose baseline is the mean of an instance's latest values,
+ * and whose deviation is their standard deviation. The mean and the variance are updated in constant time as values
+ * enter and leave the window.
+ */
+public class ZScoreDetector extends AnomalyDetector {
+  public static final String SYMPTOM_ZSCORE = ZScoreDetector.class.getSimpleName();
+
+  public ZScoreDetector(PolicyConfig policyConfig, String metricName) {
+    super(policyConfig, SYMPTOM_ZSCORE, metricName, 30);
+  }
+
+  @Override
+  protected double baseline(InstanceWindow window, Measurement measurement) {
+    return window.mean();
+  }
+
+  @Override
+  protected double deviation(InstanceWindow window, Measurement measurement) {
+    return Math.sqrt(window.variance());
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.diagnosers;
+
+import com.microsoft.dhalion.Utils;
+import com.microsoft.dhalion.api.IDiagnoser;
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.MeasurementsTable;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.core.SymptomsTable;
+import com.microsoft.dhalion.detectors.SymptomName;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import com.microsoft.dhalion.sensors.SelfMonitoringSensor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * The {@link ExpensivePolicyDiagnoser} identifies the policies which overload the health manager. A policy is
+ * expensive if its cycles overrun, see {@link com.microsoft.dhalion.detectors.CycleOverrunDetector}. If policies lag
+ * behind their schedule, see {@link com.microsoft.dhalion.detectors.ScheduleLagDetector}, the policy with the longest
+ * current cycle time is considered expensive, as it delays the others. The policy executing this diagnoser is never
+ * diagnosed.
+ */
+public class ExpensivePolicyDiagnoser implements IDiagnoser {
+  private static final Logger LOG = Logger.getLogger(ExpensivePolicyDiagnoser.class.getName());
+  public static final String DIAGNOSIS_EXPENSIVE_POLICY
+      = Utils.getCompositeName(ExpensivePolicyDiagnoser.class.getSimpleName(), "expensive_policy");
+
+  private ExecutionContext context;
+
+  @Override
+  public void initialize(ExecutionContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public Collection<Diagnosis> diagnose(Collection<Symptom> symptoms) {
+    SymptomsTable symptomsTable = SymptomsTable.of(symptoms);
+    SymptomsTable overruns = symptomsTable.type(SymptomName.CYCLE_OVERRUN.text());
+    SymptomsTable lags = symptomsTable.type(SymptomName.SCHEDULE_LAG.text());
+
+    Set<String> policies = new TreeSet<>();
+    overruns.get().forEach(symptom -> policies.addAll(symptom.assignments()));
+    if (lags.size() > 0) {
+      mostExpensivePolicy().ifPresent(policies::add);
+    }
+    policies.remove(context.policyName());
+
+    if (policies.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    LOG.warning(String.format("Expensive policies found: %s", policies));
+    Collection<Symptom> causes = new ArrayList<>(overruns.get());
+    causes.addAll(lags.get());
+    return Collections.singletonList(new Diagnosis(DIAGNOSIS_EXPENSIVE_POLICY, context.checkpoint(), policies, causes));
+  }
+
+  private Optional<String> mostExpensivePolicy() {
+    MeasurementsTable cycleTimes = context.measurements()
+                                          .component(SelfMonitoringSensor.COMPONENT)
+                                          .type(SelfMonitoringSensor.METRIC_CYCLE_TIME)
+                                          .instant(context.checkpoint());
+    return cycleTimes.get().stream()
+                     .filter(m -> !m.instance().equals(context.policyName()))
+                     .max(Comparator.comparingDouble(Measurement::value))
+                     .map(Measurement::instance);
+  }
+}
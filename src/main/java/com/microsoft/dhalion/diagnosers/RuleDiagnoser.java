@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.diagnosers;
+
+import com.microsoft.dhalion.api.IDiagnoser;
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.detectors.RuleDetector;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import com.microsoft.dhalion.rules.RulePlan;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link RuleDiagnoser} evaluates the rules configured in the policy configuration, see {@link RulePlan}, over
+ * the symptoms of the current cycle and the measurements. It generates a diagnosis named after each matching rule,
+ * assigned to the matching instances and caused by their symptoms the rule refers to, e.g.
+ * <pre>
+ * RuleDiagnoser.rules:
+ *   OverUtilizedNode: symptom(AboveThresholdDetector_Cpu) and symptom(AboveThresholdDetector_Mem)
+ * </pre>
+ */
+public class RuleDiagnoser implements IDiagnoser {
+  public static final String RULES_CONF = "RuleDiagnoser.rules";
+
+  private static final Logger LOG = Logger.getLogger(RuleDiagnoser.class.getName());
+
+  private final RulePlan plan;
+  private ExecutionContext context;
+
+  @Inject
+  public RuleDiagnoser(PolicyConfig policyConfig) {
+    this(RuleDetector.rules(policyConfig, RULES_CONF));
+  }
+
+  public RuleDiagnoser(Map<String, String> rules) {
+    this.plan = RulePlan.compile(rules);
+  }
+
+  @Override
+  public void initialize(ExecutionContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public Collection<Diagnosis> diagnose(Collection<Symptom> symptoms) {
+    if (symptoms.isEmpty() && !plan.usesMeasurements()) {
+      return Collections.emptyList();
+    }
+
+    Map<String, List<String>> matches = plan.evaluate(plan.usesMeasurements() ? context.measurements() : null,
+                                                      symptoms,
+                                                      context.checkpoint(),
+                                                      context.previousCheckpoint());
+    List<Diagnosis> diagnoses = new ArrayList<>();
+    matches.forEach((rule, instances) -> {
+      if (LOG.isLoggable(Level.FINE)) {
+        LOG.log(Level.FINE, "Instances {0} match rule {1}", new Object[]{instances, rule});
+      }
+      Set<String> causeTypes = plan.symptomTypes(rule);
+      List<Symptom> causes = new ArrayList<>();
+      for (Symptom symptom : symptoms) {
+        if (causeTypes.contains(symptom.type()) && !Collections.disjoint(symptom.assignments(), instances)) {
+          causes.add(symptom);
+        }
+      }
+      diagnoses.add(new Diagnosis(rule, context.checkpoint(), instances, causes));
+    });
+    return diagnoses;
+  }
+
+  @Override
+  public String toString() {
+    return "RuleDiagnoser{" + plan + "}";
+  }
+}
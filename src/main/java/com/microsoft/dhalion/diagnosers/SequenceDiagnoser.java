@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.diagnosers;
+
+import com.microsoft.dhalion.api.IDiagnoser;
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link SequenceDiagnoser} diagnoses the assignments which had a sequence of symptoms within a time window, e.g. a
+ * high cpu symptom followed by a high latency symptom within two policy cycles. Each step of the pattern needs a
+ * symptom which is newer than the symptom of the previous step, and the symptom of the last step must be at most the
+ * window later than the symptom of the first step.
+ * <p>
+ * The diagnoser matches the symptoms of each cycle incrementally instead of scanning the symptom history. It runs a
+ * small automaton per assignment, which remembers the latest partial match reaching each step of the pattern, so the
+ * cost per symptom is proportional to the length of the pattern. The state of assignments without symptoms during
+ * the window is dropped.
+ */
+public class SequenceDiagnoser implements IDiagnoser {
+  private static final Logger LOG = Logger.getLogger(SequenceDiagnoser.class.getName());
+
+  private final String diagnosisType;
+  private final long window;
+  private final String[] pattern;
+
+  // in order of the latest update, the least recently updated first
+  private final Map<String, Matcher> matchers = new LinkedHashMap<>(16, 0.75f, true);
+
+  protected ExecutionContext context;
+
+  /**
+   * @param diagnosisType type of the created diagnoses
+   * @param window        maximum time between the symptoms of the first and the last step
+   * @param pattern       symptom types of the steps, in order
+   */
+  public SequenceDiagnoser(String diagnosisType, Duration window, String... pattern) {
+    if (pattern.length == 0) {
+      throw new IllegalArgumentException("The pattern of " + diagnosisType + " has no steps");
+    }
+    this.diagnosisType = diagnosisType;
+    this.window = window.toMillis();
+    this.pattern = pattern.clone();
+  }
+
+  @Override
+  public void initialize(ExecutionContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public Collection<Diagnosis> diagnose(Collection<Symptom> symptoms) {
+    Set<String> assignments = new LinkedHashSet<>();
+    Set<Symptom> causes = new LinkedHashSet<>();
+    long latest = Long.MIN_VALUE;
+    for (Symptom symptom : symptoms) {
+      long time = symptom.instant().toEpochMilli();
+      latest = Math.max(latest, time);
+      if (!isStep(symptom.type())) {
+        continue;
+      }
+
+      for (String assignment : symptom.assignments()) {
+        Matcher matcher = matchers.get(assignment);
+        if (matcher == null) {
+          matcher = new Matcher(pattern.length);
+          matchers.put(assignment, matcher);
+        }
+        Symptom[] match = matcher.advance(symptom, time);
+        if (match != null) {
+          assignments.add(assignment);
+          causes.addAll(Arrays.asList(match));
+        }
+      }
+    }
+
+    Instant checkpoint = context == null ? null : context.checkpoint();
+    expire(checkpoint == null ? latest : checkpoint.toEpochMilli());
+
+    if (assignments.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    if (LOG.isLoggable(Level.FINE)) {
+      LOG.log(Level.FINE, "Assignments {0} match the sequence {1} of {2}",
+              new Object[]{assignments, Arrays.toString(pattern), diagnosisType});
+    }
+    return Collections.singletonList(new Diagnosis(diagnosisType, checkpoint, assignments, new ArrayList<>(causes)));
+  }
+
+  private boolean isStep(String type) {
+    for (String step : pattern) {
+      if (step.equals(type)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void expire(long now) {
+    Iterator<Matcher> iterator = matchers.values().iterator();
+    while (iterator.hasNext()) {
+      if (now - iterator.next().updated <= window) {
+        // the remaining matchers were updated more recently
+        break;
+      }
+      iterator.remove();
+    }
+  }
+
+  /**
+   * @return number of assignments with partial matches
+   */
+  int assignments() {
+    return matchers.size();
+  }
+
+  /**
+   * The automaton of an assignment. For each step, it keeps the symptoms of the partial match with the latest start
+   * which reached the step, as it has the most time left to complete.
+   */
+  private final class Matcher {
+    // the symptoms of the partial match reaching each step, null if there is none
+    private final Symptom[][] partial;
+    private long updated;
+
+    private Matcher(int steps) {
+      partial = new Symptom[steps][];
+    }
+
+    /**
+     * @return the symptoms of the completed match, null if the symptom does not complete a match
+     */
+    private Symptom[] advance(Symptom symptom, long time) {
+      updated = Math.max(updated, time);
+      Symptom[] completed = null;
+      // backwards, so the symptom advances each partial match by one step only
+      for (int step = pattern.length - 1; step >= 0; step--) {
+        if (!pattern[step].equals(symptom.type())) {
+          continue;
+        }
+
+        Symptom[] match;
+        if (step == 0) {
+          match = new Symptom[pattern.length];
+        } else {
+          Symptom[] previous = partial[step - 1];
+          if (previous == null
+              || time <= previous[step - 1].instant().toEpochMilli()
+              || time - previous[0].instant().toEpochMilli() > window) {
+            continue;
+          }
+          match = previous.clone();
+        }
+        match[step] = symptom;
+
+        if (step == pattern.length - 1) {
+          completed = match;
+          Arrays.fill(partial, null);
+        } else {
+          partial[step] = match;
+        }
+      }
+      return completed;
+    }
+  }
+}
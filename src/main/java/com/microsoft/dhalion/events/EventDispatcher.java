@@ -7,21 +7,43 @@
 
 package com.microsoft.dhalion.events;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
 
+/**
+ * Dispatches events to its handlers in registration order. The handlers are kept in a copy-on-write array, so
+ * dispatching iterates a snapshot without locking and may run concurrently with the registration of handlers.
+ */
 public class EventDispatcher<T> implements EventHandler<T> {
-  Set<EventHandler<T>> handlers = new HashSet<>();
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private volatile EventHandler<T>[] handlers = new EventHandler[0];
 
   public synchronized void addHandler(EventHandler<T> handler) {
-    if (handlers.contains(handler)) {
+    if (Arrays.asList(handlers).contains(handler)) {
       throw new IllegalArgumentException("Duplicate hanlder registration");
     }
-    handlers.add(handler);
+    EventHandler<T>[] copy = Arrays.copyOf(handlers, handlers.length + 1);
+    copy[handlers.length] = handler;
+    handlers = copy;
+  }
+
+  /**
+   * @return false if the handler was not registered
+   */
+  public synchronized boolean removeHandler(EventHandler<T> handler) {
+    int index = Arrays.asList(handlers).indexOf(handler);
+    if (index < 0) {
+      return false;
+    }
+    EventHandler<T>[] copy = Arrays.copyOf(handlers, handlers.length - 1);
+    System.arraycopy(handlers, index + 1, copy, index, handlers.length - index - 1);
+    handlers = copy;
+    return true;
   }
 
   @Override
   public void onEvent(T event) {
-    handlers.forEach(x -> x.onEvent(event));
+    for (EventHandler<T> handler : handlers) {
+      handler.onEvent(event);
+    }
   }
 }
@@ -7,33 +7,291 @@
 
 package com.microsoft.dhalion.events;
 
-import com.microsoft.dhalion.policy.PoliciesExecutor;
+import com.microsoft.dhalion.logging.RateLimitedLogger;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class EventManager {
-  private static final Logger LOG = Logger.getLogger(PoliciesExecutor.class.getName());
-  private final Map<Class<?>, EventDispatcher<?>> registry = new HashMap<>();
+/**
+ * Routes events to the handlers registered for their class, its superclasses and the interfaces it implements. The
+ * registered types matching a concrete event class are resolved once, by walking its type hierarchy, and cached until
+ * a handler is registered for a new type. By default, events are dispatched synchronously on the thread calling
+ * {@link #onEvent(Object)}. In asynchronous mode, each event type has a bounded queue which is drained by a pool of
+ * dispatch threads, so a slow handler delays the events of its type only, and never the thread raising the events.
+ * The events of a type are dispatched one at a time, in the order they were raised. When the queue of a type is full,
+ * the {@link Backpressure} policy decides which event is lost, or whether the raising thread waits. An event matching
+ * several registered types is queued for each of them.
+ */
+public class EventManager implements AutoCloseable {
+  private static final Logger LOG = Logger.getLogger(EventManager.class.getName());
+  // reports dropped events at most once per event type and minute
+  private static final RateLimitedLogger DROP_LOG = new RateLimitedLogger(LOG, Duration.ofMinutes(1));
+
+  /**
+   * What happens to an event raised while the queue of its type is full
+   */
+  public enum Backpressure {
+    /**
+     * the raised event is dropped
+     */
+    DROP_NEWEST,
+    /**
+     * the oldest queued event is dropped to make room for the raised event
+     */
+    DROP_OLDEST,
+    /**
+     * the raising thread waits until there is room in the queue
+     */
+    BLOCK
+  }
+
+  private final Map<Class<?>, Channel<?>> registry = new ConcurrentHashMap<>();
+  // channels of the registered types matching each concrete event class, replaced when a type is registered
+  private volatile Map<Class<?>, Channel<?>[]> resolved = new ConcurrentHashMap<>();
+  private final ExecutorService executor;
+  private final int queueSize;
+  private final Backpressure backpressure;
+  private final AtomicLong dropped = new AtomicLong();
+
+  /**
+   * Creates an event manager dispatching events synchronously
+   */
+  public EventManager() {
+    executor = null;
+    queueSize = 0;
+    backpressure = null;
+  }
 
-  public synchronized <T> void addEventListener(Class<T> eventType, EventHandler<T> handler) {
-    EventDispatcher<T> dispatcher = (EventDispatcher<T>) registry.get(eventType);
-    if (dispatcher == null) {
-      dispatcher = new EventDispatcher<>();
-      registry.put(eventType, dispatcher);
+  /**
+   * Creates an event manager dispatching events asynchronously
+   *
+   * @param threads      number of dispatch threads, shared by all event types
+   * @param queueSize    capacity of the queue of each event type
+   * @param backpressure policy applied when a queue is full
+   */
+  public EventManager(int threads, int queueSize, Backpressure backpressure) {
+    if (threads < 1 || queueSize < 1) {
+      throw new IllegalArgumentException("Threads and queue size must be positive");
     }
-    dispatcher.addHandler(handler);
+    this.queueSize = queueSize;
+    this.backpressure = backpressure;
+    AtomicInteger count = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, EventManager.class.getSimpleName() + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
   }
 
+  /**
+   * Registers a handler of the events of the given type, including events of its subclasses and, if it is an
+   * interface, of the classes implementing it
+   */
+  @SuppressWarnings("unchecked")
+  public <T> void addEventListener(Class<T> eventType, EventHandler<T> handler) {
+    Channel<T> channel = (Channel<T>) registry.get(eventType);
+    if (channel == null) {
+      synchronized (registry) {
+        channel = (Channel<T>) registry.get(eventType);
+        if (channel == null) {
+          channel = new Channel<>(eventType.getName());
+          registry.put(eventType, channel);
+          // the channel is registered before the cache is replaced, so a resolution missing it is never cached
+          resolved = new ConcurrentHashMap<>();
+        }
+      }
+    }
+    channel.dispatcher.addHandler(handler);
+  }
+
+  /**
+   * Dispatches the event to the handlers of the registered types it matches, the most specific class first, then its
+   * superclasses and then its interfaces
+   */
+  @SuppressWarnings("unchecked")
   public <T> void onEvent(T event) {
-    Class<?> key = event.getClass();
-    EventDispatcher<T> dispatcher = (EventDispatcher<T>) registry.get(event.getClass());
-    if (dispatcher == null) {
-      LOG.info("No dispatcher registered for event");
+    Channel<?>[] channels = resolved.computeIfAbsent(event.getClass(), this::resolve);
+    if (channels.length == 0) {
+      LOG.fine("No dispatcher registered for event");
       return;
     }
 
-    dispatcher.onEvent(event);
+    for (Channel<?> channel : channels) {
+      if (executor == null) {
+        ((Channel<T>) channel).dispatcher.onEvent(event);
+      } else {
+        ((Channel<T>) channel).enqueue(event);
+      }
+    }
+  }
+
+  /**
+   * @return the channels of the registered types which the class is assignable to
+   */
+  private Channel<?>[] resolve(Class<?> eventClass) {
+    Set<Class<?>> types = new LinkedHashSet<>();
+    for (Class<?> type = eventClass; type != null; type = type.getSuperclass()) {
+      types.add(type);
+    }
+    Deque<Class<?>> pending = new ArrayDeque<>(types);
+    while (!pending.isEmpty()) {
+      for (Class<?> type : pending.poll().getInterfaces()) {
+        if (types.add(type)) {
+          pending.add(type);
+        }
+      }
+    }
+
+    List<Channel<?>> channels = new ArrayList<>();
+    for (Class<?> type : types) {
+      Channel<?> channel = registry.get(type);
+      if (channel != null) {
+        channels.add(channel);
+      }
+    }
+    return channels.toArray(new Channel<?>[0]);
+  }
+
+  /**
+   * @return number of events dropped because the queue of their type was full
+   */
+  public long dropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Stops the dispatch threads after the queued events are dispatched, waiting for at most the given duration
+   *
+   * @return false if events were still queued or being dispatched after the timeout
+   */
+  public boolean close(Duration timeout) throws InterruptedException {
+    if (executor == null) {
+      return true;
+    }
+    long deadline = System.nanoTime() + timeout.toNanos();
+    for (Channel<?> channel : registry.values()) {
+      synchronized (channel) {
+        while (channel.scheduled.get() || !channel.queue.isEmpty()) {
+          long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+          if (remaining <= 0) {
+            executor.shutdownNow();
+            return false;
+          }
+          channel.wait(remaining);
+        }
+      }
+    }
+    executor.shutdown();
+    return true;
+  }
+
+  /**
+   * Stops the dispatch threads, dropping the queued events
+   */
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * The handlers and, in asynchronous mode, the queue of an event type. At most one drain of the queue is scheduled at
+   * a time, which keeps the events of the type in order.
+   */
+  private class Channel<T> implements Runnable {
+    private final String type;
+    private final EventDispatcher<T> dispatcher = new EventDispatcher<>();
+    private final ArrayBlockingQueue<T> queue;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private Channel(String type) {
+      this.type = type;
+      this.queue = executor == null ? null : new ArrayBlockingQueue<>(queueSize);
+    }
+
+    private void enqueue(T event) {
+      switch (backpressure) {
+        case DROP_NEWEST:
+          if (!queue.offer(event)) {
+            drop();
+          }
+          break;
+        case DROP_OLDEST:
+          while (!queue.offer(event)) {
+            if (queue.poll() != null) {
+              drop();
+            }
+          }
+          break;
+        case BLOCK:
+          try {
+            queue.put(event);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drop();
+            return;
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unknown backpressure policy " + backpressure);
+      }
+      schedule();
+    }
+
+    private void drop() {
+      dropped.incrementAndGet();
+      DROP_LOG.log(Level.WARNING, type, "Dropped event, the queue is full: type={0}", type);
+    }
+
+    private void schedule() {
+      if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+        try {
+          executor.execute(this);
+        } catch (RejectedExecutionException e) {
+          // the manager is closed
+          scheduled.set(false);
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      // bounds the time a type occupies a dispatch thread while its events keep coming
+      for (int i = queueSize; i > 0; i--) {
+        T event = queue.poll();
+        if (event == null) {
+          break;
+        }
+        try {
+          dispatcher.onEvent(event);
+        } catch (RuntimeException e) {
+          LOG.log(Level.WARNING, "Event handler failed: type=" + type, e);
+        }
+      }
+      scheduled.set(false);
+      synchronized (this) {
+        notifyAll();
+      }
+      // an event may have been queued after the last poll, while the drain was still scheduled
+      schedule();
+    }
   }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.events;
+
+import com.microsoft.dhalion.core.Action;
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.Outcome;
+import com.microsoft.dhalion.core.Symptom;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * An event of a policy cycle, published to the {@link EventManager} of the
+ * {@link com.microsoft.dhalion.policy.PoliciesExecutor} executing the policy. The events of a cycle are published
+ * together once the cycle ends, in the order they occurred. Handlers may subscribe to a specific event type, to
+ * {@link Outcomes} for the outcomes of all stages, or to {@link PolicyEvent} for all events.
+ */
+public abstract class PolicyEvent {
+  private final String policyName;
+  private final Instant checkpoint;
+
+  PolicyEvent(String policyName, Instant checkpoint) {
+    this.policyName = policyName;
+    this.checkpoint = checkpoint;
+  }
+
+  /**
+   * @return name of the policy, see {@link com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext#policyName()}
+   */
+  public String policyName() {
+    return policyName;
+  }
+
+  /**
+   * @return checkpoint of the cycle
+   */
+  public Instant checkpoint() {
+    return checkpoint;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{policy=" + policyName + ", checkpoint=" + checkpoint + '}';
+  }
+
+  public static class CycleStart extends PolicyEvent {
+    public CycleStart(String policyName, Instant checkpoint) {
+      super(policyName, checkpoint);
+    }
+  }
+
+  public static class CycleEnd extends PolicyEvent {
+    private final long durationNanos;
+
+    public CycleEnd(String policyName, Instant checkpoint, long durationNanos) {
+      super(policyName, checkpoint);
+      this.durationNanos = durationNanos;
+    }
+
+    public long durationNanos() {
+      return durationNanos;
+    }
+  }
+
+  /**
+   * The end of a stage of the cycle, i.e. sensors, detectors, diagnosers or resolvers
+   */
+  public static class StageEnd extends PolicyEvent {
+    private final String stage;
+    private final long durationNanos;
+    private final int results;
+
+    public StageEnd(String policyName, Instant checkpoint, String stage, long durationNanos, int results) {
+      super(policyName, checkpoint);
+      this.stage = stage;
+      this.durationNanos = durationNanos;
+      this.results = results;
+    }
+
+    public String stage() {
+      return stage;
+    }
+
+    public long durationNanos() {
+      return durationNanos;
+    }
+
+    /**
+     * @return number of measurements or outcomes produced by the stage
+     */
+    public int results() {
+      return results;
+    }
+  }
+
+  public static class MeasurementsFetched extends PolicyEvent {
+    private final Collection<Measurement> measurements;
+
+    public MeasurementsFetched(String policyName, Instant checkpoint, Collection<Measurement> measurements) {
+      super(policyName, checkpoint);
+      this.measurements = Collections.unmodifiableCollection(measurements);
+    }
+
+    public Collection<Measurement> measurements() {
+      return measurements;
+    }
+  }
+
+  /**
+   * The outcomes produced by a stage of the cycle
+   */
+  public abstract static class Outcomes<T extends Outcome> extends PolicyEvent {
+    private final Collection<T> outcomes;
+
+    Outcomes(String policyName, Instant checkpoint, Collection<T> outcomes) {
+      super(policyName, checkpoint);
+      this.outcomes = Collections.unmodifiableCollection(outcomes);
+    }
+
+    public Collection<T> outcomes() {
+      return outcomes;
+    }
+  }
+
+  public static class SymptomsProduced extends Outcomes<Symptom> {
+    public SymptomsProduced(String policyName, Instant checkpoint, Collection<Symptom> symptoms) {
+      super(policyName, checkpoint, symptoms);
+    }
+  }
+
+  public static class DiagnosesProduced extends Outcomes<Diagnosis> {
+    public DiagnosesProduced(String policyName, Instant checkpoint, Collection<Diagnosis> diagnoses) {
+      super(policyName, checkpoint, diagnoses);
+    }
+  }
+
+  public static class ActionsProduced extends Outcomes<Action> {
+    public ActionsProduced(String policyName, Instant checkpoint, Collection<Action> actions) {
+      super(policyName, checkpoint, actions);
+    }
+  }
+}
@@ -13,30 +13,36 @@ import com.microsoft.dhalion.conf.Key;
 import com.microsoft.dhalion.core.Measurement;
 
 import javax.inject.Inject;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Optional;
+import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static com.microsoft.dhalion.examples.NodeStat.CPU_UTILIZATION;
+import static com.microsoft.dhalion.examples.NodeStat.MEMORY_UTILIZATION;
+
 /**
- * This is an example CSV metrics provider to be used when reading the example data file.
+ * This is an example CSV metrics provider to be used when reading the example data file. The file is read using an
+ * {@link IndexedCSVReader}, so only the lines close to the requested time window are parsed. Each line is parsed
+ * once, using a {@link NodeStatParser}, for all the requested metrics and components.
  */
 public class CSVMetricsProvider implements MetricsProvider {
   private static final Logger LOG = Logger.getLogger(CSVMetricsProvider.class.getSimpleName());
+  static final String DATA_FILE = "data.txt";
 
-  private NodeStat nodeStat;
+  private IndexedCSVReader reader;
   Config sysConf;
 
   @Inject
   public CSVMetricsProvider(Config sysConfig) {
-    nodeStat = new NodeStat();
     this.sysConf = sysConfig;
   }
 
@@ -45,36 +51,72 @@ public class CSVMetricsProvider implements MetricsProvider {
                                                  Collection<String> metrics,
                                                  Collection<String> components) {
     Collection<Measurement> measurements = new ArrayList<>();
-    for (String component : components) {
-      for (String metric : metrics) {
-        measurements.addAll(getMeasurements(metric, startTS, duration, component));
-      }
+    Instant endTS = startTS.minus(duration);
+    boolean memory = metrics.contains(MEMORY_UTILIZATION);
+    boolean cpu = metrics.contains(CPU_UTILIZATION);
+    if (!memory && !cpu) {
+      return measurements;
+    }
+
+    List<String> componentNames = new ArrayList<>(new HashSet<>(components));
+    byte[][] componentBytes = new byte[componentNames.size()][];
+    for (int i = 0; i < componentBytes.length; i++) {
+      componentBytes[i] = componentNames.get(i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    NodeStatParser parser = new NodeStatParser();
+    try {
+      getReader().read(endTS, startTS, (buffer, start, end) -> {
+        if (!parser.parse(buffer, start, end)) {
+          return;
+        }
+        if (parser.compareTime(endTS) <= 0 || parser.compareTime(startTS) > 0) {
+          return;
+        }
+
+        int component = 0;
+        while (component < componentBytes.length && !parser.nodeEquals(componentBytes[component])) {
+          component++;
+        }
+        if (component == componentBytes.length) {
+          return;
+        }
+
+        String node = componentNames.get(component);
+        String id = parser.instance();
+        Instant instant = parser.instant();
+        if (memory) {
+          measurements.add(new Measurement(node, id, MEMORY_UTILIZATION, instant, parser.memory()));
+        }
+        if (cpu) {
+          measurements.add(new Measurement(node, id, CPU_UTILIZATION, instant, parser.cpu()));
+        }
+      });
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Failed to read measurements from the data file", e);
     }
     return measurements;
   }
 
-  private Collection<Measurement> getMeasurements(String metric, Instant startTS, Duration duration, String
-      component) {
-    Collection<Measurement> metrics = new ArrayList<>();
-    Instant endTS = startTS.minus(duration);
-    HashSet<String> componentSet = new HashSet<>();
-    componentSet.add(component);
-    BufferedReader br;
+  private synchronized IndexedCSVReader getReader() {
+    if (reader == null) {
+      Path file = Paths.get(sysConf.get(Key.DATA_DIR.value()).toString(), DATA_FILE);
+      reader = new IndexedCSVReader(file);
+    }
+    return reader;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (reader == null) {
+      return;
+    }
+
     try {
-      br = new BufferedReader(new FileReader(new File(sysConf.get(Key.DATA_DIR.value()).toString(), "data.txt")));
-      String line = br.readLine();
-      while (line != null) {
-        Optional<Measurement> metricData = nodeStat.getMeasurement(line, metric, componentSet);
-        if (metricData.isPresent()) {
-          if (metricData.get().instant().compareTo(endTS) > 0 && metricData.get().instant().compareTo(startTS) <= 0) {
-            metrics.add(metricData.get());
-          }
-        }
-        line = br.readLine();
-      }
+      reader.close();
     } catch (IOException e) {
-      e.printStackTrace();
+      LOG.log(Level.WARNING, "Failed to close the data file", e);
     }
-    return metrics;
+    reader = null;
   }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Reads lines of the example data file through a memory mapping. The first read builds a sparse index which records
+ * the byte offset of the first line of every minute present in the file. Subsequent reads use the index to visit only
+ * the lines which may belong to the requested time window. If the file grows, only the newly appended lines are
+ * indexed.
+ * <p>
+ * The index assumes that lines are appended in time order. If a line older than its predecessor is found, the reader
+ * stops trusting the index and falls back to scanning the complete file.
+ */
+class IndexedCSVReader implements Closeable {
+  private static final Logger LOG = Logger.getLogger(IndexedCSVReader.class.getSimpleName());
+  private static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  // largest region which can be addressed by a single mapped buffer
+  private static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+  private final Path file;
+  private final long maxRegionSize;
+  private final NodeStatParser parser = new NodeStatParser();
+  private FileChannel channel;
+
+  // minute buckets and the offset of the first line in each bucket, in file order
+  private long[] buckets = new long[64];
+  private long[] offsets = new long[64];
+  private int indexSize = 0;
+
+  // length of the indexed prefix of the file, always positioned right after a line separator
+  private long indexedLength = 0;
+  private long lastTimestamp = Long.MIN_VALUE;
+  private boolean ordered = true;
+
+  interface LineConsumer {
+    /**
+     * @param buffer buffer holding the line
+     * @param start  position of the first byte of the line
+     * @param end    position after the last byte of the line, excluding line separators
+     */
+    void accept(ByteBuffer buffer, int start, int end);
+  }
+
+  IndexedCSVReader(Path file) {
+    this(file, MAX_REGION_SIZE);
+  }
+
+  IndexedCSVReader(Path file, long maxRegionSize) {
+    this.file = file;
+    this.maxRegionSize = maxRegionSize;
+  }
+
+  /**
+   * Visits all lines which may contain records created after <code>oldest</code> and at or before
+   * <code>newest</code>. Lines close to the window boundaries may be outside the window and need to be filtered by the
+   * consumer.
+   *
+   * @param oldest   window start, exclusive
+   * @param newest   window end, inclusive
+   * @param consumer receives each candidate line
+   */
+  synchronized void read(Instant oldest, Instant newest, LineConsumer consumer) throws IOException {
+    if (channel == null) {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    long size = channel.size();
+    updateIndex(size);
+
+    long from = 0;
+    long to = size;
+    if (ordered && indexSize > 0) {
+      int first = floor(Math.floorDiv(oldest.toEpochMilli(), BUCKET_MILLIS));
+      from = first < 0 ? 0 : offsets[first];
+      int last = floor(Math.floorDiv(newest.toEpochMilli(), BUCKET_MILLIS)) + 1;
+      to = last < indexSize ? offsets[last] : size;
+    }
+
+    scan(from, to, consumer);
+  }
+
+  /**
+   * Visits all lines of the file, without using or building the index.
+   */
+  synchronized void readAll(LineConsumer consumer) throws IOException {
+    if (channel == null) {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+    scan(0, channel.size(), consumer);
+  }
+
+  private void updateIndex(long size) throws IOException {
+    if (size < indexedLength) {
+      LOG.info(file + " was truncated, rebuilding the index");
+      indexSize = 0;
+      indexedLength = 0;
+      lastTimestamp = Long.MIN_VALUE;
+      ordered = true;
+    }
+
+    if (size > indexedLength) {
+      // lines without a separator at the end of the file may be incomplete and are indexed once completed
+      indexedLength = scan(indexedLength, size, false, this::addToIndex);
+    }
+  }
+
+  private void scan(long from, long to, LineConsumer consumer) throws IOException {
+    scan(from, to, true, (region, regionOffset, start, end) -> consumer.accept(region, start, end));
+  }
+
+  private interface RegionLineVisitor {
+    void visit(ByteBuffer region, long regionOffset, int start, int end);
+  }
+
+  /**
+   * Maps the byte range in regions and visits each line in the range.
+   *
+   * @param includeTail true to visit the bytes following the last line separator in the range
+   * @return the offset right after the last line separator visited
+   */
+  private long scan(long from, long to, boolean includeTail, RegionLineVisitor visitor) throws IOException {
+    long position = from;
+    while (position < to) {
+      int length = (int) Math.min(maxRegionSize, to - position);
+      MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+      int lineStart = 0;
+      for (int i = 0; i < length; i++) {
+        if (region.get(i) == '\n') {
+          visitor.visit(region, position, lineStart, trimCarriageReturn(region, lineStart, i));
+          lineStart = i + 1;
+        }
+      }
+
+      if (position + length == to) {
+        if (includeTail && lineStart < length) {
+          visitor.visit(region, position, lineStart, trimCarriageReturn(region, lineStart, length));
+        }
+        return position + lineStart;
+      }
+
+      if (lineStart == 0) {
+        throw new IOException(String.format("Line at offset %d of %s is too long", position, file));
+      }
+      position += lineStart;
+    }
+    return position;
+  }
+
+  private void addToIndex(ByteBuffer region, long regionOffset, int start, int end) {
+    if (!parser.parse(region, start, end)) {
+      return;
+    }
+
+    long timestamp = parser.epochMillis();
+    if (timestamp < lastTimestamp) {
+      if (ordered) {
+        LOG.warning(file + " is not ordered by time, falling back to full scans");
+      }
+      ordered = false;
+    }
+    lastTimestamp = Math.max(timestamp, lastTimestamp);
+
+    long bucket = Math.floorDiv(timestamp, BUCKET_MILLIS);
+    if (indexSize > 0 && buckets[indexSize - 1] >= bucket) {
+      return;
+    }
+
+    if (indexSize == buckets.length) {
+      buckets = Arrays.copyOf(buckets, indexSize * 2);
+      offsets = Arrays.copyOf(offsets, indexSize * 2);
+    }
+    buckets[indexSize] = bucket;
+    offsets[indexSize] = regionOffset + start;
+    indexSize++;
+  }
+
+  /**
+   * @return position of the last index entry whose bucket is not after the given bucket, -1 if none
+   */
+  private int floor(long bucket) {
+    int position = Arrays.binarySearch(buckets, 0, indexSize, bucket);
+    return position >= 0 ? position : -position - 2;
+  }
+
+  private static int trimCarriageReturn(ByteBuffer buffer, int start, int end) {
+    return end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+  }
+
+  static String toString(ByteBuffer buffer, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+}
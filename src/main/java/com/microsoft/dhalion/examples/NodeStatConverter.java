@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.replay.MeasurementFileWriter;
+import com.microsoft.dhalion.replay.ReplayMetricsProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.logging.Logger;
+
+import static com.microsoft.dhalion.examples.NodeStat.CPU_UTILIZATION;
+import static com.microsoft.dhalion.examples.NodeStat.MEMORY_UTILIZATION;
+
+/**
+ * Converts an example data file to a binary measurement file which can be served by a {@link ReplayMetricsProvider}.
+ * Usage: <code>NodeStatConverter &lt;data file&gt; &lt;measurement file&gt;</code>
+ */
+public class NodeStatConverter {
+  private static final Logger LOG = Logger.getLogger(NodeStatConverter.class.getSimpleName());
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: " + NodeStatConverter.class.getSimpleName() + " <data file> <measurement file>");
+      System.exit(1);
+    }
+
+    long lines = convert(Paths.get(args[0]), Paths.get(args[1]));
+    LOG.info(String.format("Converted %d lines of %s to %s", lines, args[0], args[1]));
+  }
+
+  /**
+   * @return number of converted lines, malformed lines are skipped
+   */
+  static long convert(Path dataFile, Path measurementFile) throws IOException {
+    NodeStatParser parser = new NodeStatParser();
+    long[] lines = {0};
+    try (IndexedCSVReader reader = new IndexedCSVReader(dataFile);
+         MeasurementFileWriter writer = new MeasurementFileWriter(measurementFile)) {
+      reader.readAll((buffer, start, end) -> {
+        if (!parser.parse(buffer, start, end)) {
+          return;
+        }
+
+        String node = parser.node();
+        String instance = parser.instance();
+        Instant instant = parser.instant();
+        try {
+          writer.write(new Measurement(node, instance, MEMORY_UTILIZATION, instant, parser.memory()));
+          writer.write(new Measurement(node, instance, CPU_UTILIZATION, instant, parser.cpu()));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        lines[0]++;
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return lines[0];
+  }
+}
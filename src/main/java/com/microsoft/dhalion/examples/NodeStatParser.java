@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * Parses lines of the example data file, e.g. <code>NodeA[1]:Mem=915MB,Cpu=11%,Time=2018-01-08T01:35:36.934Z</code>,
+ * directly from bytes. Unlike {@link NodeStat}, which matches a regular expression and parses the timestamp once per
+ * metric, this parser extracts the node, id, memory, cpu and timestamp fields of a line in a single pass. It does not
+ * create any objects; the fields of the last parsed line are exposed through accessors and are valid until the next
+ * invocation of {@link #parse}.
+ * <p>
+ * Instances are not thread safe.
+ */
+final class NodeStatParser {
+  private static final int NODE_LENGTH = "NodeA".length();
+  private static final int SECONDS_PER_DAY = 86400;
+  // decimals with up to these many digits are converted exactly using a single division
+  private static final int MAX_EXACT_DIGITS = 15;
+  private static final int MAX_CACHED_INSTANCE_ID = 1024;
+  private static final int[] NANOS_SCALE = {
+      1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000};
+
+  // instance names are cached to avoid creating a string per parsed line
+  private final String[] instanceNames = new String[MAX_CACHED_INSTANCE_ID];
+
+  private ByteBuffer buffer;
+  private int position;
+  private int end;
+
+  private int nodeStart;
+  private long id;
+  private long memory;
+  private double cpu;
+  private long epochSecond;
+  private int nanos;
+
+  /**
+   * @param buffer buffer containing the line
+   * @param start  position of the first byte of the line
+   * @param end    position after the last byte of the line
+   * @return true if the line is well formed
+   */
+  boolean parse(ByteBuffer buffer, int start, int end) {
+    this.buffer = buffer;
+    this.position = start;
+    this.end = end;
+
+    if (!expect('N') || !expect('o') || !expect('d') || !expect('e') || !skip(1)) {
+      return false;
+    }
+    nodeStart = start;
+
+    if (!expect('[') || (id = parseLong()) < 0 || !expect(']') || !expect(':')) {
+      return false;
+    }
+
+    if (!expect("Mem=") || (memory = parseLong()) < 0 || !expect("MB,")) {
+      return false;
+    }
+
+    if (!expect("Cpu=") || !parseCpu() || !expect("%,")) {
+      return false;
+    }
+
+    return expect("Time=") && parseTime() && position == end;
+  }
+
+  /**
+   * @return true if the node name of the last parsed line is equal to the given ASCII name
+   */
+  boolean nodeEquals(byte[] name) {
+    if (name.length != NODE_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < NODE_LENGTH; i++) {
+      if (buffer.get(nodeStart + i) != name[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return a new string holding the node name of the last parsed line
+   */
+  String node() {
+    return IndexedCSVReader.toString(buffer, nodeStart, nodeStart + NODE_LENGTH);
+  }
+
+  long id() {
+    return id;
+  }
+
+  /**
+   * @return the id of the last parsed line as an instance name
+   */
+  String instance() {
+    if (id >= MAX_CACHED_INSTANCE_ID) {
+      return String.valueOf(id);
+    }
+
+    String name = instanceNames[(int) id];
+    if (name == null) {
+      name = String.valueOf(id);
+      instanceNames[(int) id] = name;
+    }
+    return name;
+  }
+
+  long memory() {
+    return memory;
+  }
+
+  double cpu() {
+    return cpu;
+  }
+
+  long epochSecond() {
+    return epochSecond;
+  }
+
+  int nanos() {
+    return nanos;
+  }
+
+  long epochMillis() {
+    return epochSecond * 1000 + nanos / 1_000_000;
+  }
+
+  /**
+   * @return negative if the parsed timestamp is before the given instant, 0 if equal and positive if after it
+   */
+  int compareTime(Instant instant) {
+    int result = Long.compare(epochSecond, instant.getEpochSecond());
+    return result != 0 ? result : Integer.compare(nanos, instant.getNano());
+  }
+
+  Instant instant() {
+    return Instant.ofEpochSecond(epochSecond, nanos);
+  }
+
+  private boolean expect(char c) {
+    if (position < end && buffer.get(position) == c) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+
+  private boolean expect(String token) {
+    for (int i = 0; i < token.length(); i++) {
+      if (!expect(token.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean skip(int count) {
+    position += count;
+    return position <= end;
+  }
+
+  /**
+   * @return the unsigned value of one or more digits, -1 if there are no digits or the value overflows
+   */
+  private long parseLong() {
+    int start = position;
+    long value = 0;
+    while (position < end && isDigit(buffer.get(position))) {
+      value = value * 10 + (buffer.get(position++) - '0');
+      if (value < 0) {
+        return -1;
+      }
+    }
+    return position > start ? value : -1;
+  }
+
+  private boolean parseCpu() {
+    int start = position;
+    boolean negative = expect('-');
+    long mantissa = 0;
+    int digits = 0;
+    int scale = -1;
+    while (position < end) {
+      byte b = buffer.get(position);
+      if (isDigit(b) && digits < MAX_EXACT_DIGITS) {
+        mantissa = mantissa * 10 + (b - '0');
+        digits++;
+        scale = scale >= 0 ? scale + 1 : scale;
+      } else if (b == '.' && scale < 0) {
+        scale = 0;
+      } else {
+        break;
+      }
+      position++;
+    }
+
+    if (position < end && buffer.get(position) == '%' && digits > 0) {
+      double value = scale > 0 ? mantissa / Math.pow(10, scale) : mantissa;
+      cpu = negative ? -value : value;
+      return true;
+    }
+
+    // uncommon formats, e.g. exponents, are delegated to the jdk
+    position = start;
+    while (position < end && buffer.get(position) != '%') {
+      position++;
+    }
+    try {
+      cpu = Double.parseDouble(IndexedCSVReader.toString(buffer, start, position));
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private boolean parseTime() {
+    int year = digits(4);
+    if (year < 0 || !expect('-')) {
+      return false;
+    }
+    int month = digits(2);
+    if (month < 1 || month > 12 || !expect('-')) {
+      return false;
+    }
+    int day = digits(2);
+    if (day < 1 || day > 31 || !expect('T')) {
+      return false;
+    }
+    int hour = digits(2);
+    if (hour < 0 || hour > 23 || !expect(':')) {
+      return false;
+    }
+    int minute = digits(2);
+    if (minute < 0 || minute > 59 || !expect(':')) {
+      return false;
+    }
+    int second = digits(2);
+    if (second < 0 || second > 59) {
+      return false;
+    }
+
+    nanos = 0;
+    if (expect('.')) {
+      int start = position;
+      long fraction = parseLong();
+      int length = position - start;
+      if (fraction < 0 || length > 9) {
+        return false;
+      }
+      nanos = (int) fraction * NANOS_SCALE[9 - length];
+    }
+
+    if (!expect('Z')) {
+      return false;
+    }
+
+    epochSecond = epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+    return true;
+  }
+
+  /**
+   * @return value of exactly <code>count</code> digits, -1 if fewer digits are available
+   */
+  private int digits(int count) {
+    if (position + count > end) {
+      return -1;
+    }
+
+    int value = 0;
+    for (int i = 0; i < count; i++) {
+      byte b = buffer.get(position + i);
+      if (!isDigit(b)) {
+        return -1;
+      }
+      value = value * 10 + (b - '0');
+    }
+    position += count;
+    return value;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  /**
+   * @return number of days since epoch of the given proleptic gregorian date
+   */
+  static long epochDay(int year, int month, int day) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import com.microsoft.dhalion.api.MetricsProvider;
+import com.microsoft.dhalion.conf.Config;
+import com.microsoft.dhalion.core.Measurement;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * This is an example metrics provider which generates utilization measurements of a simulated cluster, e.g. to test
+ * or benchmark policies at scale. Each component has the configured number of instances, named by their index, and
+ * each instance reports every requested metric once per interval. Values are normally distributed around a
+ * baseline, clamped to [0, 100], and the following anomalies can be injected:
+ * <ul>
+ * <li>hot instances: a fraction of the instances whose values are offset by a constant</li>
+ * <li>skew: instance baselines spread linearly from <code>baseline * (1 - skew)</code> to
+ * <code>baseline * (1 + skew)</code></li>
+ * <li>drift: a value increase per hour elapsed since the configured drift start</li>
+ * </ul>
+ * Measurements exist from the configured cluster start on. Without a start, every window is filled completely, so
+ * queries of long windows, e.g. the first cycle of a policy, may produce a very large number of measurements.
+ * <p>
+ * A value is a pure function of the seed, the measurement's component, instance, metric and time. Hence, the same
+ * configuration always produces the same measurements, independent of the queried windows.
+ */
+public class SyntheticMetricsProvider implements MetricsProvider {
+  private static final String PREFIX = SyntheticMetricsProvider.class.getSimpleName();
+  public static final String CONF_SEED = PREFIX + ".seed";
+  public static final String CONF_START = PREFIX + ".start";
+  public static final String CONF_INSTANCES = PREFIX + ".instances";
+  public static final String CONF_INTERVAL = PREFIX + ".interval.ms";
+  public static final String CONF_BASELINE = PREFIX + ".baseline";
+  public static final String CONF_NOISE = PREFIX + ".noise";
+  public static final String CONF_HOT_FRACTION = PREFIX + ".hot.fraction";
+  public static final String CONF_HOT_OFFSET = PREFIX + ".hot.offset";
+  public static final String CONF_SKEW = PREFIX + ".skew";
+  public static final String CONF_DRIFT = PREFIX + ".drift.per.hour";
+  public static final String CONF_DRIFT_START = PREFIX + ".drift.start";
+
+  private static final double MAX_VALUE = 100;
+  private static final double TWO_POW_53 = 1L << 53;
+
+  private final long seed;
+  private final Instant start;
+  private final int instances;
+  private final long intervalMillis;
+  private final double baseline;
+  private final double noise;
+  private final double hotFraction;
+  private final double hotOffset;
+  private final double skew;
+  private final double driftPerHour;
+  private final Instant driftStart;
+  private final String[] instanceNames;
+
+  @Inject
+  public SyntheticMetricsProvider(Config sysConfig) {
+    this.seed = number(sysConfig, CONF_SEED, 1).longValue();
+    this.start = sysConfig.getInstant(CONF_START);
+    this.instances = number(sysConfig, CONF_INSTANCES, 10).intValue();
+    this.intervalMillis = number(sysConfig, CONF_INTERVAL, 60000).longValue();
+    this.baseline = number(sysConfig, CONF_BASELINE, 50).doubleValue();
+    this.noise = number(sysConfig, CONF_NOISE, 5).doubleValue();
+    this.hotFraction = number(sysConfig, CONF_HOT_FRACTION, 0).doubleValue();
+    this.hotOffset = number(sysConfig, CONF_HOT_OFFSET, 40).doubleValue();
+    this.skew = number(sysConfig, CONF_SKEW, 0).doubleValue();
+    this.driftPerHour = number(sysConfig, CONF_DRIFT, 0).doubleValue();
+    this.driftStart = sysConfig.getInstant(CONF_DRIFT_START);
+
+    if (instances < 1 || intervalMillis < 1) {
+      throw new IllegalArgumentException(String.format("%s and %s must be positive", CONF_INSTANCES, CONF_INTERVAL));
+    }
+    instanceNames = new String[instances];
+    for (int i = 0; i < instances; i++) {
+      instanceNames[i] = String.valueOf(i);
+    }
+  }
+
+  private static Number number(Config config, String key, Number defaultValue) {
+    Object value = config.get(key);
+    return value == null ? defaultValue : (Number) value;
+  }
+
+  @Override
+  public Collection<Measurement> getMeasurements(Instant startTS,
+                                                 Duration duration,
+                                                 Collection<String> metrics,
+                                                 Collection<String> components) {
+    Collection<Measurement> measurements = new ArrayList<>();
+    long newest = Math.floorDiv(startTS.toEpochMilli(), intervalMillis) * intervalMillis;
+    long oldest = startTS.minus(duration).toEpochMilli();
+    if (start != null) {
+      // the first measurement is at the start
+      oldest = Math.max(oldest, start.toEpochMilli() - 1);
+    }
+    for (long time = newest; time > oldest; time -= intervalMillis) {
+      Instant instant = Instant.ofEpochMilli(time);
+      for (String component : components) {
+        for (int i = 0; i < instances; i++) {
+          for (String metric : metrics) {
+            measurements.add(new Measurement(component, instanceNames[i], metric, instant,
+                                             value(component, i, metric, time)));
+          }
+        }
+      }
+    }
+    return measurements;
+  }
+
+  /**
+   * @return value of the metric of the given instance at the given epoch millis
+   */
+  double value(String component, int instance, String metric, long time) {
+    long instanceHash = mix(seed ^ mix(component.hashCode()) ^ mix(instance + 0x632BE59BD9B4E019L));
+
+    double mean = baseline;
+    if (instances > 1) {
+      mean *= 1 + skew * (2.0 * instance / (instances - 1) - 1);
+    }
+    if (uniform(instanceHash) < hotFraction) {
+      mean += hotOffset;
+    }
+    if (driftStart != null && time > driftStart.toEpochMilli()) {
+      mean += driftPerHour * (time - driftStart.toEpochMilli()) / 3_600_000.0;
+    }
+
+    long sampleHash = mix(instanceHash ^ mix(metric.hashCode()) ^ mix(time));
+    double value = mean + noise * gaussian(sampleHash);
+    return Math.max(0, Math.min(MAX_VALUE, value));
+  }
+
+  /**
+   * @return a standard normal value derived from the hash, using the Box-Muller transform
+   */
+  private static double gaussian(long hash) {
+    double u1 = 1 - uniform(hash);
+    double u2 = uniform(mix(hash));
+    return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+  }
+
+  /**
+   * @return a value in [0, 1) derived from the hash
+   */
+  private static double uniform(long hash) {
+    return (hash >>> 11) / TWO_POW_53;
+  }
+
+  /**
+   * The finalizer of SplitMix64, which spreads the bits of the input over the output.
+   */
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+    value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+    return value ^ (value >>> 31);
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import com.microsoft.dhalion.api.MetricsProvider;
+import com.microsoft.dhalion.conf.Config;
+import com.microsoft.dhalion.conf.Key;
+import com.microsoft.dhalion.core.Measurement;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.microsoft.dhalion.examples.NodeStat.CPU_UTILIZATION;
+import static com.microsoft.dhalion.examples.NodeStat.MEMORY_UTILIZATION;
+
+/**
+ * This is an example metrics provider which tails a data file written by an external agent. Unlike
+ * {@link CSVMetricsProvider}, which serves a static file, this provider remembers the position up to which the file
+ * has been read and parses only the bytes appended since. Parsed {@link Measurement}s are kept in memory, ordered by
+ * time, for the configured retention duration, and are served from there.
+ * <p>
+ * A {@link WatchService} notifies the provider of appends, so new lines are ingested as they are written. The
+ * provider also detects rotation, i.e. the file being replaced or truncated, in which case it finishes reading the
+ * old file and continues from the beginning of the new one. Truncation is detected only if the file is shorter than
+ * the length read so far.
+ */
+public class TailingCSVMetricsProvider implements MetricsProvider {
+  private static final Logger LOG = Logger.getLogger(TailingCSVMetricsProvider.class.getSimpleName());
+
+  public static final String CONF_RETENTION = TailingCSVMetricsProvider.class.getSimpleName() + ".retention.ms";
+  private static final Duration DEFAULT_RETENTION = Duration.ofMinutes(30);
+  private static final int READ_BUFFER_SIZE = 1 << 16;
+
+  private final Path file;
+  private final Duration retention;
+  private final NodeStatParser parser = new NodeStatParser();
+
+  // measurements by epoch millis of their creation time
+  private final NavigableMap<Long, List<Measurement>> measurements = new TreeMap<>();
+  private final List<byte[]> nodeBytes = new ArrayList<>();
+  private final List<String> nodeNames = new ArrayList<>();
+
+  private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+  private FileChannel channel;
+  private Object fileKey;
+  private long position;
+
+  private WatchService watchService;
+  private Thread watcher;
+
+  @Inject
+  public TailingCSVMetricsProvider(Config sysConfig) {
+    this.file = Paths.get(sysConfig.get(Key.DATA_DIR.value()).toString(), CSVMetricsProvider.DATA_FILE);
+    Object retentionMillis = sysConfig.get(CONF_RETENTION);
+    this.retention = retentionMillis == null
+        ? DEFAULT_RETENTION
+        : Duration.ofMillis(((Number) retentionMillis).longValue());
+  }
+
+  @Override
+  public synchronized void initialize() {
+    if (watchService != null) {
+      return;
+    }
+
+    try {
+      watchService = file.getFileSystem().newWatchService();
+      file.toAbsolutePath().getParent().register(watchService,
+                                                 StandardWatchEventKinds.ENTRY_CREATE,
+                                                 StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Failed to watch " + file + ", appends will be read on demand", e);
+      return;
+    }
+
+    watcher = new Thread(this::watch, TailingCSVMetricsProvider.class.getSimpleName());
+    watcher.setDaemon(true);
+    watcher.start();
+  }
+
+  private void watch() {
+    Path fileName = file.getFileName();
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+          changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+        }
+        key.reset();
+
+        if (changed) {
+          ingest();
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      LOG.fine("Stopped watching " + file);
+    }
+  }
+
+  @Override
+  public Collection<Measurement> getMeasurements(Instant startTS,
+                                                 Duration duration,
+                                                 Collection<String> metrics,
+                                                 Collection<String> components) {
+    initialize();
+    Instant endTS = startTS.minus(duration);
+
+    Collection<Measurement> result = new ArrayList<>();
+    synchronized (this) {
+      ingest();
+      measurements.subMap(endTS.toEpochMilli(), true, startTS.toEpochMilli(), true).values().forEach(
+          list -> list.stream()
+                      .filter(m -> m.instant().isAfter(endTS) && !m.instant().isAfter(startTS))
+                      .filter(m -> metrics.contains(m.type()) && components.contains(m.component()))
+                      .forEach(result::add));
+    }
+    return result;
+  }
+
+  /**
+   * Reads and parses all complete lines appended to the file since the last invocation.
+   */
+  synchronized void ingest() {
+    try {
+      if (channel == null && !open()) {
+        return;
+      }
+
+      if (isRotated()) {
+        LOG.info(file + " was rotated, reading the new file from the start");
+        // the old file may have been renamed before all its lines were read
+        read();
+        channel.close();
+        channel = null;
+        if (!open()) {
+          return;
+        }
+      }
+
+      read();
+      expire();
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Failed to read " + file, e);
+    }
+  }
+
+  private boolean open() throws IOException {
+    try {
+      fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+      position = 0;
+      return true;
+    } catch (NoSuchFileException e) {
+      LOG.fine(file + " does not exist yet");
+      return false;
+    }
+  }
+
+  private boolean isRotated() throws IOException {
+    if (channel.size() < position) {
+      return true;
+    }
+
+    try {
+      Object currentKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+      return !Objects.equals(fileKey, currentKey);
+    } catch (NoSuchFileException e) {
+      // the file was moved away and a new one has not been created yet
+      return false;
+    }
+  }
+
+  private void read() throws IOException {
+    while (true) {
+      readBuffer.clear();
+      int count = channel.read(readBuffer, position);
+      if (count <= 0) {
+        return;
+      }
+
+      int lineStart = 0;
+      for (int i = 0; i < count; i++) {
+        if (readBuffer.get(i) == '\n') {
+          int lineEnd = i > lineStart && readBuffer.get(i - 1) == '\r' ? i - 1 : i;
+          parse(lineStart, lineEnd);
+          lineStart = i + 1;
+        }
+      }
+      position += lineStart;
+
+      if (lineStart == 0) {
+        if (count < readBuffer.capacity()) {
+          // the last line is incomplete, its remainder is yet to be written
+          return;
+        }
+        readBuffer = ByteBuffer.allocate(readBuffer.capacity() * 2);
+      }
+    }
+  }
+
+  private void parse(int start, int end) {
+    if (!parser.parse(readBuffer, start, end)) {
+      LOG.fine("Skipping malformed line at " + (position + start) + " in " + file);
+      return;
+    }
+
+    String node = nodeName();
+    String instance = parser.instance();
+    Instant instant = parser.instant();
+    List<Measurement> list = measurements.computeIfAbsent(parser.epochMillis(), k -> new ArrayList<>());
+    list.add(new Measurement(node, instance, MEMORY_UTILIZATION, instant, parser.memory()));
+    list.add(new Measurement(node, instance, CPU_UTILIZATION, instant, parser.cpu()));
+  }
+
+  private String nodeName() {
+    for (int i = 0; i < nodeBytes.size(); i++) {
+      if (parser.nodeEquals(nodeBytes.get(i))) {
+        return nodeNames.get(i);
+      }
+    }
+
+    String node = parser.node();
+    nodeBytes.add(node.getBytes(StandardCharsets.US_ASCII));
+    nodeNames.add(node);
+    return node;
+  }
+
+  private void expire() {
+    if (measurements.isEmpty()) {
+      return;
+    }
+
+    long expiration = measurements.lastKey() - retention.toMillis();
+    measurements.headMap(expiration, false).clear();
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      if (watchService != null) {
+        watchService.close();
+        watchService = null;
+      }
+      if (channel != null) {
+        channel.close();
+        channel = null;
+      }
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Failed to close " + file, e);
+    }
+  }
+}
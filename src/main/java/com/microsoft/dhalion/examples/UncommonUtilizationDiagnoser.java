@@ -61,23 +61,9 @@ public class UncommonUtilizationDiagnoser implements IDiagnoser {
     SymptomsTable highMemoryUtilization = symptomsTable.type(Utils.getCompositeName(SYMPTOM_HIGH, METRIC_MEMORY.text()));
     SymptomsTable lowMemoryUtilization = symptomsTable.type(Utils.getCompositeName(SYMPTOM_LOW, METRIC_MEMORY.text()));
 
-    ArrayList<String> overUtilizedNodes = new ArrayList<>();
-    for (Symptom highCpuSymptom : highCpuUtilization.get()) {
-      for (String node : highCpuSymptom.assignments()) {
-        if (highMemoryUtilization.assignment(node).size() > 0) {
-          overUtilizedNodes.add(node);
-        }
-      }
-    }
+    Collection<String> overUtilizedNodes = highCpuUtilization.correlate(highMemoryUtilization);
+    Collection<String> underUtilizedNodes = lowCpuUtilization.correlate(lowMemoryUtilization);
 
-    ArrayList<String> underUtilizedNodes = new ArrayList<>();
-    for (Symptom lowCpuSymptom : lowCpuUtilization.get()) {
-      for (String node : lowCpuSymptom.assignments()) {
-        if (lowMemoryUtilization.assignment(node).size() > 0) {
-          underUtilizedNodes.add(node);
-        }
-      }
-    }
     if (overUtilizedNodes.size() > 0) {
       LOG.fine(String.format("Overutilized nodes found: %s", overUtilizedNodes.toString()));
       Diagnosis diagnosis = new Diagnosis(DIAGNOSIS_OVER_UTILIZED_NODE, context.checkpoint(),
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * A {@link Handler} which hands log records to a ring buffer and publishes them to its delegate handlers on a
+ * background thread, so that the formatting and writing of log records does not slow down the policy cycles. When the
+ * buffer is full, the oldest records are dropped and the number of dropped records is logged once the buffer drains.
+ * <p>
+ * The handler is configured in <code>logging.properties</code>:
+ * <ul>
+ * <li><code>com.microsoft.dhalion.logging.AsyncHandler.handlers</code>: comma separated class names of the delegate
+ * handlers, {@link ConsoleHandler} by default</li>
+ * <li><code>com.microsoft.dhalion.logging.AsyncHandler.capacity</code>: size of the ring buffer, 8192 by default</li>
+ * <li><code>com.microsoft.dhalion.logging.AsyncHandler.level</code>: level of the handler, ALL by default</li>
+ * <li><code>com.microsoft.dhalion.logging.AsyncHandler.inferCaller</code>: whether the source class and method of a
+ * record are inferred from the stack of the logging thread, false by default, in which case the logger name is the
+ * source class</li>
+ * </ul>
+ * Records are formatted on the background thread. Hence, parameters of parameterized records need to be immutable,
+ * or at least must not change after they are logged.
+ */
+public class AsyncHandler extends Handler {
+  private static final int DEFAULT_CAPACITY = 8192;
+
+  private final LogRecord[] ring;
+  private final List<Handler> delegates;
+  private final boolean inferCaller;
+  private final Thread publisher;
+  // number of records added to and taken from the ring, guarded by this handler's monitor
+  private long added;
+  private long taken;
+  private long dropped;
+  private boolean closed;
+
+  /**
+   * Creates a handler configured by the {@link LogManager}
+   */
+  public AsyncHandler() {
+    this(intProperty("capacity", DEFAULT_CAPACITY),
+         Boolean.parseBoolean(property("inferCaller", "false")),
+         delegates(property("handlers", ConsoleHandler.class.getName())));
+    setLevel(Level.parse(property("level", Level.ALL.getName())));
+  }
+
+  public AsyncHandler(int capacity, Handler... delegates) {
+    this(capacity, false, Arrays.asList(delegates));
+  }
+
+  private AsyncHandler(int capacity, boolean inferCaller, List<Handler> delegates) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    this.ring = new LogRecord[capacity];
+    this.delegates = new ArrayList<>(delegates);
+    this.inferCaller = inferCaller;
+    this.publisher = new Thread(this::publishRecords, AsyncHandler.class.getSimpleName());
+    publisher.setDaemon(true);
+    publisher.start();
+  }
+
+  @Override
+  public void publish(LogRecord record) {
+    if (!isLoggable(record)) {
+      return;
+    }
+    if (inferCaller) {
+      // infers the caller while the logging thread's stack is available
+      record.getSourceClassName();
+    } else {
+      // prevents a later inference from the publisher thread's stack
+      record.setSourceClassName(record.getLoggerName());
+    }
+
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      if (added - taken == ring.length) {
+        ring[(int) (taken % ring.length)] = null;
+        taken++;
+        dropped++;
+      }
+      ring[(int) (added % ring.length)] = record;
+      added++;
+      if (added - taken == 1) {
+        notifyAll();
+      }
+    }
+  }
+
+  private void publishRecords() {
+    List<LogRecord> batch = new ArrayList<>();
+    while (true) {
+      long droppedRecords;
+      synchronized (this) {
+        while (added == taken && !closed) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (added == taken) {
+          return;
+        }
+        while (taken < added) {
+          int index = (int) (taken % ring.length);
+          batch.add(ring[index]);
+          ring[index] = null;
+          taken++;
+        }
+        droppedRecords = dropped;
+        dropped = 0;
+      }
+
+      if (droppedRecords > 0) {
+        LogRecord warning = new LogRecord(Level.WARNING, "{0} log records were dropped, the log buffer was full");
+        warning.setParameters(new Object[]{droppedRecords});
+        warning.setLoggerName(AsyncHandler.class.getName());
+        warning.setSourceClassName(AsyncHandler.class.getName());
+        batch.add(0, warning);
+      }
+      for (LogRecord record : batch) {
+        for (Handler delegate : delegates) {
+          try {
+            delegate.publish(record);
+          } catch (RuntimeException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+          }
+        }
+      }
+      batch.clear();
+      delegates.forEach(Handler::flush);
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Waits until the records published so far are written by the delegates, or for at most a second
+   */
+  @Override
+  public void flush() {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    synchronized (this) {
+      long target = added;
+      while (taken < target && !closed) {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+          break;
+        }
+        try {
+          wait(remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+    delegates.forEach(Handler::flush);
+  }
+
+  /**
+   * Writes the buffered records and closes the delegates
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+    }
+    try {
+      publisher.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    delegates.forEach(Handler::close);
+  }
+
+  private static String property(String name, String defaultValue) {
+    String value = LogManager.getLogManager().getProperty(AsyncHandler.class.getName() + "." + name);
+    return value == null ? defaultValue : value.trim();
+  }
+
+  private static int intProperty(String name, int defaultValue) {
+    try {
+      return Integer.parseInt(property(name, String.valueOf(defaultValue)));
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  private static List<Handler> delegates(String classNames) {
+    List<Handler> handlers = new ArrayList<>();
+    for (String className : classNames.split(",")) {
+      if (className.trim().isEmpty()) {
+        continue;
+      }
+      try {
+        Class<?> handlerClass = ClassLoader.getSystemClassLoader().loadClass(className.trim());
+        handlers.add((Handler) handlerClass.getDeclaredConstructor().newInstance());
+      } catch (ReflectiveOperationException | ClassCastException e) {
+        new ErrorManager().error("Cannot create log handler " + className, e, ErrorManager.OPEN_FAILURE);
+      }
+    }
+    return handlers;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.logging;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logs at most one record per key and interval, e.g. one report of out of window outcomes per policy and minute.
+ * Records suppressed in the meantime are counted, and their number is appended to the next logged record of the key
+ * as <code>suppressed=N</code>.
+ */
+public class RateLimitedLogger {
+  private final Logger logger;
+  private final long intervalNanos;
+  private final ConcurrentMap<String, State> states = new ConcurrentHashMap<>();
+
+  private static class State {
+    private long nextNanos;
+    private long suppressed;
+  }
+
+  public RateLimitedLogger(Logger logger, Duration interval) {
+    this.logger = logger;
+    this.intervalNanos = interval.toNanos();
+  }
+
+  public boolean isLoggable(Level level) {
+    return logger.isLoggable(level);
+  }
+
+  /**
+   * Logs a parameterized message, unless a message of the same key was logged within the interval
+   *
+   * @return true if the message was logged
+   */
+  public boolean log(Level level, String key, String message, Object... params) {
+    if (!logger.isLoggable(level)) {
+      return false;
+    }
+
+    long suppressed;
+    State state = states.computeIfAbsent(key, k -> new State());
+    synchronized (state) {
+      long now = System.nanoTime();
+      if (state.nextNanos != 0 && now - state.nextNanos < 0) {
+        state.suppressed++;
+        return false;
+      }
+      state.nextNanos = now + intervalNanos;
+      suppressed = state.suppressed;
+      state.suppressed = 0;
+    }
+
+    if (suppressed > 0) {
+      params = Arrays.copyOf(params, params.length + 1);
+      params[params.length - 1] = suppressed;
+      message = message + " suppressed={" + (params.length - 1) + "}";
+    }
+    logger.log(level, message, params);
+    return true;
+  }
+}
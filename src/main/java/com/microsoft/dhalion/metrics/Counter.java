@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Counter} counts occurrences, e.g. the number of produced outcomes.
+ */
+public class Counter {
+  private final LongAdder count = new LongAdder();
+
+  public void inc() {
+    count.increment();
+  }
+
+  public void inc(long n) {
+    count.add(n);
+  }
+
+  public long count() {
+    return count.sum();
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Mirrors the metrics of a {@link MetricsRegistry} into a Dropwizard {@link MetricRegistry}, so that they are
+ * published by the Dropwizard reporters of the hosting application, e.g. Graphite or Prometheus. Each metric is
+ * exposed as Dropwizard gauges reading the Dhalion metric; a timer named <code>t</code> is exposed as
+ * <code>t.count</code>, <code>t.total_ms</code>, <code>t.mean_ms</code> and <code>t.max_ms</code>. A name which is
+ * already registered, e.g. by the hosting application, is skipped, so the metric is not mirrored.
+ * <p>
+ * The Dropwizard metrics library is an optional dependency of Dhalion, applications using this reporter need to
+ * provide it.
+ */
+public class DropwizardMetricsReporter implements MetricsRegistry.Listener, AutoCloseable {
+  private static final Logger LOG = Logger.getLogger(DropwizardMetricsReporter.class.getName());
+
+  private final MetricsRegistry registry;
+  private final MetricRegistry target;
+  private final Set<String> registered = ConcurrentHashMap.newKeySet();
+
+  public DropwizardMetricsReporter(MetricsRegistry registry, MetricRegistry target) {
+    this.registry = registry;
+    this.target = target;
+  }
+
+  /**
+   * Registers the existing and all future metrics of the registry
+   */
+  public void start() {
+    registry.addListener(this);
+  }
+
+  @Override
+  public void timerAdded(String name, Timer timer) {
+    register(name + ".count", timer::count);
+    register(name + ".total_ms", () -> millis(timer.totalNanos()));
+    register(name + ".mean_ms", () -> millis(timer.meanNanos()));
+    register(name + ".max_ms", () -> millis(timer.maxNanos()));
+  }
+
+  @Override
+  public void counterAdded(String name, Counter counter) {
+    register(name, counter::count);
+  }
+
+  @Override
+  public void gaugeAdded(String name, Gauge gauge) {
+    register(name, gauge::value);
+  }
+
+  private <T> void register(String name, com.codahale.metrics.Gauge<T> gauge) {
+    if (!registered.add(name)) {
+      // replayed by addListener while the metric was added
+      return;
+    }
+    try {
+      target.register(name, gauge);
+    } catch (IllegalArgumentException e) {
+      // the listener runs on the thread creating the metric, e.g. the policy thread, which must not fail
+      registered.remove(name);
+      LOG.warning("Not mirroring metric " + name + ", the name is already registered in the Dropwizard registry");
+    }
+  }
+
+  private static double millis(double nanos) {
+    return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Removes all the metrics registered by this reporter from the Dropwizard registry
+   */
+  @Override
+  public void close() {
+    registry.removeListener(this);
+    registered.forEach(target::remove);
+    registered.clear();
+  }
+}
@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.metrics;
+
+/**
+ * A {@link Gauge} reports an instantaneous value, e.g. the size of a table, whenever it is read.
+ */
+@FunctionalInterface
+public interface Gauge {
+  double value();
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Exposes the metrics of a {@link MetricsRegistry} as MXBeans named
+ * <code>com.microsoft.dhalion:type=[timers|counters|gauges],name="metric name"</code>, e.g. to be inspected with
+ * JConsole.
+ */
+public class JmxMetricsReporter implements MetricsRegistry.Listener, AutoCloseable {
+  public static final String DOMAIN = "com.microsoft.dhalion";
+  private static final Logger LOG = Logger.getLogger(JmxMetricsReporter.class.getName());
+
+  private final MetricsRegistry registry;
+  private final MBeanServer server;
+  private final Map<ObjectName, Boolean> registered = new ConcurrentHashMap<>();
+
+  public interface TimerMXBean {
+    long getCount();
+
+    double getTotalMillis();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+  }
+
+  public interface CounterMXBean {
+    long getCount();
+  }
+
+  public interface GaugeMXBean {
+    double getValue();
+  }
+
+  public JmxMetricsReporter(MetricsRegistry registry) {
+    this(registry, ManagementFactory.getPlatformMBeanServer());
+  }
+
+  public JmxMetricsReporter(MetricsRegistry registry, MBeanServer server) {
+    this.registry = registry;
+    this.server = server;
+  }
+
+  /**
+   * Registers the existing and all future metrics of the registry
+   */
+  public void start() {
+    registry.addListener(this);
+  }
+
+  @Override
+  public void timerAdded(String name, Timer timer) {
+    register("timers", name, new TimerMXBean() {
+      @Override
+      public long getCount() {
+        return timer.count();
+      }
+
+      @Override
+      public double getTotalMillis() {
+        return millis(timer.totalNanos());
+      }
+
+      @Override
+      public double getMeanMillis() {
+        return millis(timer.meanNanos());
+      }
+
+      @Override
+      public double getMaxMillis() {
+        return millis(timer.maxNanos());
+      }
+    }, TimerMXBean.class);
+  }
+
+  @Override
+  public void counterAdded(String name, Counter counter) {
+    register("counters", name, (CounterMXBean) counter::count, CounterMXBean.class);
+  }
+
+  @Override
+  public void gaugeAdded(String name, Gauge gauge) {
+    register("gauges", name, (GaugeMXBean) gauge::value, GaugeMXBean.class);
+  }
+
+  private <T> void register(String type, String name, T bean, Class<T> beanInterface) {
+    try {
+      ObjectName objectName = objectName(type, name);
+      server.registerMBean(new StandardMBean(bean, beanInterface, true), objectName);
+      registered.put(objectName, Boolean.TRUE);
+    } catch (JMException e) {
+      LOG.warning(String.format("Failed to register metric %s: %s", name, e));
+    }
+  }
+
+  static ObjectName objectName(String type, String name) throws JMException {
+    return new ObjectName(String.format("%s:type=%s,name=%s", DOMAIN, type, ObjectName.quote(name)));
+  }
+
+  private static double millis(double nanos) {
+    return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Unregisters all the metrics registered by this reporter
+   */
+  @Override
+  public void close() {
+    registry.removeListener(this);
+    for (ObjectName name : registered.keySet()) {
+      try {
+        server.unregisterMBean(name);
+      } catch (JMException e) {
+        LOG.warning(String.format("Failed to unregister %s: %s", name, e));
+      }
+    }
+    registered.clear();
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.metrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link MetricsRegistry} holds the named {@link Timer}s, {@link Counter}s and {@link Gauge}s with which Dhalion
+ * reports its own behavior, e.g. the time spent in each plugin of a policy. Metrics are created on first use. A
+ * {@link Listener} is notified of each metric added to the registry, which lets adapters expose the metrics through
+ * external systems, see {@link JmxMetricsReporter} and {@link DropwizardMetricsReporter}.
+ * <p>
+ * Instances are thread safe.
+ */
+public class MetricsRegistry {
+  private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Receives the metrics added to a registry.
+   */
+  public interface Listener {
+    default void timerAdded(String name, Timer timer) {
+    }
+
+    default void counterAdded(String name, Counter counter) {
+    }
+
+    default void gaugeAdded(String name, Gauge gauge) {
+    }
+  }
+
+  /**
+   * @return the timer with the given name, created if absent
+   */
+  public Timer timer(String name) {
+    Timer timer = timers.get(name);
+    if (timer == null) {
+      Timer created = new Timer();
+      timer = timers.putIfAbsent(name, created);
+      if (timer == null) {
+        timer = created;
+        listeners.forEach(listener -> listener.timerAdded(name, created));
+      }
+    }
+    return timer;
+  }
+
+  /**
+   * @return the counter with the given name, created if absent
+   */
+  public Counter counter(String name) {
+    Counter counter = counters.get(name);
+    if (counter == null) {
+      Counter created = new Counter();
+      counter = counters.putIfAbsent(name, created);
+      if (counter == null) {
+        counter = created;
+        listeners.forEach(listener -> listener.counterAdded(name, created));
+      }
+    }
+    return counter;
+  }
+
+  /**
+   * Registers a gauge, unless a gauge with the same name exists
+   *
+   * @return the gauge registered with the given name
+   */
+  public Gauge gauge(String name, Gauge gauge) {
+    Gauge existing = gauges.putIfAbsent(name, gauge);
+    if (existing != null) {
+      return existing;
+    }
+    listeners.forEach(listener -> listener.gaugeAdded(name, gauge));
+    return gauge;
+  }
+
+  public Map<String, Timer> timers() {
+    return Collections.unmodifiableMap(timers);
+  }
+
+  public Map<String, Counter> counters() {
+    return Collections.unmodifiableMap(counters);
+  }
+
+  public Map<String, Gauge> gauges() {
+    return Collections.unmodifiableMap(gauges);
+  }
+
+  /**
+   * Adds a listener and notifies it of the metrics already in the registry
+   */
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+    timers.forEach(listener::timerAdded);
+    counters.forEach(listener::counterAdded);
+    gauges.forEach(listener::gaugeAdded);
+  }
+
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * @return a metric name composed of the given parts
+   */
+  public static String name(String... parts) {
+    return String.join(".", parts);
+  }
+
+  /**
+   * @return the name of a class for use in metric names, i.e. its simple name unless it is anonymous
+   */
+  public static String name(Class<?> type) {
+    return type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Timer} aggregates the durations of repeated operations: their count, total and maximum duration.
+ */
+public class Timer {
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  public void record(long nanos) {
+    count.increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  /**
+   * Invokes the operation and records its duration
+   */
+  public <T> T time(Supplier<T> operation) {
+    long start = System.nanoTime();
+    try {
+      return operation.get();
+    } finally {
+      record(System.nanoTime() - start);
+    }
+  }
+
+  public long count() {
+    return count.sum();
+  }
+
+  public long totalNanos() {
+    return totalNanos.sum();
+  }
+
+  public long maxNanos() {
+    return maxNanos.get();
+  }
+
+  public double meanNanos() {
+    long n = count();
+    return n == 0 ? 0 : (double) totalNanos() / n;
+  }
+}
@@ -17,6 +17,9 @@ import com.microsoft.dhalion.core.Action;
 import com.microsoft.dhalion.core.Diagnosis;
 import com.microsoft.dhalion.core.Measurement;
 import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.metrics.MetricsRegistry;
+import com.microsoft.dhalion.metrics.Timer;
+import com.microsoft.dhalion.tracing.Span;
 import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
 
 import java.time.Duration;
@@ -24,8 +27,11 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 public class HealthPolicyImpl implements IHealthPolicy {
   protected Collection<ISensor> sensors = new ArrayList<>();
@@ -38,6 +44,8 @@ public class HealthPolicyImpl implements IHealthPolicy {
   private Instant oneTimeDelay = null;
 
   private ExecutionContext executionContext;
+  // timers of the plugins, shared by the plugins of the same class
+  private final Map<Object, Timer> pluginTimers = new IdentityHashMap<>();
 
   @VisibleForTesting
   ClockTimeProvider clock = new ClockTimeProvider();
@@ -45,6 +53,9 @@ public class HealthPolicyImpl implements IHealthPolicy {
   @Override
   public void initialize(ExecutionContext context) {
     this.executionContext = context;
+    if (context != null && context.clock() != null) {
+      clock = context.clock();
+    }
 
     sensors.forEach(sensor -> sensor.initialize(executionContext));
     detectors.forEach(detector -> detector.initialize(executionContext));
@@ -110,7 +121,7 @@ public class HealthPolicyImpl implements IHealthPolicy {
       return measurements;
     }
 
-    sensors.stream().map(ISensor::fetch)
+    sensors.stream().map(sensor -> timed("sensors", sensor, sensor::fetch))
            .filter(Objects::nonNull)
            .forEach(measurements::addAll);
 
@@ -124,7 +135,7 @@ public class HealthPolicyImpl implements IHealthPolicy {
       return symptoms;
     }
 
-    detectors.stream().map(detector -> detector.detect(measurements))
+    detectors.stream().map(detector -> timed("detectors", detector, () -> detector.detect(measurements)))
              .filter(Objects::nonNull)
              .forEach(symptoms::addAll);
 
@@ -138,7 +149,7 @@ public class HealthPolicyImpl implements IHealthPolicy {
       return diagnosis;
     }
 
-    diagnosers.stream().map(diagnoser -> diagnoser.diagnose(symptoms))
+    diagnosers.stream().map(diagnoser -> timed("diagnosers", diagnoser, () -> diagnoser.diagnose(symptoms)))
               .filter(Objects::nonNull)
               .forEach(diagnosis::addAll);
 
@@ -157,7 +168,7 @@ public class HealthPolicyImpl implements IHealthPolicy {
       return actions;
     }
 
-    resolvers.stream().map(resolver -> resolver.resolve(diagnosis))
+    resolvers.stream().map(resolver -> timed("resolvers", resolver, () -> resolver.resolve(diagnosis)))
              .filter(Objects::nonNull)
              .forEach(actions::addAll);
 
@@ -165,6 +176,46 @@ public class HealthPolicyImpl implements IHealthPolicy {
     return actions;
   }
 
+  /**
+   * Invokes a plugin and records the duration in the timer named <code>[policy].[stage].[plugin class]</code>, if the
+   * policy is executed with a metrics registry. If the cycle is traced, the invocation is traced as a child of the
+   * stage's span.
+   */
+  private <T extends Collection<?>> T timed(String stage, Object plugin, Supplier<T> invocation) {
+    if (executionContext == null || executionContext.metrics() == null) {
+      return invocation.get();
+    }
+    Timer timer = pluginTimers.computeIfAbsent(plugin, p -> executionContext.metrics().timer(
+        executionContext.metricName(stage, MetricsRegistry.name(p.getClass()))));
+
+    Span span = executionContext.tracer().startSpan(executionContext.span(), MetricsRegistry.name(plugin.getClass()));
+    if (span == null) {
+      return timer.time(invocation);
+    }
+    try {
+      span.setAttribute("dhalion.plugin", plugin.getClass().getName());
+      if (plugin instanceof ISensor) {
+        span.setAttribute("dhalion.metrics", metricTypes((ISensor) plugin));
+      }
+      T result = timer.time(invocation);
+      span.setAttribute("dhalion.outcomes", result == null ? 0 : result.size());
+      return result;
+    } catch (RuntimeException e) {
+      span.setError(e);
+      throw e;
+    } finally {
+      executionContext.tracer().end(span);
+    }
+  }
+
+  private static String metricTypes(ISensor sensor) {
+    try {
+      return String.valueOf(sensor.getMetricTypes());
+    } catch (UnsupportedOperationException e) {
+      return "unknown";
+    }
+  }
+
   @Override
   public Duration getDelay() {
     long delay;
@@ -181,6 +232,15 @@ public class HealthPolicyImpl implements IHealthPolicy {
     return Duration.ofMillis(delay);
   }
 
+  /**
+   * @return the current time of the clock used by this policy, which is not the wall clock time when the policy is
+   * replaying recorded data
+   */
+  @Override
+  public Instant getNextCheckpoint() {
+    return clock.now();
+  }
+
   @Override
   public void close() {
     sensors.forEach(ISensor::close);
@@ -17,7 +17,17 @@ import com.microsoft.dhalion.core.MeasurementsTable;
 import com.microsoft.dhalion.core.Outcome;
 import com.microsoft.dhalion.core.Symptom;
 import com.microsoft.dhalion.core.SymptomsTable;
+import com.microsoft.dhalion.events.EventManager;
+import com.microsoft.dhalion.events.PolicyEvent;
+import com.microsoft.dhalion.logging.RateLimitedLogger;
+import com.microsoft.dhalion.metrics.Counter;
+import com.microsoft.dhalion.metrics.MetricsRegistry;
+import com.microsoft.dhalion.metrics.Timer;
+import com.microsoft.dhalion.tracing.Span;
+import com.microsoft.dhalion.tracing.Tracer;
+import com.microsoft.dhalion.wal.OutcomeLog;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -25,23 +35,111 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class PoliciesExecutor {
+  /**
+   * Name of the timer of a policy's cycles, see {@link ExecutionContext#metricName(String...)}
+   */
+  public static final String CYCLE_TIMER = "cycle";
+  /**
+   * Name of the timer of the time a policy waited after it was due
+   */
+  public static final String LAG_TIMER = "lag";
+
   private static final Logger LOG = Logger.getLogger(PoliciesExecutor.class.getName());
+  // reports the outcomes outside the checkpoint window at most once per policy, stage and minute
+  private static final RateLimitedLogger OUTLIER_LOG = new RateLimitedLogger(LOG, Duration.ofMinutes(1));
   private final List<IHealthPolicy> policies;
   private final Map<IHealthPolicy, ExecutionContext> policyContextMap = new HashMap<>();
   private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+  private final MetricsRegistry metrics;
+  private final HealthPolicyImpl.ClockTimeProvider clock;
+  private final Tracer tracer;
+  private final EventManager events;
+  // receives the outcomes of each cycle once a log is recovered, null if the outcomes are not persisted
+  private OutcomeLog log;
 
   public PoliciesExecutor(Collection<IHealthPolicy> policies) {
+    this(policies, new MetricsRegistry());
+  }
+
+  /**
+   * @param metrics registry receiving the timings and counts of the policy cycles
+   */
+  public PoliciesExecutor(Collection<IHealthPolicy> policies, MetricsRegistry metrics) {
+    this(policies, metrics, Tracer.NOOP);
+  }
+
+  /**
+   * @param metrics registry receiving the timings and counts of the policy cycles
+   * @param tracer  tracer of the policy cycles
+   */
+  public PoliciesExecutor(Collection<IHealthPolicy> policies, MetricsRegistry metrics, Tracer tracer) {
+    this(policies, null, metrics, tracer, null);
+  }
+
+  /**
+   * @param metrics registry receiving the timings and counts of the policy cycles
+   * @param tracer  tracer of the policy cycles
+   * @param events  receives the {@link PolicyEvent}s of each cycle once the cycle ends
+   */
+  public PoliciesExecutor(Collection<IHealthPolicy> policies,
+                          MetricsRegistry metrics,
+                          Tracer tracer,
+                          EventManager events) {
+    this(policies, null, metrics, tracer, events);
+  }
+
+  PoliciesExecutor(Collection<IHealthPolicy> policies, HealthPolicyImpl.ClockTimeProvider clock) {
+    this(policies, clock, new MetricsRegistry(), Tracer.NOOP, null);
+  }
+
+  PoliciesExecutor(Collection<IHealthPolicy> policies,
+                   HealthPolicyImpl.ClockTimeProvider clock,
+                   MetricsRegistry metrics,
+                   Tracer tracer) {
+    this(policies, clock, metrics, tracer, null);
+  }
+
+  /**
+   * @param clock   clock provided to the policies through their {@link ExecutionContext}, null to let each policy
+   *                use the wall clock
+   * @param metrics registry receiving the timings and counts of the policy cycles
+   * @param tracer  tracer of the policy cycles
+   * @param events  receives the {@link PolicyEvent}s of each cycle once the cycle ends, null to not create events
+   */
+  PoliciesExecutor(Collection<IHealthPolicy> policies,
+                   HealthPolicyImpl.ClockTimeProvider clock,
+                   MetricsRegistry metrics,
+                   Tracer tracer,
+                   EventManager events) {
     this.policies = new ArrayList<>(policies);
+    this.metrics = metrics;
+    this.clock = clock;
+    this.tracer = tracer;
+    this.events = events;
+    Set<String> metricsPrefixes = new HashSet<>();
     for (IHealthPolicy policy : this.policies) {
-      ExecutionContext ctx = new ExecutionContext(policy);
+      // policies of the same class report separately
+      String prefix = MetricsRegistry.name(policy.getClass());
+      for (int i = 2; !metricsPrefixes.add(prefix); i++) {
+        prefix = MetricsRegistry.name(policy.getClass()) + "-" + i;
+      }
+
+      ExecutionContext ctx = new ExecutionContext(this, policy, clock, metrics, tracer, prefix);
       policy.initialize(ctx);
       policyContextMap.put(policy, ctx);
     }
@@ -50,91 +148,436 @@ public class PoliciesExecutor {
   public ScheduledFuture<?> start() {
     ScheduledFuture<?> future = executor.scheduleWithFixedDelay(() -> {
       // schedule the next execution cycle
-      Duration nextScheduleDelay = policies.stream()
-          .map(IHealthPolicy::getDelay)
-          .min(Comparator.naturalOrder())
-          .orElse(Duration.ofSeconds(10));
+      Duration nextScheduleDelay = getNextScheduleDelay();
 
       if (nextScheduleDelay.toMillis() > 0) {
         try {
-          LOG.info("Sleep (millis) before next policy execution cycle: " + nextScheduleDelay);
+          LOG.log(Level.FINE, "Sleeping before next policy execution cycle: delay={0}", nextScheduleDelay);
           TimeUnit.MILLISECONDS.sleep(nextScheduleDelay.toMillis());
         } catch (InterruptedException e) {
           LOG.warning("Interrupted while waiting for next policy execution cycle");
         }
       }
 
-      for (IHealthPolicy policy : policies) {
-        if (policy.getDelay().toMillis() > 0) {
-          continue;
+      executeCycle();
+    }, 1, 1, TimeUnit.MILLISECONDS);
+
+    return future;
+  }
+
+  /**
+   * Executes, once, all the policies which are due for execution, i.e. which have no remaining delay.
+   *
+   * @return number of executed policies
+   */
+  int executeCycle() {
+    int executed = 0;
+    for (IHealthPolicy policy : policies) {
+      ExecutionContext context = policyContextMap.get(policy);
+      if (getDelay(policy, context).toMillis() > 0) {
+        continue;
+      }
+      executed++;
+
+      PolicyMetrics policyMetrics = context.policyMetrics;
+      if (context.dueAt != null) {
+        // time the policy waited after it was due, e.g. behind the other policies of the cycle
+        policyMetrics.lag.record(Math.max(0, Duration.between(context.dueAt, now()).toNanos()));
+      }
+      context.captureCheckpoint();
+
+      if (LOG.isLoggable(Level.INFO)) {
+        LOG.log(Level.INFO, "Executing policy: policy={0} checkpoint={1}",
+                new Object[]{context.policyName, context.checkpoint});
+      }
+
+      // the events of the cycle are delivered together, so that handlers do not run between its stages
+      List<PolicyEvent> cycleEvents = events == null ? null : new ArrayList<>();
+      addEvent(cycleEvents, () -> new PolicyEvent.CycleStart(context.policyName, context.checkpoint));
+
+      long cycleStart = System.nanoTime();
+      Span cycleSpan = tracer.startTrace(context.policyName);
+      if (cycleSpan != null) {
+        cycleSpan.setAttribute("dhalion.checkpoint", context.checkpoint.toString());
+      }
+      try {
+        executePolicy(policy, context, cycleSpan, cycleEvents);
+        long cycleNanos = System.nanoTime() - cycleStart;
+        policyMetrics.cycle.record(cycleNanos);
+        addEvent(cycleEvents, () -> new PolicyEvent.CycleEnd(context.policyName, context.checkpoint, cycleNanos));
+      } catch (RuntimeException e) {
+        if (cycleSpan != null) {
+          cycleSpan.setError(e);
         }
+        throw e;
+      } finally {
+        tracer.end(cycleSpan);
+        publish(cycleEvents);
+      }
 
-        ExecutionContext context = policyContextMap.get(policy);
-        context.captureCheckpoint();
-        Instant previous = context.previousCheckpoint;
-        Instant current = context.checkpoint;
+      context.dueAt = now().plus(policy.getDelay());
+    }
+    return executed;
+  }
 
-        LOG.info(String.format("Executing Policy: %s, checkpoint: %s",
-                               policy.getClass().getSimpleName(),
-                               context.checkpoint));
+  private void executePolicy(IHealthPolicy policy,
+                             ExecutionContext context,
+                             Span cycleSpan,
+                             List<PolicyEvent> cycleEvents) {
+    PolicyMetrics policyMetrics = context.policyMetrics;
+    Instant current = context.checkpoint;
 
-        Collection<Measurement> measurements = policy.executeSensors();
-        measurements.stream()
-            .filter(m -> m.instant().isAfter(current) || m.instant().isBefore(previous))
-            .forEach(m -> LOG.info(m.toString() + "is outside checkpoint window"));
-        context.measurementsTableBuilder.addAll(measurements);
+    // the status of the actions completed since the previous cycle is visible to all the stages of this cycle
+    List<Action> completed = new ArrayList<>();
+    for (Action action = context.completedActions.poll(); action != null; action = context.completedActions.poll()) {
+      completed.add(action);
+    }
+    context.actionTableBuilder.addAll(completed);
 
-        Collection<Symptom> symptoms = policy.executeDetectors(measurements);
-        identifyOutliers(previous, current, symptoms);
-        context.symptomsTableBuilder.addAll(symptoms);
+    Collection<Measurement> measurements = executeStage(context, cycleSpan, cycleEvents, "sensors",
+                                                        policyMetrics.sensors, policy::executeSensors);
+    addEvent(cycleEvents, () -> new PolicyEvent.MeasurementsFetched(context.policyName, current, measurements));
+    reportOutliers(context, "sensors", Level.INFO, measurements, Measurement::instant);
+    context.measurementsTableBuilder.addAll(measurements);
+    policyMetrics.measurements.inc(measurements.size());
 
-        Collection<Diagnosis> diagnosis = policy.executeDiagnosers(symptoms);
-        identifyOutliers(previous, current, diagnosis);
-        context.diagnosisTableBuilder.addAll(diagnosis);
+    Collection<Symptom> symptoms = executeStage(context, cycleSpan, cycleEvents, "detectors", policyMetrics.detectors,
+                                                () -> policy.executeDetectors(measurements));
+    addEvent(cycleEvents, () -> new PolicyEvent.SymptomsProduced(context.policyName, current, symptoms));
+    reportOutliers(context, "detectors", Level.WARNING, symptoms, Outcome::instant);
+    context.symptomsTableBuilder.addAll(symptoms);
+    policyMetrics.symptoms.inc(symptoms.size());
 
-        Collection<Action> actions = policy.executeResolvers(diagnosis);
-        identifyOutliers(previous, current, actions);
-        context.actionTableBuilder.addAll(actions);
+    Collection<Diagnosis> diagnosis = executeStage(context, cycleSpan, cycleEvents, "diagnosers",
+                                                   policyMetrics.diagnosers, () -> policy.executeDiagnosers(symptoms));
+    addEvent(cycleEvents, () -> new PolicyEvent.DiagnosesProduced(context.policyName, current, diagnosis));
+    reportOutliers(context, "diagnosers", Level.WARNING, diagnosis, Outcome::instant);
+    context.diagnosisTableBuilder.addAll(diagnosis);
+    policyMetrics.diagnoses.inc(diagnosis.size());
 
-        // TODO pretty print
-        LOG.info(actions.toString());
+    Collection<Action> actions = executeStage(context, cycleSpan, cycleEvents, "resolvers", policyMetrics.resolvers,
+                                              () -> policy.executeResolvers(diagnosis));
+    addEvent(cycleEvents, () -> new PolicyEvent.ActionsProduced(context.policyName, current, actions));
+    reportOutliers(context, "resolvers", Level.WARNING, actions, Outcome::instant);
+    context.actionTableBuilder.addAll(actions);
+    policyMetrics.actions.inc(actions.size());
 
-        Instant expiration = current.minus(Duration.ofMinutes(30));
-        context.measurementsTableBuilder.expireBefore(expiration);
-        context.symptomsTableBuilder.expireBefore(expiration);
-        context.diagnosisTableBuilder.expireBefore(expiration);
-        context.actionTableBuilder.expireBefore(expiration);
+    if (!actions.isEmpty() && LOG.isLoggable(Level.INFO)) {
+      LOG.log(Level.INFO, "Executed actions: policy={0} actions={1}", new Object[]{context.policyName, actions});
+    }
+
+    Instant expiration = current.minus(Duration.ofMinutes(30));
+    context.measurementsTableBuilder.expireBefore(expiration);
+    context.symptomsTableBuilder.expireBefore(expiration);
+    context.diagnosisTableBuilder.expireBefore(expiration);
+    context.actionTableBuilder.expireBefore(expiration);
+
+    persist(context, expiration, completed, symptoms, diagnosis, actions);
+  }
+
+  /**
+   * Writes the outcomes of a cycle to the log in one commit. A failing log does not fail the policy.
+   */
+  @SafeVarargs
+  private final void persist(ExecutionContext context,
+                             Instant expiration,
+                             Collection<? extends Outcome>... outcomes) {
+    if (log == null) {
+      return;
+    }
+    try {
+      for (Collection<? extends Outcome> stageOutcomes : outcomes) {
+        log.append(context.policyName, stageOutcomes);
       }
-    }, 1, 1, TimeUnit.MILLISECONDS);
+      log.commit();
+      log.expire(expiration);
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Failed to write outcomes to the log: policy=" + context.policyName, e);
+    }
+  }
 
-    return future;
+  /**
+   * Rebuilds the symptom, diagnosis and action tables of the policies from the outcomes persisted in the log, e.g.
+   * after a restart, so that resolvers see the actions taken before it. Outcomes of policies which are no longer
+   * executed are ignored. The outcomes of subsequent cycles are written to the log. Must be called before
+   * {@link #start()}.
+   *
+   * @return number of recovered outcomes
+   */
+  public long recover(OutcomeLog log) throws IOException {
+    Map<String, Recovered> recovered = new HashMap<>();
+    for (ExecutionContext context : policyContextMap.values()) {
+      recovered.put(context.policyName, new Recovered());
+    }
+
+    long records = log.recover((policyName, outcome) -> {
+      Recovered outcomes = recovered.get(policyName);
+      if (outcomes == null) {
+        return;
+      }
+      if (outcome instanceof Symptom) {
+        outcomes.symptoms.add((Symptom) outcome);
+      } else if (outcome instanceof Diagnosis) {
+        outcomes.diagnosis.add((Diagnosis) outcome);
+      } else if (outcome instanceof Action) {
+        outcomes.actions.add((Action) outcome);
+      }
+    });
+
+    long count = 0;
+    for (ExecutionContext context : policyContextMap.values()) {
+      Recovered outcomes = recovered.get(context.policyName);
+      context.symptomsTableBuilder.addAll(outcomes.symptoms);
+      context.diagnosisTableBuilder.addAll(outcomes.diagnosis);
+      context.actionTableBuilder.addAll(outcomes.actions);
+      count += outcomes.symptoms.size() + outcomes.diagnosis.size() + outcomes.actions.size();
+    }
+    if (records > count) {
+      LOG.log(Level.WARNING, "Ignored outcomes of unknown policies: count={0}", records - count);
+    }
+    this.log = log;
+    return count;
+  }
+
+  /**
+   * The outcomes of a policy read from the log
+   */
+  private static class Recovered {
+    private final List<Symptom> symptoms = new ArrayList<>();
+    private final List<Diagnosis> diagnosis = new ArrayList<>();
+    private final List<Action> actions = new ArrayList<>();
+  }
+
+  /**
+   * Executes a stage of a policy, timed and traced as a child of the cycle's span. The plugins invoked in the stage
+   * find the stage's span in the {@link ExecutionContext}.
+   */
+  private <T extends Collection<?>> T executeStage(ExecutionContext context,
+                                                   Span cycleSpan,
+                                                   List<PolicyEvent> cycleEvents,
+                                                   String stage,
+                                                   Timer timer,
+                                                   Supplier<T> execution) {
+    Span span = tracer.startSpan(cycleSpan, stage);
+    context.span = span;
+    try {
+      long start = System.nanoTime();
+      T result = timer.time(execution);
+      long nanos = System.nanoTime() - start;
+      addEvent(cycleEvents,
+               () -> new PolicyEvent.StageEnd(context.policyName, context.checkpoint, stage, nanos, result.size()));
+      if (span != null) {
+        span.setAttribute("dhalion.outcomes", result.size());
+      }
+      return result;
+    } catch (RuntimeException e) {
+      if (span != null) {
+        span.setError(e);
+      }
+      throw e;
+    } finally {
+      tracer.end(span);
+      context.span = cycleSpan;
+    }
+  }
+
+  private static void addEvent(List<PolicyEvent> cycleEvents, Supplier<PolicyEvent> event) {
+    if (cycleEvents != null) {
+      cycleEvents.add(event.get());
+    }
+  }
+
+  /**
+   * Delivers the events of a cycle. A failing handler does not fail the policy.
+   */
+  private void publish(List<PolicyEvent> cycleEvents) {
+    if (cycleEvents == null) {
+      return;
+    }
+    for (PolicyEvent event : cycleEvents) {
+      try {
+        events.onEvent(event);
+      } catch (RuntimeException e) {
+        LOG.log(Level.WARNING, "Policy event handler failed: event=" + event, e);
+      }
+    }
+  }
+
+  /**
+   * @return the smallest remaining delay of all the policies
+   */
+  Duration getNextScheduleDelay() {
+    return policies.stream()
+        .map(policy -> getDelay(policy, policyContextMap.get(policy)))
+        .min(Comparator.naturalOrder())
+        .orElse(Duration.ofSeconds(10));
+  }
+
+  /**
+   * @return the remaining delay of the policy, extended until the end of its back off if any
+   */
+  private Duration getDelay(IHealthPolicy policy, ExecutionContext context) {
+    Duration delay = policy.getDelay();
+    if (context.backoffUntil != null) {
+      Duration backoff = Duration.between(now(), context.backoffUntil);
+      if (backoff.isNegative() || backoff.isZero()) {
+        context.backoffUntil = null;
+      } else if (backoff.compareTo(delay) > 0) {
+        delay = backoff;
+      }
+    }
+    return delay;
+  }
+
+  /**
+   * Defers the execution of a policy, e.g. to shed the load of an expensive policy. The policy's regular schedule
+   * resumes after the back off.
+   *
+   * @param policyName name of the policy, see {@link ExecutionContext#policyName()}
+   * @param delay      duration for which the policy is not executed
+   * @return false if there is no policy with the given name
+   */
+  boolean backoff(String policyName, Duration delay) {
+    for (ExecutionContext context : policyContextMap.values()) {
+      if (context.policyName.equals(policyName)) {
+        LOG.log(Level.WARNING, "Backing off policy: policy={0} delay={1}", new Object[]{policyName, delay});
+        context.backoffUntil = now().plus(delay);
+        context.dueAt = context.backoffUntil;
+        return true;
+      }
+    }
+    return false;
   }
 
-  private void identifyOutliers(Instant previous, Instant current, Collection<? extends Outcome> outcomes) {
-    outcomes.stream()
-        .filter(m -> m.instant().isAfter(current) || m.instant().isBefore(previous))
-        .forEach(m -> LOG.warning(m.toString() + " is outside checkpoint window"));
+  /**
+   * @return the names of the executed policies, in the order of the policies
+   */
+  List<String> policyNames() {
+    List<String> names = new ArrayList<>();
+    policies.forEach(policy -> names.add(policyContextMap.get(policy).policyName));
+    return names;
+  }
+
+  private Instant now() {
+    return clock == null ? Instant.now() : clock.now();
+  }
+
+  /**
+   * Logs one aggregated report of the results of a stage which are outside the checkpoint window
+   */
+  private <T> void reportOutliers(ExecutionContext context,
+                                  String stage,
+                                  Level level,
+                                  Collection<T> results,
+                                  Function<T, Instant> instant) {
+    if (!OUTLIER_LOG.isLoggable(level)) {
+      return;
+    }
+
+    Instant previous = context.previousCheckpoint;
+    Instant current = context.checkpoint;
+    int count = 0;
+    T example = null;
+    for (T result : results) {
+      Instant resultInstant = instant.apply(result);
+      if (resultInstant.isAfter(current) || resultInstant.isBefore(previous)) {
+        count++;
+        example = example == null ? result : example;
+      }
+    }
+
+    if (count > 0) {
+      OUTLIER_LOG.log(level, context.policyName + "." + stage,
+                      "Results outside checkpoint window: policy={0} stage={1} count={2} window=[{3}, {4}] example={5}",
+                      context.policyName, stage, count, previous, current, String.valueOf(example));
+    }
+  }
+
+  /**
+   * @return the registry receiving the timings and counts of the policy cycles
+   */
+  public MetricsRegistry metrics() {
+    return metrics;
   }
 
   public void destroy() {
     this.executor.shutdownNow();
   }
 
+  /**
+   * The timers and counters of a policy, named <code>[policy].[metric]</code>
+   */
+  private static class PolicyMetrics {
+    private final Timer sensors;
+    private final Timer detectors;
+    private final Timer diagnosers;
+    private final Timer resolvers;
+    private final Timer cycle;
+    private final Timer lag;
+    private final Counter measurements;
+    private final Counter symptoms;
+    private final Counter diagnoses;
+    private final Counter actions;
+
+    private PolicyMetrics(ExecutionContext context) {
+      MetricsRegistry registry = context.metrics;
+      sensors = registry.timer(context.metricName("sensors"));
+      detectors = registry.timer(context.metricName("detectors"));
+      diagnosers = registry.timer(context.metricName("diagnosers"));
+      resolvers = registry.timer(context.metricName("resolvers"));
+      cycle = registry.timer(context.metricName(CYCLE_TIMER));
+      lag = registry.timer(context.metricName(LAG_TIMER));
+      measurements = registry.counter(context.metricName("measurements"));
+      symptoms = registry.counter(context.metricName("symptoms"));
+      diagnoses = registry.counter(context.metricName("diagnoses"));
+      actions = registry.counter(context.metricName("actions"));
+
+      registry.gauge(context.metricName("tables", "measurements"), () -> context.measurementsTableBuilder.get().size());
+      registry.gauge(context.metricName("tables", "symptoms"), () -> context.symptomsTableBuilder.get().size());
+      registry.gauge(context.metricName("tables", "diagnosis"), () -> context.diagnosisTableBuilder.get().size());
+      registry.gauge(context.metricName("tables", "actions"), () -> context.actionTableBuilder.get().size());
+    }
+  }
+
   public static class ExecutionContext {
     private final MeasurementsTable.Builder measurementsTableBuilder;
     private final SymptomsTable.Builder symptomsTableBuilder;
     private final DiagnosisTable.Builder diagnosisTableBuilder;
     private final ActionTable.Builder actionTableBuilder;
+    // actions completed outside the policy cycle, added to the action table at the start of the next cycle
+    private final Queue<Action> completedActions = new ConcurrentLinkedQueue<>();
     private Instant checkpoint;
     private Instant previousCheckpoint;
     private IHealthPolicy policy;
+    private final HealthPolicyImpl.ClockTimeProvider clock;
+    private final MetricsRegistry metrics;
+    private final String policyName;
+    private final PolicyMetrics policyMetrics;
+    private final PoliciesExecutor executor;
+    private final Tracer tracer;
+    // the span of the current stage, null if the cycle is not traced
+    private Span span;
+    // the time at which the policy is expected to be executed next
+    private Instant dueAt;
+    private Instant backoffUntil;
 
-    private ExecutionContext(IHealthPolicy policy) {
+    private ExecutionContext(PoliciesExecutor executor,
+                             IHealthPolicy policy,
+                             HealthPolicyImpl.ClockTimeProvider clock,
+                             MetricsRegistry metrics,
+                             Tracer tracer,
+                             String policyName) {
+      this.executor = executor;
+      this.tracer = tracer;
       this.policy = policy;
+      this.clock = clock;
+      this.metrics = metrics;
+      this.policyName = policyName;
       measurementsTableBuilder = new MeasurementsTable.Builder();
       symptomsTableBuilder = new SymptomsTable.Builder();
       diagnosisTableBuilder = new DiagnosisTable.Builder();
       actionTableBuilder = new ActionTable.Builder();
+      policyMetrics = new PolicyMetrics(this);
     }
 
     private void captureCheckpoint() {
@@ -158,6 +601,15 @@ public class PoliciesExecutor {
       return actionTableBuilder.get();
     }
 
+    /**
+     * Records the status of an action completed outside the policy cycle, e.g. by an asynchronous resolver. The
+     * status is added to the {@link #actions() action table} at the start of the policy's next cycle. This method
+     * may be called from any thread.
+     */
+    public void complete(Action action) {
+      completedActions.add(action);
+    }
+
     /**
      * A checkpoint is a timestamp at which policy execution begins. This value can be used to identify outcomes
      * created during a particular cycle.
@@ -174,5 +626,70 @@ public class PoliciesExecutor {
     public Instant previousCheckpoint() {
       return previousCheckpoint;
     }
+
+    /**
+     * @return the clock to be used by the policy, null if the policy should use the wall clock
+     */
+    HealthPolicyImpl.ClockTimeProvider clock() {
+      return clock;
+    }
+
+    /**
+     * @return the current time of the policy's clock, i.e. the virtual time during an offline replay
+     */
+    public Instant now() {
+      return clock == null ? Instant.now() : clock.now();
+    }
+
+    /**
+     * @return the registry to which the policy and its plugins can report their own metrics
+     */
+    public MetricsRegistry metrics() {
+      return metrics;
+    }
+
+    Tracer tracer() {
+      return tracer;
+    }
+
+    /**
+     * @return the span of the policy's current stage, null if the cycle is not traced
+     */
+    Span span() {
+      return span;
+    }
+
+    /**
+     * @return the name of a metric of this policy, composed of the policy's name and the given parts
+     */
+    public String metricName(String... parts) {
+      return MetricsRegistry.name(policyName, MetricsRegistry.name(parts));
+    }
+
+    /**
+     * @return the name of the policy, which is the simple name of its class, suffixed with a sequence number if
+     * several policies of the same class are executed
+     */
+    public String policyName() {
+      return policyName;
+    }
+
+    /**
+     * Defers the execution of a policy executed by the same executor as this policy.
+     *
+     * @param policyName name of the policy to be deferred
+     * @param delay      duration for which the policy is not executed
+     * @return false if there is no policy with the given name
+     */
+    public boolean backoff(String policyName, Duration delay) {
+      return executor.backoff(policyName, delay);
+    }
+
+    /**
+     * @return the names of the policies executed by the same executor as this policy, including this policy
+     */
+    public List<String> policyNames() {
+      return executor.policyNames();
+    }
   }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.policy;
+
+import com.microsoft.dhalion.api.IHealthPolicy;
+import com.microsoft.dhalion.metrics.MetricsRegistry;
+import com.microsoft.dhalion.metrics.Timer;
+import com.microsoft.dhalion.tracing.Tracer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Executes policies against recorded data, e.g. in {@link com.microsoft.dhalion.conf.Config.HealthManagerMode#offline}
+ * mode. Unlike {@link PoliciesExecutor#start()}, which sleeps until the next policy is due, the replay executor
+ * advances a virtual clock to the next due time and runs the policy cycles back to back. The policies see the virtual
+ * time through their {@link PoliciesExecutor.ExecutionContext}, so a replay of the same data is deterministic and is
+ * only limited by the speed of the policies.
+ * <p>
+ * Policies need to extend {@link HealthPolicyImpl} to follow the virtual clock.
+ */
+public class ReplayExecutor {
+  private static final Logger LOG = Logger.getLogger(ReplayExecutor.class.getName());
+  // the clock advances by at least this much after a cycle, for policies which are always due
+  private static final Duration MIN_STEP = Duration.ofMillis(1);
+
+  private final Instant end;
+  private final VirtualClock clock;
+  private final PoliciesExecutor executor;
+
+  /**
+   * @param policies policies to be replayed
+   * @param start    virtual time of the first cycle
+   * @param end      virtual time after which the replay stops
+   */
+  public ReplayExecutor(Collection<IHealthPolicy> policies, Instant start, Instant end) {
+    this(policies, start, end, new MetricsRegistry());
+  }
+
+  /**
+   * @param metrics registry receiving the timings and counts of the replayed policy cycles
+   */
+  public ReplayExecutor(Collection<IHealthPolicy> policies, Instant start, Instant end, MetricsRegistry metrics) {
+    this(policies, start, end, metrics, Tracer.NOOP);
+  }
+
+  /**
+   * @param metrics registry receiving the timings and counts of the replayed policy cycles
+   * @param tracer  tracer of the replayed policy cycles
+   */
+  public ReplayExecutor(Collection<IHealthPolicy> policies,
+                        Instant start,
+                        Instant end,
+                        MetricsRegistry metrics,
+                        Tracer tracer) {
+    this.end = end;
+    this.clock = new VirtualClock(start);
+    this.executor = new PoliciesExecutor(policies, clock, metrics, tracer);
+  }
+
+  /**
+   * Runs the policies from the start to the end time.
+   *
+   * @return number of executed cycles
+   */
+  public long run() {
+    LOG.info(String.format("Replaying policies from %s to %s", clock.now(), end));
+    long startNanos = System.nanoTime();
+    long cycles = 0;
+    boolean warned = false;
+    while (!clock.now().isAfter(end)) {
+      Duration delay = executor.getNextScheduleDelay();
+      if (!delay.isZero()) {
+        clock.advance(delay);
+        continue;
+      }
+
+      executor.executeCycle();
+      cycles++;
+
+      if (executor.getNextScheduleDelay().isZero()) {
+        if (!warned) {
+          LOG.warning("Policies are due again in the same virtual instant, advancing the clock by " + MIN_STEP);
+          warned = true;
+        }
+        clock.advance(MIN_STEP);
+      }
+    }
+
+    long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    LOG.info(String.format("Replayed %d cycles in %d ms, %.1f cycles/sec",
+                           cycles, elapsedMillis, cycles * 1000.0 / elapsedMillis));
+    logTimers();
+    return cycles;
+  }
+
+  private void logTimers() {
+    StringBuilder report = new StringBuilder("Time spent per policy stage and plugin (ms):");
+    metrics().timers().entrySet().stream()
+        .sorted(Comparator.comparing((Map.Entry<String, Timer> e) -> e.getValue().totalNanos()).reversed())
+        .forEach(e -> report.append(String.format("%n  %-60s %10d calls %12.1f total %10.3f mean",
+                                                  e.getKey(),
+                                                  e.getValue().count(),
+                                                  e.getValue().totalNanos() / 1e6,
+                                                  e.getValue().meanNanos() / 1e6)));
+    LOG.info(report.toString());
+  }
+
+  /**
+   * @return the current virtual time
+   */
+  public Instant now() {
+    return clock.now();
+  }
+
+  /**
+   * @return the registry receiving the timings and counts of the replayed policy cycles
+   */
+  public MetricsRegistry metrics() {
+    return executor.metrics();
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.policy;
+
+import com.microsoft.dhalion.api.IHealthPolicy;
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.detectors.CycleOverrunDetector;
+import com.microsoft.dhalion.detectors.ScheduleLagDetector;
+import com.microsoft.dhalion.diagnosers.ExpensivePolicyDiagnoser;
+import com.microsoft.dhalion.resolvers.PolicyBackoffResolver;
+import com.microsoft.dhalion.sensors.SelfMonitoringSensor;
+
+import javax.inject.Inject;
+
+/**
+ * A policy which monitors the health manager itself. It measures the cycle times and schedule lags of the policies
+ * executed along with it, identifies the policies overloading the health manager, and backs them off. Its thresholds
+ * are configured with the keys of {@link CycleOverrunDetector}, {@link ScheduleLagDetector} and
+ * {@link PolicyBackoffResolver}.
+ */
+public class SelfMonitoringPolicy extends HealthPolicyImpl implements IHealthPolicy {
+  @Inject
+  public SelfMonitoringPolicy(PolicyConfig policyConfig) {
+    registerSensors(new SelfMonitoringSensor());
+    registerDetectors(new CycleOverrunDetector(policyConfig), new ScheduleLagDetector(policyConfig));
+    registerDiagnosers(new ExpensivePolicyDiagnoser());
+    registerResolvers(new PolicyBackoffResolver(policyConfig));
+
+    setPolicyExecutionInterval(policyConfig.interval());
+  }
+}
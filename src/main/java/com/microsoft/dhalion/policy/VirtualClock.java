@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.policy;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A clock whose time only changes when it is advanced explicitly. It lets {@link ReplayExecutor} run policies against
+ * recorded data without waiting for wall clock time to pass.
+ */
+class VirtualClock extends HealthPolicyImpl.ClockTimeProvider {
+  private Instant now;
+
+  VirtualClock(Instant start) {
+    this.now = start;
+  }
+
+  @Override
+  Instant now() {
+    return now;
+  }
+
+  void advance(Duration duration) {
+    now = now.plus(duration);
+  }
+}
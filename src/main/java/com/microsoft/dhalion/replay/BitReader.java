@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads data written by a {@link BitWriter}. Only absolute gets are used, so several readers may share a buffer.
+ */
+final class BitReader {
+  private final ByteBuffer buffer;
+  private int position;
+  private int bitOffset = 0;
+
+  BitReader(ByteBuffer buffer, int position) {
+    this.buffer = buffer;
+    this.position = position;
+  }
+
+  long readBits(int count) {
+    long value = 0;
+    while (count > 0) {
+      int available = 8 - bitOffset;
+      int n = Math.min(available, count);
+      int bits = ((buffer.get(position) & 0xFF) >>> (available - n)) & ((1 << n) - 1);
+      value = (value << n) | bits;
+      bitOffset += n;
+      count -= n;
+      if (bitOffset == 8) {
+        position++;
+        bitOffset = 0;
+      }
+    }
+    return value;
+  }
+
+  void align() {
+    if (bitOffset > 0) {
+      position++;
+      bitOffset = 0;
+    }
+  }
+
+  long readVarLong() {
+    align();
+    long value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = buffer.get(position++);
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+  }
+
+  int readVarInt() {
+    return (int) readVarLong();
+  }
+
+  void skip(int bytes) {
+    align();
+    position += bytes;
+  }
+
+  int position() {
+    return position;
+  }
+}
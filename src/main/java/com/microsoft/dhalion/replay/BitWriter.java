@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.replay;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer to which bits and byte aligned varints are written, most significant bit first.
+ */
+final class BitWriter {
+  private byte[] bytes = new byte[1024];
+  private int position = 0;
+  private int bitOffset = 0;
+
+  /**
+   * Writes the <code>count</code> least significant bits of the value
+   */
+  void writeBits(long value, int count) {
+    while (count > 0) {
+      ensureCapacity(position + 1);
+      int free = 8 - bitOffset;
+      int n = Math.min(free, count);
+      int bits = (int) (value >>> (count - n)) & ((1 << n) - 1);
+      bytes[position] |= bits << (free - n);
+      bitOffset += n;
+      count -= n;
+      if (bitOffset == 8) {
+        position++;
+        bitOffset = 0;
+      }
+    }
+  }
+
+  /**
+   * Pads the current byte with zero bits
+   */
+  void align() {
+    if (bitOffset > 0) {
+      position++;
+      bitOffset = 0;
+    }
+  }
+
+  void writeVarLong(long value) {
+    align();
+    ensureCapacity(position + 10);
+    while ((value & ~0x7FL) != 0) {
+      bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    bytes[position++] = (byte) value;
+  }
+
+  void write(BitWriter other) {
+    other.align();
+    align();
+    ensureCapacity(position + other.position);
+    System.arraycopy(other.bytes, 0, bytes, position, other.position);
+    position += other.position;
+  }
+
+  /**
+   * @return number of bytes written, including a partially written byte
+   */
+  int size() {
+    return bitOffset > 0 ? position + 1 : position;
+  }
+
+  byte[] array() {
+    return bytes;
+  }
+
+  void reset() {
+    Arrays.fill(bytes, 0, size(), (byte) 0);
+    position = 0;
+    bitOffset = 0;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+    }
+  }
+}
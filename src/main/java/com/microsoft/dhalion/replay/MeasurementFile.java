@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.replay;
+
+/**
+ * Describes the binary measurement file layout shared by {@link MeasurementFileWriter} and
+ * {@link MeasurementFileReader}. All fixed size numbers are big endian.
+ * <pre>
+ * header:  magic (int), version (int)
+ * blocks:  block*
+ * footer:  dictionary size (varint), { name length (varint), UTF-8 name bytes }*
+ *          block count (varint), { min time (zigzag varint), max time - min time (varint),
+ *                                  block offset (varint), block length (varint) }*
+ * trailer: footer offset (long), magic (int)
+ * </pre>
+ * A block holds a bounded number of measurements grouped by series, i.e. component, instance and metric, with the
+ * series ordered by their dictionary ids:
+ * <pre>
+ * block:   series count (varint), series*
+ * series:  component id, instance id, metric id, measurement count, payload length (varints), payload
+ * payload: timestamps as delta of delta epoch millis (zigzag varints), the first delta relative to the block min time
+ *          values as a Gorilla XOR compressed bit stream, padded to a byte boundary
+ * </pre>
+ * Timestamps are stored with millisecond precision.
+ */
+final class MeasurementFile {
+  static final int MAGIC = 0x44484D46;
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 8;
+  static final int TRAILER_SIZE = 12;
+
+  // bit lengths of the leading zero count and significant bit count of XOR compressed values
+  static final int LEADING_ZEROS_BITS = 5;
+  static final int SIGNIFICANT_BITS = 6;
+  static final int MAX_LEADING_ZEROS = (1 << LEADING_ZEROS_BITS) - 1;
+
+  private MeasurementFile() {
+  }
+
+  static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
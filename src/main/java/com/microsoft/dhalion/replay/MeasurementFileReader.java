@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.replay;
+
+import com.microsoft.dhalion.core.Measurement;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.microsoft.dhalion.replay.MeasurementFile.unzigzag;
+
+/**
+ * Reads a file written by {@link MeasurementFileWriter} through memory mappings. The dictionary and the block index
+ * are loaded when the file is opened. A read visits only the blocks overlapping the requested time window and
+ * decodes only the series of the requested metrics and components.
+ * <p>
+ * Instances are safe for concurrent reads.
+ */
+public class MeasurementFileReader implements Closeable {
+  // largest region which can be addressed by a single mapped buffer
+  private static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+  private final Path file;
+  private final FileChannel channel;
+
+  private final String[] names;
+  private final Map<String, Integer> ids = new HashMap<>();
+
+  private final long[] minTimes;
+  private final long[] maxTimes;
+  // max of the max times of the blocks up to each block, and min of the min times of the blocks from each block
+  private final long[] prefixMaxTimes;
+  private final long[] suffixMinTimes;
+
+  // blocks are mapped in regions of consecutive blocks
+  private final MappedByteBuffer[] regions;
+  private final int[] blockRegions;
+  private final int[] blockPositions;
+
+  public MeasurementFileReader(Path file) throws IOException {
+    this(file, MAX_REGION_SIZE);
+  }
+
+  MeasurementFileReader(Path file, long maxRegionSize) throws IOException {
+    this.file = file;
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      if (size < MeasurementFile.HEADER_SIZE + MeasurementFile.TRAILER_SIZE) {
+        throw new IOException(file + " is not a measurement file");
+      }
+
+      ByteBuffer header = read(0, MeasurementFile.HEADER_SIZE);
+      ByteBuffer trailer = read(size - MeasurementFile.TRAILER_SIZE, MeasurementFile.TRAILER_SIZE);
+      if (header.getInt(0) != MeasurementFile.MAGIC || trailer.getInt(8) != MeasurementFile.MAGIC) {
+        throw new IOException(file + " is not a measurement file");
+      }
+      if (header.getInt(4) != MeasurementFile.VERSION) {
+        throw new IOException("Unsupported version " + header.getInt(4) + " of " + file);
+      }
+
+      long footerOffset = trailer.getLong(0);
+      BitReader footer = new BitReader(
+          channel.map(FileChannel.MapMode.READ_ONLY, footerOffset, size - MeasurementFile.TRAILER_SIZE - footerOffset),
+          0);
+
+      names = new String[footer.readVarInt()];
+      for (int i = 0; i < names.length; i++) {
+        byte[] bytes = new byte[footer.readVarInt()];
+        for (int j = 0; j < bytes.length; j++) {
+          bytes[j] = (byte) footer.readBits(8);
+        }
+        names[i] = new String(bytes, StandardCharsets.UTF_8);
+        ids.put(names[i], i);
+      }
+
+      int blockCount = footer.readVarInt();
+      minTimes = new long[blockCount];
+      maxTimes = new long[blockCount];
+      prefixMaxTimes = new long[blockCount];
+      suffixMinTimes = new long[blockCount];
+      blockRegions = new int[blockCount];
+      blockPositions = new int[blockCount];
+      long[] offsets = new long[blockCount];
+      long[] lengths = new long[blockCount];
+      for (int i = 0; i < blockCount; i++) {
+        minTimes[i] = unzigzag(footer.readVarLong());
+        maxTimes[i] = minTimes[i] + footer.readVarLong();
+        offsets[i] = footer.readVarLong();
+        lengths[i] = footer.readVarLong();
+        prefixMaxTimes[i] = i == 0 ? maxTimes[i] : Math.max(maxTimes[i], prefixMaxTimes[i - 1]);
+      }
+      for (int i = blockCount - 1; i >= 0; i--) {
+        suffixMinTimes[i] = i == blockCount - 1 ? minTimes[i] : Math.min(minTimes[i], suffixMinTimes[i + 1]);
+      }
+
+      regions = mapRegions(offsets, lengths, maxRegionSize);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private ByteBuffer read(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of " + file);
+      }
+    }
+    return buffer;
+  }
+
+  private MappedByteBuffer[] mapRegions(long[] offsets, long[] lengths, long maxRegionSize) throws IOException {
+    List<MappedByteBuffer> mapped = new ArrayList<>();
+    int first = 0;
+    while (first < offsets.length) {
+      long start = offsets[first];
+      int last = first;
+      while (last + 1 < offsets.length && offsets[last + 1] + lengths[last + 1] - start <= maxRegionSize) {
+        last++;
+      }
+
+      long length = offsets[last] + lengths[last] - start;
+      if (length > maxRegionSize) {
+        throw new IOException(String.format("Block at offset %d of %s is too large", start, file));
+      }
+      for (int i = first; i <= last; i++) {
+        blockRegions[i] = mapped.size();
+        blockPositions[i] = (int) (offsets[i] - start);
+      }
+      mapped.add(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+      first = last + 1;
+    }
+    return mapped.toArray(new MappedByteBuffer[0]);
+  }
+
+  /**
+   * @param oldest     window start, exclusive
+   * @param newest     window end, inclusive
+   * @param metrics    names of the metrics to read
+   * @param components names of the components to read
+   * @return measurements of the given metrics and components created in the time window
+   */
+  public Collection<Measurement> read(Instant oldest,
+                                      Instant newest,
+                                      Collection<String> metrics,
+                                      Collection<String> components) {
+    Collection<Measurement> result = new ArrayList<>();
+    Set<Integer> metricIds = ids(metrics);
+    Set<Integer> componentIds = ids(components);
+    if (metricIds.isEmpty() || componentIds.isEmpty()) {
+      return result;
+    }
+
+    // stored timestamps are whole millis, hence after oldest if after its floor and not after newest's floor
+    long low = oldest.toEpochMilli();
+    long high = newest.toEpochMilli();
+    for (int block = firstBlockAfter(low); block < minTimes.length && suffixMinTimes[block] <= high; block++) {
+      if (maxTimes[block] > low && minTimes[block] <= high) {
+        readBlock(block, low, high, metricIds, componentIds, result);
+      }
+    }
+    return result;
+  }
+
+  private Set<Integer> ids(Collection<String> names) {
+    Set<Integer> result = new HashSet<>();
+    for (String name : names) {
+      Integer id = ids.get(name);
+      if (id != null) {
+        result.add(id);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return first block whose prefix max time is after the given time
+   */
+  private int firstBlockAfter(long time) {
+    int low = 0;
+    int high = prefixMaxTimes.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (prefixMaxTimes[mid] > time) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+
+  private void readBlock(int block,
+                         long low,
+                         long high,
+                         Set<Integer> metricIds,
+                         Set<Integer> componentIds,
+                         Collection<Measurement> result) {
+    BitReader reader = new BitReader(regions[blockRegions[block]], blockPositions[block]);
+    int seriesCount = reader.readVarInt();
+    for (int i = 0; i < seriesCount; i++) {
+      int component = reader.readVarInt();
+      int instance = reader.readVarInt();
+      int metric = reader.readVarInt();
+      int count = reader.readVarInt();
+      int payloadLength = reader.readVarInt();
+      if (!metricIds.contains(metric) || !componentIds.contains(component)) {
+        reader.skip(payloadLength);
+        continue;
+      }
+
+      long[] times = new long[count];
+      long previous = minTimes[block];
+      long previousDelta = 0;
+      for (int j = 0; j < count; j++) {
+        long delta = previousDelta + unzigzag(reader.readVarLong());
+        times[j] = previous + delta;
+        previous = times[j];
+        previousDelta = delta;
+      }
+
+      decodeValues(reader, count, (j, value) -> {
+        if (times[j] > low && times[j] <= high) {
+          result.add(new Measurement(names[component],
+                                     names[instance],
+                                     names[metric],
+                                     Instant.ofEpochMilli(times[j]),
+                                     value));
+        }
+      });
+    }
+  }
+
+  private interface ValueConsumer {
+    void accept(int position, double value);
+  }
+
+  private static void decodeValues(BitReader reader, int count, ValueConsumer consumer) {
+    long previous = reader.readBits(64);
+    consumer.accept(0, Double.longBitsToDouble(previous));
+
+    int leading = 0;
+    int trailing = 0;
+    for (int i = 1; i < count; i++) {
+      if (reader.readBits(1) != 0) {
+        if (reader.readBits(1) != 0) {
+          leading = (int) reader.readBits(MeasurementFile.LEADING_ZEROS_BITS);
+          int significant = (int) reader.readBits(MeasurementFile.SIGNIFICANT_BITS) + 1;
+          trailing = 64 - leading - significant;
+        }
+        previous ^= reader.readBits(64 - leading - trailing) << trailing;
+      }
+      consumer.accept(i, Double.longBitsToDouble(previous));
+    }
+    reader.align();
+  }
+
+  /**
+   * @return time of the oldest measurement in the file, null if the file is empty
+   */
+  public Instant firstInstant() {
+    return minTimes.length == 0 ? null : Instant.ofEpochMilli(suffixMinTimes[0]);
+  }
+
+  /**
+   * @return time of the newest measurement in the file, null if the file is empty
+   */
+  public Instant lastInstant() {
+    return maxTimes.length == 0 ? null : Instant.ofEpochMilli(prefixMaxTimes[maxTimes.length - 1]);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.replay;
+
+import com.microsoft.dhalion.core.Measurement;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.microsoft.dhalion.replay.MeasurementFile.zigzag;
+
+/**
+ * Writes {@link Measurement}s to a binary measurement file, see {@link MeasurementFile} for the layout. Measurements
+ * are buffered until a block is complete, so they need not be written in time order. However, blocks written in time
+ * order let {@link MeasurementFileReader} skip most of the file when reading a time window.
+ * <p>
+ * Only numeric values are stored, the references of {@link Measurement.ObjMeasurement}s are ignored.
+ */
+public class MeasurementFileWriter implements Closeable {
+  public static final int DEFAULT_BLOCK_SIZE = 8192;
+
+  private final int blockSize;
+  private final DataOutputStream out;
+  private long offset;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+  private final List<String> names = new ArrayList<>();
+
+  private final Map<Series, Series> series = new HashMap<>();
+  private final Series probe = new Series();
+  private int rows = 0;
+  private long minTime = Long.MAX_VALUE;
+  private long maxTime = Long.MIN_VALUE;
+
+  private final BitWriter block = new BitWriter();
+  private final BitWriter payload = new BitWriter();
+  private final BitWriter index = new BitWriter();
+  private int blockCount = 0;
+  private boolean closed = false;
+
+  public MeasurementFileWriter(Path file) throws IOException {
+    this(file, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * @param blockSize maximum number of measurements in a block
+   */
+  public MeasurementFileWriter(Path file, int blockSize) throws IOException {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+    }
+    this.blockSize = blockSize;
+    this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+    out.writeInt(MeasurementFile.MAGIC);
+    out.writeInt(MeasurementFile.VERSION);
+    offset = MeasurementFile.HEADER_SIZE;
+  }
+
+  public void write(Measurement measurement) throws IOException {
+    if (closed) {
+      throw new IllegalStateException("The writer is closed");
+    }
+
+    probe.component = id(measurement.component());
+    probe.instance = id(measurement.instance());
+    probe.metric = id(measurement.type());
+    Series target = series.get(probe);
+    if (target == null) {
+      target = new Series(probe);
+      series.put(target, target);
+    }
+
+    long time = measurement.instant().toEpochMilli();
+    target.add(time, measurement.value());
+    minTime = Math.min(minTime, time);
+    maxTime = Math.max(maxTime, time);
+
+    if (++rows == blockSize) {
+      flushBlock();
+    }
+  }
+
+  private int id(String name) {
+    Integer id = ids.get(name);
+    if (id == null) {
+      id = names.size();
+      ids.put(name, id);
+      names.add(name);
+    }
+    return id;
+  }
+
+  private void flushBlock() throws IOException {
+    if (rows == 0) {
+      return;
+    }
+
+    List<Series> sorted = new ArrayList<>(series.keySet());
+    Collections.sort(sorted);
+    block.writeVarLong(sorted.size());
+    for (Series s : sorted) {
+      s.sortByTime();
+      payload.reset();
+      encodeTimes(s);
+      encodeValues(s);
+
+      block.writeVarLong(s.component);
+      block.writeVarLong(s.instance);
+      block.writeVarLong(s.metric);
+      block.writeVarLong(s.size);
+      block.writeVarLong(payload.size());
+      block.write(payload);
+    }
+
+    index.writeVarLong(zigzag(minTime));
+    index.writeVarLong(maxTime - minTime);
+    index.writeVarLong(offset);
+    index.writeVarLong(block.size());
+    blockCount++;
+
+    out.write(block.array(), 0, block.size());
+    offset += block.size();
+    block.reset();
+    series.clear();
+    rows = 0;
+    minTime = Long.MAX_VALUE;
+    maxTime = Long.MIN_VALUE;
+  }
+
+  private void encodeTimes(Series s) {
+    long previous = minTime;
+    long previousDelta = 0;
+    for (int i = 0; i < s.size; i++) {
+      long delta = s.times[i] - previous;
+      payload.writeVarLong(zigzag(delta - previousDelta));
+      previous = s.times[i];
+      previousDelta = delta;
+    }
+  }
+
+  private void encodeValues(Series s) {
+    long previous = Double.doubleToRawLongBits(s.values[0]);
+    payload.writeBits(previous, 64);
+
+    int previousLeading = -1;
+    int previousTrailing = 0;
+    for (int i = 1; i < s.size; i++) {
+      long bits = Double.doubleToRawLongBits(s.values[i]);
+      long xor = bits ^ previous;
+      previous = bits;
+      if (xor == 0) {
+        payload.writeBits(0, 1);
+        continue;
+      }
+
+      int leading = Math.min(Long.numberOfLeadingZeros(xor), MeasurementFile.MAX_LEADING_ZEROS);
+      int trailing = Long.numberOfTrailingZeros(xor);
+      if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+        // the significant bits fit in the window of the previous value
+        payload.writeBits(0b10, 2);
+        payload.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+      } else {
+        int significant = 64 - leading - trailing;
+        payload.writeBits(0b11, 2);
+        payload.writeBits(leading, MeasurementFile.LEADING_ZEROS_BITS);
+        payload.writeBits(significant - 1, MeasurementFile.SIGNIFICANT_BITS);
+        payload.writeBits(xor >>> trailing, significant);
+        previousLeading = leading;
+        previousTrailing = trailing;
+      }
+    }
+    payload.align();
+  }
+
+  /**
+   * Writes the buffered measurements, the dictionary and the block index, and closes the file.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    try {
+      flushBlock();
+
+      long footerOffset = offset;
+      BitWriter footer = new BitWriter();
+      footer.writeVarLong(names.size());
+      for (String name : names) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        footer.writeVarLong(bytes.length);
+        out.write(footer.array(), 0, footer.size());
+        out.write(bytes);
+        footer.reset();
+      }
+      footer.writeVarLong(blockCount);
+      footer.write(index);
+      out.write(footer.array(), 0, footer.size());
+
+      out.writeLong(footerOffset);
+      out.writeInt(MeasurementFile.MAGIC);
+    } finally {
+      out.close();
+    }
+  }
+
+  private static final class Series implements Comparable<Series> {
+    private int component;
+    private int instance;
+    private int metric;
+
+    private long[] times;
+    private double[] values;
+    private int size = 0;
+
+    private Series() {
+    }
+
+    private Series(Series key) {
+      this.component = key.component;
+      this.instance = key.instance;
+      this.metric = key.metric;
+      this.times = new long[16];
+      this.values = new double[16];
+    }
+
+    private void add(long time, double value) {
+      if (size == times.length) {
+        times = Arrays.copyOf(times, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      times[size] = time;
+      values[size] = value;
+      size++;
+    }
+
+    private void sortByTime() {
+      boolean sorted = true;
+      for (int i = 1; i < size && sorted; i++) {
+        sorted = times[i - 1] <= times[i];
+      }
+      if (sorted) {
+        return;
+      }
+
+      Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b]));
+
+      long[] sortedTimes = new long[times.length];
+      double[] sortedValues = new double[values.length];
+      for (int i = 0; i < size; i++) {
+        sortedTimes[i] = times[order[i]];
+        sortedValues[i] = values[order[i]];
+      }
+      times = sortedTimes;
+      values = sortedValues;
+    }
+
+    @Override
+    public int compareTo(Series o) {
+      int result = Integer.compare(component, o.component);
+      if (result == 0) {
+        result = Integer.compare(instance, o.instance);
+      }
+      return result != 0 ? result : Integer.compare(metric, o.metric);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Series)) {
+        return false;
+      }
+      Series that = (Series) o;
+      return component == that.component && instance == that.instance && metric == that.metric;
+    }
+
+    @Override
+    public int hashCode() {
+      return (component * 31 + instance) * 31 + metric;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.replay;
+
+import com.microsoft.dhalion.api.MetricsProvider;
+import com.microsoft.dhalion.conf.Config;
+import com.microsoft.dhalion.conf.Key;
+import com.microsoft.dhalion.core.Measurement;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves {@link Measurement}s recorded in a binary measurement file, see {@link MeasurementFileWriter}. It is meant
+ * for replaying recorded traces through health policies in offline mode. The file is read from the data directory,
+ * unless a path is configured with {@link #CONF_FILE}.
+ */
+public class ReplayMetricsProvider implements MetricsProvider {
+  private static final Logger LOG = Logger.getLogger(ReplayMetricsProvider.class.getSimpleName());
+
+  public static final String CONF_FILE = ReplayMetricsProvider.class.getSimpleName() + ".file";
+  public static final String DATA_FILE = "measurements.dhm";
+
+  private final Path file;
+  private MeasurementFileReader reader;
+
+  @Inject
+  public ReplayMetricsProvider(Config sysConfig) {
+    Object path = sysConfig.get(CONF_FILE);
+    this.file = path == null
+        ? Paths.get(sysConfig.get(Key.DATA_DIR.value()).toString(), DATA_FILE)
+        : Paths.get(path.toString());
+  }
+
+  @Override
+  public Collection<Measurement> getMeasurements(Instant startTS,
+                                                 Duration duration,
+                                                 Collection<String> metrics,
+                                                 Collection<String> components) {
+    try {
+      return getReader().read(startTS.minus(duration), startTS, metrics, components);
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Failed to read measurements from " + file, e);
+      return new ArrayList<>();
+    }
+  }
+
+  /**
+   * @return reader of the measurement file, opened on first use
+   */
+  public synchronized MeasurementFileReader getReader() throws IOException {
+    if (reader == null) {
+      reader = new MeasurementFileReader(file);
+    }
+    return reader;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (reader == null) {
+      return;
+    }
+
+    try {
+      reader.close();
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Failed to close " + file, e);
+    }
+    reader = null;
+  }
+}
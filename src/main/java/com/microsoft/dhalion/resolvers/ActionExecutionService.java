@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.resolvers;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Action;
+import com.microsoft.dhalion.core.Action.Status;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link ActionExecutionService} executes actions on background threads, so that slow calls to the managed
+ * system, e.g. scaling a component, do not delay the policy cycles. A resolver submits an action with the task
+ * executing it and returns the {@link Status#SUBMITTED submitted} action right away. The completion status is handed
+ * to a callback, typically {@link ExecutionContext#complete(Action)}, which adds it to the policy's action table.
+ * <p>
+ * The tasks of actions sharing a target, i.e. an assignment, run one at a time, in submission order. A task which
+ * fails or throws is retried after a back off, which starts at the configured initial duration and doubles with each
+ * attempt up to the configured maximum. Its targets stay reserved until the last attempt. At most the configured
+ * number of actions are queued or executing, in total and per target; further submissions are
+ * {@link Status#REJECTED rejected}, so a target whose actions pile up does not cause the rejection of the actions of
+ * other targets.
+ * <p>
+ * The completion time is read from the clock of the policy, e.g. {@link ExecutionContext#now()}, so that it is
+ * consistent with the policy's checkpoints, also during an offline replay.
+ */
+public class ActionExecutionService implements AutoCloseable {
+  private static final Logger LOG = Logger.getLogger(ActionExecutionService.class.getName());
+  public static final String CONFIG_KEY_PREFIX = ActionExecutionService.class.getSimpleName();
+  public static final String THREADS_CONFIG_KEY = ".threads";
+  public static final String QUEUE_SIZE_CONFIG_KEY = ".queue.size";
+  public static final String TARGET_QUEUE_SIZE_CONFIG_KEY = ".target.queue.size";
+  public static final String ATTEMPTS_CONFIG_KEY = ".attempts";
+  public static final String INITIAL_RETRY_CONFIG_KEY = ".retry.initial.ms";
+  public static final String MAX_RETRY_CONFIG_KEY = ".retry.max.ms";
+
+  /**
+   * Executes an action on the managed system.
+   */
+  @FunctionalInterface
+  public interface ActionTask {
+    /**
+     * @return true if the action succeeded, false if it should be retried
+     */
+    boolean execute(Action action) throws Exception;
+  }
+
+  private final ScheduledExecutorService executor;
+  private final Supplier<Instant> clock;
+  private final int queueSize;
+  private final int targetQueueSize;
+  private final int attempts;
+  private final Duration initialRetry;
+  private final Duration maxRetry;
+
+  // tasks waiting for their targets, in submission order, guarded by this
+  private final List<Task> waiting = new LinkedList<>();
+  // targets of the executing tasks, guarded by this
+  private final Set<String> busy = new HashSet<>();
+  // number of queued and executing tasks per target, guarded by this
+  private final Map<String, Integer> targetLoad = new HashMap<>();
+  // number of executing tasks, including the ones waiting for a retry, guarded by this
+  private int executing;
+  private boolean closed;
+
+  /**
+   * Reads the <code>ActionExecutionService.threads</code> (2), <code>.queue.size</code> (100),
+   * <code>.target.queue.size</code> (10), <code>.attempts</code> (3), <code>.retry.initial.ms</code> (1000) and
+   * <code>.retry.max.ms</code> (60000) configs.
+   *
+   * @param clock clock of the policy, typically {@link ExecutionContext#now()}
+   */
+  public ActionExecutionService(PolicyConfig policyConfig, Supplier<Instant> clock) {
+    this(policyConfig.intValue(CONFIG_KEY_PREFIX + THREADS_CONFIG_KEY, 2),
+         policyConfig.intValue(CONFIG_KEY_PREFIX + QUEUE_SIZE_CONFIG_KEY, 100),
+         policyConfig.intValue(CONFIG_KEY_PREFIX + TARGET_QUEUE_SIZE_CONFIG_KEY, 10),
+         policyConfig.intValue(CONFIG_KEY_PREFIX + ATTEMPTS_CONFIG_KEY, 3),
+         Duration.ofMillis(
+             ((Number) policyConfig.getConfig(CONFIG_KEY_PREFIX + INITIAL_RETRY_CONFIG_KEY, 1000)).longValue()),
+         Duration.ofMillis(
+             ((Number) policyConfig.getConfig(CONFIG_KEY_PREFIX + MAX_RETRY_CONFIG_KEY, 60000)).longValue()),
+         clock);
+  }
+
+  /**
+   * Creates a service completing actions at the wall clock time, without a queue size per target
+   *
+   * @param threads      number of threads executing the tasks
+   * @param queueSize    maximum number of queued and executing actions
+   * @param attempts     maximum number of executions of a task
+   * @param initialRetry back off before the first retry
+   * @param maxRetry     maximum back off before a retry
+   */
+  public ActionExecutionService(int threads, int queueSize, int attempts, Duration initialRetry, Duration maxRetry) {
+    this(threads, queueSize, queueSize, attempts, initialRetry, maxRetry, Instant::now);
+  }
+
+  /**
+   * @param threads         number of threads executing the tasks
+   * @param queueSize       maximum number of queued and executing actions
+   * @param targetQueueSize maximum number of queued and executing actions per target
+   * @param attempts        maximum number of executions of a task
+   * @param initialRetry    back off before the first retry
+   * @param maxRetry        maximum back off before a retry
+   * @param clock           clock of the policy, typically {@link ExecutionContext#now()}
+   */
+  public ActionExecutionService(int threads,
+                                int queueSize,
+                                int targetQueueSize,
+                                int attempts,
+                                Duration initialRetry,
+                                Duration maxRetry,
+                                Supplier<Instant> clock) {
+    if (threads < 1 || queueSize < 1 || targetQueueSize < 1 || attempts < 1) {
+      throw new IllegalArgumentException("Threads, queue sizes and attempts must be positive");
+    }
+    this.queueSize = queueSize;
+    this.targetQueueSize = targetQueueSize;
+    this.attempts = attempts;
+    this.initialRetry = initialRetry;
+    this.maxRetry = maxRetry;
+    this.clock = clock;
+
+    AtomicInteger count = new AtomicInteger();
+    executor = Executors.newScheduledThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, CONFIG_KEY_PREFIX + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Queues the execution of the action.
+   *
+   * @param callback receives the action with its completion status, {@link Status#SUCCEEDED} or
+   *                 {@link Status#FAILED}, and the completion time. It is called on an executor thread, and not
+   *                 called for a rejected action.
+   * @return the action with the {@link Status#SUBMITTED} status, or with the {@link Status#REJECTED} status if the
+   * queue is full
+   */
+  public Action submit(Action action, ActionTask task, Consumer<Action> callback) {
+    synchronized (this) {
+      Task queued = new Task(action, task, callback);
+      if (closed || waiting.size() + executing >= queueSize || isFull(queued.targets)) {
+        LOG.log(Level.WARNING, "Rejecting action, the action queue is full: {0}", action);
+        return action.withStatus(Status.REJECTED, action.instant());
+      }
+      queued.targets.forEach(target -> targetLoad.merge(target, 1, Integer::sum));
+      waiting.add(queued);
+    }
+    dispatch();
+    return action.withStatus(Status.SUBMITTED, action.instant());
+  }
+
+  private boolean isFull(Collection<String> targets) {
+    for (String target : targets) {
+      if (targetLoad.getOrDefault(target, 0) >= targetQueueSize) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Starts the waiting tasks whose targets are neither executing nor claimed by an earlier waiting task
+   */
+  private void dispatch() {
+    List<Task> started = new ArrayList<>();
+    synchronized (this) {
+      Set<String> claimed = new HashSet<>();
+      Iterator<Task> iterator = waiting.iterator();
+      while (iterator.hasNext()) {
+        Task task = iterator.next();
+        if (Collections.disjoint(task.targets, busy) && Collections.disjoint(task.targets, claimed)) {
+          iterator.remove();
+          busy.addAll(task.targets);
+          executing++;
+          started.add(task);
+        } else {
+          claimed.addAll(task.targets);
+        }
+      }
+    }
+    for (Task task : started) {
+      run(() -> attempt(task), Duration.ZERO);
+    }
+  }
+
+  private void attempt(Task task) {
+    task.attempt++;
+    boolean succeeded;
+    try {
+      succeeded = task.task.execute(task.action);
+    } catch (Exception e) {
+      LOG.log(Level.WARNING, "Action failed: " + task.action, e);
+      succeeded = false;
+    }
+
+    if (!succeeded && task.attempt < attempts) {
+      Duration backoff = initialRetry.multipliedBy(1L << Math.min(task.attempt - 1, 30));
+      backoff = backoff.compareTo(maxRetry) > 0 ? maxRetry : backoff;
+      LOG.log(Level.INFO, "Retrying action in {0}: {1}", new Object[]{backoff, task.action});
+      run(() -> attempt(task), backoff);
+      return;
+    }
+
+    synchronized (this) {
+      busy.removeAll(task.targets);
+      task.targets.forEach(target -> targetLoad.computeIfPresent(target, (t, load) -> load == 1 ? null : load - 1));
+      executing--;
+    }
+    try {
+      task.callback.accept(task.action.withStatus(succeeded ? Status.SUCCEEDED : Status.FAILED, clock.get()));
+    } catch (RuntimeException e) {
+      LOG.log(Level.WARNING, "Action completion callback failed: " + task.action, e);
+    }
+    dispatch();
+  }
+
+  private void run(Runnable runnable, Duration delay) {
+    try {
+      executor.schedule(runnable, delay.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // the service is closed
+    }
+  }
+
+  /**
+   * @return number of queued and executing actions
+   */
+  public synchronized int pending() {
+    return waiting.size() + executing;
+  }
+
+  /**
+   * Stops the execution threads. Actions which have not completed yet are abandoned without a completion status.
+   */
+  @Override
+  public void close() {
+    int abandoned;
+    synchronized (this) {
+      closed = true;
+      abandoned = waiting.size() + executing;
+      waiting.clear();
+      targetLoad.clear();
+    }
+    executor.shutdownNow();
+    if (abandoned > 0) {
+      LOG.warning(String.format("Abandoned %d actions which have not completed", abandoned));
+    }
+  }
+
+  private static class Task {
+    private final Action action;
+    private final ActionTask task;
+    private final Consumer<Action> callback;
+    private final Collection<String> targets;
+    private int attempt = 0;
+
+    private Task(Action action, ActionTask task, Consumer<Action> callback) {
+      this.action = action;
+      this.task = task;
+      this.callback = callback;
+      // an action without assignments is serialized with the other actions of its type
+      this.targets = action.assignments().isEmpty()
+          ? Collections.singleton(action.type())
+          : new HashSet<>(action.assignments());
+    }
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.resolvers;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Action;
+import com.microsoft.dhalion.core.ActionTable;
+import com.microsoft.dhalion.core.Diagnosis;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@link ActionPlanner} turns the actions proposed by a resolver into the actions it executes. Proposed actions
+ * are pending until the oldest pending action of their type is older than the coalesce window. Then all pending
+ * targets of the type, i.e. the assignments, are planned together, each target once, and split into batches of at
+ * most the configured size. A target is dropped while it is cooling down, i.e. if an action of the same type was
+ * executed on it within the cooldown duration.
+ * <p>
+ * The planner keeps an index of the last execution per action type and target. It is seeded from the action history
+ * and updated with the {@link #executed(Collection) executed} actions, so the cooldown check does not scan the
+ * action history. A submitted action, i.e. one executing asynchronously, starts the cooldown of its targets, so they
+ * are not acted on again while it executes. The cooldown is dropped if the action fails.
+ */
+public class ActionPlanner {
+  public static final String COALESCE_CONFIG_KEY = ".coalesce.ms";
+  public static final String COOLDOWN_CONFIG_KEY = ".cooldown.ms";
+  public static final String BATCH_SIZE_CONFIG_KEY = ".batch.size";
+
+  private final Duration coalesceWindow;
+  private final Duration cooldown;
+  private final int batchSize;
+
+  // pending targets per action type, in proposal order
+  private final Map<String, Pending> pending = new LinkedHashMap<>();
+  // last execution per action type and target
+  private final Map<String, Map<String, Execution>> lastExecutions = new HashMap<>();
+  // submission time of the submitted actions whose completion status is not known yet, by action id
+  private final Map<Integer, Instant> submitted = new HashMap<>();
+
+  /**
+   * @param coalesceWindow duration proposed actions are pending, zero to plan them right away
+   * @param cooldown       minimum duration between two actions of the same type on the same target
+   * @param batchSize      maximum number of targets of a planned action, zero for no limit
+   */
+  public ActionPlanner(Duration coalesceWindow, Duration cooldown, int batchSize) {
+    if (coalesceWindow.isNegative() || cooldown.isNegative() || batchSize < 0) {
+      throw new IllegalArgumentException("Coalesce window, cooldown and batch size must not be negative");
+    }
+    this.coalesceWindow = coalesceWindow;
+    this.cooldown = cooldown;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Reads the <code>prefix.coalesce.ms</code>, <code>prefix.cooldown.ms</code> and <code>prefix.batch.size</code>
+   * configs, by default planning actions right away, without cooldown and batch size limit.
+   */
+  public ActionPlanner(PolicyConfig policyConfig, String prefix) {
+    this(Duration.ofMillis(((Number) policyConfig.getConfig(prefix + COALESCE_CONFIG_KEY, 0)).longValue()),
+         Duration.ofMillis(((Number) policyConfig.getConfig(prefix + COOLDOWN_CONFIG_KEY, 0)).longValue()),
+         ((Number) policyConfig.getConfig(prefix + BATCH_SIZE_CONFIG_KEY, 0)).intValue());
+  }
+
+  /**
+   * Adds the proposed actions to the pending ones. Targets which are cooling down are dropped.
+   *
+   * @return number of dropped targets
+   */
+  public int propose(Collection<Action> actions, Instant now) {
+    int dropped = 0;
+    for (Action action : actions) {
+      Pending targets = pending.get(action.type());
+      for (String assignment : action.assignments()) {
+        if (isCoolingDown(action.type(), assignment, now)) {
+          dropped++;
+          continue;
+        }
+        if (targets == null) {
+          targets = new Pending(now);
+          pending.put(action.type(), targets);
+        }
+        targets.assignments.add(assignment);
+      }
+      if (targets != null) {
+        targets.diagnosis.addAll(action.diagnosis());
+      }
+    }
+    return dropped;
+  }
+
+  /**
+   * Removes the pending actions whose coalesce window has passed.
+   *
+   * @return actions to be executed, at most one per type and batch of targets
+   */
+  public List<Action> plan(Instant now) {
+    List<Action> planned = new ArrayList<>();
+    Iterator<Map.Entry<String, Pending>> iterator = pending.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Pending> entry = iterator.next();
+      String type = entry.getKey();
+      Pending targets = entry.getValue();
+      if (targets.since.plus(coalesceWindow).isAfter(now)) {
+        continue;
+      }
+      iterator.remove();
+
+      List<String> batch = new ArrayList<>();
+      for (String assignment : targets.assignments) {
+        // a target may have been acted on since it was proposed
+        if (isCoolingDown(type, assignment, now)) {
+          continue;
+        }
+        batch.add(assignment);
+        if (batch.size() == batchSize) {
+          planned.add(new Action(type, now, batch, targets.diagnosis));
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        planned.add(new Action(type, now, batch, targets.diagnosis));
+      }
+    }
+    return planned;
+  }
+
+  /**
+   * Indexes the actions of the history which may still cool down their targets, e.g. actions executed before a
+   * restart. The history may hold several rows per action, e.g. submitted and then failed, of which the latest
+   * decides.
+   */
+  public void seed(ActionTable history, Instant now) {
+    if (cooldown.isZero() || history.size() == 0) {
+      return;
+    }
+    Map<Integer, Action> latest = new LinkedHashMap<>();
+    for (Action action : history.between(now.minus(cooldown), now).get()) {
+      // the later row of an action with the same time is the latest
+      latest.merge(action.id(), action, (a, b) -> b.instant().isBefore(a.instant()) ? a : b);
+    }
+    executed(latest.values());
+  }
+
+  /**
+   * Records the executed actions. Submitted and succeeded actions start the cooldown of their targets. A failed
+   * action drops the cooldown started when it was submitted, and rejected actions are ignored.
+   */
+  public void executed(Collection<Action> actions) {
+    if (cooldown.isZero()) {
+      return;
+    }
+    for (Action action : actions) {
+      if (action.status() == Action.Status.REJECTED) {
+        continue;
+      }
+      if (action.status() == Action.Status.SUBMITTED) {
+        submitted.put(action.id(), action.instant());
+      } else {
+        submitted.remove(action.id());
+      }
+      Map<String, Execution> targets = lastExecutions.computeIfAbsent(action.type(), k -> new HashMap<>());
+      for (String assignment : action.assignments()) {
+        if (action.status() == Action.Status.FAILED) {
+          // a later action on the target keeps its cooldown
+          Execution last = targets.get(assignment);
+          if (last != null && last.actionId == action.id()) {
+            targets.remove(assignment);
+          }
+        } else {
+          targets.merge(assignment, new Execution(action), (a, b) -> a.instant.isAfter(b.instant) ? a : b);
+        }
+      }
+    }
+  }
+
+  /**
+   * Records the completion status of the submitted actions, which asynchronous executions add to the action table
+   *
+   * @param actions the action table of the policy
+   */
+  public void completed(ActionTable actions) {
+    if (submitted.isEmpty()) {
+      return;
+    }
+    List<Action> completed = new ArrayList<>();
+    for (Action action : actions.status(Arrays.asList(Action.Status.SUCCEEDED, Action.Status.FAILED)).get()) {
+      if (submitted.containsKey(action.id())) {
+        completed.add(action);
+      }
+    }
+    executed(completed);
+  }
+
+  /**
+   * Drops the index entries whose cooldown has passed.
+   */
+  public void expire(Instant now) {
+    Instant expiration = now.minus(cooldown);
+    // the completion of an action abandoned e.g. by a restart never arrives
+    submitted.values().removeIf(instant -> !instant.isAfter(expiration));
+    Iterator<Map<String, Execution>> iterator = lastExecutions.values().iterator();
+    while (iterator.hasNext()) {
+      Map<String, Execution> targets = iterator.next();
+      targets.values().removeIf(execution -> !execution.instant.isAfter(expiration));
+      if (targets.isEmpty()) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * @return true if an action of the type was executed on the target within the cooldown duration
+   */
+  public boolean isCoolingDown(String type, String assignment, Instant now) {
+    if (cooldown.isZero()) {
+      return false;
+    }
+    Map<String, Execution> targets = lastExecutions.get(type);
+    Execution last = targets == null ? null : targets.get(assignment);
+    return last != null && last.instant.plus(cooldown).isAfter(now);
+  }
+
+  /**
+   * @return number of pending targets
+   */
+  int pending() {
+    return pending.values().stream().mapToInt(targets -> targets.assignments.size()).sum();
+  }
+
+  /**
+   * The action which started the cooldown of a target
+   */
+  private static class Execution {
+    private final int actionId;
+    private final Instant instant;
+
+    private Execution(Action action) {
+      this.actionId = action.id();
+      this.instant = action.instant();
+    }
+  }
+
+  private static class Pending {
+    private final Instant since;
+    private final Set<String> assignments = new LinkedHashSet<>();
+    private final Set<Diagnosis> diagnosis = new LinkedHashSet<>();
+
+    private Pending(Instant since) {
+      this.since = since;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.resolvers;
+
+import com.microsoft.dhalion.api.IResolver;
+import com.microsoft.dhalion.core.Action;
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.logging.Logger;
+
+/**
+ * A {@link PlannedResolver} separates proposing actions from executing them, so that overlapping diagnoses do not
+ * turn into storms of similar actions on the managed system. The proposed actions pass through an
+ * {@link ActionPlanner}, which coalesces them per action type, drops the targets which are cooling down and batches
+ * the rest. Each planned batch is executed with one {@link #execute(Action)} call. An action executed
+ * asynchronously, e.g. by an {@link ActionExecutionService}, is returned with the {@link Action.Status#SUBMITTED}
+ * status. Its completion status is read from the action table in the next cycles, and a failure ends the cooldown of
+ * its targets, so they can be acted on again.
+ */
+public abstract class PlannedResolver implements IResolver {
+  private static final Logger LOG = Logger.getLogger(PlannedResolver.class.getName());
+
+  private final ActionPlanner planner;
+  protected ExecutionContext context;
+  private boolean seeded = false;
+
+  protected PlannedResolver(ActionPlanner planner) {
+    this.planner = planner;
+  }
+
+  @Override
+  public void initialize(ExecutionContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public Collection<Action> resolve(Collection<Diagnosis> diagnosis) {
+    Instant now = context.checkpoint();
+    if (!seeded) {
+      planner.seed(context.actions(), now);
+      seeded = true;
+    }
+    planner.completed(context.actions());
+    planner.expire(now);
+
+    int dropped = planner.propose(propose(diagnosis), now);
+    if (dropped > 0) {
+      LOG.fine(String.format("Dropped %d targets cooling down in %s", dropped, getClass().getSimpleName()));
+    }
+
+    Collection<Action> executed = new ArrayList<>();
+    for (Action batch : planner.plan(now)) {
+      Action action = execute(batch);
+      if (action != null) {
+        executed.add(action);
+      }
+    }
+    planner.executed(executed);
+    return executed;
+  }
+
+  /**
+   * @return actions this resolver would take for the diagnoses, without executing them
+   */
+  protected abstract Collection<Action> propose(Collection<Diagnosis> diagnosis);
+
+  /**
+   * Executes a planned action on all its targets.
+   *
+   * @return the executed action, or null if it was not executed
+   */
+  protected abstract Action execute(Action action);
+
+  ActionPlanner planner() {
+    return planner;
+  }
+}
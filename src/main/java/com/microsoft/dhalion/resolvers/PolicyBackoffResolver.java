@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.resolvers;
+
+import com.microsoft.dhalion.api.IResolver;
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Action;
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+import static com.microsoft.dhalion.diagnosers.ExpensivePolicyDiagnoser.DIAGNOSIS_EXPENSIVE_POLICY;
+
+/**
+ * The {@link PolicyBackoffResolver} sheds load of the health manager by deferring the execution of the expensive
+ * policies identified by the {@link com.microsoft.dhalion.diagnosers.ExpensivePolicyDiagnoser}. The first back off
+ * of a policy lasts the configured initial duration, one minute by default. The back off doubles each time the policy
+ * is diagnosed again within twice its previous back off, up to the configured maximum, ten minutes by default.
+ */
+public class PolicyBackoffResolver implements IResolver {
+  private static final Logger LOG = Logger.getLogger(PolicyBackoffResolver.class.getName());
+  public static final String ACTION_BACKOFF = PolicyBackoffResolver.class.getSimpleName();
+  public static final String CONFIG_KEY_PREFIX = PolicyBackoffResolver.class.getSimpleName();
+  public static final String INITIAL_BACKOFF_CONFIG_KEY = ".initial.ms";
+  public static final String MAX_BACKOFF_CONFIG_KEY = ".max.ms";
+
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  // the last back off of each policy and the time it was issued
+  private final Map<String, Duration> backoffs = new HashMap<>();
+  private final Map<String, Instant> backoffInstants = new HashMap<>();
+  private ExecutionContext context;
+
+  @Inject
+  public PolicyBackoffResolver(PolicyConfig policyConfig) {
+    initialBackoff = Duration.ofMillis(
+        ((Number) policyConfig.getConfig(CONFIG_KEY_PREFIX + INITIAL_BACKOFF_CONFIG_KEY, 60000)).longValue());
+    maxBackoff = Duration.ofMillis(
+        ((Number) policyConfig.getConfig(CONFIG_KEY_PREFIX + MAX_BACKOFF_CONFIG_KEY, 600000)).longValue());
+  }
+
+  @Override
+  public void initialize(ExecutionContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public Collection<Action> resolve(Collection<Diagnosis> diagnosis) {
+    Collection<Diagnosis> expensive = new ArrayList<>();
+    Set<String> policies = new TreeSet<>();
+    for (Diagnosis d : diagnosis) {
+      if (DIAGNOSIS_EXPENSIVE_POLICY.equals(d.type())) {
+        expensive.add(d);
+        policies.addAll(d.assignments());
+      }
+    }
+
+    Instant now = context.checkpoint();
+    Collection<String> deferred = new ArrayList<>();
+    for (String policy : policies) {
+      Duration backoff = nextBackoff(policy, now);
+      if (context.backoff(policy, backoff)) {
+        backoffs.put(policy, backoff);
+        backoffInstants.put(policy, now);
+        deferred.add(policy);
+      } else {
+        LOG.warning("Cannot back off unknown policy " + policy);
+      }
+    }
+
+    if (deferred.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Collections.singletonList(new Action(ACTION_BACKOFF, now, deferred, expensive));
+  }
+
+  private Duration nextBackoff(String policy, Instant now) {
+    Duration previous = backoffs.get(policy);
+    if (previous == null || backoffInstants.get(policy).plus(previous.multipliedBy(2)).isBefore(now)) {
+      return initialBackoff;
+    }
+    Duration backoff = previous.multipliedBy(2);
+    return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+  }
+}
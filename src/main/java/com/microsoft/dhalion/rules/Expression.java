@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.rules;
+
+/**
+ * A node of a compiled rule. Numeric nodes evaluate to a value, conditions evaluate to 1 if true and 0 if false. A
+ * value is NaN if a metric has no measurements, and a comparison with NaN is false.
+ */
+abstract class Expression {
+  abstract double evaluate(Row row);
+
+  /**
+   * The state of the instance a rule is evaluated for
+   */
+  interface Row {
+    /**
+     * @return the value of the aggregate with the given index
+     */
+    double aggregate(int index);
+
+    /**
+     * @return true if the instance is assigned to a symptom of the type with the given index
+     */
+    boolean symptom(int index);
+  }
+
+  static final class Constant extends Expression {
+    final double value;
+
+    Constant(double value) {
+      this.value = value;
+    }
+
+    @Override
+    double evaluate(Row row) {
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(value);
+    }
+  }
+
+  static final class Aggregate extends Expression {
+    final int index;
+    private final String text;
+
+    Aggregate(int index, String text) {
+      this.index = index;
+      this.text = text;
+    }
+
+    @Override
+    double evaluate(Row row) {
+      return row.aggregate(index);
+    }
+
+    @Override
+    public String toString() {
+      return text;
+    }
+  }
+
+  static final class SymptomReference extends Expression {
+    final int index;
+    private final String type;
+
+    SymptomReference(int index, String type) {
+      this.index = index;
+      this.type = type;
+    }
+
+    @Override
+    double evaluate(Row row) {
+      return row.symptom(index) ? 1 : 0;
+    }
+
+    @Override
+    public String toString() {
+      return "symptom(" + type + ")";
+    }
+  }
+
+  static final class Negation extends Expression {
+    final Expression operand;
+    final boolean logical;
+
+    Negation(Expression operand, boolean logical) {
+      this.operand = operand;
+      this.logical = logical;
+    }
+
+    @Override
+    double evaluate(Row row) {
+      double value = operand.evaluate(row);
+      return logical ? (value == 0 ? 1 : 0) : -value;
+    }
+
+    @Override
+    public String toString() {
+      return (logical ? "not " : "-") + operand;
+    }
+  }
+
+  static final class Binary extends Expression {
+    final Operator operator;
+    final Expression left;
+    final Expression right;
+
+    Binary(Operator operator, Expression left, Expression right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    double evaluate(Row row) {
+      double l = left.evaluate(row);
+      switch (operator) {
+        case AND:
+          return l != 0 && right.evaluate(row) != 0 ? 1 : 0;
+        case OR:
+          return l != 0 || right.evaluate(row) != 0 ? 1 : 0;
+        default:
+          return operator.apply(l, right.evaluate(row));
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "(" + left + " " + operator.symbol + " " + right + ")";
+    }
+  }
+
+  enum Operator {
+    AND("and"), OR("or"),
+    LT("<"), LE("<="), GT(">"), GE(">="), EQ("=="), NE("!="),
+    ADD("+"), SUBTRACT("-"), MULTIPLY("*"), DIVIDE("/");
+
+    final String symbol;
+
+    Operator(String symbol) {
+      this.symbol = symbol;
+    }
+
+    boolean isComparison() {
+      return compareTo(LT) >= 0 && compareTo(NE) <= 0;
+    }
+
+    double apply(double l, double r) {
+      switch (this) {
+        case LT:
+          return l < r ? 1 : 0;
+        case LE:
+          return l <= r ? 1 : 0;
+        case GT:
+          return l > r ? 1 : 0;
+        case GE:
+          return l >= r ? 1 : 0;
+        case EQ:
+          return l == r ? 1 : 0;
+        case NE:
+          return !Double.isNaN(l) && !Double.isNaN(r) && l != r ? 1 : 0;
+        case ADD:
+          return l + r;
+        case SUBTRACT:
+          return l - r;
+        case MULTIPLY:
+          return l * r;
+        case DIVIDE:
+          return l / r;
+        default:
+          throw new IllegalStateException("Not an arithmetic operator: " + this);
+      }
+    }
+  }
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.rules;
+
+import com.microsoft.dhalion.rules.Expression.Operator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates a {@link RuleEvaluator} class for compiled rules, so the JIT compiles the rules like hand written code
+ * instead of interpreting the expression trees for each instance. The generated <code>evaluate</code> method
+ * evaluates the rules one after the other, conditions are compiled to branches and values are kept on the operand
+ * stack.
+ * <p>
+ * Only the rule conditions are generated. The pass over the measurements computing the aggregates is shared by all
+ * plans, and {@link RulePlan} calls the evaluator once per instance through the interface. Every plan has its own
+ * class, so with several plans in use that call site is megamorphic and the JIT does not inline the generated
+ * method into the loop; the gain is the compiled conditions, not the removal of the call.
+ * <p>
+ * The class file has version 49, which the JVM verifies by type inference, so the writer does not need to compute
+ * stack map frames. Each class is defined by its own class loader, so it can be unloaded with its evaluators. The most
+ * recently used classes are cached by their byte code, so rules with the same structure and constants share their
+ * class, and the classes of replaced rules, e.g. after a threshold change, are released once evicted.
+ */
+final class RuleCompiler {
+  private static final String EVALUATOR = RuleEvaluator.class.getName().replace('.', '/');
+  private static final String CLASS_NAME = RuleCompiler.class.getPackage().getName().replace('.', '/')
+      + "/GeneratedRuleEvaluator";
+  private static final int MAX_CACHED_CLASSES = 64;
+  private static final Map<String, Class<?>> CLASSES = new LinkedHashMap<String, Class<?>>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Class<?>> eldest) {
+      return size() > MAX_CACHED_CLASSES;
+    }
+  };
+
+  private static final int ALOAD_0 = 0x2a;
+  private static final int ALOAD_1 = 0x2b;
+  private static final int ALOAD_2 = 0x2c;
+  private static final int ALOAD_3 = 0x2d;
+  private static final int ICONST_0 = 0x03;
+  private static final int ICONST_1 = 0x04;
+  private static final int BIPUSH = 0x10;
+  private static final int SIPUSH = 0x11;
+  private static final int LDC_W = 0x13;
+  private static final int LDC2_W = 0x14;
+  private static final int DALOAD = 0x31;
+  private static final int BALOAD = 0x33;
+  private static final int BASTORE = 0x54;
+  private static final int DADD = 0x63;
+  private static final int DSUB = 0x67;
+  private static final int DMUL = 0x6b;
+  private static final int DDIV = 0x6f;
+  private static final int DNEG = 0x77;
+  private static final int DCMPL = 0x97;
+  private static final int DCMPG = 0x98;
+  private static final int IFEQ = 0x99;
+  private static final int IFNE = 0x9a;
+  private static final int IFLT = 0x9b;
+  private static final int IFGE = 0x9c;
+  private static final int IFGT = 0x9d;
+  private static final int IFLE = 0x9e;
+  private static final int GOTO = 0xa7;
+  private static final int RETURN = 0xb1;
+  private static final int INVOKESPECIAL = 0xb7;
+  private static final int MAX_CODE_LENGTH = 65535;
+  private static final int MAX_CONSTANTS = 65535;
+
+  private final ConstantPool constants = new ConstantPool();
+  private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+  private final List<int[]> jumps = new ArrayList<>();
+  private final List<Integer> labels = new ArrayList<>();
+  private int stack;
+  private int maxStack;
+
+  private RuleCompiler() {
+  }
+
+  /**
+   * @return an evaluator of the rules, or null if the rules are too large for a class
+   */
+  static RuleEvaluator generate(List<Expression> rules) {
+    RuleCompiler compiler = new RuleCompiler();
+    byte[] bytes = compiler.compile(rules);
+    if (bytes == null) {
+      return null;
+    }
+
+    Class<?> generated;
+    synchronized (CLASSES) {
+      generated = CLASSES.computeIfAbsent(new String(bytes, StandardCharsets.ISO_8859_1),
+                                          key -> new Loader().define(bytes));
+    }
+    try {
+      return (RuleEvaluator) generated.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Could not instantiate generated rule evaluator", e);
+    }
+  }
+
+  private byte[] compile(List<Expression> rules) {
+    for (int rule = 0; rule < rules.size(); rule++) {
+      int skip = newLabel();
+      jumpIf(rules.get(rule), false, skip);
+      emit(ALOAD_3);
+      push(1);
+      pushInt(rule);
+      push(1);
+      emit(ICONST_1);
+      push(1);
+      emit(BASTORE);
+      pop(3);
+      mark(skip);
+    }
+    emit(RETURN);
+
+    byte[] body = code.toByteArray();
+    if (body.length > MAX_CODE_LENGTH) {
+      return null;
+    }
+    for (int[] jump : jumps) {
+      int offset = labels.get(jump[2]) - jump[0];
+      if (offset != (short) offset) {
+        return null;
+      }
+      body[jump[1]] = (byte) (offset >> 8);
+      body[jump[1] + 1] = (byte) offset;
+    }
+    return classFile(body);
+  }
+
+  /**
+   * Emits code which jumps to the label if the condition has the given value, and continues otherwise.
+   */
+  private void jumpIf(Expression condition, boolean value, int label) {
+    if (condition instanceof Expression.SymptomReference) {
+      emit(ALOAD_2);
+      push(1);
+      pushInt(((Expression.SymptomReference) condition).index);
+      push(1);
+      emit(BALOAD);
+      pop(1);
+      jump(value ? IFNE : IFEQ, label);
+      pop(1);
+    } else if (condition instanceof Expression.Negation) {
+      jumpIf(((Expression.Negation) condition).operand, !value, label);
+    } else {
+      Expression.Binary binary = (Expression.Binary) condition;
+      Operator operator = binary.operator;
+      if (operator == Operator.AND || operator == Operator.OR) {
+        // a and b jumps if false when a or b is false, a or b jumps if true when a or b is true
+        if ((operator == Operator.AND) != value) {
+          jumpIf(binary.left, value, label);
+          jumpIf(binary.right, value, label);
+        } else {
+          int skip = newLabel();
+          jumpIf(binary.left, !value, skip);
+          jumpIf(binary.right, value, label);
+          mark(skip);
+        }
+      } else if (operator == Operator.NE) {
+        // false if an operand is NaN, like the other comparisons
+        Expression lower = new Expression.Binary(Operator.LT, binary.left, binary.right);
+        Expression higher = new Expression.Binary(Operator.GT, binary.left, binary.right);
+        jumpIf(new Expression.Binary(Operator.OR, lower, higher), value, label);
+      } else {
+        compare(binary, value, label);
+      }
+    }
+  }
+
+  /**
+   * Emits a comparison. The comparison instruction is chosen such that a NaN operand makes the comparison false.
+   */
+  private void compare(Expression.Binary comparison, boolean value, int label) {
+    value(comparison.left);
+    value(comparison.right);
+    int trueJump;
+    int falseJump;
+    boolean nanIsGreater;
+    switch (comparison.operator) {
+      case LT:
+        nanIsGreater = true;
+        trueJump = IFLT;
+        falseJump = IFGE;
+        break;
+      case LE:
+        nanIsGreater = true;
+        trueJump = IFLE;
+        falseJump = IFGT;
+        break;
+      case GT:
+        nanIsGreater = false;
+        trueJump = IFGT;
+        falseJump = IFLE;
+        break;
+      case GE:
+        nanIsGreater = false;
+        trueJump = IFGE;
+        falseJump = IFLT;
+        break;
+      case EQ:
+        nanIsGreater = false;
+        trueJump = IFEQ;
+        falseJump = IFNE;
+        break;
+      default:
+        throw new IllegalStateException("Not a comparison: " + comparison.operator);
+    }
+    emit(nanIsGreater ? DCMPG : DCMPL);
+    pop(3);
+    jump(value ? trueJump : falseJump, label);
+    pop(1);
+  }
+
+  /**
+   * Emits code which pushes the value of the expression as a double.
+   */
+  private void value(Expression expression) {
+    if (expression instanceof Expression.Constant) {
+      emit(LDC2_W);
+      emitShort(constants.doubleValue(((Expression.Constant) expression).value));
+      push(2);
+    } else if (expression instanceof Expression.Aggregate) {
+      emit(ALOAD_1);
+      push(1);
+      pushInt(((Expression.Aggregate) expression).index);
+      push(1);
+      emit(DALOAD);
+    } else if (expression instanceof Expression.Negation) {
+      value(((Expression.Negation) expression).operand);
+      emit(DNEG);
+    } else {
+      Expression.Binary binary = (Expression.Binary) expression;
+      value(binary.left);
+      value(binary.right);
+      switch (binary.operator) {
+        case ADD:
+          emit(DADD);
+          break;
+        case SUBTRACT:
+          emit(DSUB);
+          break;
+        case MULTIPLY:
+          emit(DMUL);
+          break;
+        case DIVIDE:
+          emit(DDIV);
+          break;
+        default:
+          throw new IllegalStateException("Not an arithmetic operator: " + binary.operator);
+      }
+      pop(2);
+    }
+  }
+
+  private void pushInt(int value) {
+    if (value >= -1 && value <= 5) {
+      emit(ICONST_0 + value);
+    } else if (value == (byte) value) {
+      emit(BIPUSH);
+      emit(value);
+    } else if (value == (short) value) {
+      emit(SIPUSH);
+      emitShort(value);
+    } else {
+      emit(LDC_W);
+      emitShort(constants.intValue(value));
+    }
+  }
+
+  private int newLabel() {
+    labels.add(-1);
+    return labels.size() - 1;
+  }
+
+  private void mark(int label) {
+    labels.set(label, code.size());
+  }
+
+  private void jump(int opcode, int label) {
+    jumps.add(new int[]{code.size(), code.size() + 1, label});
+    emit(opcode);
+    emitShort(0);
+  }
+
+  private void emit(int value) {
+    code.write(value);
+  }
+
+  private void emitShort(int value) {
+    code.write(value >> 8);
+    code.write(value);
+  }
+
+  private void push(int slots) {
+    stack += slots;
+    maxStack = Math.max(maxStack, stack);
+  }
+
+  private void pop(int slots) {
+    stack -= slots;
+  }
+
+  private byte[] classFile(byte[] body) {
+    int thisClass = constants.classRef(CLASS_NAME);
+    int superClass = constants.classRef("java/lang/Object");
+    int evaluator = constants.classRef(EVALUATOR);
+    int objectInit = constants.methodRef("java/lang/Object", "<init>", "()V");
+    int init = constants.utf8("<init>");
+    int initDescriptor = constants.utf8("()V");
+    int evaluate = constants.utf8("evaluate");
+    int evaluateDescriptor = constants.utf8("([D[Z[Z)V");
+    int codeAttribute = constants.utf8("Code");
+    if (constants.next > MAX_CONSTANTS) {
+      return null;
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      out.writeShort(49);
+      constants.write(out);
+      // public final super
+      out.writeShort(0x0031);
+      out.writeShort(thisClass);
+      out.writeShort(superClass);
+      out.writeShort(1);
+      out.writeShort(evaluator);
+      out.writeShort(0);
+
+      out.writeShort(2);
+      byte[] initCode = {ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit, (byte) RETURN};
+      writeMethod(out, init, initDescriptor, codeAttribute, 1, 1, initCode);
+      writeMethod(out, evaluate, evaluateDescriptor, codeAttribute, maxStack, 4, body);
+      out.writeShort(0);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void writeMethod(DataOutputStream out,
+                                  int name,
+                                  int descriptor,
+                                  int codeAttribute,
+                                  int maxStack,
+                                  int maxLocals,
+                                  byte[] code) throws IOException {
+    // public
+    out.writeShort(0x0001);
+    out.writeShort(name);
+    out.writeShort(descriptor);
+    out.writeShort(1);
+    out.writeShort(codeAttribute);
+    out.writeInt(12 + code.length);
+    out.writeShort(maxStack);
+    out.writeShort(maxLocals);
+    out.writeInt(code.length);
+    out.write(code);
+    out.writeShort(0);
+    out.writeShort(0);
+  }
+
+  /**
+   * The constants of the class file, deduplicated
+   */
+  private static final class ConstantPool {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private int next = 1;
+
+    int utf8(String value) {
+      return add("U" + value, 1, 1, out -> out.writeUTF(value));
+    }
+
+    int classRef(String name) {
+      int utf8 = utf8(name);
+      return add("C" + name, 1, 7, out -> out.writeShort(utf8));
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+      int ownerIndex = classRef(owner);
+      int nameIndex = utf8(name);
+      int descriptorIndex = utf8(descriptor);
+      int nameAndType = add("N" + name + descriptor, 1, 12, out -> {
+        out.writeShort(nameIndex);
+        out.writeShort(descriptorIndex);
+      });
+      return add("M" + owner + "." + name + descriptor, 1, 10, out -> {
+        out.writeShort(ownerIndex);
+        out.writeShort(nameAndType);
+      });
+    }
+
+    int intValue(int value) {
+      return add("I" + value, 1, 3, out -> out.writeInt(value));
+    }
+
+    int doubleValue(double value) {
+      // doubles take two entries
+      return add("D" + Double.doubleToRawLongBits(value), 2, 6,
+                 out -> out.writeLong(Double.doubleToRawLongBits(value)));
+    }
+
+    private int add(String key, int size, int tag, Entry entry) {
+      Integer index = indexes.get(key);
+      if (index == null) {
+        index = next;
+        next += size;
+        try {
+          out.writeByte(tag);
+          entry.write(out);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+        indexes.put(key, index);
+      }
+      return index;
+    }
+
+    void write(DataOutputStream to) throws IOException {
+      to.writeShort(next);
+      to.write(bytes.toByteArray());
+    }
+
+    private interface Entry {
+      void write(DataOutputStream out) throws IOException;
+    }
+  }
+
+  private static final class Loader extends ClassLoader {
+    private Loader() {
+      super(RuleEvaluator.class.getClassLoader());
+    }
+
+    private Class<?> define(byte[] bytes) {
+      return defineClass(CLASS_NAME.replace('/', '.'), bytes, 0, bytes.length);
+    }
+  }
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.rules;
+
+/**
+ * Evaluates the rules of a {@link RulePlan} for one instance. The plan generates an implementation for its rules at
+ * compile time, see {@link RulePlan#compile(java.util.Map)}.
+ */
+public interface RuleEvaluator {
+  /**
+   * @param aggregates values of the plan's aggregates for the instance, NaN if undefined
+   * @param symptoms   for each symptom type the plan refers to, whether the instance is assigned to a symptom of it
+   * @param matches    set to true for each matching rule, in the order of the rules
+   */
+  void evaluate(double[] aggregates, boolean[] symptoms, boolean[] matches);
+}
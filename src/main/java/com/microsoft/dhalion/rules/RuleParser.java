@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.rules;
+
+import com.microsoft.dhalion.rules.Expression.Operator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A recursive descent parser of the rule language, see {@link RulePlan}. Aggregates and symptom references are
+ * interned in the plan being built, so rules sharing them share their evaluation.
+ */
+class RuleParser {
+  private final String text;
+  private final RulePlan.Builder plan;
+  private final List<Token> tokens = new ArrayList<>();
+  private int position;
+
+  private RuleParser(String text, RulePlan.Builder plan) {
+    this.text = text;
+    this.plan = plan;
+    tokenize();
+  }
+
+  /**
+   * @return the condition of the rule
+   * @throws IllegalArgumentException if the rule is invalid
+   */
+  static Expression parse(String text, RulePlan.Builder plan) {
+    RuleParser parser = new RuleParser(text, plan);
+    Typed rule = parser.or();
+    if (parser.peek().kind != Kind.END) {
+      throw parser.error("Unexpected '" + parser.peek().text + "'");
+    }
+    parser.expectCondition(rule, "A rule");
+    return rule.expression;
+  }
+
+  private Typed or() {
+    Typed left = and();
+    while (keyword("or")) {
+      left = logical(Operator.OR, left, and());
+    }
+    return left;
+  }
+
+  private Typed and() {
+    Typed left = not();
+    while (keyword("and")) {
+      left = logical(Operator.AND, left, not());
+    }
+    return left;
+  }
+
+  private Typed not() {
+    if (keyword("not")) {
+      Typed operand = not();
+      expectCondition(operand, "The operand of not");
+      return new Typed(new Expression.Negation(operand.expression, true), true);
+    }
+    return comparison();
+  }
+
+  private Typed comparison() {
+    Typed left = additive();
+    Token token = peek();
+    for (Operator operator : Operator.values()) {
+      if (operator.isComparison() && token.kind == Kind.SYMBOL && token.text.equals(operator.symbol)) {
+        position++;
+        Typed right = additive();
+        expectNumber(left, "The operands of " + operator.symbol);
+        expectNumber(right, "The operands of " + operator.symbol);
+        return new Typed(new Expression.Binary(operator, left.expression, right.expression), true);
+      }
+    }
+    return left;
+  }
+
+  private Typed additive() {
+    Typed left = multiplicative();
+    while (true) {
+      if (symbol("+")) {
+        left = arithmetic(Operator.ADD, left, multiplicative());
+      } else if (symbol("-")) {
+        left = arithmetic(Operator.SUBTRACT, left, multiplicative());
+      } else {
+        return left;
+      }
+    }
+  }
+
+  private Typed multiplicative() {
+    Typed left = unary();
+    while (true) {
+      if (symbol("*")) {
+        left = arithmetic(Operator.MULTIPLY, left, unary());
+      } else if (symbol("/")) {
+        left = arithmetic(Operator.DIVIDE, left, unary());
+      } else {
+        return left;
+      }
+    }
+  }
+
+  private Typed unary() {
+    if (symbol("-")) {
+      Typed operand = unary();
+      expectNumber(operand, "The operand of -");
+      return new Typed(new Expression.Negation(operand.expression, false), false);
+    }
+    return primary();
+  }
+
+  private Typed primary() {
+    Token token = next();
+    switch (token.kind) {
+      case NUMBER:
+        return new Typed(new Expression.Constant(Double.parseDouble(token.text)), false);
+      case SYMBOL:
+        if (token.text.equals("(")) {
+          Typed inner = or();
+          expect(")");
+          return inner;
+        }
+        break;
+      case NAME:
+        if (peek().text.equals("(")) {
+          return call(token);
+        }
+        return aggregate(RulePlan.Function.LAST, token.text, null);
+      case QUOTED:
+        return aggregate(RulePlan.Function.LAST, token.text, null);
+      default:
+        break;
+    }
+    throw error(token.kind == Kind.END ? "Unexpected end of rule" : "Unexpected '" + token.text + "'");
+  }
+
+  private Typed call(Token name) {
+    String function = name.text.toLowerCase(Locale.ROOT);
+    expect("(");
+    Token argument = next();
+    if (argument.kind != Kind.NAME && argument.kind != Kind.QUOTED) {
+      throw error("Expected a name instead of '" + argument.text + "'");
+    }
+    expect(")");
+
+    if (function.equals("symptom")) {
+      int index = plan.symptom(argument.text);
+      return new Typed(new Expression.SymptomReference(index, argument.text), true);
+    }
+
+    RulePlan.Function aggregate;
+    try {
+      aggregate = RulePlan.Function.valueOf(function.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw error("Unknown function '" + name.text + "'");
+    }
+    Duration window = keyword("over") ? duration() : null;
+    return aggregate(aggregate, argument.text, window);
+  }
+
+  private Typed aggregate(RulePlan.Function function, String metric, Duration window) {
+    int index = plan.aggregate(function, metric, window);
+    String text = function.name().toLowerCase(Locale.ROOT) + "(" + metric + ")"
+        + (window == null ? "" : " over " + window);
+    return new Typed(new Expression.Aggregate(index, text), false);
+  }
+
+  private Duration duration() {
+    Token amount = next();
+    Token unit = next();
+    if (amount.kind != Kind.NUMBER || unit.kind != Kind.NAME) {
+      throw error("Expected a duration, e.g. 5m, instead of '" + amount.text + "'");
+    }
+    double value = Double.parseDouble(amount.text);
+    long millis;
+    switch (unit.text) {
+      case "ms":
+        millis = (long) value;
+        break;
+      case "s":
+        millis = (long) (value * 1000);
+        break;
+      case "m":
+        millis = (long) (value * 60_000);
+        break;
+      case "h":
+        millis = (long) (value * 3_600_000);
+        break;
+      case "d":
+        millis = (long) (value * 86_400_000);
+        break;
+      default:
+        throw error("Unknown duration unit '" + unit.text + "', expected ms, s, m, h or d");
+    }
+    if (millis <= 0) {
+      throw error("The duration must be positive");
+    }
+    return Duration.ofMillis(millis);
+  }
+
+  private Typed logical(Operator operator, Typed left, Typed right) {
+    expectCondition(left, "The operands of " + operator.symbol);
+    expectCondition(right, "The operands of " + operator.symbol);
+    return new Typed(new Expression.Binary(operator, left.expression, right.expression), true);
+  }
+
+  private Typed arithmetic(Operator operator, Typed left, Typed right) {
+    expectNumber(left, "The operands of " + operator.symbol);
+    expectNumber(right, "The operands of " + operator.symbol);
+    return new Typed(new Expression.Binary(operator, left.expression, right.expression), false);
+  }
+
+  private void expectCondition(Typed typed, String what) {
+    if (!typed.condition) {
+      throw error(what + " must be a condition, not " + typed.expression);
+    }
+  }
+
+  private void expectNumber(Typed typed, String what) {
+    if (typed.condition) {
+      throw error(what + " must be numbers, not " + typed.expression);
+    }
+  }
+
+  private boolean keyword(String keyword) {
+    Token token = peek();
+    if (token.kind == Kind.NAME && token.text.equalsIgnoreCase(keyword)) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+
+  private boolean symbol(String symbol) {
+    Token token = peek();
+    if (token.kind == Kind.SYMBOL && token.text.equals(symbol)) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+
+  private void expect(String symbol) {
+    if (!symbol(symbol)) {
+      throw error("Expected '" + symbol + "'");
+    }
+  }
+
+  private Token peek() {
+    return tokens.get(position);
+  }
+
+  private Token next() {
+    Token token = tokens.get(position);
+    if (token.kind != Kind.END) {
+      position++;
+    }
+    return token;
+  }
+
+  private IllegalArgumentException error(String message) {
+    int offset = tokens.get(Math.max(0, Math.min(position, tokens.size() - 1))).offset;
+    return new IllegalArgumentException(String.format("%s at position %d of rule '%s'", message, offset, text));
+  }
+
+  private void tokenize() {
+    int i = 0;
+    while (i < text.length()) {
+      char c = text.charAt(i);
+      int start = i;
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (Character.isDigit(c) || (c == '.' && i + 1 < text.length() && Character.isDigit(text.charAt(i + 1)))) {
+        while (i < text.length() && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) {
+          i++;
+        }
+        tokens.add(new Token(Kind.NUMBER, text.substring(start, i), start));
+      } else if (Character.isLetter(c) || c == '_') {
+        while (i < text.length()
+            && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_' || text.charAt(i) == '.')) {
+          i++;
+        }
+        tokens.add(new Token(Kind.NAME, text.substring(start, i), start));
+      } else if (c == '\'' || c == '"' || c == '`') {
+        int end = text.indexOf(c, i + 1);
+        if (end < 0) {
+          throw new IllegalArgumentException(
+              String.format("Unterminated name at position %d of rule '%s'", start, text));
+        }
+        tokens.add(new Token(Kind.QUOTED, text.substring(i + 1, end), start));
+        i = end + 1;
+      } else {
+        String two = text.substring(i, Math.min(text.length(), i + 2));
+        String symbol = two.equals("<=") || two.equals(">=") || two.equals("==") || two.equals("!=")
+            ? two : String.valueOf(c);
+        if ("()<>+-*/".indexOf(c) < 0 && symbol.length() == 1) {
+          throw new IllegalArgumentException(
+              String.format("Unexpected character '%c' at position %d of rule '%s'", c, start, text));
+        }
+        tokens.add(new Token(Kind.SYMBOL, symbol, start));
+        i += symbol.length();
+      }
+    }
+    tokens.add(new Token(Kind.END, "", text.length()));
+  }
+
+  private enum Kind {
+    NUMBER, NAME, QUOTED, SYMBOL, END
+  }
+
+  private static final class Token {
+    private final Kind kind;
+    private final String text;
+    private final int offset;
+
+    private Token(Kind kind, String text, int offset) {
+      this.kind = kind;
+      this.text = text;
+      this.offset = offset;
+    }
+  }
+
+  private static final class Typed {
+    private final Expression expression;
+    private final boolean condition;
+
+    private Typed(Expression expression, boolean condition) {
+      this.expression = expression;
+      this.condition = condition;
+    }
+  }
+}
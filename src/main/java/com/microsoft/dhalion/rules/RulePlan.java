@@ -0,0 +1,493 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.rules;
+
+import com.microsoft.dhalion.core.MeasurementsTable;
+import com.microsoft.dhalion.core.Symptom;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link RulePlan} evaluates a set of named rules for every instance in a single pass over the measurements and
+ * the symptoms. A rule is a condition over the measurements and the symptoms of an instance, e.g.
+ * <pre>
+ *   avg(Cpu) over 5m &gt; 90 and Mem &gt; 900 and not symptom(SlowInstance)
+ * </pre>
+ * <ul>
+ * <li>a metric name, e.g. <code>Cpu</code>, is the latest value of the metric</li>
+ * <li><code>avg</code>, <code>min</code>, <code>max</code>, <code>sum</code>, <code>count</code> and
+ * <code>last</code> aggregate the values of a metric, optionally only those of the window ending at the checkpoint,
+ * e.g. <code>over 30s</code>, <code>5m</code>, <code>1h</code> or <code>1d</code></li>
+ * <li>a metric name and an aggregate without a window only use the measurements since the previous checkpoint, see
+ * {@link #evaluate(MeasurementsTable, Collection, Instant, Instant)}, so an instance which stopped reporting does
+ * not match a rule with a stale value</li>
+ * <li><code>symptom(Type)</code> is true if the instance is assigned to a symptom of the type</li>
+ * <li>values are combined with <code>+ - * /</code>, compared with <code>&lt; &lt;= &gt; &gt;= == !=</code>, and
+ * conditions with <code>and</code>, <code>or</code> and <code>not</code>. Constants are in the units of the metrics</li>
+ * <li>names with other characters are quoted, e.g. <code>'Cpu-Util'</code></li>
+ * </ul>
+ * A value is undefined if an instance has no measurements of a metric, and comparisons with it are false.
+ * <p>
+ * Rules are compiled once. Identical aggregates of different rules are computed once, and all aggregates of a metric
+ * and window share their accumulators, so the cost of an evaluation is one pass over the measurements plus the
+ * evaluation of the compiled rules per instance, independent of how many rules use the same data. The conditions
+ * are evaluated by a generated class, called once per instance, see {@link RuleEvaluator}, or interpreted if they are
+ * too large for a class. The pass over the measurements is not generated.
+ */
+public final class RulePlan {
+  private static final Logger LOG = Logger.getLogger(RulePlan.class.getName());
+
+  private final List<String> names;
+  private final List<Expression> rules;
+  private final List<Series> series;
+  private final int[] aggregateSeries;
+  private final Function[] aggregateFunctions;
+  private final List<String> symptomTypes;
+  private final Map<String, Set<String>> ruleSymptomTypes;
+  private final RuleEvaluator evaluator;
+
+  enum Function {
+    AVG, MIN, MAX, SUM, COUNT, LAST
+  }
+
+  private RulePlan(Builder builder, boolean generate) {
+    this.names = new ArrayList<>(builder.names);
+    this.rules = new ArrayList<>(builder.rules);
+    this.series = new ArrayList<>(builder.series.keySet());
+    this.aggregateSeries = builder.aggregateSeries.stream().mapToInt(Integer::intValue).toArray();
+    this.aggregateFunctions = builder.aggregateFunctions.toArray(new Function[0]);
+    this.symptomTypes = new ArrayList<>(builder.symptomTypes.keySet());
+    this.ruleSymptomTypes = new HashMap<>(builder.ruleSymptomTypes);
+    this.evaluator = generate ? generate(rules) : new Interpreter(rules);
+  }
+
+  private static RuleEvaluator generate(List<Expression> rules) {
+    try {
+      RuleEvaluator generated = RuleCompiler.generate(rules);
+      if (generated != null) {
+        return generated;
+      }
+      LOG.warning(String.format("%d rules are too large to be compiled to byte code, interpreting them",
+                                rules.size()));
+    } catch (RuntimeException | LinkageError e) {
+      LOG.log(Level.WARNING, "Could not compile rules to byte code, interpreting them", e);
+    }
+    return new Interpreter(rules);
+  }
+
+  /**
+   * Compiles the rules.
+   *
+   * @param rules rule names and their conditions, in the order of the results
+   * @throws IllegalArgumentException if a rule is invalid
+   */
+  public static RulePlan compile(Map<String, String> rules) {
+    return compile(rules, true);
+  }
+
+  /**
+   * @param generate true to generate byte code evaluating the rules, false to interpret them
+   */
+  static RulePlan compile(Map<String, String> rules, boolean generate) {
+    Builder builder = new Builder();
+    rules.forEach(builder::add);
+    return new RulePlan(builder, generate);
+  }
+
+  /**
+   * @return the names of the rules
+   */
+  public List<String> names() {
+    return Collections.unmodifiableList(names);
+  }
+
+  RuleEvaluator evaluator() {
+    return evaluator;
+  }
+
+  /**
+   * @return true if a rule refers to measurements
+   */
+  public boolean usesMeasurements() {
+    return !series.isEmpty();
+  }
+
+  /**
+   * @return true if a rule refers to symptoms
+   */
+  public boolean usesSymptoms() {
+    return !symptomTypes.isEmpty();
+  }
+
+  /**
+   * @return the symptom types the rule refers to
+   */
+  public Set<String> symptomTypes(String rule) {
+    return Collections.unmodifiableSet(ruleSymptomTypes.getOrDefault(rule, Collections.emptySet()));
+  }
+
+  /**
+   * Evaluates all rules for every instance having measurements or symptoms, aggregating all measurements of the
+   * metrics without a window.
+   *
+   * @param measurements measurements of the instances, may be null
+   * @param symptoms     symptoms of the instances, may be null
+   * @param checkpoint   end of the aggregation windows
+   * @return the names of the matching rules in the order of the rules, and the instances matching them in the order
+   * of their first measurement or symptom. Rules without matching instances are omitted.
+   */
+  public Map<String, List<String>> evaluate(MeasurementsTable measurements,
+                                            Collection<Symptom> symptoms,
+                                            Instant checkpoint) {
+    return evaluate(measurements, symptoms, checkpoint, null);
+  }
+
+  /**
+   * Evaluates all rules for every instance having measurements or symptoms.
+   *
+   * @param measurements measurements of the instances, may be null
+   * @param symptoms     symptoms of the instances, may be null
+   * @param checkpoint   end of the aggregation windows
+   * @param since        time of the oldest measurement of the metrics without a window, typically the previous
+   *                     checkpoint, null for all measurements
+   * @return the names of the matching rules in the order of the rules, and the instances matching them in the order
+   * of their first measurement or symptom. Rules without matching instances are omitted.
+   */
+  public Map<String, List<String>> evaluate(MeasurementsTable measurements,
+                                            Collection<Symptom> symptoms,
+                                            Instant checkpoint,
+                                            Instant since) {
+    Groups groups = new Groups(series.size());
+    if (measurements != null && usesMeasurements()) {
+      accumulate(measurements.columns(), checkpoint, since, groups);
+    }
+    if (symptoms != null && usesSymptoms()) {
+      Map<String, Integer> types = new HashMap<>();
+      for (int i = 0; i < symptomTypes.size(); i++) {
+        types.put(symptomTypes.get(i), i);
+      }
+      for (Symptom symptom : symptoms) {
+        Integer type = types.get(symptom.type());
+        if (type != null) {
+          symptom.assignments().forEach(instance -> groups.symptoms(instance)[type] = true);
+        }
+      }
+    }
+
+    List<List<String>> matches = new ArrayList<>();
+    rules.forEach(rule -> matches.add(new ArrayList<>()));
+    double[] aggregates = new double[aggregateFunctions.length];
+    boolean[] noSymptoms = new boolean[symptomTypes.size()];
+    boolean[] ruleMatches = new boolean[rules.size()];
+    for (int group = 0; group < groups.size; group++) {
+      for (int aggregate = 0; aggregate < aggregates.length; aggregate++) {
+        aggregates[aggregate] = groups.value(group, aggregate);
+      }
+      boolean[] symptomFlags = groups.symptoms.get(group);
+      evaluator.evaluate(aggregates, symptomFlags == null ? noSymptoms : symptomFlags, ruleMatches);
+      for (int rule = 0; rule < ruleMatches.length; rule++) {
+        if (ruleMatches[rule]) {
+          matches.get(rule).add(groups.instances.get(group));
+          ruleMatches[rule] = false;
+        }
+      }
+    }
+
+    Map<String, List<String>> results = new LinkedHashMap<>();
+    for (int rule = 0; rule < rules.size(); rule++) {
+      if (!matches.get(rule).isEmpty()) {
+        results.put(names.get(rule), matches.get(rule));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * The single pass over the measurements, updating the accumulators of every series of the row's metric
+   */
+  private void accumulate(MeasurementsTable.Columns columns, Instant checkpoint, Instant since, Groups groups) {
+    Map<Integer, int[]> seriesByType = new HashMap<>();
+    for (int i = 0; i < series.size(); i++) {
+      int code = columns.typeCode(series.get(i).metric);
+      if (code >= 0) {
+        int[] indexes = seriesByType.getOrDefault(code, new int[0]);
+        indexes = Arrays.copyOf(indexes, indexes.length + 1);
+        indexes[indexes.length - 1] = i;
+        seriesByType.put(code, indexes);
+      }
+    }
+    if (seriesByType.isEmpty()) {
+      return;
+    }
+
+    long end = checkpoint == null ? Long.MAX_VALUE : checkpoint.toEpochMilli();
+    // exclusive start of each series
+    long[] starts = new long[series.size()];
+    for (int i = 0; i < starts.length; i++) {
+      Duration window = series.get(i).window;
+      if (window == null) {
+        starts[i] = since == null ? Long.MIN_VALUE : since.toEpochMilli() - 1;
+      } else {
+        starts[i] = checkpoint == null ? Long.MIN_VALUE : end - window.toMillis();
+      }
+    }
+
+    int[] types = columns.types();
+    int[] components = columns.components();
+    int[] instances = columns.instances();
+    long[] timestamps = columns.timestamps();
+    double[] values = columns.values();
+    for (int row = 0; row < columns.size(); row++) {
+      int[] rowSeries = seriesByType.get(types[row]);
+      if (rowSeries == null) {
+        continue;
+      }
+      // an instance with old measurements only has no group
+      int group = -1;
+      for (int s : rowSeries) {
+        if (timestamps[row] > starts[s] && (series.get(s).window == null || timestamps[row] <= end)) {
+          if (group < 0) {
+            group = groups.group(components[row], instances[row], columns);
+          }
+          groups.accumulate(group, s, timestamps[row], values[row]);
+        }
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("RulePlan{");
+    for (int i = 0; i < names.size(); i++) {
+      result.append(i == 0 ? "" : ", ").append(names.get(i)).append(": ").append(rules.get(i));
+    }
+    return result.append('}').toString();
+  }
+
+  /**
+   * The values of a metric, optionally limited to a window ending at the checkpoint
+   */
+  private static final class Series {
+    private final String metric;
+    private final Duration window;
+
+    private Series(String metric, Duration window) {
+      this.metric = metric;
+      this.window = window;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Series other = (Series) o;
+      return metric.equals(other.metric) && Objects.equals(window, other.window);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(metric, window);
+    }
+  }
+
+  /**
+   * The accumulators and symptoms of the evaluated instances, measurements of an instance name in different
+   * components are separate groups. Each group has the sum, count, min, max, latest time and latest value of each
+   * series.
+   */
+  private final class Groups {
+    private static final int SUM = 0;
+    private static final int COUNT = 1;
+    private static final int MIN = 2;
+    private static final int MAX = 3;
+    private static final int LATEST_TIME = 4;
+    private static final int LATEST_VALUE = 5;
+    private static final int FIELDS = 6;
+
+    private final int stride;
+    private final Map<Long, Integer> byCodes = new HashMap<>();
+    private final Map<String, List<Integer>> byInstance = new HashMap<>();
+    private final List<String> instances = new ArrayList<>();
+    private final List<boolean[]> symptoms = new ArrayList<>();
+    private double[] accumulators;
+    private int size;
+
+    private Groups(int series) {
+      this.stride = series * FIELDS;
+      this.accumulators = new double[16 * Math.max(1, stride)];
+    }
+
+    private int group(int component, int instance, MeasurementsTable.Columns columns) {
+      long key = ((long) component << 32) | (instance & 0xFFFFFFFFL);
+      Integer group = byCodes.get(key);
+      if (group == null) {
+        group = add(columns.instance(instance));
+        byCodes.put(key, group);
+      }
+      return group;
+    }
+
+    private int add(String instance) {
+      int group = size++;
+      if ((group + 1) * stride > accumulators.length) {
+        accumulators = Arrays.copyOf(accumulators, Math.max(accumulators.length * 2, (group + 1) * stride));
+      }
+      for (int s = 0; s < stride; s += FIELDS) {
+        int offset = group * stride + s;
+        accumulators[offset + MIN] = Double.POSITIVE_INFINITY;
+        accumulators[offset + MAX] = Double.NEGATIVE_INFINITY;
+        accumulators[offset + LATEST_TIME] = Double.NEGATIVE_INFINITY;
+        accumulators[offset + LATEST_VALUE] = Double.NaN;
+      }
+      instances.add(instance);
+      symptoms.add(null);
+      byInstance.computeIfAbsent(instance, i -> new ArrayList<>(1)).add(group);
+      return group;
+    }
+
+    private void accumulate(int group, int series, long time, double value) {
+      int offset = group * stride + series * FIELDS;
+      accumulators[offset + SUM] += value;
+      accumulators[offset + COUNT]++;
+      accumulators[offset + MIN] = Math.min(accumulators[offset + MIN], value);
+      accumulators[offset + MAX] = Math.max(accumulators[offset + MAX], value);
+      // the later row of measurements with the same time is the latest
+      if (time >= accumulators[offset + LATEST_TIME]) {
+        accumulators[offset + LATEST_TIME] = time;
+        accumulators[offset + LATEST_VALUE] = value;
+      }
+    }
+
+    /**
+     * @return the symptom flags shared by all groups of the instance name, creating a group if there is none
+     */
+    private boolean[] symptoms(String instance) {
+      List<Integer> groups = byInstance.get(instance);
+      if (groups == null) {
+        add(instance);
+        groups = byInstance.get(instance);
+      }
+      boolean[] flags = symptoms.get(groups.get(0));
+      if (flags == null) {
+        flags = new boolean[symptomTypes.size()];
+        for (int group : groups) {
+          symptoms.set(group, flags);
+        }
+      }
+      return flags;
+    }
+
+    private double value(int group, int aggregate) {
+      int offset = group * stride + aggregateSeries[aggregate] * FIELDS;
+      double count = accumulators[offset + COUNT];
+      switch (aggregateFunctions[aggregate]) {
+        case COUNT:
+          return count;
+        case SUM:
+          return count == 0 ? Double.NaN : accumulators[offset + SUM];
+        case AVG:
+          return count == 0 ? Double.NaN : accumulators[offset + SUM] / count;
+        case MIN:
+          return count == 0 ? Double.NaN : accumulators[offset + MIN];
+        case MAX:
+          return count == 0 ? Double.NaN : accumulators[offset + MAX];
+        default:
+          return accumulators[offset + LATEST_VALUE];
+      }
+    }
+  }
+
+  /**
+   * Evaluates the rules by walking their expression trees
+   */
+  private static final class Interpreter implements RuleEvaluator, Expression.Row {
+    private final List<Expression> rules;
+    private double[] aggregates;
+    private boolean[] symptoms;
+
+    private Interpreter(List<Expression> rules) {
+      this.rules = rules;
+    }
+
+    @Override
+    public void evaluate(double[] aggregates, boolean[] symptoms, boolean[] matches) {
+      this.aggregates = aggregates;
+      this.symptoms = symptoms;
+      for (int rule = 0; rule < matches.length; rule++) {
+        matches[rule] = rules.get(rule).evaluate(this) != 0;
+      }
+    }
+
+    @Override
+    public double aggregate(int index) {
+      return aggregates[index];
+    }
+
+    @Override
+    public boolean symptom(int index) {
+      return symptoms[index];
+    }
+  }
+
+  /**
+   * Collects the compiled rules and interns their aggregates, series and symptom types
+   */
+  static final class Builder {
+    private final List<String> names = new ArrayList<>();
+    private final List<Expression> rules = new ArrayList<>();
+    private final Map<Series, Integer> series = new LinkedHashMap<>();
+    private final Map<String, Integer> aggregates = new HashMap<>();
+    private final List<Integer> aggregateSeries = new ArrayList<>();
+    private final List<Function> aggregateFunctions = new ArrayList<>();
+    private final Map<String, Integer> symptomTypes = new LinkedHashMap<>();
+    private final Map<String, Set<String>> ruleSymptomTypes = new HashMap<>();
+    private Set<String> referencedTypes;
+
+    void add(String name, String rule) {
+      if (names.contains(name)) {
+        throw new IllegalArgumentException("Duplicate rule " + name);
+      }
+      referencedTypes = new LinkedHashSet<>();
+      rules.add(RuleParser.parse(rule, this));
+      names.add(name);
+      ruleSymptomTypes.put(name, referencedTypes);
+    }
+
+    int aggregate(Function function, String metric, Duration window) {
+      int seriesIndex = series.computeIfAbsent(new Series(metric, window), s -> series.size());
+      return aggregates.computeIfAbsent(function + "/" + seriesIndex, key -> {
+        aggregateSeries.add(seriesIndex);
+        aggregateFunctions.add(function);
+        return aggregateSeries.size() - 1;
+      });
+    }
+
+    int symptom(String type) {
+      referencedTypes.add(type);
+      return symptomTypes.computeIfAbsent(type, t -> symptomTypes.size());
+    }
+  }
+}
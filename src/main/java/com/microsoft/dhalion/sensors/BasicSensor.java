@@ -95,7 +95,9 @@ public class BasicSensor implements ISensor {
     Instant startTime = context.checkpoint();
     Duration duration = getDuration();
     Collection<String> metrics = getMetricTypes();
-    LOG.fine(String.format("Trying to fetch %s @ %s for %s duration", getMetricTypes(), startTime, duration));
+    if (LOG.isLoggable(Level.FINE)) {
+      LOG.log(Level.FINE, "Trying to fetch {0} @ {1} for {2} duration", new Object[]{metrics, startTime, duration});
+    }
 
     Collection<Measurement> measurements
         = metricsProvider.getMeasurements(startTime, duration, metrics, getComponents());
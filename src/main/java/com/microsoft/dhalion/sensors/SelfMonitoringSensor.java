@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.sensors;
+
+import com.microsoft.dhalion.api.ISensor;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.metrics.MetricsRegistry;
+import com.microsoft.dhalion.metrics.Timer;
+import com.microsoft.dhalion.policy.PoliciesExecutor;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Self Monitoring Sensor provides {@link Measurement}s of Dhalion itself. It reads the
+ * {@link PoliciesExecutor#CYCLE_TIMER cycle} and {@link PoliciesExecutor#LAG_TIMER lag} timers which the
+ * {@link PoliciesExecutor} maintains in its {@link MetricsRegistry} for each of its policies, and the JVM's
+ * management beans. All measurements belong to the {@link #COMPONENT} component:
+ * <ul>
+ * <li>{@link #METRIC_CYCLE_TIME}: mean duration of the cycles of a policy, in ms</li>
+ * <li>{@link #METRIC_SCHEDULE_LAG}: mean time a policy waited after it was due, in ms</li>
+ * <li>{@link #METRIC_HEAP_UTILIZATION}: used heap, in percent of the maximum heap size</li>
+ * <li>{@link #METRIC_GC_TIME}: time spent in garbage collection, in ms</li>
+ * </ul>
+ * The instance of a policy's measurement is the policy's name, the JVM measurements belong to the {@link #INSTANCE_JVM}
+ * instance. Except for the heap utilization, the values cover the period since the previous invocation of the sensor.
+ * Policies which did not run in this period have no measurements.
+ */
+public class SelfMonitoringSensor implements ISensor {
+  public static final String COMPONENT = "Dhalion";
+  public static final String INSTANCE_JVM = "jvm";
+  public static final String METRIC_CYCLE_TIME = "CycleTime";
+  public static final String METRIC_SCHEDULE_LAG = "ScheduleLag";
+  public static final String METRIC_HEAP_UTILIZATION = "HeapUtilization";
+  public static final String METRIC_GC_TIME = "GcTime";
+
+  private ExecutionContext context;
+  // count and total nanos of each timer at the previous invocation
+  private final Map<String, long[]> previous = new HashMap<>();
+  private long previousGcMillis = -1;
+
+  @Override
+  public void initialize(ExecutionContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public Collection<String> getMetricTypes() {
+    return Arrays.asList(METRIC_CYCLE_TIME, METRIC_SCHEDULE_LAG, METRIC_HEAP_UTILIZATION, METRIC_GC_TIME);
+  }
+
+  @Override
+  public Collection<Measurement> fetch() {
+    Collection<Measurement> measurements = new ArrayList<>();
+    Instant instant = context.checkpoint();
+
+    MetricsRegistry metrics = context.metrics();
+    if (metrics != null) {
+      Map<String, Timer> timers = metrics.timers();
+      for (String policy : context.policyNames()) {
+        addMean(measurements, instant, policy, METRIC_CYCLE_TIME,
+                timers.get(MetricsRegistry.name(policy, PoliciesExecutor.CYCLE_TIMER)));
+        addMean(measurements, instant, policy, METRIC_SCHEDULE_LAG,
+                timers.get(MetricsRegistry.name(policy, PoliciesExecutor.LAG_TIMER)));
+      }
+    }
+
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    long maxHeap = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+    measurements.add(new Measurement(COMPONENT, INSTANCE_JVM, METRIC_HEAP_UTILIZATION, instant,
+                                     100.0 * heap.getUsed() / maxHeap));
+
+    long gcMillis = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcMillis += Math.max(0, collector.getCollectionTime());
+    }
+    if (previousGcMillis >= 0) {
+      measurements.add(new Measurement(COMPONENT, INSTANCE_JVM, METRIC_GC_TIME, instant, gcMillis - previousGcMillis));
+    }
+    previousGcMillis = gcMillis;
+
+    return measurements;
+  }
+
+  /**
+   * Adds the mean of the durations recorded by the timer of the policy since the previous invocation
+   *
+   * @param timer the timer, null if the policy has none
+   */
+  private void addMean(Collection<Measurement> measurements,
+                       Instant instant,
+                       String policy,
+                       String metric,
+                       Timer timer) {
+    if (timer == null) {
+      return;
+    }
+    long count = timer.count();
+    long total = timer.totalNanos();
+    long[] last = previous.put(MetricsRegistry.name(policy, metric), new long[]{count, total});
+    long countDelta = last == null ? count : count - last[0];
+    long totalDelta = last == null ? total : total - last[1];
+    if (countDelta <= 0) {
+      return;
+    }
+
+    double mean = (double) totalDelta / countDelta / TimeUnit.MILLISECONDS.toNanos(1);
+    measurements.add(new Measurement(COMPONENT, policy, metric, instant, mean));
+  }
+}
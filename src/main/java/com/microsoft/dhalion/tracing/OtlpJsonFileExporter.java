@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.tracing;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes traces to a local file in the OTLP JSON format, one <code>ExportTraceServiceRequest</code> per line and
+ * trace, as written by the OpenTelemetry file exporters. The files can be loaded into trace viewers supporting OTLP.
+ * <p>
+ * The file rolls over once it exceeds the configured size: <code>traces.jsonl</code> is renamed to
+ * <code>traces.jsonl.1</code>, the previous <code>traces.jsonl.1</code> to <code>traces.jsonl.2</code> and so on. The
+ * oldest file beyond the configured number of files is deleted.
+ */
+public class OtlpJsonFileExporter implements SpanExporter {
+  private static final String SERVICE_NAME = "dhalion";
+  private static final String SCOPE_NAME = "com.microsoft.dhalion";
+  private static final int SPAN_KIND_INTERNAL = 1;
+  private static final int STATUS_CODE_ERROR = 2;
+
+  private final Path file;
+  private final long maxFileBytes;
+  private final int maxFiles;
+  private OutputStream out;
+  private long fileBytes;
+
+  /**
+   * @param file         file to which the traces are written
+   * @param maxFileBytes size after which the file rolls over
+   * @param maxFiles     number of files kept, including the current file
+   */
+  public OtlpJsonFileExporter(Path file, long maxFileBytes, int maxFiles) {
+    if (maxFileBytes < 1 || maxFiles < 1) {
+      throw new IllegalArgumentException("The file size and number of files must be positive");
+    }
+    this.file = file;
+    this.maxFileBytes = maxFileBytes;
+    this.maxFiles = maxFiles;
+  }
+
+  @Override
+  public synchronized void export(List<Span> trace) {
+    byte[] line = toJson(trace).append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    try {
+      if (out == null) {
+        open();
+      }
+      out.write(line);
+      out.flush();
+      fileBytes += line.length;
+      if (fileBytes >= maxFileBytes) {
+        roll();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void open() throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                                                         StandardOpenOption.APPEND));
+    fileBytes = Files.size(file);
+  }
+
+  private void roll() throws IOException {
+    out.close();
+    out = null;
+    Files.deleteIfExists(rolled(maxFiles - 1));
+    for (int i = maxFiles - 2; i >= 1; i--) {
+      if (Files.exists(rolled(i))) {
+        Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    if (maxFiles > 1) {
+      Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+    } else {
+      Files.delete(file);
+    }
+  }
+
+  private Path rolled(int index) {
+    return file.resolveSibling(file.getFileName() + "." + index);
+  }
+
+  static StringBuilder toJson(List<Span> trace) {
+    StringBuilder json = new StringBuilder(256 * trace.size());
+    json.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[");
+    appendAttribute(json, "service.name", SERVICE_NAME);
+    json.append("]},\"scopeSpans\":[{\"scope\":{\"name\":\"").append(SCOPE_NAME).append("\"},\"spans\":[");
+    for (int i = 0; i < trace.size(); i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      appendSpan(json, trace.get(i));
+    }
+    return json.append("]}]}]}");
+  }
+
+  private static void appendSpan(StringBuilder json, Span span) {
+    json.append("{\"traceId\":\"").append(span.traceId())
+        .append("\",\"spanId\":\"").append(span.spanId()).append('"');
+    if (span.parentSpanId() != null) {
+      json.append(",\"parentSpanId\":\"").append(span.parentSpanId()).append('"');
+    }
+    json.append(",\"name\":");
+    appendString(json, span.name());
+    json.append(",\"kind\":").append(SPAN_KIND_INTERNAL)
+        .append(",\"startTimeUnixNano\":\"").append(span.startEpochNanos())
+        .append("\",\"endTimeUnixNano\":\"").append(span.endEpochNanos())
+        .append("\",\"attributes\":[");
+    boolean first = true;
+    for (Map.Entry<String, Object> attribute : span.attributes().entrySet()) {
+      if (!first) {
+        json.append(',');
+      }
+      appendAttribute(json, attribute.getKey(), attribute.getValue());
+      first = false;
+    }
+    json.append(']');
+    if (span.error() != null) {
+      json.append(",\"status\":{\"code\":").append(STATUS_CODE_ERROR).append(",\"message\":");
+      appendString(json, span.error());
+      json.append('}');
+    }
+    json.append('}');
+  }
+
+  private static void appendAttribute(StringBuilder json, String key, Object value) {
+    json.append("{\"key\":");
+    appendString(json, key);
+    json.append(",\"value\":{");
+    if (value instanceof Boolean) {
+      json.append("\"boolValue\":").append(value);
+    } else if (value instanceof Integer || value instanceof Long) {
+      json.append("\"intValue\":\"").append(value).append('"');
+    } else if (value instanceof Number && Double.isFinite(((Number) value).doubleValue())) {
+      json.append("\"doubleValue\":").append(((Number) value).doubleValue());
+    } else {
+      json.append("\"stringValue\":");
+      appendString(json, String.valueOf(value));
+    }
+    json.append("}}");
+  }
+
+  private static void appendString(StringBuilder json, String value) {
+    json.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          json.append("\\\"");
+          break;
+        case '\\':
+          json.append("\\\\");
+          break;
+        case '\n':
+          json.append("\\n");
+          break;
+        case '\r':
+          json.append("\\r");
+          break;
+        case '\t':
+          json.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+      }
+    }
+    json.append('"');
+  }
+
+  @Override
+  public synchronized void close() {
+    if (out != null) {
+      try {
+        out.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        out = null;
+      }
+    }
+  }
+}
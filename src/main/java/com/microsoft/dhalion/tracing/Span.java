@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link Span} is a timed operation of a traced policy cycle, e.g. the invocation of a sensor. The spans of a cycle
+ * form a tree rooted at the cycle's span. Spans are created by a {@link Tracer}, and are not thread safe.
+ */
+public class Span {
+  private final String traceId;
+  private final String spanId;
+  private final String parentSpanId;
+  private final String name;
+  private final long startEpochNanos;
+  private long endEpochNanos;
+  private final Map<String, Object> attributes = new LinkedHashMap<>();
+  private String error;
+  // the spans of the trace, shared by all the spans of a trace and exported when the root span ends
+  final List<Span> trace;
+
+  Span(String traceId, String spanId, String parentSpanId, String name, long startEpochNanos, List<Span> trace) {
+    this.traceId = traceId;
+    this.spanId = spanId;
+    this.parentSpanId = parentSpanId;
+    this.name = name;
+    this.startEpochNanos = startEpochNanos;
+    this.trace = trace;
+  }
+
+  /**
+   * @param value a string, number or boolean
+   */
+  public Span setAttribute(String key, Object value) {
+    attributes.put(key, value);
+    return this;
+  }
+
+  /**
+   * Marks the span as failed
+   */
+  public Span setError(Throwable e) {
+    error = e.toString();
+    return this;
+  }
+
+  public String traceId() {
+    return traceId;
+  }
+
+  public String spanId() {
+    return spanId;
+  }
+
+  /**
+   * @return id of the parent span, null for the root span of a trace
+   */
+  public String parentSpanId() {
+    return parentSpanId;
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public long startEpochNanos() {
+    return startEpochNanos;
+  }
+
+  /**
+   * @return the end time, 0 if the span has not ended
+   */
+  public long endEpochNanos() {
+    return endEpochNanos;
+  }
+
+  void end(long epochNanos) {
+    endEpochNanos = epochNanos;
+  }
+
+  public Map<String, Object> attributes() {
+    return attributes;
+  }
+
+  /**
+   * @return description of the failure, null if the span did not fail
+   */
+  public String error() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    return "Span{" +
+        "name='" + name + '\'' +
+        ", traceId='" + traceId + '\'' +
+        ", spanId='" + spanId + '\'' +
+        ", parentSpanId='" + parentSpanId + '\'' +
+        ", durationNanos=" + (endEpochNanos - startEpochNanos) +
+        '}';
+  }
+}
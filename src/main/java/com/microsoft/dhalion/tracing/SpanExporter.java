@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.tracing;
+
+import java.util.List;
+
+/**
+ * A {@link SpanExporter} receives the spans of each completed trace from a {@link Tracer}.
+ */
+public interface SpanExporter extends AutoCloseable {
+  /**
+   * @param trace the spans of a trace, the root span last
+   */
+  void export(List<Span> trace);
+
+  @Override
+  default void close() {
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * A {@link Tracer} creates the spans of sampled policy cycles and hands each completed trace to a
+ * {@link SpanExporter}. A cycle is sampled with the configured probability, otherwise {@link #startTrace(String)}
+ * returns null. All the methods accept a null span, so untraced cycles only cost a null check per operation.
+ * <p>
+ * Span times are wall clock times with nanosecond resolution, also in offline mode, as they measure the execution of
+ * the health manager itself.
+ */
+public class Tracer implements AutoCloseable {
+  private static final Logger LOG = Logger.getLogger(Tracer.class.getName());
+
+  /**
+   * A tracer which never samples
+   */
+  public static final Tracer NOOP = new Tracer(null, 0);
+
+  private final SpanExporter exporter;
+  private final double sampleRate;
+  private final long epochNanosBase = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+  private final long nanoTimeBase = System.nanoTime();
+
+  /**
+   * @param exporter   receives the completed traces
+   * @param sampleRate probability with which a cycle is traced, between 0 and 1
+   */
+  public Tracer(SpanExporter exporter, double sampleRate) {
+    if (sampleRate < 0 || sampleRate > 1) {
+      throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+    }
+    this.exporter = exporter;
+    this.sampleRate = exporter == null ? 0 : sampleRate;
+  }
+
+  /**
+   * Starts the root span of a new trace, if the trace is sampled
+   *
+   * @return the root span, null if the trace is not sampled
+   */
+  public Span startTrace(String name) {
+    if (sampleRate == 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+      return null;
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String traceId = hex(random.nextLong()) + hex(random.nextLong());
+    return new Span(traceId, hex(random.nextLong()), null, name, now(), new ArrayList<>());
+  }
+
+  /**
+   * Starts a child span
+   *
+   * @return the new span, null if the parent is null, i.e. the trace is not sampled
+   */
+  public Span startSpan(Span parent, String name) {
+    if (parent == null) {
+      return null;
+    }
+    return new Span(parent.traceId(), hex(ThreadLocalRandom.current().nextLong()), parent.spanId(), name, now(),
+                    parent.trace);
+  }
+
+  /**
+   * Ends the span. The trace is exported when its root span ends.
+   */
+  public void end(Span span) {
+    if (span == null) {
+      return;
+    }
+    span.end(now());
+    span.trace.add(span);
+    if (span.parentSpanId() == null) {
+      try {
+        exporter.export(span.trace);
+      } catch (RuntimeException e) {
+        LOG.warning("Failed to export trace " + span.traceId() + ": " + e);
+      }
+    }
+  }
+
+  private long now() {
+    return epochNanosBase + System.nanoTime() - nanoTimeBase;
+  }
+
+  private static String hex(long value) {
+    String hex = Long.toHexString(value);
+    return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+  }
+
+  @Override
+  public void close() {
+    if (exporter != null) {
+      exporter.close();
+    }
+  }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.wal;
+
+import com.microsoft.dhalion.core.Outcome;
+import com.microsoft.dhalion.core.OutcomeCodec;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the outcomes of the policies, which survives a restart of the health manager. The log is a
+ * directory of segment files, <code>outcomes-[sequence number].wal</code>. Each record holds a policy name and an
+ * outcome encoded by {@link OutcomeCodec}, preceded by its length and CRC32 checksum.
+ * <p>
+ * Appended outcomes are buffered until {@link #commit()}, which writes them with one write call, typically once per
+ * policy cycle, and syncs the segment to the storage device according to the {@link Fsync} policy. A new segment is
+ * started when the current one exceeds the configured size, and closed segments are deleted once all their outcomes
+ * are older than the {@link #expire(Instant) expiration}.
+ * <p>
+ * {@link #recover(BiConsumer)} reads the segments on startup. A record torn by a crash, i.e. a truncated record or
+ * one with a wrong checksum, ends the segment, and the segment is truncated before the torn record. Other I/O errors,
+ * e.g. a segment which cannot be read, fail the recovery and leave the segment as is.
+ */
+public class OutcomeLog implements Closeable {
+  private static final Logger LOG = Logger.getLogger(OutcomeLog.class.getName());
+  private static final String SEGMENT_PREFIX = "outcomes-";
+  private static final String SEGMENT_SUFFIX = ".wal";
+  // records larger than this are considered corrupt
+  private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+  /**
+   * When committed records are synced to the storage device
+   */
+  public enum Fsync {
+    /**
+     * after each commit, so no committed record is lost when the machine fails
+     */
+    ALWAYS,
+    /**
+     * after a commit if the previous sync is older than the sync interval
+     */
+    INTERVAL,
+    /**
+     * when the operating system writes the records back, so a machine failure may lose records
+     */
+    NEVER
+  }
+
+  private final Path directory;
+  private final long maxSegmentBytes;
+  private final Fsync fsync;
+  private final long fsyncIntervalNanos;
+
+  // sequence numbers of the closed segments and the instant of their newest outcome, null if unknown
+  private final TreeMap<Long, Instant> segments = new TreeMap<>();
+  private FileChannel channel;
+  private long segment = -1;
+  private long segmentBytes;
+  private Instant segmentNewest;
+  private long lastSyncNanos = System.nanoTime();
+  // whether records were written since the last sync
+  private boolean unsynced;
+
+  // records appended since the last commit
+  private final ByteArrayOutputStream group = new ByteArrayOutputStream();
+  private final DataOutputStream groupOut = new DataOutputStream(group);
+  private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+  private final DataOutputStream recordOut = new DataOutputStream(record);
+  private final CRC32 crc = new CRC32();
+  private Instant groupNewest;
+
+  /**
+   * @param directory       directory of the segment files, created if it does not exist
+   * @param maxSegmentBytes size after which a new segment is started
+   * @param fsync           when committed records are synced to the storage device
+   * @param fsyncInterval   minimum time between two syncs of the {@link Fsync#INTERVAL} policy
+   */
+  public OutcomeLog(Path directory, long maxSegmentBytes, Fsync fsync, Duration fsyncInterval) throws IOException {
+    if (maxSegmentBytes < 1) {
+      throw new IllegalArgumentException("The segment size must be positive");
+    }
+    this.directory = directory;
+    this.maxSegmentBytes = maxSegmentBytes;
+    this.fsync = fsync;
+    this.fsyncIntervalNanos = fsyncInterval.toNanos();
+
+    Files.createDirectories(directory);
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        try {
+          segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                                     name.length() - SEGMENT_SUFFIX.length())), null);
+        } catch (NumberFormatException e) {
+          LOG.warning("Ignoring file which is not a log segment: " + file);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the outcomes of all segments, oldest first. Must be called before outcomes are committed.
+   *
+   * @param consumer receives the policy name and the outcome of each record
+   * @return number of recovered records
+   */
+  public synchronized long recover(BiConsumer<String, Outcome> consumer) throws IOException {
+    if (channel != null) {
+      throw new IllegalStateException("The log is recovered before outcomes are committed");
+    }
+    long records = 0;
+    for (Map.Entry<Long, Instant> entry : segments.entrySet()) {
+      Path file = segmentFile(entry.getKey());
+      Instant newest = null;
+      long validBytes = 0;
+      IOException torn = null;
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+        byte[] payload;
+        while ((payload = readRecord(in)) != null) {
+          DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(payload));
+          String policy;
+          Outcome outcome;
+          try {
+            policy = recordIn.readUTF();
+            outcome = OutcomeCodec.read(recordIn);
+          } catch (IOException e) {
+            // the payload is in memory, so any error is a corrupt record
+            throw new CorruptRecordException("Invalid record: " + e.getMessage());
+          }
+          consumer.accept(policy, outcome);
+          newest = newest == null || outcome.instant().isAfter(newest) ? outcome.instant() : newest;
+          validBytes += Integer.BYTES * 2 + payload.length;
+          records++;
+        }
+      } catch (EOFException | CorruptRecordException e) {
+        torn = e;
+      }
+      if (torn != null) {
+        LOG.log(Level.WARNING, String.format("Truncating log segment %s after %d bytes: %s",
+                                             file, validBytes, torn.getMessage()));
+        try (FileChannel truncated = FileChannel.open(file, StandardOpenOption.WRITE)) {
+          truncated.truncate(validBytes);
+        }
+      }
+      // an empty segment is deleted by the next expiration
+      entry.setValue(newest == null ? Instant.MIN : newest);
+    }
+    LOG.info(String.format("Recovered %d outcomes from %d log segments in %s", records, segments.size(), directory));
+    return records;
+  }
+
+  /**
+   * @return the payload of the next record, null at the end of the segment
+   * @throws EOFException           if the record is torn
+   * @throws CorruptRecordException if the record is corrupt
+   * @throws IOException            if the segment cannot be read
+   */
+  private byte[] readRecord(DataInputStream in) throws IOException {
+    int first = in.read();
+    if (first < 0) {
+      return null;
+    }
+    // a partial length is a torn record, hence the end of the segment is only accepted before the first byte
+    int length = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+    int checksum = in.readInt();
+    if (length < 0 || length > MAX_RECORD_BYTES) {
+      throw new CorruptRecordException("Invalid record length " + length);
+    }
+    byte[] payload = new byte[length];
+    in.readFully(payload);
+    crc.reset();
+    crc.update(payload, 0, length);
+    if ((int) crc.getValue() != checksum) {
+      throw new CorruptRecordException("Record checksum mismatch");
+    }
+    return payload;
+  }
+
+  /**
+   * Buffers the outcomes of a policy until the next {@link #commit()}
+   */
+  public synchronized void append(String policy, Collection<? extends Outcome> outcomes) throws IOException {
+    for (Outcome outcome : outcomes) {
+      record.reset();
+      recordOut.writeUTF(policy);
+      OutcomeCodec.write(recordOut, outcome);
+      byte[] payload = record.toByteArray();
+      crc.reset();
+      crc.update(payload, 0, payload.length);
+      groupOut.writeInt(payload.length);
+      groupOut.writeInt((int) crc.getValue());
+      groupOut.write(payload);
+      groupNewest = groupNewest == null || outcome.instant().isAfter(groupNewest) ? outcome.instant() : groupNewest;
+    }
+  }
+
+  /**
+   * Writes the buffered outcomes to the current segment and syncs it according to the {@link Fsync} policy. Under
+   * the {@link Fsync#INTERVAL} policy, records written by earlier commits are synced once the interval has passed,
+   * even if nothing was appended since.
+   */
+  public synchronized void commit() throws IOException {
+    if (group.size() == 0) {
+      if (fsync == Fsync.INTERVAL && unsynced && System.nanoTime() - lastSyncNanos >= fsyncIntervalNanos) {
+        sync();
+      }
+      return;
+    }
+    if (channel == null || segmentBytes >= maxSegmentBytes) {
+      roll();
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(group.toByteArray());
+    while (buffer.hasRemaining()) {
+      segmentBytes += channel.write(buffer);
+    }
+    group.reset();
+    unsynced = true;
+    segmentNewest = segmentNewest == null || groupNewest.isAfter(segmentNewest) ? groupNewest : segmentNewest;
+    groupNewest = null;
+
+    if (fsync == Fsync.ALWAYS || fsync == Fsync.INTERVAL && System.nanoTime() - lastSyncNanos >= fsyncIntervalNanos) {
+      sync();
+    }
+  }
+
+  private void sync() throws IOException {
+    channel.force(false);
+    lastSyncNanos = System.nanoTime();
+    unsynced = false;
+  }
+
+  /**
+   * Syncs the directory, so that a new segment file survives a machine failure
+   */
+  private void syncDirectory() throws IOException {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(directory, StandardOpenOption.READ);
+    } catch (IOException e) {
+      // e.g. Windows does not open directories
+      LOG.log(Level.FINE, "Cannot open log directory " + directory + " to sync it", e);
+      return;
+    }
+    try (FileChannel directoryChannel = channel) {
+      directoryChannel.force(true);
+    }
+  }
+
+  /**
+   * Closes the current segment, if any, and starts the next one
+   */
+  private void roll() throws IOException {
+    if (channel != null) {
+      if (fsync != Fsync.NEVER) {
+        sync();
+      }
+      channel.close();
+      segments.put(segment, segmentNewest);
+    }
+    segment = Math.max(segment, segments.isEmpty() ? -1 : segments.lastKey()) + 1;
+    channel = FileChannel.open(segmentFile(segment), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    segmentBytes = 0;
+    segmentNewest = null;
+    if (fsync != Fsync.NEVER) {
+      syncDirectory();
+    }
+  }
+
+  /**
+   * Deletes the closed segments whose outcomes are all older than the expiration
+   */
+  public synchronized void expire(Instant expiration) throws IOException {
+    Iterator<Map.Entry<Long, Instant>> iterator = segments.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Long, Instant> entry = iterator.next();
+      if (entry.getValue() != null && entry.getValue().isBefore(expiration)) {
+        Files.deleteIfExists(segmentFile(entry.getKey()));
+        iterator.remove();
+      }
+    }
+  }
+
+  private Path segmentFile(long sequence) {
+    return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+  }
+
+  /**
+   * @return number of segment files, including the current one
+   */
+  synchronized int segments() {
+    return segments.size() + (channel == null ? 0 : 1);
+  }
+
+  /**
+   * @return whether all written records are synced
+   */
+  synchronized boolean synced() {
+    return !unsynced;
+  }
+
+  /**
+   * Commits the buffered outcomes, syncs them unless the policy is {@link Fsync#NEVER}, and closes the log
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    commit();
+    if (channel != null) {
+      if (fsync != Fsync.NEVER) {
+        sync();
+      }
+      channel.close();
+      segments.put(segment, segmentNewest);
+      channel = null;
+    }
+  }
+
+  /**
+   * A record which is not torn, but whose content is invalid
+   */
+  private static class CorruptRecordException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private CorruptRecordException(String message) {
+      super(message);
+    }
+  }
+}
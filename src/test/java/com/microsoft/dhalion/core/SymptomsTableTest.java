@@ -7,6 +7,7 @@
 
 package com.microsoft.dhalion.core;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -217,4 +218,23 @@ public class SymptomsTableTest {
     Collection<Symptom> result = testTable.get();
     assertEquals(18, result.size());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void correlate() {
+    Collection<Symptom> cpu = new ArrayList<>();
+    cpu.add(new Symptom(10, "cpu", Instant.ofEpochMilli(1000), Arrays.asList("c3", "c1", "c4"), null));
+    cpu.add(new Symptom(11, "cpu", Instant.ofEpochMilli(5000), Arrays.asList("c1", "c2"), null));
+    Collection<Symptom> memory = new ArrayList<>();
+    memory.add(new Symptom(12, "mem", Instant.ofEpochMilli(1500), Arrays.asList("c1", "c2"), null));
+    memory.add(new Symptom(13, "mem", Instant.ofEpochMilli(4000), Arrays.asList("c3", "c2", "c5"), null));
+    SymptomsTable cpuTable = SymptomsTable.of(cpu);
+    SymptomsTable memoryTable = SymptomsTable.of(memory);
+
+    assertEquals(Arrays.asList("c3", "c1", "c2"), new ArrayList<>(cpuTable.correlate(memoryTable)));
+    assertEquals(Arrays.asList("c1", "c2", "c3"), new ArrayList<>(memoryTable.correlate(cpuTable)));
+    assertEquals(Arrays.asList("c1", "c2"),
+                 new ArrayList<>(cpuTable.correlate(memoryTable, Duration.ofMillis(1000))));
+    assertEquals(Arrays.asList("c1"), new ArrayList<>(cpuTable.correlate(memoryTable, Duration.ofMillis(500))));
+    assertTrue(cpuTable.correlate(SymptomsTable.of(new ArrayList<>())).isEmpty());
+  }
+}
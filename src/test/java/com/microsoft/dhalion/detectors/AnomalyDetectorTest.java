@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.api.IDetector;
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnomalyDetectorTest {
+  private static final Instant START = Instant.parse("2018-01-08T00:00:00Z");
+  private static final String CPU = "Cpu";
+
+  private ExecutionContext context;
+  private Map<String, Object> conf;
+  private Random random;
+
+  @Before
+  public void initialize() {
+    context = mock(ExecutionContext.class);
+    conf = new HashMap<>();
+    random = new Random(1);
+  }
+
+  @Test
+  public void testEwmaDetector() {
+    conf.put("EwmaDetector.alpha", 0.05);
+    conf.put("EwmaDetector.noCheckpoints_" + CPU, 2);
+    IDetector detector = detector(new EwmaDetector(new PolicyConfig(null, conf), CPU));
+
+    for (int i = 0; i < 100; i++) {
+      assertTrue(detect(detector, i, 50 + random.nextGaussian(), 50 + random.nextGaussian()).isEmpty());
+    }
+    // a single spike is not enough
+    assertTrue(detect(detector, 100, 90, 50).isEmpty());
+    Collection<Symptom> symptoms = detect(detector, 101, 90, 50);
+    assertEquals(1, symptoms.size());
+    Symptom symptom = symptoms.iterator().next();
+    assertEquals("EwmaDetector_" + CPU, symptom.type());
+    assertEquals(Collections.singletonList("i1"), symptom.assignments());
+  }
+
+  @Test
+  public void testZScoreDetector() {
+    conf.put("ZScoreDetector.window", 20);
+    conf.put("ZScoreDetector.min.deviation", 5.0);
+    IDetector detector = detector(new ZScoreDetector(new PolicyConfig(null, conf), CPU));
+
+    // no evaluation during the warmup
+    assertTrue(detect(detector, 0, 50, 50).isEmpty());
+    assertTrue(detect(detector, 1, 50, 10).isEmpty());
+    for (int i = 2; i < 50; i++) {
+      assertTrue(detect(detector, i, 50 + random.nextGaussian(), 50 + random.nextGaussian()).isEmpty());
+    }
+    assertEquals(Collections.singletonList("i2"), detect(detector, 50, 50, 10).iterator().next().assignments());
+  }
+
+  @Test
+  public void testMadDetectorIsRobust() {
+    conf.put("MadDetector.min.deviation", 5.0);
+    IDetector detector = detector(new MadDetector(new PolicyConfig(null, conf), CPU));
+
+    // frequent spikes of i2 inflate its variance, but not its median absolute deviation
+    for (int i = 0; i < 200; i++) {
+      double i2 = i % 10 == 0 ? 95 : 50 + random.nextGaussian();
+      Collection<Symptom> symptoms = detect(detector, i, 50 + random.nextGaussian(), i2);
+      if (i >= 20 && i % 10 == 0) {
+        assertEquals(Collections.singletonList("i2"), symptoms.iterator().next().assignments());
+      } else if (i >= 20) {
+        assertTrue(symptoms.isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void testSeasonalDetector() {
+    conf.put("SeasonalDetector.period.ms", Duration.ofHours(2).toMillis());
+    conf.put("SeasonalDetector.buckets", 2);
+    conf.put("SeasonalDetector.warmup", 5);
+    conf.put("SeasonalDetector.min.deviation", 10.0);
+    IDetector detector = detector(new SeasonalDetector(new PolicyConfig(null, conf), CPU));
+
+    // high load in the first hour of the period, low load in the second hour
+    int minutes = 0;
+    for (; minutes < 10 * 60; minutes += 10) {
+      double load = minutes % 120 < 60 ? 80 : 20;
+      assertTrue(detect(detector, minutes, load + random.nextGaussian(), load + random.nextGaussian()).isEmpty());
+    }
+    assertEquals(0, minutes % 120);
+    assertEquals(Collections.singletonList("i2"), detect(detector, minutes, 80, 20).iterator().next().assignments());
+  }
+
+  @Test
+  public void testP2Quantile() {
+    P2Quantile median = new P2Quantile(0.5);
+    P2Quantile p90 = new P2Quantile(0.9);
+    assertTrue(Double.isNaN(median.value()));
+    median.add(3);
+    median.add(1);
+    median.add(2);
+    assertEquals(2, median.value(), 0);
+
+    median = new P2Quantile(0.5);
+    for (int i = 0; i < 10000; i++) {
+      double value = random.nextDouble() * 100;
+      median.add(value);
+      p90.add(value);
+    }
+    assertEquals(50, median.value(), 2);
+    assertEquals(90, p90.value(), 2);
+  }
+
+  private IDetector detector(IDetector detector) {
+    detector.initialize(context);
+    return detector;
+  }
+
+  private Collection<Symptom> detect(IDetector detector, int minute, double i1, double i2) {
+    Instant time = START.plus(Duration.ofMinutes(minute));
+    when(context.checkpoint()).thenReturn(time);
+    List<Measurement> measurements = new ArrayList<>();
+    measurements.add(new Measurement("c1", "i1", CPU, time, i1));
+    measurements.add(new Measurement("c1", "i2", CPU, time, i2));
+    return detector.detect(measurements);
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.MeasurementsTable;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PeerOutlierDetectorTest {
+  private static final Instant PREVIOUS = Instant.parse("2018-01-08T01:34:00Z");
+  private static final Instant CURRENT = PREVIOUS.plusSeconds(60);
+
+  @Test
+  public void testLaggingInstance() {
+    Random random = new Random(1);
+    List<Measurement> measurements = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      String instance = "i" + i;
+      // only the latest value of an instance is compared with its peers
+      measurements.add(new Measurement("c1", instance, "Lag", PREVIOUS, i == 1 ? 50 : 100));
+      measurements.add(new Measurement("c1", instance, "Lag", CURRENT, i == 7 ? 80 : 50 + random.nextGaussian()));
+      measurements.add(new Measurement("c1", instance, "Cpu", CURRENT, 10));
+    }
+    // too few peers
+    measurements.add(new Measurement("c2", "i1", "Lag", CURRENT, 10));
+    measurements.add(new Measurement("c2", "i2", "Lag", CURRENT, 90));
+    // a component with close values and a small outlier
+    measurements.add(new Measurement("c3", "i1", "Lag", CURRENT, 10));
+    measurements.add(new Measurement("c3", "i2", "Lag", CURRENT, 10.1));
+    measurements.add(new Measurement("c3", "i3", "Lag", CURRENT, 9.9));
+    measurements.add(new Measurement("c3", "i4", "Lag", CURRENT, 12));
+    // an instance which stopped reporting before the previous checkpoint
+    measurements.add(new Measurement("c1", "stale", "Lag", PREVIOUS.minusSeconds(1200), 500));
+
+    Map<String, Object> conf = new HashMap<>();
+    conf.put("PeerOutlierDetector.threshold_Lag", 5.0);
+    assertEquals(Arrays.asList("i7", "i4"), detect(conf, measurements));
+
+    conf.put("PeerOutlierDetector.min.deviation", 2.0);
+    assertEquals(Arrays.asList("i7"), detect(conf, measurements));
+
+    conf.remove("PeerOutlierDetector.min.deviation");
+    conf.put("PeerOutlierDetector.min.peers", 5);
+    assertEquals(Arrays.asList("i7"), detect(conf, measurements));
+
+    // a window reaching back to the stale value
+    conf.put("PeerOutlierDetector.window.ms", 30 * 60 * 1000);
+    assertEquals(Arrays.asList("i7", "stale"), detect(conf, measurements));
+  }
+
+  @Test
+  public void testMostlyIdenticalPeers() {
+    List<Measurement> measurements = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      // the MAD of both components is 0
+      measurements.add(new Measurement("idle", "i" + i, "Lag", CURRENT, i < 6 ? 0 : 1));
+      measurements.add(new Measurement("busy", "j" + i, "Lag", CURRENT, i == 0 ? 1000 : 0));
+    }
+    assertEquals(Arrays.asList("j0"), detect(new HashMap<>(), measurements));
+  }
+
+  @Test
+  public void testMedian() {
+    Random random = new Random(1);
+    for (int n = 1; n < 50; n++) {
+      double[] values = new double[n + 3];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = random.nextInt(10);
+      }
+      double[] sorted = Arrays.copyOf(values, n);
+      Arrays.sort(sorted);
+      double expected = n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+      assertEquals(expected, PeerOutlierDetector.median(values, n), 0);
+    }
+  }
+
+  private static List<String> detect(Map<String, Object> conf, List<Measurement> measurements) {
+    ExecutionContext context = mock(ExecutionContext.class);
+    when(context.checkpoint()).thenReturn(CURRENT);
+    when(context.previousCheckpoint()).thenReturn(PREVIOUS);
+    when(context.measurements()).thenReturn(MeasurementsTable.of(measurements));
+    PeerOutlierDetector detector = new PeerOutlierDetector(new PolicyConfig(null, conf), "Lag");
+    detector.initialize(context);
+
+    Collection<Symptom> symptoms = detector.detect(measurements);
+    if (symptoms.isEmpty()) {
+      return new ArrayList<>();
+    }
+    Symptom symptom = symptoms.iterator().next();
+    assertEquals("PeerOutlierDetector_Lag", symptom.type());
+    assertEquals(1, symptoms.size());
+    return new ArrayList<>(symptom.assignments());
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SlidingWindowDetectorTest {
+  private static final Instant START = Instant.parse("2018-01-08T01:35:00Z");
+
+  private ExecutionContext context;
+  private BreachDetector detector;
+  private List<SlidingWindowDetector.InstanceWindow> evaluated;
+
+  @Before
+  public void initialize() {
+    context = mock(ExecutionContext.class);
+    evaluated = new ArrayList<>();
+    detector = new BreachDetector();
+    detector.initialize(context);
+  }
+
+  @Test
+  public void testIncrementalState() {
+    assertTrue(detect(0, 95, 10).isEmpty());
+    Collection<Symptom> symptoms = detect(1, 96, 20);
+    assertEquals(1, symptoms.size());
+    assertEquals(Arrays.asList("i1"), symptoms.iterator().next().assignments());
+
+    SlidingWindowDetector.InstanceWindow window = evaluated.get(1);
+    assertEquals("i2", window.instance());
+    assertEquals(15, window.mean(), 0);
+    assertEquals(25, window.variance(), 1e-9);
+    assertEquals(15, window.ewma(), 0);
+    assertEquals(25, window.ewmv(), 1e-9);
+    assertEquals(20, window.value(0), 0);
+    assertEquals(10, window.value(1), 0);
+
+    // the window keeps the latest 3 values
+    detect(2, 97, 30);
+    detect(3, 50, 40);
+    assertEquals(3, window.size());
+    assertEquals(4, window.total());
+    assertEquals(90, window.sum(), 1e-9);
+    assertEquals(0, evaluated.get(0).consecutiveBreaches());
+  }
+
+  @Test
+  public void testOldAndForeignMeasurementsIgnored() {
+    detect(0, 95, 10);
+    evaluated.clear();
+
+    // a refetch of the same window and other metrics do not update the state
+    Collection<Measurement> measurements = measurements(0, 95, 10);
+    measurements.add(new Measurement("c1", "i1", "Mem", START.plusSeconds(60), 99));
+    assertTrue(detector.detect(measurements).isEmpty());
+    assertTrue(evaluated.isEmpty());
+    assertEquals(2, detector.instances());
+  }
+
+  @Test
+  public void testBatchNewestFirst() {
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(2)));
+    List<Measurement> measurements = new ArrayList<>();
+    for (int minute = 2; minute >= 0; minute--) {
+      measurements.add(new Measurement("c1", "i1", "Cpu", START.plus(Duration.ofMinutes(minute)), 91 + minute));
+    }
+    Collection<Symptom> symptoms = detector.detect(measurements);
+
+    // all values of the batch are added, oldest first
+    assertEquals(1, symptoms.size());
+    SlidingWindowDetector.InstanceWindow window = evaluated.get(0);
+    assertEquals(3, window.total());
+    assertEquals(3, window.consecutiveBreaches());
+    assertEquals(93, window.value(0), 0);
+    assertEquals(91, window.value(2), 0);
+    assertEquals(START.plus(Duration.ofMinutes(2)), window.latestTime());
+  }
+
+  @Test
+  public void testExpiry() {
+    detect(0, 95, 10);
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(10)));
+    List<Measurement> measurements = new ArrayList<>();
+    measurements.add(new Measurement("c1", "i1", "Cpu", START.plus(Duration.ofMinutes(10)), 95));
+    detector.detect(measurements);
+    assertEquals(1, detector.instances());
+    assertEquals(2, evaluated.get(evaluated.size() - 1).total());
+
+    // the state of i2 was dropped and is created again
+    measurements.set(0, new Measurement("c1", "i2", "Cpu", START.plus(Duration.ofMinutes(11)), 95));
+    detector.detect(measurements);
+    assertEquals(2, detector.instances());
+    assertEquals(1, evaluated.get(evaluated.size() - 1).total());
+  }
+
+  private Collection<Symptom> detect(int minute, double i1, double i2) {
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(minute)));
+    return detector.detect(measurements(minute, i1, i2));
+  }
+
+  private static Collection<Measurement> measurements(int minute, double i1, double i2) {
+    Instant time = START.plus(Duration.ofMinutes(minute));
+    return new ArrayList<>(Arrays.asList(new Measurement("c1", "i1", "Cpu", time, i1),
+                                         new Measurement("c1", "i2", "Cpu", time, i2)));
+  }
+
+  private class BreachDetector extends SlidingWindowDetector {
+    BreachDetector() {
+      super("Cpu", "Breach", 3, 0.5, Duration.ofMinutes(5));
+    }
+
+    @Override
+    protected boolean isBreach(InstanceWindow window, Measurement measurement) {
+      return measurement.value() > 90;
+    }
+
+    @Override
+    protected boolean isAnomalous(InstanceWindow window) {
+      evaluated.add(window);
+      return window.consecutiveBreaches() >= 2;
+    }
+  }
+}
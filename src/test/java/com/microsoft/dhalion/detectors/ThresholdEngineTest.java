@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.detectors;
+
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.MeasurementsTable;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class ThresholdEngineTest {
+  private static final Instant T1 = Instant.parse("2018-01-08T01:35:00Z");
+  private static final Instant T2 = T1.plusSeconds(60);
+  private static final Instant T3 = T2.plusSeconds(60);
+
+  @Test
+  public void testRulesShareOnePass() {
+    List<Measurement> measurements = new ArrayList<>();
+    measurements.add(new Measurement("c1", "i1", "Cpu", T1, 95));
+    measurements.add(new Measurement("c1", "i1", "Cpu", T2, 91));
+    measurements.add(new Measurement("c1", "i2", "Cpu", T1, 10));
+    measurements.add(new Measurement("c1", "i2", "Cpu", T2, 95));
+    measurements.add(new Measurement("c2", "i1", "Cpu", T2, 90));
+    measurements.add(new Measurement("c2", "i1", "Mem", T2, 5));
+    measurements.add(new Measurement("c1", "i2", "Mem", T1, 5));
+    measurements.add(new Measurement("c1", "i2", "Mem", T2, 10));
+    MeasurementsTable.Builder builder = new MeasurementsTable.Builder();
+    builder.addAll(measurements);
+    MeasurementsTable table = builder.get();
+
+    ThresholdEngine engine = new ThresholdEngine();
+    ThresholdEngine.Rule cpuHigh = engine.register("Cpu", 90, Double.MAX_VALUE, 1);
+    ThresholdEngine.Rule cpuHighTwice = engine.register("Cpu", 90, Double.MAX_VALUE, 2);
+    ThresholdEngine.Rule cpuLow = engine.register("Cpu", Double.NEGATIVE_INFINITY, 10, 1);
+    ThresholdEngine.Rule memLowTwice = engine.register("Mem", Double.NEGATIVE_INFINITY, 10, 2);
+    ThresholdEngine.Rule diskHigh = engine.register("Disk", 90, Double.MAX_VALUE, 1);
+    ThresholdEngine.Rule fraction = engine.register("Cpu", 90, Double.MAX_VALUE, 1.5);
+
+    // bounds are inclusive, instances are grouped by component
+    assertEquals(Arrays.asList("i1", "i2", "i1"), engine.matches(cpuHigh, table, T2));
+    assertEquals(Collections.singletonList("i1"), engine.matches(cpuHighTwice, table, T2));
+    assertEquals(Collections.emptyList(), engine.matches(cpuLow, table, T2));
+    // c2/i1 has a single measurement, fewer than required
+    assertEquals(Collections.singletonList("i2"), engine.matches(memLowTwice, table, T2));
+    assertEquals(Collections.emptyList(), engine.matches(diskHigh, table, T2));
+    assertEquals(Collections.emptyList(), engine.matches(fraction, table, T2));
+
+    // results are cached until the measurements change, also if the same table is updated
+    assertSame(engine.matches(cpuHigh, table, T2), engine.matches(cpuHigh, table, T2));
+    // zero is below the threshold as well
+    builder.addAll(Collections.singletonList(new Measurement("c1", "i2", "Cpu", T3, 0)));
+    assertEquals(Arrays.asList("i1", "i1"), engine.matches(cpuHigh, table, T3));
+    assertEquals(Collections.singletonList("i2"), engine.matches(cpuLow, table, T3));
+  }
+
+  @Test
+  public void testLatestValuesWin() {
+    // out of order rows, the later of two rows with the same time is the latest
+    List<Measurement> measurements = Arrays.asList(
+        new Measurement("c1", "i1", "Cpu", T3, 95),
+        new Measurement("c1", "i1", "Cpu", T1, 10),
+        new Measurement("c1", "i1", "Cpu", T2, 10),
+        new Measurement("c1", "i1", "Cpu", T2, 92));
+    MeasurementsTable table = MeasurementsTable.of(measurements);
+
+    ThresholdEngine engine = new ThresholdEngine();
+    ThresholdEngine.Rule twice = engine.register("Cpu", 90, Double.MAX_VALUE, 2);
+    ThresholdEngine.Rule thrice = engine.register("Cpu", 90, Double.MAX_VALUE, 3);
+    assertEquals(Collections.singletonList("i1"), engine.matches(twice, table, T3));
+    assertEquals(Collections.emptyList(), engine.matches(thrice, table, T3));
+  }
+
+  @Test
+  public void testInstancesGroupedByComponent() {
+    List<Measurement> measurements = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      // interleaved components, with instance names repeated across components
+      measurements.add(new Measurement("c" + (i % 2), "i" + (i / 4), "Cpu", T1, 95));
+    }
+    ThresholdEngine engine = new ThresholdEngine();
+    ThresholdEngine.Rule cpuHigh = engine.register("Cpu", 90, Double.MAX_VALUE, 1);
+
+    List<String> expected = new ArrayList<>();
+    for (int component = 0; component < 2; component++) {
+      for (int i = 0; i < 10; i++) {
+        expected.add("i" + i);
+      }
+    }
+    assertEquals(expected, engine.matches(cpuHigh, MeasurementsTable.of(measurements), T1));
+  }
+
+  @Test
+  public void testEngineSharedPerContext() {
+    ExecutionContext context = mock(ExecutionContext.class);
+    assertSame(ThresholdEngine.of(context), ThresholdEngine.of(context));
+    assertNotSame(ThresholdEngine.of(context), ThresholdEngine.of(mock(ExecutionContext.class)));
+    // detectors without a context do not share an engine
+    assertNotSame(ThresholdEngine.of(null), ThresholdEngine.of(null));
+  }
+}
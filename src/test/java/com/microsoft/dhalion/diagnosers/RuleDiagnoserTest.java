@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.diagnosers;
+
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.MeasurementsTable;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.detectors.RuleDetector;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RuleDiagnoserTest {
+  private static final Instant NOW = Instant.parse("2018-01-08T01:40:00Z");
+
+  @Test
+  public void testConfiguredRules() {
+    List<Measurement> measurements = Arrays.asList(new Measurement("c1", "i1", "Cpu", NOW, 95),
+                                                   new Measurement("c1", "i1", "Mem", NOW, 950),
+                                                   new Measurement("c1", "i2", "Cpu", NOW, 95),
+                                                   new Measurement("c1", "i2", "Mem", NOW, 100));
+    ExecutionContext context = mock(ExecutionContext.class);
+    when(context.checkpoint()).thenReturn(NOW);
+    when(context.measurements()).thenReturn(MeasurementsTable.of(measurements));
+
+    // the rules of a policy's yaml configuration
+    Map<String, Object> detectorRules = new LinkedHashMap<>();
+    detectorRules.put("HighCpu", "Cpu > 90");
+    detectorRules.put("HighMem", "Mem > 900");
+    Map<String, Object> diagnoserRules = new LinkedHashMap<>();
+    diagnoserRules.put("OverUtilized", "symptom(HighCpu) and symptom(HighMem)");
+    diagnoserRules.put("CpuBound", "symptom(HighCpu) and Mem < 500");
+    Map<String, Object> conf = new HashMap<>();
+    conf.put(RuleDetector.RULES_CONF, detectorRules);
+    conf.put(RuleDiagnoser.RULES_CONF, diagnoserRules);
+    PolicyConfig policyConfig = new PolicyConfig("policy", conf);
+
+    RuleDetector detector = new RuleDetector(policyConfig);
+    detector.initialize(context);
+    Collection<Symptom> symptoms = detector.detect(measurements);
+    assertEquals(2, symptoms.size());
+
+    RuleDiagnoser diagnoser = new RuleDiagnoser(policyConfig);
+    diagnoser.initialize(context);
+    List<Diagnosis> diagnoses = new ArrayList<>(diagnoser.diagnose(symptoms));
+    assertEquals(2, diagnoses.size());
+    assertEquals("OverUtilized", diagnoses.get(0).type());
+    assertEquals(Collections.singletonList("i1"), diagnoses.get(0).assignments());
+    assertEquals(2, diagnoses.get(0).symptoms().size());
+    assertEquals("CpuBound", diagnoses.get(1).type());
+    assertEquals(Collections.singletonList("i2"), diagnoses.get(1).assignments());
+    assertEquals("HighCpu", diagnoses.get(1).symptoms().iterator().next().type());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDetectorRulesWithoutSymptoms() {
+    new RuleDetector(Collections.singletonMap("Rule", "symptom(HighCpu)"));
+  }
+}
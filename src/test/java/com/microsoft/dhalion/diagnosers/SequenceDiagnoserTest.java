@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.diagnosers;
+
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SequenceDiagnoserTest {
+  private static final Instant START = Instant.parse("2018-01-08T01:35:00Z");
+
+  private ExecutionContext context;
+  private SequenceDiagnoser diagnoser;
+
+  @Before
+  public void initialize() {
+    context = mock(ExecutionContext.class);
+    diagnoser = new SequenceDiagnoser("CpuThenLatency", Duration.ofMinutes(2), "HighCpu", "HighLatency");
+    diagnoser.initialize(context);
+  }
+
+  @Test
+  public void testSequenceWithinWindow() {
+    // symptoms of the same cycle do not follow each other
+    assertTrue(cycle(0, new Symptom("HighCpu", at(0), Arrays.asList("i1", "i2")),
+                     new Symptom("HighLatency", at(0), Arrays.asList("i2"))).isEmpty());
+    assertTrue(cycle(1, new Symptom("HighCpu", at(1), Arrays.asList("i3"))).isEmpty());
+
+    Symptom latency = new Symptom("HighLatency", at(2), Arrays.asList("i1", "i2", "i4"));
+    Collection<Diagnosis> diagnoses = cycle(2, latency);
+    assertEquals(1, diagnoses.size());
+    Diagnosis diagnosis = diagnoses.iterator().next();
+    assertEquals("CpuThenLatency", diagnosis.type());
+    assertEquals(Arrays.asList("i1", "i2"), new ArrayList<>(diagnosis.assignments()));
+    assertEquals(2, diagnosis.symptoms().size());
+
+    // a completed match starts over, i3 is too late
+    assertTrue(cycle(4, new Symptom("HighLatency", at(4), Arrays.asList("i1", "i3"))).isEmpty());
+  }
+
+  @Test
+  public void testLatestStartIsKept() {
+    diagnoser = new SequenceDiagnoser("Pattern", Duration.ofMinutes(3), "A", "B", "C");
+    diagnoser.initialize(context);
+
+    cycle(0, new Symptom("A", at(0), Arrays.asList("i1")));
+    cycle(1, new Symptom("B", at(1), Arrays.asList("i1")));
+    // the second start keeps the first partial match alive
+    cycle(2, new Symptom("A", at(2), Arrays.asList("i1")));
+    cycle(3, new Symptom("B", at(3), Arrays.asList("i1")));
+    Collection<Diagnosis> diagnoses = cycle(4, new Symptom("C", at(4), Arrays.asList("i1")));
+    assertEquals(1, diagnoses.size());
+    List<Instant> times = new ArrayList<>();
+    diagnoses.iterator().next().symptoms().forEach(s -> times.add(s.instant()));
+    assertEquals(Arrays.asList(at(2), at(3), at(4)), times);
+  }
+
+  @Test
+  public void testStateExpires() {
+    cycle(0, new Symptom("HighCpu", at(0), Arrays.asList("i1", "i2")));
+    cycle(2, new Symptom("HighCpu", at(2), Arrays.asList("i2")));
+    assertEquals(2, diagnoser.assignments());
+    cycle(3, new Symptom("Other", at(3), Arrays.asList("i1")));
+    assertEquals(1, diagnoser.assignments());
+  }
+
+  private Collection<Diagnosis> cycle(int minute, Symptom... symptoms) {
+    when(context.checkpoint()).thenReturn(at(minute));
+    return diagnoser.diagnose(Arrays.asList(symptoms));
+  }
+
+  private static Instant at(int minute) {
+    return START.plus(Duration.ofMinutes(minute));
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.events;
+
+import com.microsoft.dhalion.events.EventManager.Backpressure;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventManagerTest {
+  @Test
+  public void testSynchronousDispatch() {
+    EventManager manager = new EventManager();
+    List<String> received = new ArrayList<>();
+    EventHandler<String> first = handler(event -> received.add("first " + event));
+    EventHandler<String> second = handler(event -> received.add("second " + event));
+    manager.addEventListener(String.class, first);
+    manager.addEventListener(String.class, second);
+
+    manager.onEvent("a");
+    manager.onEvent(1);
+    assertEquals(Arrays.asList("first a", "second a"), received);
+
+    EventDispatcher<String> dispatcher = new EventDispatcher<>();
+    dispatcher.addHandler(first);
+    dispatcher.addHandler(second);
+    assertTrue(dispatcher.removeHandler(first));
+    assertFalse(dispatcher.removeHandler(first));
+    received.clear();
+    dispatcher.onEvent("b");
+    assertEquals(Arrays.asList("second b"), received);
+  }
+
+  @Test
+  public void testHierarchicalDispatch() {
+    EventManager manager = new EventManager();
+    List<String> received = new ArrayList<>();
+    manager.addEventListener(Comparable.class, handler(event -> received.add("comparable " + event)));
+    manager.addEventListener(Object.class, handler(event -> received.add("object " + event)));
+    manager.addEventListener(Integer.class, handler(event -> received.add("integer " + event)));
+    manager.addEventListener(Number.class, handler(event -> received.add("number " + event)));
+
+    manager.onEvent(1);
+    assertEquals(Arrays.asList("integer 1", "number 1", "object 1", "comparable 1"), received);
+    received.clear();
+    manager.onEvent("a");
+    assertEquals(Arrays.asList("object a", "comparable a"), received);
+
+    // the resolution of the cached string class is refreshed by the registration of a new type
+    manager.addEventListener(CharSequence.class, handler(event -> received.add("sequence " + event)));
+    received.clear();
+    manager.onEvent("b");
+    assertEquals(Arrays.asList("object b", "comparable b", "sequence b"), received);
+
+    // another handler of a registered type does not need a new resolution
+    manager.addEventListener(String.class, handler(event -> received.add("string " + event)));
+    manager.addEventListener(String.class, handler(event -> received.add("string2 " + event)));
+    received.clear();
+    manager.onEvent("c");
+    assertEquals(Arrays.asList("string c", "string2 c", "object c", "comparable c", "sequence c"), received);
+  }
+
+  @Test
+  public void testSlowHandlerDoesNotStallOtherTypes() throws Exception {
+    EventManager manager = new EventManager(2, 10, Backpressure.BLOCK);
+    CountDownLatch release = new CountDownLatch(1);
+    List<Object> received = new CopyOnWriteArrayList<>();
+    manager.addEventListener(String.class, handler(event -> {
+      await(release);
+      received.add(event);
+    }));
+    CountDownLatch numbers = new CountDownLatch(3);
+    manager.addEventListener(Integer.class, handler(event -> {
+      received.add(event);
+      numbers.countDown();
+    }));
+
+    manager.onEvent("a");
+    manager.onEvent("b");
+    manager.onEvent(1);
+    manager.onEvent(2);
+    manager.onEvent(3);
+    assertTrue(numbers.await(10, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(1, 2, 3), received);
+
+    release.countDown();
+    assertTrue(manager.close(Duration.ofSeconds(10)));
+    assertEquals(Arrays.asList(1, 2, 3, "a", "b"), received);
+    assertEquals(0, manager.dropped());
+  }
+
+  @Test
+  public void testDropNewest() throws Exception {
+    assertEquals(Arrays.asList(0, 1, 2), dispatchWithFullQueue(Backpressure.DROP_NEWEST));
+  }
+
+  @Test
+  public void testDropOldest() throws Exception {
+    assertEquals(Arrays.asList(0, 2, 3), dispatchWithFullQueue(Backpressure.DROP_OLDEST));
+  }
+
+  /**
+   * Raises four events while the handler blocks on the first one and the queue holds two events
+   */
+  private static List<Integer> dispatchWithFullQueue(Backpressure backpressure) throws Exception {
+    EventManager manager = new EventManager(1, 2, backpressure);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<Integer> received = new CopyOnWriteArrayList<>();
+    manager.addEventListener(Integer.class, handler(event -> {
+      started.countDown();
+      await(release);
+      received.add(event);
+    }));
+
+    manager.onEvent(0);
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    for (int i = 1; i < 4; i++) {
+      manager.onEvent(i);
+    }
+    assertEquals(1, manager.dropped());
+
+    release.countDown();
+    assertTrue(manager.close(Duration.ofSeconds(10)));
+    return received;
+  }
+
+  private static <T> EventHandler<T> handler(Consumer<T> consumer) {
+    return new EventHandler<T>() {
+      @Override
+      public void onEvent(T event) {
+        consumer.accept(event);
+      }
+    };
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class IndexedCSVReaderTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testReadsOnlyLinesNearWindow() throws IOException {
+    Path file = folder.newFile().toPath();
+    write(file, line(1, "01:35:36.934Z"), line(2, "01:35:36.934Z"),
+          line(1, "01:36:36.934Z"), line(2, "01:36:36.934Z"),
+          line(1, "01:37:36.934Z"), line(2, "01:37:36.934Z"),
+          line(1, "01:38:36.934Z"));
+
+    IndexedCSVReader reader = new IndexedCSVReader(file);
+    List<String> lines = read(reader, "2018-01-08T01:36:00Z", "2018-01-08T01:36:59Z");
+    assertEquals(Arrays.asList(line(1, "01:36:36.934Z"), line(2, "01:36:36.934Z")), lines);
+
+    lines = read(reader, "2018-01-08T01:37:00Z", "2018-01-08T01:40:00Z");
+    assertEquals(Arrays.asList(line(1, "01:37:36.934Z"), line(2, "01:37:36.934Z"), line(1, "01:38:36.934Z")), lines);
+
+    lines = read(reader, "2018-01-08T01:10:00Z", "2018-01-08T01:20:00Z");
+    assertEquals(0, lines.size());
+    reader.close();
+  }
+
+  @Test
+  public void testIndexesAppendedLines() throws IOException {
+    Path file = folder.newFile().toPath();
+    write(file, line(1, "01:35:36.934Z"), line(1, "01:36:36.934Z"));
+
+    IndexedCSVReader reader = new IndexedCSVReader(file);
+    // the unterminated line is not indexed yet, so the scan starts at the previous minute
+    assertEquals(2, read(reader, "2018-01-08T01:36:00Z", "2018-01-08T01:38:00Z").size());
+
+    // the new last line is not terminated either and completes in a later append
+    Files.write(file, ("\n" + line(1, "01:37:36.934Z") + "\n" + line(1, "01:38").substring(0, 20))
+        .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    List<String> lines = read(reader, "2018-01-08T01:36:00Z", "2018-01-08T01:38:00Z");
+    assertEquals(3, lines.size());
+    assertEquals(line(1, "01:37:36.934Z"), lines.get(1));
+
+    Files.write(file, (line(1, "01:38:36.934Z").substring(20) + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+    lines = read(reader, "2018-01-08T01:38:00Z", "2018-01-08T01:39:00Z");
+    assertEquals(Arrays.asList(line(1, "01:38:36.934Z")), lines);
+    reader.close();
+  }
+
+  @Test
+  public void testUnorderedFileIsScannedCompletely() throws IOException {
+    Path file = folder.newFile().toPath();
+    write(file, line(1, "01:37:36.934Z"), line(1, "01:35:36.934Z"), line(1, "01:36:36.934Z"));
+
+    IndexedCSVReader reader = new IndexedCSVReader(file);
+    assertEquals(3, read(reader, "2018-01-08T01:36:00Z", "2018-01-08T01:37:00Z").size());
+    reader.close();
+  }
+
+  @Test
+  public void testLinesSpanningRegions() throws IOException {
+    Path file = folder.newFile().toPath();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      expected.add(line(i, "01:35:36.934Z"));
+    }
+    write(file, expected.toArray(new String[0]));
+
+    IndexedCSVReader reader = new IndexedCSVReader(file, 100);
+    assertEquals(expected, read(reader, "2018-01-08T01:35:00Z", "2018-01-08T01:36:00Z"));
+    reader.close();
+  }
+
+  private static String line(int id, String time) {
+    return String.format("NodeA[%d]:Mem=915MB,Cpu=11%%,Time=2018-01-08T%s", id, time);
+  }
+
+  private static void write(Path file, String... lines) throws IOException {
+    Files.write(file, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<String> read(IndexedCSVReader reader, String oldest, String newest) throws IOException {
+    List<String> lines = new ArrayList<>();
+    reader.read(Instant.parse(oldest), Instant.parse(newest),
+                (buffer, start, end) -> lines.add(IndexedCSVReader.toString(buffer, start, end)));
+    return lines;
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import com.microsoft.dhalion.conf.Config;
+import com.microsoft.dhalion.conf.Key;
+import com.microsoft.dhalion.core.MeasurementsTable;
+import com.microsoft.dhalion.replay.ReplayMetricsProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NodeStatConverterTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testConvertedFileMatchesCSVProvider() throws IOException {
+    String dataDir = CSVMetricsProvider.class.getClassLoader().getResource(".").getFile();
+    Path output = folder.getRoot().toPath().resolve(ReplayMetricsProvider.DATA_FILE);
+    assertEquals(16, NodeStatConverter.convert(Paths.get(dataDir, CSVMetricsProvider.DATA_FILE), output));
+
+    Config csvConf = mock(Config.class);
+    when(csvConf.get(Key.DATA_DIR.value())).thenReturn(dataDir);
+    Config replayConf = mock(Config.class);
+    when(replayConf.get(Key.DATA_DIR.value())).thenReturn(folder.getRoot().getAbsolutePath());
+
+    CSVMetricsProvider csv = new CSVMetricsProvider(csvConf);
+    ReplayMetricsProvider replay = new ReplayMetricsProvider(replayConf);
+    Instant startTS = Instant.parse("2018-01-08T01:37:36.934Z");
+    for (String metric : Arrays.asList("Cpu", "Mem")) {
+      MeasurementsTable expected = MeasurementsTable.of(csv.getMeasurements(
+          startTS, Duration.ofMinutes(2), Collections.singletonList(metric), Arrays.asList("NodeA", "NodeB")));
+      MeasurementsTable actual = MeasurementsTable.of(replay.getMeasurements(
+          startTS, Duration.ofMinutes(2), Collections.singletonList(metric), Arrays.asList("NodeA", "NodeB")));
+      assertEquals(expected.size(), actual.size());
+      assertEquals(expected.valueBetween(0, Double.MAX_VALUE).size(), actual.valueBetween(0, Double.MAX_VALUE).size());
+      assertEquals(expected.component("NodeA").instance("3").size(), actual.component("NodeA").instance("3").size());
+    }
+    csv.close();
+    replay.close();
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import com.microsoft.dhalion.core.Measurement;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NodeStatParserTest {
+  private NodeStatParser parser = new NodeStatParser();
+
+  @Test
+  public void testParseDataLine() {
+    String line = "NodeA[1]:Mem=915MB,Cpu=11%,Time=2018-01-08T01:35:36.934Z";
+    assertTrue(parse(line));
+
+    assertTrue(parser.nodeEquals("NodeA".getBytes(StandardCharsets.US_ASCII)));
+    assertFalse(parser.nodeEquals("NodeB".getBytes(StandardCharsets.US_ASCII)));
+    assertEquals(1, parser.id());
+    assertEquals(915, parser.memory());
+    assertEquals(11, parser.cpu(), 0);
+    assertEquals(Instant.parse("2018-01-08T01:35:36.934Z"), parser.instant());
+    assertEquals(Instant.parse("2018-01-08T01:35:36.934Z").toEpochMilli(), parser.epochMillis());
+  }
+
+  @Test
+  public void testMatchesRegexParser() {
+    NodeStat nodeStat = new NodeStat();
+    Set<String> components = Collections.singleton("NodeB");
+    String line = "NodeB[42]:Mem=1024MB,Cpu=12.375%,Time=2020-02-29T23:59:59.50Z";
+    assertTrue(parse(line));
+
+    Measurement memory = nodeStat.getMeasurement(line, NodeStat.MEMORY_UTILIZATION, components).get();
+    Measurement cpu = nodeStat.getMeasurement(line, NodeStat.CPU_UTILIZATION, components).get();
+    assertEquals(memory.instance(), String.valueOf(parser.id()));
+    assertEquals(memory.value(), parser.memory(), 0);
+    assertEquals(cpu.value(), parser.cpu(), 0);
+    assertEquals(cpu.instant(), parser.instant());
+  }
+
+  @Test
+  public void testUncommonCpuFormat() {
+    assertTrue(parse("NodeA[1]:Mem=915MB,Cpu=1.5E1%,Time=2018-01-08T01:35:36.934Z"));
+    assertEquals(15, parser.cpu(), 0);
+    assertTrue(parse("NodeA[1]:Mem=915MB,Cpu=0.1234567890123456789%,Time=2018-01-08T01:35:36.934Z"));
+    assertEquals(0.1234567890123456789, parser.cpu(), 0);
+  }
+
+  @Test
+  public void testMalformedLines() {
+    assertFalse(parse(""));
+    assertFalse(parse("NodeA[1]:Mem=915MB,Cpu=11%"));
+    assertFalse(parse("NodeA[]:Mem=915MB,Cpu=11%,Time=2018-01-08T01:35:36.934Z"));
+    assertFalse(parse("NodeA[1]:Mem=-915MB,Cpu=11%,Time=2018-01-08T01:35:36.934Z"));
+    assertFalse(parse("NodeA[1]:Mem=915MB,Cpu=x%,Time=2018-01-08T01:35:36.934Z"));
+    assertFalse(parse("NodeA[1]:Mem=915MB,Cpu=11%,Time=2018-13-08T01:35:36.934Z"));
+    assertFalse(parse("NodeA[1]:Mem=915MB,Cpu=11%,Time=2018-01-08T01:35:36.934"));
+    assertFalse(parse("NodeA[1]:Mem=915MB,Cpu=11%,Time=2018-01-08T01:35:36.934Z trailing"));
+  }
+
+  @Test
+  public void testEpochDay() {
+    for (LocalDate date = LocalDate.of(1960, 1, 1); date.getYear() < 2100; date = date.plusDays(13)) {
+      assertEquals(date.toEpochDay(),
+                   NodeStatParser.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+    }
+  }
+
+  private boolean parse(String line) {
+    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+    return parser.parse(ByteBuffer.wrap(bytes), 0, bytes.length);
+  }
+}
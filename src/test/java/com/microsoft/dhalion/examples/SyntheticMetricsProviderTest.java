@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import com.microsoft.dhalion.conf.Config;
+import com.microsoft.dhalion.conf.ConfigBuilder;
+import com.microsoft.dhalion.core.MeasurementsTable;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SyntheticMetricsProviderTest {
+  private static final Instant START = Instant.parse("2018-01-08T01:35:00Z");
+
+  @Test
+  public void testWindowAndDeterminism() {
+    ConfigBuilder builder = new ConfigBuilder("").put(SyntheticMetricsProvider.CONF_INSTANCES, 4);
+    SyntheticMetricsProvider provider = new SyntheticMetricsProvider(builder.build());
+
+    // window start is exclusive and end inclusive, one measurement per minute
+    MeasurementsTable result = fetch(provider, START, Duration.ofMinutes(3), "Cpu", "Mem");
+    assertEquals(3 * 2 * 2 * 4, result.size());
+    assertEquals(0, result.instant(START.minus(Duration.ofMinutes(3))).size());
+    assertEquals(16, result.instant(START).size());
+
+    // the same measurement has the same value in a different window and provider instance
+    double value = result.instant(START).component("NodeA").instance("2").type("Cpu").first().value();
+    provider = new SyntheticMetricsProvider(builder.build());
+    MeasurementsTable other = fetch(provider, START.plusSeconds(30), Duration.ofMinutes(1), "Cpu", "Mem");
+    assertEquals(value, other.component("NodeA").instance("2").type("Cpu").first().value(), 0);
+
+    // no measurements before the cluster start, which yaml parses to a date unless quoted
+    provider = new SyntheticMetricsProvider(
+        builder.put(SyntheticMetricsProvider.CONF_START, Date.from(START.minus(Duration.ofMinutes(1)))).build());
+    assertEquals(2 * 2 * 2 * 4, fetch(provider, START, Duration.ofDays(1000), "Cpu", "Mem").size());
+
+    // a different seed produces different values
+    provider = new SyntheticMetricsProvider(builder.put(SyntheticMetricsProvider.CONF_SEED, 2).build());
+    other = fetch(provider, START, Duration.ofMinutes(1), "Cpu", "Mem");
+    assertNotEquals(value, other.component("NodeA").instance("2").type("Cpu").first().value(), 0);
+  }
+
+  @Test
+  public void testAnomalies() {
+    ConfigBuilder builder = new ConfigBuilder("")
+        .put(SyntheticMetricsProvider.CONF_INSTANCES, 100)
+        .put(SyntheticMetricsProvider.CONF_BASELINE, 30)
+        .put(SyntheticMetricsProvider.CONF_NOISE, 1);
+    MeasurementsTable normal = fetch(new SyntheticMetricsProvider(builder.build()), START, Duration.ofHours(1));
+    assertEquals(30, normal.mean(), 0.5);
+
+    Config conf = builder.put(SyntheticMetricsProvider.CONF_HOT_FRACTION, 0.1).build();
+    MeasurementsTable hot = fetch(new SyntheticMetricsProvider(conf), START, Duration.ofHours(1));
+    int hotInstances = hot.valueBetween(60, 100).uniqueInstances().size();
+    assertTrue(hotInstances > 0 && hotInstances < 30);
+
+    conf = builder.put(SyntheticMetricsProvider.CONF_HOT_FRACTION, 0).put(SyntheticMetricsProvider.CONF_SKEW, 0.5).build();
+    MeasurementsTable skewed = fetch(new SyntheticMetricsProvider(conf), START, Duration.ofHours(1));
+    assertEquals(15, skewed.instance("0").mean(), 0.5);
+    assertEquals(45, skewed.instance("99").mean(), 0.5);
+
+    conf = builder.put(SyntheticMetricsProvider.CONF_SKEW, 0)
+                  .put(SyntheticMetricsProvider.CONF_DRIFT, 10.0)
+                  .put(SyntheticMetricsProvider.CONF_DRIFT_START, START.minus(Duration.ofHours(2)).toString())
+                  .build();
+    MeasurementsTable drifted = fetch(new SyntheticMetricsProvider(conf), START, Duration.ofMinutes(1));
+    assertEquals(50, drifted.mean(), 0.5);
+  }
+
+  private static MeasurementsTable fetch(SyntheticMetricsProvider provider,
+                                         Instant start,
+                                         Duration duration,
+                                         String... metrics) {
+    return MeasurementsTable.of(provider.getMeasurements(start,
+                                                         duration,
+                                                         metrics.length == 0
+                                                             ? Collections.singletonList("Cpu")
+                                                             : Arrays.asList(metrics),
+                                                         Arrays.asList("NodeA", "NodeB")));
+  }
+}
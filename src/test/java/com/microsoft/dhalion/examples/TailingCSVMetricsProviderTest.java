@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.examples;
+
+import com.microsoft.dhalion.conf.Config;
+import com.microsoft.dhalion.conf.Key;
+import com.microsoft.dhalion.core.MeasurementsTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TailingCSVMetricsProviderTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path file;
+  private TailingCSVMetricsProvider provider;
+
+  @Before
+  public void setup() {
+    Config conf = mock(Config.class);
+    when(conf.get(Key.DATA_DIR.value())).thenReturn(folder.getRoot().getAbsolutePath());
+    when(conf.get(TailingCSVMetricsProvider.CONF_RETENTION)).thenReturn(5 * 60 * 1000);
+    file = folder.getRoot().toPath().resolve(CSVMetricsProvider.DATA_FILE);
+    provider = new TailingCSVMetricsProvider(conf);
+    provider.initialize();
+  }
+
+  @After
+  public void cleanup() {
+    provider.close();
+  }
+
+  @Test
+  public void testReadsAppendedLines() throws IOException {
+    assertEquals(0, fetch("01:40:00Z", "Cpu", "NodeA").size());
+
+    append(line("A", 1, 11, "01:35:36.934Z"), line("B", 2, 93, "01:35:36.934Z"), line("A", 1, 21, "01:36:3"));
+    MeasurementsTable result = fetch("01:40:00Z", "Cpu", "NodeA");
+    assertEquals(1, result.size());
+    assertEquals(11, result.first().value(), 0);
+
+    // completes the partially written line
+    append("6.934Z\n", line("A", 3, 31, "01:37:36.934Z"));
+    result = fetch("01:40:00Z", "Cpu", "NodeA");
+    assertEquals(3, result.size());
+    assertEquals(2, result.instance("1").size());
+
+    result = fetch("01:40:00Z", "Mem", "NodeB");
+    assertEquals(1, result.size());
+    assertEquals("2", result.first().instance());
+  }
+
+  @Test
+  public void testRotation() throws IOException {
+    append(line("A", 1, 11, "01:35:36.934Z"));
+    assertEquals(1, fetch("01:40:00Z", "Cpu", "NodeA").size());
+
+    // lines written to the old file before it was moved are not lost
+    append(line("A", 1, 12, "01:36:36.934Z"));
+    Files.move(file, file.resolveSibling("data.txt.1"));
+    append(line("A", 1, 13, "01:37:36.934Z"));
+
+    MeasurementsTable result = fetch("01:40:00Z", "Cpu", "NodeA");
+    assertEquals(3, result.size());
+    assertEquals(13, result.sort(false, MeasurementsTable.SortKey.TIME_STAMP).last().value(), 0);
+
+    // truncation, detected as the file is shorter than the consumed length
+    Files.write(file, new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
+    append(line("A", 1, 4, "01:38:36.934Z"));
+    assertEquals(4, fetch("01:40:00Z", "Cpu", "NodeA").size());
+  }
+
+  @Test
+  public void testRetention() throws IOException {
+    append(line("A", 1, 11, "01:30:36.934Z"), line("A", 1, 12, "01:31:36.934Z"), line("A", 1, 13, "01:36:00.000Z"));
+    MeasurementsTable result = fetch("01:40:00Z", "Cpu", "NodeA");
+    assertEquals(2, result.size());
+  }
+
+  private MeasurementsTable fetch(String time, String metric, String component) {
+    Instant start = Instant.parse("2018-01-08T" + time);
+    return MeasurementsTable.of(provider.getMeasurements(start,
+                                                         Duration.ofMinutes(10),
+                                                         Collections.singletonList(metric),
+                                                         Arrays.asList(component, "NodeC")));
+  }
+
+  private void append(String... lines) throws IOException {
+    Files.write(file, String.join("", lines).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  private static String line(String node, int id, int cpu, String time) {
+    String line = String.format("Node%s[%d]:Mem=915MB,Cpu=%d%%,Time=2018-01-08T%s", node, id, cpu, time);
+    return time.endsWith("Z") ? line + "\n" : line;
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.logging;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncHandlerTest {
+  @Test
+  public void testPublishInOrder() {
+    RecordingHandler delegate = new RecordingHandler(null);
+    AsyncHandler handler = new AsyncHandler(128, delegate);
+    for (int i = 0; i < 100; i++) {
+      handler.publish(record("message " + i));
+    }
+    handler.flush();
+    assertEquals(100, delegate.records.size());
+    assertEquals("message 99", delegate.records.get(99).getMessage());
+    assertEquals("test", delegate.records.get(0).getSourceClassName());
+
+    handler.setLevel(Level.WARNING);
+    handler.publish(record("ignored"));
+    handler.close();
+    assertEquals(100, delegate.records.size());
+    assertTrue(delegate.closed);
+  }
+
+  @Test
+  public void testDropOldestWhenFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    RecordingHandler delegate = new RecordingHandler(release);
+    AsyncHandler handler = new AsyncHandler(4, delegate);
+
+    // the publisher blocks on the first record, the following records fill the ring
+    handler.publish(record("first"));
+    assertTrue(delegate.blocked.await(1, TimeUnit.SECONDS));
+    for (int i = 0; i < 10; i++) {
+      handler.publish(record("message " + i));
+    }
+    release.countDown();
+    handler.close();
+
+    List<LogRecord> records = delegate.records;
+    assertEquals(6, records.size());
+    assertEquals("first", records.get(0).getMessage());
+    assertEquals(Level.WARNING, records.get(1).getLevel());
+    assertEquals(6L, records.get(1).getParameters()[0]);
+    assertEquals("message 6", records.get(2).getMessage());
+    assertEquals("message 9", records.get(5).getMessage());
+  }
+
+  @Test
+  public void testRateLimitedLogger() {
+    Logger logger = Logger.getLogger(AsyncHandlerTest.class.getName() + ".rateLimited");
+    logger.setUseParentHandlers(false);
+    RecordingHandler delegate = new RecordingHandler(null);
+    logger.addHandler(delegate);
+
+    RateLimitedLogger limited = new RateLimitedLogger(logger, Duration.ofMillis(50));
+    assertTrue(limited.log(Level.WARNING, "a", "outliers={0}", 1));
+    assertFalse(limited.log(Level.WARNING, "a", "outliers={0}", 2));
+    assertFalse(limited.log(Level.WARNING, "a", "outliers={0}", 3));
+    assertTrue(limited.log(Level.WARNING, "b", "outliers={0}", 4));
+    assertFalse(limited.log(Level.FINEST, "c", "outliers={0}", 5));
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (!limited.log(Level.WARNING, "a", "outliers={0}", 6)) {
+      assertTrue(System.nanoTime() < deadline);
+    }
+    assertEquals(3, delegate.records.size());
+    LogRecord last = delegate.records.get(2);
+    assertEquals("outliers={0} suppressed={1}", last.getMessage());
+    assertEquals(6, last.getParameters()[0]);
+    assertTrue((Long) last.getParameters()[1] >= 2);
+  }
+
+  private static LogRecord record(String message) {
+    LogRecord record = new LogRecord(Level.INFO, message);
+    record.setLoggerName("test");
+    return record;
+  }
+
+  private static class RecordingHandler extends Handler {
+    private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release;
+    private final CountDownLatch blocked = new CountDownLatch(1);
+    private volatile boolean closed;
+
+    private RecordingHandler(CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+      records.add(record);
+      blocked.countDown();
+      if (release != null) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+  @Test
+  public void testMetrics() {
+    MetricsRegistry registry = new MetricsRegistry();
+    Timer timer = registry.timer("t");
+    assertSame(timer, registry.timer("t"));
+    timer.record(10);
+    timer.record(30);
+    assertEquals(2, timer.count());
+    assertEquals(40, timer.totalNanos());
+    assertEquals(30, timer.maxNanos());
+    assertEquals(20, timer.meanNanos(), 0);
+    assertEquals("x", timer.time(() -> "x"));
+    assertEquals(3, timer.count());
+
+    Counter counter = registry.counter("c");
+    counter.inc();
+    counter.inc(4);
+    assertEquals(5, registry.counter("c").count());
+
+    Gauge gauge = () -> 1;
+    assertSame(gauge, registry.gauge("g", gauge));
+    assertSame(gauge, registry.gauge("g", () -> 2));
+    assertEquals(1, registry.gauges().get("g").value(), 0);
+  }
+
+  @Test
+  public void testListener() {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.timer("t1");
+    List<String> added = new ArrayList<>();
+    registry.addListener(new MetricsRegistry.Listener() {
+      @Override
+      public void timerAdded(String name, Timer timer) {
+        added.add(name);
+      }
+
+      @Override
+      public void counterAdded(String name, Counter counter) {
+        added.add(name);
+      }
+
+      @Override
+      public void gaugeAdded(String name, Gauge gauge) {
+        added.add(name);
+      }
+    });
+    assertEquals(1, added.size());
+
+    registry.timer("t1");
+    registry.timer("t2");
+    registry.counter("c");
+    registry.gauge("g", () -> 0);
+    registry.gauge("g", () -> 0);
+    assertEquals(4, added.size());
+    assertEquals("t2", added.get(1));
+  }
+
+  @Test
+  public void testJmxReporter() throws Exception {
+    MBeanServer server = MBeanServerFactory.newMBeanServer();
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.timer("policy.sensors").record(2_000_000);
+
+    JmxMetricsReporter reporter = new JmxMetricsReporter(registry, server);
+    reporter.start();
+    registry.counter("policy.actions").inc(3);
+    AtomicInteger size = new AtomicInteger(7);
+    registry.gauge("policy.tables.measurements", size::get);
+
+    assertEquals(1L, server.getAttribute(JmxMetricsReporter.objectName("timers", "policy.sensors"), "Count"));
+    assertEquals(2.0, server.getAttribute(JmxMetricsReporter.objectName("timers", "policy.sensors"), "MaxMillis"));
+    assertEquals(3L, server.getAttribute(JmxMetricsReporter.objectName("counters", "policy.actions"), "Count"));
+    size.set(9);
+    assertEquals(9.0,
+                 server.getAttribute(JmxMetricsReporter.objectName("gauges", "policy.tables.measurements"), "Value"));
+
+    reporter.close();
+    assertFalse(server.isRegistered(JmxMetricsReporter.objectName("timers", "policy.sensors")));
+  }
+
+  @Test
+  public void testDropwizardReporter() {
+    MetricRegistry target = new MetricRegistry();
+    MetricsRegistry registry = new MetricsRegistry();
+    DropwizardMetricsReporter reporter = new DropwizardMetricsReporter(registry, target);
+    reporter.start();
+
+    registry.timer("policy.sensors").record(4_000_000);
+    registry.counter("policy.actions").inc(2);
+    assertEquals(1L, target.getGauges().get("policy.sensors.count").getValue());
+    assertEquals(4.0, target.getGauges().get("policy.sensors.mean_ms").getValue());
+    assertEquals(2L, target.getGauges().get("policy.actions").getValue());
+
+    reporter.close();
+    assertTrue(target.getGauges().isEmpty());
+  }
+
+  @Test
+  public void testDropwizardReporterSkipsRegisteredNames() {
+    MetricRegistry target = new MetricRegistry();
+    target.counter("host.requests");
+    MetricsRegistry registry = new MetricsRegistry();
+    DropwizardMetricsReporter reporter = new DropwizardMetricsReporter(registry, target);
+    reporter.start();
+
+    // names of the host and colliding names of a timer and a counter do not fail the creation of the metrics
+    registry.counter("host.requests").inc();
+    registry.timer("policy.sensors");
+    Counter count = registry.counter("policy.sensors.count");
+    count.inc(5);
+    assertEquals(0L, target.counter("host.requests").getCount());
+    assertEquals(0L, target.getGauges().get("policy.sensors.count").getValue());
+
+    // metrics which were not registered by the reporter are kept
+    reporter.close();
+    assertTrue(target.getGauges().isEmpty());
+    assertTrue(target.getCounters().containsKey("host.requests"));
+  }
+}
@@ -7,17 +7,31 @@
 
 package com.microsoft.dhalion.policy;
 
+import com.microsoft.dhalion.api.IDetector;
 import com.microsoft.dhalion.api.IHealthPolicy;
+import com.microsoft.dhalion.api.IResolver;
+import com.microsoft.dhalion.api.ISensor;
 import com.microsoft.dhalion.core.Action;
+import com.microsoft.dhalion.core.ActionTable;
 import com.microsoft.dhalion.core.Diagnosis;
 import com.microsoft.dhalion.core.Measurement;
 import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.events.EventHandler;
+import com.microsoft.dhalion.events.EventManager;
+import com.microsoft.dhalion.events.PolicyEvent;
+import com.microsoft.dhalion.metrics.MetricsRegistry;
+import com.microsoft.dhalion.tracing.Span;
+import com.microsoft.dhalion.tracing.Tracer;
 import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import com.microsoft.dhalion.wal.OutcomeLog;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.mockito.exceptions.verification.WantedButNotInvoked;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -29,6 +43,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.anyList;
@@ -39,6 +54,9 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class PoliciesExecutorTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @Test
   public void verifyPeriodicPolicyInvocation() throws Exception {
     HealthPolicyImpl policy1 = spy(new HealthPolicyImpl());
@@ -92,6 +110,203 @@ public class PoliciesExecutorTest {
     executor.destroy();
   }
 
+  @Test
+  public void verifyCycleMetrics() {
+    Instant now = Instant.now();
+    ISensor sensor = mock(ISensor.class);
+    when(sensor.fetch()).thenReturn(Arrays.asList(new Measurement("c", "i1", "m", now, 1),
+                                                  new Measurement("c", "i2", "m", now, 2)));
+    IDetector detector = mock(IDetector.class);
+    when(detector.detect(anyList())).thenReturn(Collections.singletonList(new Symptom("s", now, null, null)));
+
+    HealthPolicyImpl policy = new HealthPolicyImpl();
+    policy.registerSensors(sensor);
+    policy.registerDetectors(detector);
+    MetricsRegistry metrics = new MetricsRegistry();
+    PoliciesExecutor executor = new PoliciesExecutor(Collections.singletonList(policy), metrics);
+    assertEquals(1, executor.executeCycle());
+
+    assertEquals(1, metrics.timers().get("HealthPolicyImpl.cycle").count());
+    assertEquals(1, metrics.timers().get("HealthPolicyImpl.sensors").count());
+    String sensorTimer = "HealthPolicyImpl.sensors." + MetricsRegistry.name(sensor.getClass());
+    assertEquals(1, metrics.timers().get(sensorTimer).count());
+    assertEquals(2, metrics.counters().get("HealthPolicyImpl.measurements").count());
+    assertEquals(1, metrics.counters().get("HealthPolicyImpl.symptoms").count());
+    assertEquals(0, metrics.counters().get("HealthPolicyImpl.actions").count());
+    assertEquals(2, metrics.gauges().get("HealthPolicyImpl.tables.measurements").value(), 0);
+    executor.destroy();
+  }
+
+  @Test
+  public void verifyCycleTrace() {
+    Instant now = Instant.now();
+    ISensor sensor = mock(ISensor.class);
+    when(sensor.fetch()).thenReturn(Collections.singletonList(new Measurement("c", "i1", "m", now, 1)));
+    when(sensor.getMetricTypes()).thenReturn(Collections.singletonList("m"));
+    HealthPolicyImpl policy = new HealthPolicyImpl();
+    policy.registerSensors(sensor);
+
+    List<List<Span>> traces = new ArrayList<>();
+    PoliciesExecutor executor
+        = new PoliciesExecutor(Collections.singletonList(policy), new MetricsRegistry(), new Tracer(traces::add, 1));
+    executor.executeCycle();
+
+    assertEquals(1, traces.size());
+    List<Span> trace = traces.get(0);
+    assertEquals(6, trace.size());
+    Span sensorSpan = trace.get(0);
+    Span sensorsSpan = trace.get(1);
+    Span cycleSpan = trace.get(5);
+    assertEquals("HealthPolicyImpl", cycleSpan.name());
+    assertEquals("sensors", sensorsSpan.name());
+    assertEquals(cycleSpan.spanId(), sensorsSpan.parentSpanId());
+    assertEquals(sensorsSpan.spanId(), sensorSpan.parentSpanId());
+    assertEquals("[m]", sensorSpan.attributes().get("dhalion.metrics"));
+    assertEquals(1, sensorSpan.attributes().get("dhalion.outcomes"));
+    executor.destroy();
+  }
+
+  @Test
+  public void verifyCycleEvents() {
+    Instant now = Instant.now();
+    ISensor sensor = mock(ISensor.class);
+    when(sensor.fetch()).thenReturn(Arrays.asList(new Measurement("c", "i1", "m", now, 1),
+                                                  new Measurement("c", "i2", "m", now, 2)));
+    HealthPolicyImpl policy = new HealthPolicyImpl();
+    policy.registerSensors(sensor);
+    policy.setPolicyExecutionInterval(Duration.ZERO);
+
+    EventManager events = new EventManager();
+    List<PolicyEvent> received = new ArrayList<>();
+    List<Integer> outcomes = new ArrayList<>();
+    events.addEventListener(PolicyEvent.class, new EventHandler<PolicyEvent>() {
+      @Override
+      public void onEvent(PolicyEvent event) {
+        received.add(event);
+      }
+    });
+    events.addEventListener(PolicyEvent.Outcomes.class, new EventHandler<PolicyEvent.Outcomes>() {
+      @Override
+      public void onEvent(PolicyEvent.Outcomes event) {
+        outcomes.add(event.outcomes().size());
+      }
+    });
+    PoliciesExecutor executor = new PoliciesExecutor(Collections.singletonList(policy),
+                                                     new MetricsRegistry(),
+                                                     Tracer.NOOP,
+                                                     events);
+    assertEquals(1, executor.executeCycle());
+
+    assertEquals(Arrays.asList(PolicyEvent.CycleStart.class,
+                               PolicyEvent.StageEnd.class,
+                               PolicyEvent.MeasurementsFetched.class,
+                               PolicyEvent.StageEnd.class,
+                               PolicyEvent.SymptomsProduced.class,
+                               PolicyEvent.StageEnd.class,
+                               PolicyEvent.DiagnosesProduced.class,
+                               PolicyEvent.StageEnd.class,
+                               PolicyEvent.ActionsProduced.class,
+                               PolicyEvent.CycleEnd.class),
+                 received.stream().map(Object::getClass).collect(Collectors.toList()));
+    received.forEach(event -> assertEquals("HealthPolicyImpl", event.policyName()));
+    PolicyEvent.StageEnd sensors = (PolicyEvent.StageEnd) received.get(1);
+    assertEquals("sensors", sensors.stage());
+    assertEquals(2, sensors.results());
+    assertEquals(2, ((PolicyEvent.MeasurementsFetched) received.get(2)).measurements().size());
+    assertEquals(Arrays.asList(0, 0, 0), outcomes);
+
+    // a failing handler does not fail the policy
+    events.addEventListener(PolicyEvent.CycleEnd.class, new EventHandler<PolicyEvent.CycleEnd>() {
+      @Override
+      public void onEvent(PolicyEvent.CycleEnd event) {
+        throw new IllegalStateException("failing handler");
+      }
+    });
+    assertEquals(1, executor.executeCycle());
+    executor.destroy();
+  }
+
+  @Test
+  public void verifyCompletedActions() {
+    Instant now = Instant.now();
+    // the builder's table is appended in place, hence the sizes are recorded when the resolver runs
+    List<Integer> sizes = new ArrayList<>();
+    List<ActionTable> seen = new ArrayList<>();
+    List<ExecutionContext> contexts = new ArrayList<>();
+    Action submitted = new Action("a", now, Collections.singletonList("i1"), null, Action.Status.SUBMITTED);
+    IResolver resolver = new IResolver() {
+      @Override
+      public void initialize(ExecutionContext context) {
+        contexts.add(context);
+      }
+
+      @Override
+      public Collection<Action> resolve(Collection<Diagnosis> diagnosis) {
+        seen.add(contexts.get(0).actions());
+        sizes.add(contexts.get(0).actions().size());
+        return seen.size() == 1 ? Collections.singletonList(submitted) : Collections.emptyList();
+      }
+    };
+    HealthPolicyImpl policy = new HealthPolicyImpl();
+    policy.registerResolvers(resolver);
+    policy.setPolicyExecutionInterval(Duration.ZERO);
+    PoliciesExecutor executor = new PoliciesExecutor(Collections.singletonList(policy));
+
+    executor.executeCycle();
+    contexts.get(0).complete(submitted.withStatus(Action.Status.SUCCEEDED, now.plusSeconds(1)));
+    executor.executeCycle();
+
+    assertEquals(Arrays.asList(0, 2), sizes);
+    ActionTable actions = seen.get(1);
+    assertEquals(2, actions.id(submitted.id()).size());
+    assertEquals(Action.Status.SUBMITTED, actions.status(Action.Status.SUBMITTED).first().status());
+    Action completed = actions.status(Action.Status.SUCCEEDED).first();
+    assertEquals(submitted.id(), completed.id());
+    assertEquals(now.plusSeconds(1).toEpochMilli(), completed.instant().toEpochMilli());
+    executor.destroy();
+  }
+
+  @Test
+  public void verifyRecovery() throws Exception {
+    Instant now = Instant.now();
+    Action action = new Action("a", now, Collections.singletonList("i1"), null, Action.Status.SUBMITTED);
+    Path dir = folder.getRoot().toPath();
+    try (OutcomeLog log = new OutcomeLog(dir, 1024, OutcomeLog.Fsync.NEVER, Duration.ZERO)) {
+      PoliciesExecutor executor = new PoliciesExecutor(Collections.singletonList(policyResolving(action)));
+      assertEquals(0, executor.recover(log));
+      executor.executeCycle();
+      executor.destroy();
+    }
+
+    // a restarted health manager sees the actions taken before the restart, the policy is identified by its name
+    List<ExecutionContext> contexts = new ArrayList<>();
+    IResolver resolver = new IResolver() {
+      @Override
+      public void initialize(ExecutionContext context) {
+        contexts.add(context);
+      }
+    };
+    HealthPolicyImpl policy = new HealthPolicyImpl();
+    policy.registerResolvers(resolver);
+    try (OutcomeLog log = new OutcomeLog(dir, 1024, OutcomeLog.Fsync.NEVER, Duration.ZERO)) {
+      PoliciesExecutor executor = new PoliciesExecutor(Collections.singletonList(policy));
+      assertEquals(1, executor.recover(log));
+      ActionTable actions = contexts.get(0).actions();
+      assertEquals(1, actions.size());
+      assertEquals(action.id(), actions.first().id());
+      assertEquals(Action.Status.SUBMITTED, actions.first().status());
+      executor.destroy();
+    }
+  }
+
+  private static HealthPolicyImpl policyResolving(Action action) {
+    IResolver resolver = mock(IResolver.class);
+    when(resolver.resolve(anyList())).thenReturn(Collections.singletonList(action));
+    HealthPolicyImpl policy = new HealthPolicyImpl();
+    policy.registerResolvers(resolver);
+    return policy;
+  }
+
   @Test
   public void verifyExpiry() throws Exception {
     Instant now = Instant.now();
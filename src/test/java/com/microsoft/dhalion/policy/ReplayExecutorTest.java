@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.policy;
+
+import com.microsoft.dhalion.api.IHealthPolicy;
+import com.microsoft.dhalion.api.ISensor;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReplayExecutorTest {
+  private static final Instant START = Instant.parse("2018-01-08T01:35:36.934Z");
+
+  @Test
+  public void testReplayFollowsVirtualClock() {
+    RecordingSensor fast = new RecordingSensor();
+    RecordingSensor slow = new RecordingSensor();
+    HealthPolicyImpl fastPolicy = policy(fast, Duration.ofMinutes(1));
+    HealthPolicyImpl slowPolicy = policy(slow, Duration.ofMinutes(5));
+
+    ReplayExecutor replay = new ReplayExecutor(Arrays.asList(fastPolicy, slowPolicy),
+                                               START,
+                                               START.plus(Duration.ofMinutes(10)));
+    assertEquals(11, replay.run());
+
+    assertEquals(11, fast.checkpoints.size());
+    assertEquals(START, fast.checkpoints.get(0));
+    assertEquals(START.plus(Duration.ofMinutes(10)), fast.checkpoints.get(10));
+    assertEquals(Arrays.asList(START, START.plus(Duration.ofMinutes(5)), START.plus(Duration.ofMinutes(10))),
+                 slow.checkpoints);
+    assertEquals(START.plus(Duration.ofMinutes(11)), replay.now());
+  }
+
+  @Test
+  public void testOneTimeDelay() {
+    RecordingSensor sensor = new RecordingSensor();
+    HealthPolicyImpl policy = new HealthPolicyImpl() {
+      @Override
+      public Collection<Measurement> executeSensors() {
+        if (sensor.checkpoints.isEmpty()) {
+          setOneTimeDelay(Duration.ofMinutes(3));
+        }
+        return super.executeSensors();
+      }
+    };
+    policy.registerSensors(sensor);
+    policy.setPolicyExecutionInterval(Duration.ofMinutes(1));
+
+    new ReplayExecutor(Collections.singletonList(policy), START, START.plus(Duration.ofMinutes(4))).run();
+    assertEquals(Arrays.asList(START, START.plus(Duration.ofMinutes(3)), START.plus(Duration.ofMinutes(4))),
+                 sensor.checkpoints);
+  }
+
+  private static HealthPolicyImpl policy(ISensor sensor, Duration interval) {
+    HealthPolicyImpl policy = new HealthPolicyImpl();
+    policy.registerSensors(sensor);
+    policy.setPolicyExecutionInterval(interval);
+    return policy;
+  }
+
+  private static class RecordingSensor implements ISensor {
+    private final List<Instant> checkpoints = new ArrayList<>();
+    private ExecutionContext context;
+
+    @Override
+    public void initialize(ExecutionContext context) {
+      this.context = context;
+    }
+
+    @Override
+    public Collection<Measurement> fetch() {
+      checkpoints.add(context.checkpoint());
+      return Collections.emptyList();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.policy;
+
+import com.microsoft.dhalion.api.ISensor;
+import com.microsoft.dhalion.conf.PolicyConfig;
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.detectors.CycleOverrunDetector;
+import com.microsoft.dhalion.detectors.SelfMonitoringDetector;
+import com.microsoft.dhalion.metrics.MetricsRegistry;
+import com.microsoft.dhalion.resolvers.PolicyBackoffResolver;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SelfMonitoringPolicyTest {
+  private static final Instant START = Instant.parse("2018-01-08T01:35:36.934Z");
+
+  @Test
+  public void testExpensivePolicyIsBackedOff() {
+    List<Instant> runs = new ArrayList<>();
+    HealthPolicyImpl expensive = new HealthPolicyImpl();
+    expensive.registerSensors(new ISensor() {
+      private PoliciesExecutor.ExecutionContext context;
+
+      @Override
+      public void initialize(PoliciesExecutor.ExecutionContext context) {
+        this.context = context;
+      }
+
+      @Override
+      public Collection<Measurement> fetch() {
+        runs.add(context.checkpoint());
+        try {
+          Thread.sleep(30);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        return Collections.emptyList();
+      }
+    });
+
+    Map<String, Object> conf = new HashMap<>();
+    conf.put(CycleOverrunDetector.CONFIG_KEY_PREFIX + SelfMonitoringDetector.THRESHOLD_CONFIG_KEY, 10);
+    conf.put(PolicyBackoffResolver.CONFIG_KEY_PREFIX + PolicyBackoffResolver.INITIAL_BACKOFF_CONFIG_KEY, 180000);
+    conf.put(PolicyBackoffResolver.CONFIG_KEY_PREFIX + PolicyBackoffResolver.MAX_BACKOFF_CONFIG_KEY, 300000);
+    SelfMonitoringPolicy selfMonitoring = new SelfMonitoringPolicy(new PolicyConfig("self", conf));
+
+    MetricsRegistry metrics = new MetricsRegistry();
+    new ReplayExecutor(Arrays.asList(expensive, selfMonitoring),
+                       START,
+                       START.plus(Duration.ofMinutes(9)),
+                       metrics).run();
+
+    // backed off for 3 minutes after the first run, then for 5 minutes
+    assertEquals(Arrays.asList(START, START.plus(Duration.ofMinutes(3)), START.plus(Duration.ofMinutes(8))), runs);
+    assertEquals(3, metrics.counter("SelfMonitoringPolicy.actions").count());
+    assertEquals(10, metrics.timer("SelfMonitoringPolicy.cycle").count());
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.replay;
+
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.MeasurementsTable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static com.microsoft.dhalion.core.MeasurementsTable.SortKey.TIME_STAMP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MeasurementFileTest {
+  private static final Instant START = Instant.parse("2018-01-08T01:35:36.934Z");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Random random = new Random(1);
+    List<Measurement> written = new ArrayList<>();
+    double[] special = {0, -0.0, 1.5, Double.NaN, Double.MAX_VALUE, Double.MIN_VALUE, Double.NEGATIVE_INFINITY};
+    for (int minute = 0; minute < 100; minute++) {
+      for (int instance = 0; instance < 3; instance++) {
+        double value = minute % 10 == 0 ? special[minute / 10 % special.length] : random.nextInt(100) / 4.0;
+        written.add(new Measurement("NodeA", String.valueOf(instance), "Cpu", START.plusSeconds(60 * minute), value));
+        written.add(new Measurement("NodeB", String.valueOf(instance), "Mem", START.plusSeconds(60 * minute), 915));
+      }
+    }
+
+    // small blocks spread the series over many blocks, small regions map the blocks in several regions
+    Path file = write(written, 50);
+    try (MeasurementFileReader reader = new MeasurementFileReader(file, 1024)) {
+      assertEquals(START, reader.firstInstant());
+      assertEquals(START.plusSeconds(60 * 99), reader.lastInstant());
+
+      Collection<Measurement> all = reader.read(START.minusSeconds(1), START.plusSeconds(6000),
+                                                Arrays.asList("Cpu", "Mem"), Arrays.asList("NodeA", "NodeB"));
+      assertEquals(written.size(), all.size());
+      assertSame(written, all);
+    }
+  }
+
+  @Test
+  public void testReadWindow() throws IOException {
+    List<Measurement> written = new ArrayList<>();
+    for (int minute = 0; minute < 60; minute++) {
+      written.add(new Measurement("NodeA", "1", "Cpu", START.plusSeconds(60 * minute), minute));
+      written.add(new Measurement("NodeA", "1", "Mem", START.plusSeconds(60 * minute), 2 * minute));
+      written.add(new Measurement("NodeB", "2", "Cpu", START.plusSeconds(60 * minute), 3 * minute));
+    }
+
+    try (MeasurementFileReader reader = new MeasurementFileReader(write(written, 16))) {
+      // the window start is exclusive and the end inclusive
+      MeasurementsTable result = MeasurementsTable.of(
+          reader.read(START.plusSeconds(60 * 10), START.plusSeconds(60 * 13),
+                      Collections.singletonList("Cpu"), Collections.singletonList("NodeA")));
+      assertEquals(3, result.size());
+      assertEquals(11, result.sort(false, TIME_STAMP).first().value(), 0);
+      assertEquals(13, result.sort(false, TIME_STAMP).last().value(), 0);
+
+      assertEquals(0, reader.read(START.plusSeconds(60 * 10), START.plusSeconds(60 * 13),
+                                  Collections.singletonList("Cpu"), Collections.singletonList("NodeC")).size());
+      assertEquals(0, reader.read(START.plusSeconds(60 * 60), START.plusSeconds(60 * 70),
+                                  Collections.singletonList("Cpu"), Collections.singletonList("NodeA")).size());
+    }
+  }
+
+  @Test
+  public void testUnorderedBlocks() throws IOException {
+    List<Measurement> written = new ArrayList<>();
+    for (int minute = 0; minute < 20; minute++) {
+      written.add(new Measurement("NodeA", "1", "Cpu", START.plusSeconds(60 * minute), minute));
+    }
+    // a late measurement ends up in the last block
+    written.add(new Measurement("NodeA", "1", "Cpu", START.plusSeconds(60 * 5 + 1), 100));
+
+    try (MeasurementFileReader reader = new MeasurementFileReader(write(written, 4))) {
+      MeasurementsTable result = MeasurementsTable.of(
+          reader.read(START.plusSeconds(60 * 5), START.plusSeconds(60 * 6),
+                      Collections.singletonList("Cpu"), Collections.singletonList("NodeA")));
+      assertEquals(2, result.size());
+      assertEquals(100, result.sort(false, TIME_STAMP).first().value(), 0);
+    }
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    try (MeasurementFileReader reader = new MeasurementFileReader(write(Collections.emptyList(), 4))) {
+      assertNull(reader.firstInstant());
+      assertEquals(0, reader.read(START, START.plusSeconds(60),
+                                  Collections.singletonList("Cpu"), Collections.singletonList("NodeA")).size());
+    }
+  }
+
+  private Path write(List<Measurement> measurements, int blockSize) throws IOException {
+    Path file = folder.newFile().toPath();
+    try (MeasurementFileWriter writer = new MeasurementFileWriter(file, blockSize)) {
+      for (Measurement measurement : measurements) {
+        writer.write(measurement);
+      }
+    }
+    return file;
+  }
+
+  private static void assertSame(List<Measurement> expected, Collection<Measurement> actual) {
+    List<String> expectedRows = new ArrayList<>();
+    expected.forEach(m -> expectedRows.add(m.toString()));
+    List<String> actualRows = new ArrayList<>();
+    actual.forEach(m -> actualRows.add(m.toString()));
+    Collections.sort(expectedRows);
+    Collections.sort(actualRows);
+    assertEquals(expectedRows, actualRows);
+  }
+}
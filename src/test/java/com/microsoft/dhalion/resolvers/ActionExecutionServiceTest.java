@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.resolvers;
+
+import com.microsoft.dhalion.core.Action;
+import com.microsoft.dhalion.core.Action.Status;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ActionExecutionServiceTest {
+  private static final Instant NOW = Instant.parse("2018-01-08T01:35:00Z");
+  private final BlockingQueue<Action> completed = new LinkedBlockingQueue<>();
+  private ActionExecutionService service;
+
+  @After
+  public void close() {
+    service.close();
+  }
+
+  @Test
+  public void testSerializesPerTarget() throws Exception {
+    service = new ActionExecutionService(2, 10, 1, Duration.ZERO, Duration.ZERO);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> started = new CopyOnWriteArrayList<>();
+
+    Action first = action("scale", "i1", "i2");
+    Action second = action("restart", "i2");
+    Action third = action("restart", "i3");
+    assertEquals(Status.SUBMITTED, service.submit(first, a -> {
+      started.add("first");
+      return release.await(10, TimeUnit.SECONDS);
+    }, completed::add).status());
+    service.submit(second, a -> started.add("second"), completed::add);
+    service.submit(third, a -> started.add("third"), completed::add);
+
+    // the third action does not share a target with the blocked first one
+    Action done = completed.poll(10, TimeUnit.SECONDS);
+    assertEquals(third.id(), done.id());
+    assertEquals(Status.SUCCEEDED, done.status());
+    assertNull(completed.poll(50, TimeUnit.MILLISECONDS));
+    assertEquals(2, service.pending());
+
+    release.countDown();
+    assertEquals(first.id(), completed.poll(10, TimeUnit.SECONDS).id());
+    assertEquals(second.id(), completed.poll(10, TimeUnit.SECONDS).id());
+    assertEquals(Arrays.asList("first", "third", "second"), started);
+    assertEquals(0, service.pending());
+  }
+
+  @Test
+  public void testRetries() throws Exception {
+    service = new ActionExecutionService(1, 10, 3, Duration.ofMillis(1), Duration.ofMillis(2));
+    AtomicInteger attempts = new AtomicInteger();
+    service.submit(action("scale", "i1"), a -> attempts.incrementAndGet() == 3, completed::add);
+    assertEquals(Status.SUCCEEDED, completed.poll(10, TimeUnit.SECONDS).status());
+    assertEquals(3, attempts.get());
+
+    attempts.set(0);
+    service.submit(action("scale", "i1"), a -> {
+      attempts.incrementAndGet();
+      throw new IllegalStateException("unavailable");
+    }, completed::add);
+    Action failed = completed.poll(10, TimeUnit.SECONDS);
+    assertEquals(Status.FAILED, failed.status());
+    assertTrue(!failed.instant().isBefore(NOW));
+    assertEquals(3, attempts.get());
+  }
+
+  @Test
+  public void testRejectsWhenFull() throws Exception {
+    service = new ActionExecutionService(1, 1, 1, Duration.ZERO, Duration.ZERO);
+    CountDownLatch release = new CountDownLatch(1);
+    service.submit(action("scale", "i1"), a -> release.await(10, TimeUnit.SECONDS), completed::add);
+
+    Action rejected = action("scale", "i2");
+    assertEquals(Status.REJECTED, service.submit(rejected, a -> true, completed::add).status());
+    release.countDown();
+    assertEquals(Status.SUCCEEDED, completed.poll(10, TimeUnit.SECONDS).status());
+    assertNull(completed.poll(50, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testRejectsWhenTargetIsFull() throws Exception {
+    service = new ActionExecutionService(1, 10, 1, 1, Duration.ZERO, Duration.ZERO, () -> NOW);
+    CountDownLatch release = new CountDownLatch(1);
+    service.submit(action("scale", "i1"), a -> release.await(10, TimeUnit.SECONDS), completed::add);
+
+    // the queue of i1 is full, while other targets are accepted
+    assertEquals(Status.REJECTED, service.submit(action("scale", "i1"), a -> true, completed::add).status());
+    assertEquals(Status.SUBMITTED, service.submit(action("scale", "i2"), a -> true, completed::add).status());
+    release.countDown();
+    for (int i = 0; i < 2; i++) {
+      Action done = completed.poll(10, TimeUnit.SECONDS);
+      assertEquals(Status.SUCCEEDED, done.status());
+      // the completion time is read from the policy clock
+      assertEquals(NOW, done.instant());
+    }
+    assertEquals(Status.SUBMITTED, service.submit(action("scale", "i1"), a -> true, completed::add).status());
+    assertEquals(Status.SUCCEEDED, completed.poll(10, TimeUnit.SECONDS).status());
+  }
+
+  private static Action action(String type, String... assignments) {
+    return new Action(type, NOW, Arrays.asList(assignments), Collections.emptyList());
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.resolvers;
+
+import com.microsoft.dhalion.core.Action;
+import com.microsoft.dhalion.core.ActionTable;
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PlannedResolverTest {
+  private static final Instant START = Instant.parse("2018-01-08T01:35:00Z");
+  private ExecutionContext context;
+
+  @Before
+  public void setup() {
+    context = mock(ExecutionContext.class);
+    when(context.checkpoint()).thenReturn(START);
+    when(context.actions()).thenReturn(ActionTable.of(Collections.emptyList()));
+  }
+
+  @Test
+  public void testCoalescesAndBatches() {
+    RestartResolver resolver = new RestartResolver(new ActionPlanner(Duration.ZERO, Duration.ZERO, 2));
+    resolver.initialize(context);
+
+    Collection<Diagnosis> diagnosis = Arrays.asList(diagnosis("i1", "i2"), diagnosis("i2", "i3"), diagnosis("i1"));
+    Collection<Action> actions = resolver.resolve(diagnosis);
+    assertEquals(2, actions.size());
+    assertEquals(Arrays.asList(Arrays.asList("i1", "i2"), Collections.singletonList("i3")), resolver.batches);
+    actions.forEach(action -> assertEquals(3, action.diagnosis().size()));
+  }
+
+  @Test
+  public void testCoalesceWindow() {
+    RestartResolver resolver = new RestartResolver(new ActionPlanner(Duration.ofMinutes(2), Duration.ZERO, 0));
+    resolver.initialize(context);
+
+    assertTrue(resolver.resolve(Collections.singletonList(diagnosis("i1"))).isEmpty());
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(1)));
+    assertTrue(resolver.resolve(Collections.singletonList(diagnosis("i2", "i1"))).isEmpty());
+    assertEquals(2, resolver.planner().pending());
+
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(2)));
+    assertEquals(1, resolver.resolve(Collections.emptyList()).size());
+    assertEquals(Collections.singletonList(Arrays.asList("i1", "i2")), resolver.batches);
+    assertEquals(0, resolver.planner().pending());
+  }
+
+  @Test
+  public void testCooldown() {
+    RestartResolver resolver = new RestartResolver(new ActionPlanner(Duration.ZERO, Duration.ofMinutes(5), 0));
+    resolver.initialize(context);
+
+    resolver.resolve(Collections.singletonList(diagnosis("i1")));
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(1)));
+    resolver.resolve(Collections.singletonList(diagnosis("i1", "i2")));
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(5)));
+    resolver.resolve(Collections.singletonList(diagnosis("i1", "i2")));
+    assertEquals(Arrays.asList(Collections.singletonList("i1"),
+                               Collections.singletonList("i2"),
+                               Collections.singletonList("i1")),
+                 resolver.batches);
+  }
+
+  @Test
+  public void testCooldownFromHistory() {
+    Action previous = new Action(RestartResolver.RESTART, START.minus(Duration.ofMinutes(1)), Arrays.asList("i1"));
+    Action expired = new Action(RestartResolver.RESTART, START.minus(Duration.ofMinutes(10)), Arrays.asList("i2"));
+    when(context.actions()).thenReturn(ActionTable.of(Arrays.asList(previous, expired)));
+
+    RestartResolver resolver = new RestartResolver(new ActionPlanner(Duration.ZERO, Duration.ofMinutes(5), 0));
+    resolver.initialize(context);
+    resolver.resolve(Collections.singletonList(diagnosis("i1", "i2")));
+    assertEquals(Collections.singletonList(Collections.singletonList("i2")), resolver.batches);
+  }
+
+  @Test
+  public void testFailedExecutionDoesNotCoolDown() {
+    RestartResolver resolver = new RestartResolver(new ActionPlanner(Duration.ZERO, Duration.ofMinutes(5), 0));
+    resolver.initialize(context);
+    resolver.fail = true;
+    assertTrue(resolver.resolve(Collections.singletonList(diagnosis("i1"))).isEmpty());
+
+    resolver.fail = false;
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(1)));
+    assertEquals(1, resolver.resolve(Collections.singletonList(diagnosis("i1"))).size());
+  }
+
+  @Test
+  public void testFailedCompletionDropsCooldown() {
+    RestartResolver resolver = new RestartResolver(new ActionPlanner(Duration.ZERO, Duration.ofMinutes(5), 0));
+    resolver.initialize(context);
+    resolver.status = Action.Status.SUBMITTED;
+    Action submitted = resolver.resolve(Collections.singletonList(diagnosis("i1", "i2"))).iterator().next();
+
+    // the targets of the executing action are cooling down
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(1)));
+    assertTrue(resolver.resolve(Collections.singletonList(diagnosis("i1"))).isEmpty());
+
+    // the asynchronous execution failed
+    Action failed = submitted.withStatus(Action.Status.FAILED, START.plus(Duration.ofMinutes(2)));
+    when(context.actions()).thenReturn(ActionTable.of(Arrays.asList(submitted, failed)));
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(2)));
+    resolver.status = null;
+    assertEquals(1, resolver.resolve(Collections.singletonList(diagnosis("i1"))).size());
+  }
+
+  @Test
+  public void testSucceededCompletionKeepsCooldown() {
+    RestartResolver resolver = new RestartResolver(new ActionPlanner(Duration.ZERO, Duration.ofMinutes(5), 0));
+    resolver.initialize(context);
+    resolver.status = Action.Status.SUBMITTED;
+    Action submitted = resolver.resolve(Collections.singletonList(diagnosis("i1"))).iterator().next();
+
+    Action succeeded = submitted.withStatus(Action.Status.SUCCEEDED, START.plus(Duration.ofMinutes(2)));
+    when(context.actions()).thenReturn(ActionTable.of(Arrays.asList(submitted, succeeded)));
+    when(context.checkpoint()).thenReturn(START.plus(Duration.ofMinutes(5)));
+    // the cooldown starts at the completion
+    assertTrue(resolver.resolve(Collections.singletonList(diagnosis("i1"))).isEmpty());
+  }
+
+  @Test
+  public void testFailedActionFromHistoryDoesNotCoolDown() {
+    Action submitted = new Action(RestartResolver.RESTART,
+                                  START.minus(Duration.ofMinutes(2)),
+                                  Arrays.asList("i1", "i2"),
+                                  Collections.emptyList(),
+                                  Action.Status.SUBMITTED);
+    Action failed = submitted.withStatus(Action.Status.FAILED, START.minus(Duration.ofMinutes(1)));
+    Action pending = new Action(RestartResolver.RESTART,
+                                START.minus(Duration.ofMinutes(1)),
+                                Collections.singletonList("i3"),
+                                Collections.emptyList(),
+                                Action.Status.SUBMITTED);
+    when(context.actions()).thenReturn(ActionTable.of(Arrays.asList(submitted, failed, pending)));
+
+    RestartResolver resolver = new RestartResolver(new ActionPlanner(Duration.ZERO, Duration.ofMinutes(5), 0));
+    resolver.initialize(context);
+    resolver.resolve(Collections.singletonList(diagnosis("i1", "i2", "i3")));
+    assertEquals(Collections.singletonList(Arrays.asList("i1", "i2")), resolver.batches);
+  }
+
+  private static Diagnosis diagnosis(String... instances) {
+    return new Diagnosis("overload", START, Arrays.asList(instances), Collections.emptyList());
+  }
+
+  private static class RestartResolver extends PlannedResolver {
+    static final String RESTART = "restart";
+    private final List<List<String>> batches = new ArrayList<>();
+    private boolean fail = false;
+    // status of the executed actions, null to return them unchanged
+    private Action.Status status;
+
+    RestartResolver(ActionPlanner planner) {
+      super(planner);
+    }
+
+    @Override
+    protected Collection<Action> propose(Collection<Diagnosis> diagnosis) {
+      return diagnosis.stream()
+                      .map(d -> new Action(RESTART, context.checkpoint(), d.assignments(), Collections.singleton(d)))
+                      .collect(Collectors.toList());
+    }
+
+    @Override
+    protected Action execute(Action action) {
+      if (fail) {
+        return null;
+      }
+      batches.add(new ArrayList<>(action.assignments()));
+      return status == null ? action : action.withStatus(status, action.instant());
+    }
+  }
+}
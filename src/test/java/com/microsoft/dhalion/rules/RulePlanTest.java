@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.rules;
+
+import com.microsoft.dhalion.core.Measurement;
+import com.microsoft.dhalion.core.MeasurementsTable;
+import com.microsoft.dhalion.core.Symptom;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RulePlanTest {
+  private static final Instant NOW = Instant.parse("2018-01-08T01:40:00Z");
+
+  private final List<Measurement> measurements = new ArrayList<>();
+
+  private void add(String component, String instance, String metric, int minutesAgo, double value) {
+    measurements.add(new Measurement(component, instance, metric, NOW.minusSeconds(60 * minutesAgo), value));
+  }
+
+  @Test
+  public void testAggregatesAndWindows() {
+    // i1 is hot for the last 5 minutes, i2 had a short spike, i3 is idle
+    for (int minute = 0; minute < 10; minute++) {
+      add("c1", "i1", "Cpu", minute, minute < 5 ? 95 : 20);
+      add("c1", "i2", "Cpu", minute, minute == 0 ? 99 : 30);
+      add("c1", "i3", "Cpu", minute, 1);
+    }
+    add("c1", "i1", "Mem", 0, 950);
+    add("c1", "i2", "Mem", 0, 990);
+    add("c1", "i3", "Mem", 1, 500);
+    add("c1", "i3", "Mem", 0, 700);
+
+    Map<String, String> rules = new LinkedHashMap<>();
+    rules.put("Hot", "avg(Cpu) over 5m > 90 and Mem > 900");
+    rules.put("Spike", "Cpu > 90 and avg(Cpu) over 5m < 90");
+    rules.put("Idle", "max(Cpu) over 1h < 5 AND NOT (count(Mem) < 2)");
+    rules.put("Busy", "(sum(Cpu) over 2m) / count(Cpu) over 2m >= 95 or min(Cpu) - 1 == 0");
+    rules.put("Unknown", "Disk > 0 or -Disk < 0");
+    RulePlan plan = RulePlan.compile(rules);
+
+    Map<String, List<String>> results = plan.evaluate(MeasurementsTable.of(measurements), null, NOW);
+    assertEquals(Arrays.asList("Hot", "Spike", "Idle", "Busy"), new ArrayList<>(results.keySet()));
+    assertEquals(Collections.singletonList("i1"), results.get("Hot"));
+    assertEquals(Collections.singletonList("i2"), results.get("Spike"));
+    assertEquals(Collections.singletonList("i3"), results.get("Idle"));
+    assertEquals(Arrays.asList("i1", "i3"), results.get("Busy"));
+  }
+
+  @Test
+  public void testSymptomsAndGroups() {
+    add("c1", "i1", "Cpu", 0, 95);
+    add("c2", "i1", "Cpu", 0, 10);
+    add("c2", "i2", "Cpu", 0, 10);
+    List<Symptom> symptoms = Arrays.asList(new Symptom("Slow", NOW, Arrays.asList("i1", "i3")),
+                                           new Symptom("Lagging", NOW, Collections.singletonList("i3")));
+
+    Map<String, String> rules = new LinkedHashMap<>();
+    rules.put("SlowAndHot", "symptom(Slow) and 'Cpu' > 90");
+    rules.put("SlowOnly", "symptom(Slow) and not symptom(`Lagging`)");
+    rules.put("Both", "symptom(Slow) and symptom(Lagging) and not count(Cpu) > 0");
+    RulePlan plan = RulePlan.compile(rules);
+    assertEquals(Collections.singleton("Slow"), plan.symptomTypes("SlowAndHot"));
+
+    // the same instance name in different components is evaluated separately
+    Map<String, List<String>> results = plan.evaluate(MeasurementsTable.of(measurements), symptoms, NOW);
+    assertEquals(Collections.singletonList("i1"), results.get("SlowAndHot"));
+    assertEquals(Arrays.asList("i1", "i1"), results.get("SlowOnly"));
+    assertEquals(Collections.singletonList("i3"), results.get("Both"));
+  }
+
+  @Test
+  public void testMetricsWithoutWindowSincePreviousCheckpoint() {
+    // i2 stopped reporting 10 minutes ago
+    add("c1", "i1", "Mem", 0, 950);
+    add("c1", "i2", "Mem", 10, 990);
+    add("c1", "i2", "Cpu", 10, 5);
+    add("c1", "i2", "Cpu", 0, 5);
+
+    Map<String, String> rules = new LinkedHashMap<>();
+    rules.put("Hot", "Mem > 900");
+    rules.put("Quiet", "count(Mem) == 0");
+    rules.put("Recent", "count(Mem) over 1h > 0");
+    RulePlan plan = RulePlan.compile(rules);
+    MeasurementsTable table = MeasurementsTable.of(measurements);
+
+    Map<String, List<String>> results = plan.evaluate(table, null, NOW, NOW.minusSeconds(60));
+    assertEquals(Collections.singletonList("i1"), results.get("Hot"));
+    assertEquals(Collections.singletonList("i2"), results.get("Quiet"));
+    // windowed aggregates are not limited
+    assertEquals(Arrays.asList("i1", "i2"), results.get("Recent"));
+
+    // without a previous checkpoint all measurements are used
+    assertEquals(Arrays.asList("i1", "i2"), plan.evaluate(table, null, NOW, null).get("Hot"));
+  }
+
+  @Test
+  public void testGeneratedEvaluator() {
+    Random random = new Random(1);
+    for (int i = 0; i < 200; i++) {
+      String instance = "i" + i;
+      add("c1", instance, "Cpu", 1, random.nextInt(100));
+      add("c1", instance, "Cpu", 0, random.nextInt(100));
+      if (i % 3 != 0) {
+        add("c1", instance, "Mem", 0, random.nextDouble());
+      }
+    }
+    List<Symptom> symptoms = Collections.singletonList(new Symptom("Slow", NOW, Arrays.asList("i1", "i2", "i3")));
+
+    Map<String, String> rules = new LinkedHashMap<>();
+    rules.put("Lt", "Cpu < 20 or Mem <= 0.1");
+    rules.put("Gt", "avg(Cpu) over 2m > 75 and not (Mem >= 0.5)");
+    rules.put("Eq", "min(Cpu) == 0 or Mem != Mem or count(Mem) == 0");
+    rules.put("Ne", "Cpu != 50 and Mem != 1 and -(Cpu - 1) * 2 / 4 < -10");
+    rules.put("Symptoms", "symptom(Slow) or not symptom(Fast) and max(Cpu) > 1000");
+    MeasurementsTable table = MeasurementsTable.of(measurements);
+    RulePlan generated = RulePlan.compile(rules);
+    RulePlan interpreted = RulePlan.compile(rules, false);
+    assertTrue(generated.evaluator().getClass().getName().endsWith("GeneratedRuleEvaluator"));
+    assertEquals(interpreted.evaluate(table, symptoms, NOW), generated.evaluate(table, symptoms, NOW));
+    assertEquals(5, generated.evaluate(table, symptoms, NOW).size());
+
+    // rules with the same structure share the generated class
+    assertSame(generated.evaluator().getClass(), RulePlan.compile(rules).evaluator().getClass());
+  }
+
+  @Test
+  public void testGeneratedClassCacheIsBounded() {
+    Class<?> first = RulePlan.compile(Collections.singletonMap("Rule", "Cpu > 0")).evaluator().getClass();
+    assertSame(first, RulePlan.compile(Collections.singletonMap("Rule", "Cpu > 0")).evaluator().getClass());
+
+    // constants are part of the class, each threshold change generates a new class
+    for (int i = 1; i <= 100; i++) {
+      RulePlan.compile(Collections.singletonMap("Rule", "Cpu > " + i));
+    }
+    assertNotSame(first, RulePlan.compile(Collections.singletonMap("Rule", "Cpu > 0")).evaluator().getClass());
+  }
+
+  @Test
+  public void testInvalidRules() {
+    assertInvalid("Cpu", "must be a condition");
+    assertInvalid("Cpu > 1 and 2", "must be a condition");
+    assertInvalid("(Cpu > 1) + 1 > 2", "must be numbers");
+    assertInvalid("median(Cpu) > 1", "Unknown function");
+    assertInvalid("avg(Cpu) over 5y > 1", "Unknown duration unit");
+    assertInvalid("Cpu > 1)", "Unexpected ')'");
+    assertInvalid("Cpu >", "Unexpected end");
+    assertInvalid("Cpu = 1", "Unexpected character '='");
+    assertInvalid("Cpu > 80%", "Unexpected character '%'");
+    assertInvalid("'Cpu > 1", "Unterminated name");
+  }
+
+  private static void assertInvalid(String rule, String message) {
+    try {
+      RulePlan.compile(Collections.singletonMap("Rule", rule));
+      fail("Expected an invalid rule: " + rule);
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains(message));
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.sensors;
+
+import com.microsoft.dhalion.metrics.MetricsRegistry;
+import com.microsoft.dhalion.policy.PoliciesExecutor.ExecutionContext;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SelfMonitoringSensorTest {
+  @Test
+  public void testReadsThePolicyTimers() {
+    MetricsRegistry metrics = new MetricsRegistry();
+    ExecutionContext context = mock(ExecutionContext.class);
+    when(context.checkpoint()).thenReturn(Instant.parse("2018-01-08T01:37:36.934Z"));
+    when(context.metrics()).thenReturn(metrics);
+    when(context.policyNames()).thenReturn(Arrays.asList("P1", "P2"));
+
+    metrics.timer("P1.cycle").record(4_000_000);
+    metrics.timer("P1.cycle").record(2_000_000);
+    metrics.timer("P1.lag").record(1_000_000);
+    // timers of plugins are not timers of policies, whatever their name
+    metrics.timer("P1.sensors.cycle").record(9_000_000);
+    metrics.timer("P2.detectors.lag").record(9_000_000);
+
+    SelfMonitoringSensor sensor = new SelfMonitoringSensor();
+    sensor.initialize(context);
+    assertEquals(Arrays.asList("P1/CycleTime=3.0", "P1/ScheduleLag=1.0"), policyMeasurements(sensor));
+
+    // only the durations recorded since the previous fetch
+    metrics.timer("P1.cycle").record(6_000_000);
+    metrics.timer("P2.cycle").record(5_000_000);
+    assertEquals(Arrays.asList("P1/CycleTime=6.0", "P2/CycleTime=5.0"), policyMeasurements(sensor));
+  }
+
+  private static List<String> policyMeasurements(SelfMonitoringSensor sensor) {
+    return sensor.fetch().stream()
+                 .filter(m -> !SelfMonitoringSensor.INSTANCE_JVM.equals(m.instance()))
+                 .map(m -> m.instance() + "/" + m.type() + "=" + m.value())
+                 .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.tracing;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TracerTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testSampling() {
+    List<List<Span>> traces = new ArrayList<>();
+    assertNull(new Tracer(traces::add, 0).startTrace("cycle"));
+    assertNull(Tracer.NOOP.startTrace("cycle"));
+    assertNull(Tracer.NOOP.startSpan(null, "sensors"));
+    Tracer.NOOP.end(null);
+
+    Tracer tracer = new Tracer(traces::add, 1);
+    Span root = tracer.startTrace("cycle");
+    Span child = tracer.startSpan(root, "sensors");
+    assertEquals(root.traceId(), child.traceId());
+    assertEquals(root.spanId(), child.parentSpanId());
+    assertEquals(32, root.traceId().length());
+    assertEquals(16, child.spanId().length());
+
+    tracer.end(child);
+    assertTrue(traces.isEmpty());
+    tracer.end(root);
+    assertEquals(1, traces.size());
+    assertEquals(child, traces.get(0).get(0));
+    assertEquals(root, traces.get(0).get(1));
+    assertTrue(root.endEpochNanos() >= child.endEpochNanos());
+    assertTrue(child.startEpochNanos() >= root.startEpochNanos());
+
+    int sampled = 0;
+    tracer = new Tracer(traces::add, 0.25);
+    for (int i = 0; i < 10000; i++) {
+      sampled += tracer.startTrace("cycle") == null ? 0 : 1;
+    }
+    assertEquals(2500, sampled, 300);
+  }
+
+  @Test
+  public void testOtlpJsonFile() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("traces.jsonl");
+    OtlpJsonFileExporter exporter = new OtlpJsonFileExporter(file, 1000, 3);
+    Tracer tracer = new Tracer(exporter, 1);
+
+    Span root = tracer.startTrace("AlertPolicy");
+    Span child = tracer.startSpan(root, "BasicSensor");
+    child.setAttribute("dhalion.metrics", "[\"Cpu\"]").setAttribute("dhalion.outcomes", 3);
+    child.setError(new IllegalStateException("failed"));
+    tracer.end(child);
+    tracer.end(root);
+
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertEquals(1, lines.size());
+    String json = lines.get(0);
+    assertTrue(json.startsWith("{\"resourceSpans\":[{\"resource\":{\"attributes\":[{\"key\":\"service.name\""));
+    assertTrue(json.contains("\"parentSpanId\":\"" + root.spanId() + "\",\"name\":\"BasicSensor\""));
+    assertTrue(json.contains("{\"key\":\"dhalion.metrics\",\"value\":{\"stringValue\":\"[\\\"Cpu\\\"]\"}}"));
+    assertTrue(json.contains("{\"key\":\"dhalion.outcomes\",\"value\":{\"intValue\":\"3\"}}"));
+    assertTrue(json.contains("\"status\":{\"code\":2,\"message\":\"java.lang.IllegalStateException: failed\"}"));
+    assertTrue(json.endsWith("]}]}]}"));
+
+    // roll over after 1000 bytes, keeping 3 files
+    for (int i = 0; i < 20; i++) {
+      Span span = tracer.startTrace("AlertPolicy");
+      tracer.end(tracer.startSpan(span, "BasicSensor"));
+      tracer.end(span);
+    }
+    tracer.close();
+    assertTrue(Files.exists(file.resolveSibling("traces.jsonl.1")));
+    assertTrue(Files.exists(file.resolveSibling("traces.jsonl.2")));
+    assertFalse(Files.exists(file.resolveSibling("traces.jsonl.3")));
+    assertTrue(Files.size(file.resolveSibling("traces.jsonl.1")) >= 1000);
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *
+ * This program is made available under the terms of the MIT License.
+ * See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.dhalion.wal;
+
+import com.microsoft.dhalion.core.Action;
+import com.microsoft.dhalion.core.Diagnosis;
+import com.microsoft.dhalion.core.Outcome;
+import com.microsoft.dhalion.core.Symptom;
+import com.microsoft.dhalion.wal.OutcomeLog.Fsync;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OutcomeLogTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRecoverCommittedOutcomes() throws IOException {
+    Path dir = folder.getRoot().toPath();
+    Instant now = Instant.ofEpochMilli(1000);
+    Symptom symptom = new Symptom("s", now, Arrays.asList("i1", "i2"));
+    Diagnosis diagnosis = new Diagnosis("d", now, Collections.singletonList("i1"));
+    Action action = new Action("a", now, Collections.singletonList("i1"), null, Action.Status.SUBMITTED);
+
+    try (OutcomeLog log = new OutcomeLog(dir, 1024, Fsync.ALWAYS, Duration.ZERO)) {
+      log.append("p1", Arrays.asList(symptom, diagnosis));
+      log.append("p2", Collections.singletonList(action));
+      log.commit();
+      // appended but not committed, written by close
+      log.append("p1", Collections.singletonList(action.withStatus(Action.Status.FAILED, now.plusMillis(1))));
+    }
+
+    List<String> policies = new ArrayList<>();
+    List<Outcome> outcomes = new ArrayList<>();
+    try (OutcomeLog log = new OutcomeLog(dir, 1024, Fsync.ALWAYS, Duration.ZERO)) {
+      assertEquals(4, log.recover((policy, outcome) -> {
+        policies.add(policy);
+        outcomes.add(outcome);
+      }));
+    }
+
+    assertEquals(Arrays.asList("p1", "p1", "p2", "p1"), policies);
+    Symptom recoveredSymptom = (Symptom) outcomes.get(0);
+    assertEquals(symptom.id(), recoveredSymptom.id());
+    assertEquals("s", recoveredSymptom.type());
+    assertEquals(now, recoveredSymptom.instant());
+    assertEquals(Arrays.asList("i1", "i2"), new ArrayList<>(recoveredSymptom.assignments()));
+    assertEquals(diagnosis.id(), outcomes.get(1).id());
+    Action recoveredAction = (Action) outcomes.get(2);
+    assertEquals(action.id(), recoveredAction.id());
+    assertEquals(Action.Status.SUBMITTED, recoveredAction.status());
+    assertEquals(Action.Status.FAILED, ((Action) outcomes.get(3)).status());
+    assertEquals(now.plusMillis(1), outcomes.get(3).instant());
+  }
+
+  @Test
+  public void testRecoveredIdsAreReserved() throws IOException {
+    Path dir = folder.getRoot().toPath();
+    Symptom symptom = new Symptom("s", Instant.now(), Collections.singletonList("i1"));
+    try (OutcomeLog log = new OutcomeLog(dir, 1024, Fsync.NEVER, Duration.ZERO)) {
+      log.append("p", Collections.singletonList(symptom));
+    }
+
+    // ids of the recovered outcomes are not generated again
+    List<Outcome> outcomes = recover(dir);
+    assertEquals(1, outcomes.size());
+    assertTrue(new Symptom("s", Instant.now(), Collections.singletonList("i1")).id() > outcomes.get(0).id());
+  }
+
+  @Test
+  public void testSegmentRotationAndExpiry() throws IOException {
+    Path dir = folder.getRoot().toPath();
+    Instant now = Instant.ofEpochMilli(10000);
+    try (OutcomeLog log = new OutcomeLog(dir, 1, Fsync.INTERVAL, Duration.ofHours(1))) {
+      // each commit exceeds the segment size, so the next commit starts a new segment
+      for (int i = 0; i < 3; i++) {
+        log.append("p", Collections.singletonList(new Symptom("s" + i, now.plusSeconds(i), Collections.emptyList())));
+        log.commit();
+      }
+      assertEquals(3, log.segments());
+
+      // the current segment is never deleted
+      log.expire(now.plusSeconds(10));
+      assertEquals(1, log.segments());
+    }
+    assertEquals(Collections.singletonList("s2"), types(recover(dir)));
+
+    // the recovered log continues with a new segment
+    try (OutcomeLog log = new OutcomeLog(dir, 1, Fsync.NEVER, Duration.ZERO)) {
+      log.recover((policy, outcome) -> { });
+      log.append("p", Collections.singletonList(new Symptom("s3", now.plusSeconds(3), Collections.emptyList())));
+      log.commit();
+      assertEquals(2, log.segments());
+      log.expire(now.plusSeconds(3));
+      assertEquals(1, log.segments());
+    }
+    assertEquals(Collections.singletonList("s3"), types(recover(dir)));
+  }
+
+  @Test
+  public void testTornRecordIsTruncated() throws IOException {
+    Path dir = folder.getRoot().toPath();
+    Instant now = Instant.now();
+    try (OutcomeLog log = new OutcomeLog(dir, 1024, Fsync.NEVER, Duration.ZERO)) {
+      log.append("p", Collections.singletonList(new Symptom("s1", now, Collections.emptyList())));
+      log.commit();
+      log.append("p", Collections.singletonList(new Symptom("s2", now, Collections.emptyList())));
+    }
+    Path segment = segmentFiles(dir).get(0);
+    long size = Files.size(segment);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      // a crash in the middle of the second record
+      channel.truncate(size - 3);
+    }
+
+    assertEquals(Collections.singletonList("s1"), types(recover(dir)));
+    long truncated = Files.size(segment);
+    assertNotEquals(size - 3, truncated);
+
+    // a record with a wrong checksum ends the segment as well
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[]{1}), truncated - 1);
+    }
+    assertEquals(Collections.emptyList(), types(recover(dir)));
+    assertEquals(0, Files.size(segment));
+  }
+
+  @Test
+  public void testReadErrorIsNotTruncated() throws IOException {
+    Path dir = folder.getRoot().toPath();
+    // a segment which cannot be read
+    Path segment = Files.createDirectory(dir.resolve(String.format("outcomes-%020d.wal", 0)));
+    List<LogRecord> warnings = new ArrayList<>();
+    Handler handler = new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        warnings.add(record);
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    Logger logger = Logger.getLogger(OutcomeLog.class.getName());
+    logger.addHandler(handler);
+    try {
+      recover(dir);
+      fail("A segment which cannot be read fails the recovery");
+    } catch (IOException e) {
+      // the error is not mistaken for a torn record
+      assertTrue(warnings.stream().noneMatch(record -> record.getLevel() == Level.WARNING));
+      assertTrue(Files.isDirectory(segment));
+    } finally {
+      logger.removeHandler(handler);
+    }
+  }
+
+  @Test
+  public void testIntervalSyncWithoutAppends() throws Exception {
+    Path dir = folder.getRoot().toPath();
+    try (OutcomeLog log = new OutcomeLog(dir, 1024, Fsync.INTERVAL, Duration.ofMillis(200))) {
+      log.append("p", Collections.singletonList(new Symptom("s", Instant.now(), Collections.emptyList())));
+      log.commit();
+      assertFalse(log.synced());
+
+      // the last group is synced once the interval has passed, although nothing was appended
+      Thread.sleep(250);
+      log.commit();
+      assertTrue(log.synced());
+    }
+  }
+
+  private static List<Outcome> recover(Path dir) throws IOException {
+    List<Outcome> outcomes = new ArrayList<>();
+    try (OutcomeLog log = new OutcomeLog(dir, 1024, Fsync.NEVER, Duration.ZERO)) {
+      log.recover((policy, outcome) -> outcomes.add(outcome));
+    }
+    return outcomes;
+  }
+
+  private static List<String> types(List<Outcome> outcomes) {
+    return outcomes.stream().map(Outcome::type).collect(Collectors.toList());
+  }
+
+  private static List<Path> segmentFiles(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.sorted().collect(Collectors.toList());
+    }
+  }
+}